@@ -17,6 +17,7 @@
 package org.pneditor.editor;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.pneditor.editor.gpetrinet.GraphicArc;
@@ -61,7 +62,7 @@ public class LocalClipboard {
     	final Set<GraphicElement> filteredElements = new HashSet<>();
     	final Set<GraphicNode> nodes = getNodes(elements);
         for (final GraphicNode node : nodes) {
-        	final Set<GraphicArc> connectedArcEdges = this.gPetriNet.getConnectedGraphicArcs(node);
+        	final List<GraphicArc> connectedArcEdges = this.gPetriNet.getConnectedGraphicArcs(node);
             for (final GraphicArc connectedArcEdge : connectedArcEdges) {
                 if (nodes.contains(connectedArcEdge.getSource()) && nodes.contains(connectedArcEdge.getDestination())) {
                     filteredElements.add(connectedArcEdge);
@@ -17,10 +17,12 @@
 package org.pneditor.editor;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Frame;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.*;
 import java.io.File;
 import java.net.URL;
@@ -36,6 +38,11 @@ import javax.swing.*;
 import javax.swing.event.*;
 import org.pneditor.editor.actions.*;
 import org.pneditor.editor.actions.algorithms.BoundednessAction;
+import org.pneditor.editor.actions.algorithms.ConformanceAction;
+import org.pneditor.editor.actions.algorithms.DiscoveryAction;
+import org.pneditor.editor.actions.algorithms.InvariantsAction;
+import org.pneditor.editor.actions.algorithms.LivenessAction;
+import org.pneditor.editor.actions.algorithms.SiphonsAction;
 import org.pneditor.editor.actions.draw.ArcSelectToolAction;
 import org.pneditor.editor.actions.draw.PlaceSelectToolAction;
 import org.pneditor.editor.actions.draw.SelectionSelectToolAction;
@@ -80,7 +87,7 @@ import org.pneditor.PNEConstantsConfiguration;
  *
  * @author Martin Riesz <riesz.martin at gmail.com>
  */
-public final class Root implements WindowListener, ListSelectionListener, SelectionChangedListener {
+public final class Root implements WindowListener, ListSelectionListener, SelectionChangedListener, UndoManager.View {
 
 	private static final String APP_NAME = "PNEditor";
 	private static final String APP_VERSION = "0.71";
@@ -157,6 +164,7 @@ public final class Root implements WindowListener, ListSelectionListener, Select
 	}
 
 	public void setGraphicPetriNet(final GraphicPetriNet graphicPetriNet) {
+		this.canvas.setAnalysisHighlights(new HashMap<>());
 		this.graphicPetriNet = graphicPetriNet;
 		getUndoManager().eraseAll();
 		refreshAll();
@@ -198,6 +206,13 @@ public final class Root implements WindowListener, ListSelectionListener, Select
 	}
 
 	public void setClickedElement(final GraphicElement clickedElement) {
+		// drawn in another color while clicked
+		if (this.clickedElement != null) {
+			this.canvas.repaintElement(this.clickedElement);
+		}
+		if (clickedElement != null) {
+			this.canvas.repaintElement(clickedElement);
+		}
 		this.clickedElement = clickedElement;
 		enableOnlyPossibleActions();
 	}
@@ -370,15 +385,34 @@ public final class Root implements WindowListener, ListSelectionListener, Select
 	
 	private final Set<JMenuItem> modelsList = new HashSet<>();
 
+	@Override
 	public void refreshAll() {
+		this.canvas.invalidateStaticLayer();
 		this.canvas.repaint();
 		enableOnlyPossibleActions();
 	}
 
+	/**
+	 * Like refreshAll, when only the area of the net changed
+	 */
+	@Override
+	public void refreshArea(final Rectangle area) {
+		this.canvas.invalidateStaticLayer(area);
+		enableOnlyPossibleActions();
+	}
+
 	public void repaintCanvas() {
 		this.canvas.repaint();
 	}
 
+	/**
+	 * Highlights the elements found by an analysis until the next click on the
+	 * canvas
+	 */
+	public void setAnalysisHighlights(final Map<GraphicElement, Color> highlights) {
+		this.canvas.setAnalysisHighlights(highlights);
+	}
+
 	private void enableOnlyPossibleActions() {
 		final boolean isDeletable = this.clickedElement != null || !this.selection.isEmpty();
 		final boolean isCutable = isDeletable;
@@ -647,6 +681,11 @@ public final class Root implements WindowListener, ListSelectionListener, Select
 
 		// asus 2012 algorithms submenu items
 		algorithmsMenu.add(new BoundednessAction(this));
+		algorithmsMenu.add(new InvariantsAction(this));
+		algorithmsMenu.add(new LivenessAction(this));
+		algorithmsMenu.add(new SiphonsAction(this));
+		algorithmsMenu.add(new ConformanceAction(this));
+		algorithmsMenu.add(new DiscoveryAction(this));
 
 		final JMenu helpMenu = new JMenu("Help");
 		helpMenu.add(new AboutAction(this));
@@ -697,6 +736,7 @@ public final class Root implements WindowListener, ListSelectionListener, Select
 		return this.isModified;
 	}
 
+	@Override
 	public void setModified(final boolean isModified) {
 		this.isModified = isModified;
 		this.mainFrame.setTitle(getNewWindowTitle());
@@ -16,6 +16,7 @@
  */
 package org.pneditor.editor;
 
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.AbstractAction;
@@ -31,9 +32,21 @@ import org.pneditor.util.Command;
  */
 public class UndoManager {
 
+    /**
+     * What the undo manager refreshes after a command, the root in the editor
+     */
+    interface View {
+
+        void refreshAll();
+
+        void refreshArea(Rectangle area);
+
+        void setModified(boolean isModified);
+    }
+
     private List<Command> executedCommands = new ArrayList<>();
     private int currentCommandIndex = -1;
-    private final Root root;
+    private final View root;
     private final UndoAction undoAction;
     private final RedoAction redoAction;
 
@@ -45,6 +58,10 @@ public class UndoManager {
      * @param redoAction action for redo button
      */
     public UndoManager(final Root root, final UndoAction undoAction, final RedoAction redoAction) {
+        this((View) root, undoAction, redoAction);
+    }
+
+    UndoManager(final View root, final UndoAction undoAction, final RedoAction redoAction) {
         this.root = root;
         this.undoAction = undoAction;
         this.redoAction = redoAction;
@@ -61,7 +78,7 @@ public class UndoManager {
         this.executedCommands.add(command);
         this.currentCommandIndex = this.executedCommands.size() - 1;
         command.execute();
-        refresh();
+        refresh(command.getChangedArea());
         this.root.setModified(true);
     }
 
@@ -73,7 +90,7 @@ public class UndoManager {
         	final Command command = this.executedCommands.get(this.currentCommandIndex);
             command.undo();
             this.currentCommandIndex--;
-            refresh();
+            refresh(command.getChangedArea());
         }
         this.root.setModified(true);
     }
@@ -86,7 +103,7 @@ public class UndoManager {
         	final Command command = this.executedCommands.get(this.currentCommandIndex + 1);
             command.redo();
             this.currentCommandIndex++;
-            refresh();
+            refresh(command.getChangedArea());
         }
         this.root.setModified(true);
     }
@@ -115,11 +132,18 @@ public class UndoManager {
     public void eraseAll() {
         this.executedCommands = new ArrayList<>();
         this.currentCommandIndex = -1;
-        refresh();
+        refresh(null);
     }
 
-    private void refresh() {
-        this.root.refreshAll();
+    /*
+     * Repaints only the area changed by the command, if it is known
+     */
+    private void refresh(final Rectangle changedArea) {
+        if (changedArea == null) {
+            this.root.refreshAll();
+        } else {
+            this.root.refreshArea(changedArea);
+        }
         if (isUndoable()) {
             this.undoAction.putValue(AbstractAction.SHORT_DESCRIPTION, "Undo: " + this.executedCommands.get(this.currentCommandIndex).toString());
         } else {
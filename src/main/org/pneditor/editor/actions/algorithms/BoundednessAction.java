@@ -18,10 +18,17 @@ package org.pneditor.editor.actions.algorithms;
 
 import java.awt.HeadlessException;
 import java.awt.event.ActionEvent;
+import java.util.Map;
+
 import javax.swing.AbstractAction;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import org.pneditor.editor.Root;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.Boundedness;
 import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.CompiledNet;
+import org.pneditor.petrinet.algorithms.CoverabilityGraph;
 
 import logger.PNEditorLogger;
 
@@ -32,6 +39,8 @@ import logger.PNEditorLogger;
 @SuppressWarnings("serial")
 public class BoundednessAction extends AbstractAction {
 
+    private static final int MAX_NODES = 1000000;
+
     private final Root root;
 
     public BoundednessAction(final Root root) {
@@ -45,19 +54,52 @@ public class BoundednessAction extends AbstractAction {
 
     @Override
     public void actionPerformed(final ActionEvent e) {
+        final CompiledNet net;
         try {
-			if (this.root.getPetriNet().isBounded()) {
-			    JOptionPane.showMessageDialog(this.root.getParentFrame(), "PetriNet is NOT bounded ", "Algorithm output", JOptionPane.INFORMATION_MESSAGE);
+        	net = new CompiledNet(this.root.getPetriNet());
+        } catch (ResetArcMultiplicityException e1) {
+        	PNEditorLogger.severeLogs(e1.getMessage());
+        	return;
+        }
+        final Thread worker = new Thread(() -> {
+        	try {
+        		final Map<AbstractPlace, Integer> bounds = Boundedness.getBounds(net, MAX_NODES);
+        		SwingUtilities.invokeLater(() -> show(bounds));
+        	} catch (RuntimeException e1) {
+        		showError(e1.getMessage() != null ? e1.getMessage() : e1.toString());
+        	} catch (OutOfMemoryError e1) {
+        		showError("Not enough memory for the coverability graph");
+        	}
+        }, "Boundedness");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void showError(final String message) {
+        PNEditorLogger.severeLogs(message);
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this.root.getParentFrame(), message,
+        		"Algorithm output", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private void show(final Map<AbstractPlace, Integer> bounds) {
+        try {
+        	boolean isBounded = true;
+        	final StringBuilder details = new StringBuilder();
+        	for (final Map.Entry<AbstractPlace, Integer> entry : bounds.entrySet()) {
+        		final boolean isPlaceBounded = entry.getValue() != CoverabilityGraph.OMEGA;
+        		isBounded &= isPlaceBounded;
+        		final String label = entry.getKey().getLabel();
+        		details.append('\n').append(label == null || label.isEmpty() ? "#" + entry.getKey().getId() : label)
+        				.append(": ").append(isPlaceBounded ? entry.getValue().toString() : "\u03c9");
+        	}
+			if (isBounded) {
+			    JOptionPane.showMessageDialog(this.root.getParentFrame(), "PetriNet is bounded" + details, "Algorithm output", JOptionPane.INFORMATION_MESSAGE);
 			} else {
-			    JOptionPane.showMessageDialog(this.root.getParentFrame(), "PetriNet is bounded", "Algorithm output", JOptionPane.INFORMATION_MESSAGE);
+			    JOptionPane.showMessageDialog(this.root.getParentFrame(), "PetriNet is NOT bounded" + details, "Algorithm output", JOptionPane.INFORMATION_MESSAGE);
 			}
 		} catch (HeadlessException e1) {
 			PNEditorLogger.warningLogs(e1.getMessage());
-		} catch (ResetArcMultiplicityException e2) {
-			PNEditorLogger.severeLogs(e2.getMessage());
 		}
     }
 
-
-
 }
@@ -0,0 +1,125 @@
+package org.pneditor.editor.actions.algorithms;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.AbstractAction;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import org.pneditor.editor.Root;
+import org.pneditor.editor.gpetrinet.GraphicElement;
+import org.pneditor.editor.gpetrinet.GraphicPlace;
+import org.pneditor.editor.gpetrinet.GraphicTransition;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.CompiledNet;
+import org.pneditor.petrinet.algorithms.ReplayResult;
+import org.pneditor.petrinet.algorithms.TokenReplay;
+import org.pneditor.util.Colors;
+
+import logger.PNEditorLogger;
+
+/**
+ * Replays a workflow log or an XES log on the net and shows the fitness. The
+ * canvas becomes a heatmap: transitions from green to red by the share of
+ * their firings that lacked tokens, places by their missing and remaining
+ * tokens.
+ */
+@SuppressWarnings("serial")
+public class ConformanceAction extends AbstractAction {
+
+	private final Root root;
+
+	public ConformanceAction(final Root root) {
+		super();
+		this.root = root;
+		final String name = "Conformance of a log";
+		putValue(NAME, name);
+		putValue(SHORT_DESCRIPTION, name);
+		setEnabled(true);
+	}
+
+	@Override
+	public void actionPerformed(final ActionEvent e) {
+		final JFileChooser chooser = new JFileChooser(this.root.getCurrentDirectory());
+		if (chooser.showOpenDialog(this.root.getParentFrame()) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		final File file = chooser.getSelectedFile();
+		final TokenReplay replay;
+		try {
+			replay = new TokenReplay(this.root.getPetriNet());
+		} catch (ResetArcMultiplicityException e1) {
+			PNEditorLogger.severeLogs(e1.getMessage());
+			return;
+		}
+		final Thread worker = new Thread(() -> {
+			try {
+				final ReplayResult result = replay.replay(file.toPath());
+				SwingUtilities.invokeLater(() -> show(result));
+			} catch (IOException e1) {
+				PNEditorLogger.severeLogs(e1.getMessage());
+				SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this.root.getParentFrame(),
+						e1.getMessage(), "Algorithm output", JOptionPane.ERROR_MESSAGE));
+			}
+		}, "Conformance");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	private void show(final ReplayResult result) {
+		final CompiledNet net = result.getNet();
+		long worstPlace = 0;
+		final Map<AbstractPlace, Long> deviations = new HashMap<>();
+		for (int p = 0; p < net.getPlaceCount(); p++) {
+			final AbstractPlace place = net.getPlace(p);
+			final long deviation = result.getMissing(place) + result.getRemaining(place);
+			deviations.put(place, deviation);
+			worstPlace = Math.max(worstPlace, deviation);
+		}
+		final Map<AbstractTransition, Double> forcedRatios = new HashMap<>();
+		for (int t = 0; t < net.getTransitionCount(); t++) {
+			final AbstractTransition transition = net.getTransition(t);
+			final long firings = result.getFiringCount(transition);
+			if (firings > 0) {
+				forcedRatios.put(transition, (double) result.getForcedFiringCount(transition) / firings);
+			}
+		}
+		final Map<GraphicElement, Color> highlights = new HashMap<>();
+		for (final GraphicElement element : this.root.getGraphicPetriNet().getElements()) {
+			if (element.isTransition()) {
+				// null for an element added while the log was replayed
+				final Double ratio = forcedRatios.get(((GraphicTransition) element).getTransition());
+				if (ratio != null) {
+					highlights.put(element, heat(ratio));
+				}
+			} else if (element.isPlace() && worstPlace > 0) {
+				final Long deviation = deviations.get(((GraphicPlace) element).getPlace());
+				if (deviation != null) {
+					highlights.put(element, heat((double) deviation / worstPlace));
+				}
+			}
+		}
+		this.root.setAnalysisHighlights(highlights);
+		JOptionPane.showMessageDialog(this.root.getParentFrame(), result.toString(), "Algorithm output",
+				JOptionPane.INFORMATION_MESSAGE);
+	}
+
+	/*
+	 * From PERMITTED for 0 to DISALLOWED for 1
+	 */
+	private static Color heat(final double ratio) {
+		final Color cold = Colors.PERMITTED;
+		final Color hot = Colors.DISALLOWED;
+		return new Color((int) Math.round(cold.getRed() + (hot.getRed() - cold.getRed()) * ratio),
+				(int) Math.round(cold.getGreen() + (hot.getGreen() - cold.getGreen()) * ratio),
+				(int) Math.round(cold.getBlue() + (hot.getBlue() - cold.getBlue()) * ratio));
+	}
+
+}
@@ -0,0 +1,81 @@
+package org.pneditor.editor.actions.algorithms;
+
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.AbstractAction;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import org.pneditor.editor.Root;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
+import org.pneditor.editor.gpetrinet.LayeredLayout;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.algorithms.AlphaMiner;
+import org.pneditor.petrinet.algorithms.DirectlyFollowsGraph;
+
+import logger.PNEditorLogger;
+
+/**
+ * Discovers a net from a workflow log or an XES log by the alpha algorithm,
+ * and opens it in place of the current one.
+ */
+@SuppressWarnings("serial")
+public class DiscoveryAction extends AbstractAction {
+
+	private final Root root;
+
+	public DiscoveryAction(final Root root) {
+		super();
+		this.root = root;
+		final String name = "Discovery from a log";
+		putValue(NAME, name);
+		putValue(SHORT_DESCRIPTION, name);
+		setEnabled(true);
+	}
+
+	@Override
+	public void actionPerformed(final ActionEvent e) {
+		if (this.root.isModified() && JOptionPane.showOptionDialog(this.root.getParentFrame(),
+				"Any unsaved changes will be lost. Continue?", "Discovery...", JOptionPane.DEFAULT_OPTION,
+				JOptionPane.WARNING_MESSAGE, null, new String[] { "Discover...", "Cancel" },
+				"Cancel") != JOptionPane.YES_OPTION) {
+			return;
+		}
+		final JFileChooser chooser = new JFileChooser(this.root.getCurrentDirectory());
+		if (chooser.showOpenDialog(this.root.getParentFrame()) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		final File file = chooser.getSelectedFile();
+		final String model = this.root.getCurrentModel();
+		final Thread worker = new Thread(() -> {
+			try {
+				final DirectlyFollowsGraph graph = DirectlyFollowsGraph.count(file.toPath(),
+						Runtime.getRuntime().availableProcessors());
+				final GraphicPetriNet petriNet = new GraphicPetriNet(model);
+				new AlphaMiner(graph).build(petriNet.getPetriNet());
+				LayeredLayout.layout(petriNet);
+				SwingUtilities.invokeLater(() -> show(petriNet, graph));
+			} catch (IOException | UnimplementedCaseException e1) {
+				PNEditorLogger.severeLogs(e1.getMessage());
+				SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this.root.getParentFrame(),
+						e1.getMessage(), "Algorithm output", JOptionPane.ERROR_MESSAGE));
+			}
+		}, "Discovery");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	private void show(final GraphicPetriNet petriNet, final DirectlyFollowsGraph graph) {
+		this.root.setGraphicPetriNet(petriNet);
+		this.root.setCurrentFile(null);
+		this.root.setModified(true);
+		JOptionPane.showMessageDialog(this.root.getParentFrame(),
+				graph.getCaseCount() + " cases, " + graph.getEventCount() + " events, "
+						+ graph.getActivityCount() + " activities, " + graph.getPairCount()
+						+ " directly-follows pairs",
+				"Algorithm output", JOptionPane.INFORMATION_MESSAGE);
+	}
+
+}
@@ -0,0 +1,99 @@
+package org.pneditor.editor.actions.algorithms;
+
+import java.awt.HeadlessException;
+import java.awt.event.ActionEvent;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import org.pneditor.editor.Root;
+import org.pneditor.petrinet.AbstractNode;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.CompiledNet;
+import org.pneditor.petrinet.algorithms.Invariants;
+
+import logger.PNEditorLogger;
+
+/**
+ * Shows the minimal P- and T-invariants of the net, and whether they prove it
+ * structurally bounded.
+ */
+@SuppressWarnings("serial")
+public class InvariantsAction extends AbstractAction {
+
+	private final Root root;
+
+	public InvariantsAction(final Root root) {
+		super();
+		this.root = root;
+		final String name = "Invariants";
+		putValue(NAME, name);
+		putValue(SHORT_DESCRIPTION, name);
+		setEnabled(true);
+	}
+
+	@Override
+	public void actionPerformed(final ActionEvent e) {
+		final CompiledNet net;
+		try {
+			net = new CompiledNet(this.root.getPetriNet());
+		} catch (ResetArcMultiplicityException e1) {
+			PNEditorLogger.severeLogs(e1.getMessage());
+			return;
+		}
+		// Farkas may build exponentially many rows
+		final Thread worker = new Thread(() -> {
+			final Invariants invariants = new Invariants(net);
+			final StringBuilder message = new StringBuilder();
+			message.append(invariants.isCoveredByPlaceInvariants() ? "PetriNet is structurally bounded"
+					: "PetriNet is not covered by P-invariants");
+			message.append("\n\nP-invariants:");
+			final List<long[]> placeInvariants = invariants.getPlaceInvariants();
+			for (final long[] invariant : placeInvariants) {
+				message.append('\n');
+				appendSum(message, invariant, true, net);
+			}
+			message.append("\n\nT-invariants:");
+			for (final long[] invariant : invariants.getTransitionInvariants()) {
+				message.append('\n');
+				appendSum(message, invariant, false, net);
+			}
+			if (!invariants.isComplete()) {
+				message.append("\n\n(some invariants may be missing)");
+			}
+			SwingUtilities.invokeLater(() -> show(message.toString()));
+		}, "Invariants");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	private void show(final String message) {
+		try {
+			JOptionPane.showMessageDialog(this.root.getParentFrame(), message, "Algorithm output",
+					JOptionPane.INFORMATION_MESSAGE);
+		} catch (HeadlessException e1) {
+			PNEditorLogger.warningLogs(e1.getMessage());
+		}
+	}
+
+	private static void appendSum(final StringBuilder message, final long[] invariant, final boolean isForPlaces,
+			final CompiledNet net) {
+		boolean isFirst = true;
+		for (int i = 0; i < invariant.length; i++) {
+			if (invariant[i] != 0) {
+				if (!isFirst) {
+					message.append(" + ");
+				}
+				isFirst = false;
+				if (invariant[i] != 1) {
+					message.append(invariant[i]).append('·');
+				}
+				final AbstractNode node = isForPlaces ? net.getPlace(i) : net.getTransition(i);
+				final String label = node.getLabel();
+				message.append(label == null || label.isEmpty() ? "#" + node.getId() : label);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+package org.pneditor.editor.actions.algorithms;
+
+import java.awt.Color;
+import java.awt.HeadlessException;
+import java.awt.event.ActionEvent;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.AbstractAction;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import org.pneditor.editor.Root;
+import org.pneditor.editor.gpetrinet.GraphicElement;
+import org.pneditor.editor.gpetrinet.GraphicTransition;
+import org.pneditor.petrinet.AbstractNode;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.CompiledNet;
+import org.pneditor.petrinet.algorithms.LivenessAnalysis;
+import org.pneditor.petrinet.algorithms.ReachabilityGraph;
+import org.pneditor.petrinet.algorithms.StateSpaceExplorer;
+import org.pneditor.util.Colors;
+
+import logger.PNEditorLogger;
+
+/**
+ * Shows the deadlocks and the liveness level of every transition, and
+ * highlights the dead and the non-live transitions on the canvas.
+ */
+@SuppressWarnings("serial")
+public class LivenessAction extends AbstractAction {
+
+	private static final int MAX_STATES = 1000000;
+
+	private final Root root;
+
+	public LivenessAction(final Root root) {
+		super();
+		this.root = root;
+		final String name = "Deadlocks and liveness";
+		putValue(NAME, name);
+		putValue(SHORT_DESCRIPTION, name);
+		setEnabled(true);
+	}
+
+	@Override
+	public void actionPerformed(final ActionEvent e) {
+		final CompiledNet net;
+		try {
+			net = new CompiledNet(this.root.getPetriNet());
+		} catch (ResetArcMultiplicityException e1) {
+			PNEditorLogger.severeLogs(e1.getMessage());
+			return;
+		}
+		final Thread worker = new Thread(() -> {
+			final StateSpaceExplorer explorer = new StateSpaceExplorer(net);
+			explorer.setMaxStates(MAX_STATES);
+			final ReachabilityGraph graph = explorer.explore();
+			if (!graph.isComplete()) {
+				final String warning = graph.hasOverflow()
+						? "A place exceeds " + Integer.MAX_VALUE + " tokens, the net is unbounded"
+						: "More than " + MAX_STATES + " reachable markings, the net may be unbounded";
+				SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this.root.getParentFrame(), warning,
+						"Algorithm output", JOptionPane.WARNING_MESSAGE));
+				return;
+			}
+			final LivenessAnalysis analysis = new LivenessAnalysis(graph);
+			SwingUtilities.invokeLater(() -> show(graph, analysis));
+		}, "Deadlocks and liveness");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	private void show(final ReachabilityGraph graph, final LivenessAnalysis analysis) {
+		try {
+			final StringBuilder message = new StringBuilder();
+			message.append(graph.getStateCount()).append(" reachable markings\n");
+			final AbstractTransition[] witness = analysis.getDeadlockWitness();
+			if (witness == null) {
+				message.append("No deadlock");
+			} else {
+				message.append("Deadlock reached by:");
+				for (final AbstractTransition transition : witness) {
+					message.append(' ').append(nameOf(transition));
+				}
+				if (witness.length == 0) {
+					message.append(" the initial marking");
+				}
+			}
+			message.append(analysis.isLive() ? "\nPetriNet is live\n" : "\nPetriNet is NOT live\n");
+
+			final CompiledNet net = graph.getNet();
+			final Map<AbstractTransition, LivenessAnalysis.Level> levels = new HashMap<>();
+			for (int t = 0; t < net.getTransitionCount(); t++) {
+				levels.put(net.getTransition(t), analysis.getLevel(t));
+				message.append('\n').append(nameOf(net.getTransition(t))).append(": ").append(analysis.getLevel(t));
+			}
+			final Map<GraphicElement, Color> highlights = new HashMap<>();
+			for (final GraphicTransition element : this.root.getGraphicPetriNet().getTransitions()) {
+				// null for a transition added while the analysis was running
+				final LivenessAnalysis.Level level = levels.get(element.getTransition());
+				if (level == LivenessAnalysis.Level.L0) {
+					highlights.put(element, Colors.DISALLOWED);
+				} else if (level != null && level != LivenessAnalysis.Level.L4) {
+					highlights.put(element, Colors.WARNING);
+				}
+			}
+			this.root.setAnalysisHighlights(highlights);
+			JOptionPane.showMessageDialog(this.root.getParentFrame(), message, "Algorithm output",
+					JOptionPane.INFORMATION_MESSAGE);
+		} catch (HeadlessException e1) {
+			PNEditorLogger.warningLogs(e1.getMessage());
+		}
+	}
+
+	private static String nameOf(final AbstractNode node) {
+		final String label = node.getLabel();
+		return label == null || label.isEmpty() ? "#" + node.getId() : label;
+	}
+
+}
@@ -0,0 +1,128 @@
+package org.pneditor.editor.actions.algorithms;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.AbstractAction;
+import javax.swing.JDialog;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import org.pneditor.editor.Root;
+import org.pneditor.editor.gpetrinet.GraphicElement;
+import org.pneditor.editor.gpetrinet.GraphicPlace;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.CompiledNet;
+import org.pneditor.petrinet.algorithms.SiphonsAndTraps;
+import org.pneditor.util.Colors;
+
+import logger.PNEditorLogger;
+
+/**
+ * Lists the minimal siphons with their maximal trap as they are found, in a
+ * window that stays open, then checks Commoner's property. The places of a
+ * siphon without marked trap are highlighted on the canvas.
+ */
+@SuppressWarnings("serial")
+public class SiphonsAction extends AbstractAction {
+
+	private static final long TIME_BUDGET = 30000; // milliseconds
+
+	private final Root root;
+
+	public SiphonsAction(final Root root) {
+		super();
+		this.root = root;
+		final String name = "Siphons and traps";
+		putValue(NAME, name);
+		putValue(SHORT_DESCRIPTION, name);
+		setEnabled(true);
+	}
+
+	@Override
+	public void actionPerformed(final ActionEvent e) {
+		final SiphonsAndTraps analysis;
+		try {
+			analysis = new SiphonsAndTraps(this.root.getPetriNet());
+		} catch (ResetArcMultiplicityException e1) {
+			PNEditorLogger.severeLogs(e1.getMessage());
+			return;
+		}
+		analysis.setTimeBudget(TIME_BUDGET);
+		final JTextArea output = new JTextArea(20, 50);
+		output.setEditable(false);
+		final JDialog dialog = new JDialog(this.root.getParentFrame(), "Algorithm output", false);
+		dialog.add(new JScrollPane(output));
+		dialog.pack();
+		dialog.setLocationRelativeTo(this.root.getParentFrame());
+		dialog.setVisible(true);
+
+		final CompiledNet net = analysis.getNet();
+		final Thread worker = new Thread(() -> {
+			final List<int[]> siphons = new ArrayList<>();
+			final boolean isComplete = analysis.enumerateMinimalSiphons(siphon -> {
+				siphons.add(siphon);
+				final int[] trap = analysis.getMaximalTrap(siphon);
+				final String line = "Siphon " + names(net, siphon) + ", trap "
+						+ (trap.length == 0 ? "none" : names(net, trap) + (analysis.isMarked(trap) ? " (marked)" : ""))
+						+ '\n';
+				SwingUtilities.invokeLater(() -> output.append(line));
+				return true;
+			});
+			final SiphonsAndTraps.Verdict verdict = analysis.checkCommoner(siphons, isComplete);
+			final StringBuilder conclusion = new StringBuilder();
+			if (!isComplete) {
+				conclusion.append("Time budget exceeded, some siphons are missing\n");
+			}
+			if (verdict == SiphonsAndTraps.Verdict.LIVE) {
+				conclusion.append("Free-choice net, every siphon contains a marked trap: PetriNet is live\n");
+			} else if (verdict == SiphonsAndTraps.Verdict.NOT_LIVE) {
+				conclusion.append("Free-choice net, a siphon has no marked trap: PetriNet is NOT live\n");
+			} else if (!analysis.isExtendedFreeChoice()) {
+				conclusion.append("Not a free-choice net, Commoner's property does not decide liveness\n");
+			}
+			final int[] unmarked = analysis.getUnmarkedSiphon();
+			SwingUtilities.invokeLater(() -> {
+				output.append(conclusion.toString());
+				if (unmarked != null) {
+					highlight(net, unmarked);
+				}
+			});
+		}, "Siphons and traps");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	private void highlight(final CompiledNet net, final int[] places) {
+		final Map<GraphicElement, Color> highlights = new HashMap<>();
+		for (final GraphicElement element : this.root.getGraphicPetriNet().getElements()) {
+			if (element.isPlace()) {
+				final AbstractPlace place = ((GraphicPlace) element).getPlace();
+				for (final int p : places) {
+					if (net.getPlace(p) == place) {
+						highlights.put(element, Colors.DISALLOWED);
+					}
+				}
+			}
+		}
+		this.root.setAnalysisHighlights(highlights);
+	}
+
+	private static String names(final CompiledNet net, final int[] places) {
+		final StringBuilder names = new StringBuilder("{");
+		for (final int p : places) {
+			if (names.length() > 1) {
+				names.append(", ");
+			}
+			final String label = net.getPlace(p).getLabel();
+			names.append(label == null || label.isEmpty() ? "#" + net.getPlace(p).getId() : label);
+		}
+		return names.append('}').toString();
+	}
+
+}
@@ -76,7 +76,7 @@ public class SetArcMultiplicityAction extends AbstractAction {
 						this.root.getUndoManager()
 								.executeCommand(new DeleteArcCommand(arc, this.root.getGraphicPetriNet()));
 					} else {
-						this.root.getUndoManager().executeCommand(new SetArcMultiplicityCommand(arc, multiplicity));
+						this.root.getUndoManager().executeCommand(new SetArcMultiplicityCommand(arc, multiplicity, this.root.getPetriNet()));
 					}
 				}
 			} catch (ResetArcMultiplicityException e1) {
@@ -70,7 +70,7 @@ public class SetTokensAction extends AbstractAction {
 			}
 
 			if (place.getPlace().getTokens() != tokens) {
-				this.root.getUndoManager().executeCommand(new SetTokensCommand(place, tokens));
+				this.root.getUndoManager().executeCommand(new SetTokensCommand(place, tokens, this.root.getGraphicPetriNet()));
 			}
 
 		}
@@ -73,6 +73,7 @@ class ArcFeature implements Feature {
 			final GraphicElement element = this.root.getGraphicPetriNet().getElementByXY(x, y);
 			final GraphicNode targetElement = element != null && element.isNode() ? (GraphicNode) element : null;
 
+			this.canvas.repaintElement(this.connectingArc);
 			if (targetElement != null && (this.sourceElement.isPlace() && !targetElement.isPlace()
 					|| !this.sourceElement.isPlace() && targetElement.isPlace())) {
 				this.connectingArc.setEnd(targetElement.getCenter().x, targetElement.getCenter().y);
@@ -82,7 +83,7 @@ class ArcFeature implements Feature {
 				this.connectingArc.setSource(null);
 				this.connectingArc.setDestination(null);
 			}
-			this.root.repaintCanvas();
+			this.canvas.repaintElement(this.connectingArc);
 		}
 	}
 
@@ -129,7 +130,7 @@ class ArcFeature implements Feature {
 				if (targetElement == null) { // Connecting to air
 					highlightedElements.add(this.sourceElement);
 					this.sourceElement.setHighlightColor(Colors.POINTING);
-					this.root.repaintCanvas();
+					this.canvas.repaintElement(this.sourceElement);
 				} else { // Connecting to solid element
 					if (this.sourceElement.isPlace() && targetElement.isTransition()
 							|| this.sourceElement.isTransition() && targetElement.isPlace()) {
@@ -137,29 +138,38 @@ class ArcFeature implements Feature {
 						highlightedElements.add(targetElement);
 						this.sourceElement.setHighlightColor(Colors.CONNECTING);
 						targetElement.setHighlightColor(Colors.CONNECTING);
-						this.root.repaintCanvas();
+						this.canvas.repaintElement(this.sourceElement);
+						this.canvas.repaintElement(targetElement);
 					} else if (this.sourceElement == targetElement) {
 						highlightedElements.add(this.sourceElement);
 						this.sourceElement.setHighlightColor(Colors.POINTING);
-						this.root.repaintCanvas();
+						this.canvas.repaintElement(this.sourceElement);
 					} else if (targetElement.isNode()) { // Wrong combination
 						highlightedElements.add(this.sourceElement);
 						highlightedElements.add(targetElement);
 						this.sourceElement.setHighlightColor(Colors.DISALLOWED);
 						targetElement.setHighlightColor(Colors.DISALLOWED);
-						this.root.repaintCanvas();
+						this.canvas.repaintElement(this.sourceElement);
+						this.canvas.repaintElement(targetElement);
 					}
 				}
 			} else {
 				if (targetElement != null) {
 					highlightedElements.add(targetElement);
 					targetElement.setHighlightColor(Colors.POINTING);
-					this.root.repaintCanvas();
+					this.canvas.repaintElement(targetElement);
 				}
 			}
 		}
 	}
 
+	/**
+	 * @return the elements drawn under the net, the arc being connected if any
+	 */
+	List<GraphicElement> getBackgroundElements() {
+		return this.backgroundElements;
+	}
+
 	@Override
 	public void drawBackground(final Graphics g) {
 		for (final GraphicElement element : this.backgroundElements) {
@@ -180,8 +190,10 @@ class ArcFeature implements Feature {
 	}
 
 	private void cancelDragging() {
+		if (this.connectingArc != null) {
+			this.canvas.repaintElement(this.connectingArc);
+		}
 		this.backgroundElements.remove(this.connectingArc);
 		this.started = false;
-		this.root.repaintCanvas();
 	}
 }
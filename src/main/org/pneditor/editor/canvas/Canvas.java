@@ -21,14 +21,19 @@ import java.awt.Graphics;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import javax.swing.*;
 import org.pneditor.editor.Root;
 import org.pneditor.editor.gpetrinet.GraphicElement;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
 import org.pneditor.util.Point;
 
 /**
@@ -39,12 +44,20 @@ import org.pneditor.util.Point;
 public class Canvas extends JPanel implements MouseListener, MouseMotionListener, MouseWheelListener {
 
 	private final List<GraphicElement> highlightedElements = new ArrayList<>();
+	// highlights left by an analysis, kept under the hover effects until the next click
+	private final Map<GraphicElement, Color> analysisHighlights = new HashMap<>();
 	private Cursor alternativeCursor;
 	public Cursor activeCursor;
 	public List<Feature> features = new ArrayList<>();
 	private final Root root;
 	private final ScrollingFeature scrollingFeature;
 	private boolean scrollingFeatureInstalled;
+	private final ArcFeature arcFeature;
+	private final StaticLayer staticLayer = new StaticLayer(this);
+	// areas where the net is drawn again over the static layer, during a paint
+	private final List<Rectangle> overlay = new ArrayList<>();
+	// areas to repaint, in the coordinates of the canvas, merged until the end of the event
+	private final List<Rectangle> damage = new ArrayList<>();
 
 	public Canvas(final Root root) {
 		super();
@@ -64,7 +77,8 @@ public class Canvas extends JPanel implements MouseListener, MouseMotionListener
 		this.features.add(new EdgeZigzagFeature(this));
 		this.features.add(new PlaceTransitionMakerFeature(this));
 		this.features.add(new PopupMenuFeature(this));
-		this.features.add(new ArcFeature(this));
+		this.arcFeature = new ArcFeature(this);
+		this.features.add(this.arcFeature);
 		this.features.add(new PetriNetFeature(this));
 	}
 
@@ -99,8 +113,16 @@ public class Canvas extends JPanel implements MouseListener, MouseMotionListener
 		final Graphics2D g2 = (Graphics2D) g;
 		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		super.paintComponent(g);
+		this.staticLayer.draw(g2, this.root.getGraphicPetriNet(), getTranslationX(), getTranslationY());
 		g.translate(getTranslationX(), getTranslationY());
 
+		// cleared under the background of the features, the net in it is drawn again over it
+		computeOverlay();
+		g.setColor(getBackground());
+		for (final Rectangle area : this.overlay) {
+			g.fillRect(area.x, area.y, area.width, area.height);
+		}
+
 		for (final Feature f : this.features) {
 			f.drawBackground(g);
 		}
@@ -147,6 +169,7 @@ public class Canvas extends JPanel implements MouseListener, MouseMotionListener
 				event.getModifiers(), x, y, event.getXOnScreen(), event.getYOnScreen(), event.getClickCount(),
 				event.isPopupTrigger(), event.getButton());
 
+		setAnalysisHighlights(new HashMap<>());
 		this.root.setClickedElement(this.root.getGraphicPetriNet().getElementByXY(x, y));
 
 		for (final Feature f : this.features) {
@@ -204,15 +227,142 @@ public class Canvas extends JPanel implements MouseListener, MouseMotionListener
 		if (!this.highlightedElements.isEmpty()) {
 			for (final GraphicElement element : this.highlightedElements) {
 				element.setHighlightColor(null);
+				repaintElement(element);
 			}
 			this.highlightedElements.clear();
-			repaint();
+		}
+		for (final Map.Entry<GraphicElement, Color> entry : this.analysisHighlights.entrySet()) {
+			entry.getKey().setHighlightColor(entry.getValue());
 		}
 		for (final Feature f : this.features) {
 			f.setHoverEffects(x, y);
 		}
 	}
 
+	/**
+	 * Draws the net again in the static layer at the next paint, after a change
+	 * the graphic net does not see, such as tokens or labels
+	 */
+	public void invalidateStaticLayer() {
+		this.staticLayer.invalidate();
+	}
+
+	/**
+	 * Like invalidateStaticLayer, when only the area of the net changed, and
+	 * repaints the area
+	 */
+	public void invalidateStaticLayer(final Rectangle area) {
+		this.staticLayer.invalidate(area);
+		repaintArea(area);
+	}
+
+	/**
+	 * Repaints the area of the net, in its coordinates, at the end of the
+	 * current event: the areas reported until then are merged where they
+	 * overlap, then each is passed to repaint(Rectangle)
+	 */
+	public void repaintArea(final Rectangle area) {
+		final Rectangle onCanvas = new Rectangle(area);
+		onCanvas.translate(getTranslationX(), getTranslationY());
+		final Rectangle visible = onCanvas.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
+		if (visible.isEmpty()) {
+			return;
+		}
+		if (this.damage.isEmpty()) {
+			SwingUtilities.invokeLater(this::repaintDamage);
+		}
+		addMerged(this.damage, visible);
+	}
+
+	/**
+	 * Repaints the area the element may be drawn in, after its drawing changed
+	 */
+	public void repaintElement(final GraphicElement element) {
+		repaintArea(GraphicPetriNet.getDrawnBounds(element));
+	}
+
+	private void repaintDamage() {
+		for (final Rectangle area : this.damage) {
+			repaint(area);
+		}
+		this.damage.clear();
+	}
+
+	/**
+	 * @return the areas, disjoint, where the net is drawn again over the static
+	 *         layer
+	 */
+	List<Rectangle> getOverlay() {
+		return this.overlay;
+	}
+
+	/*
+	 * The areas of the elements not drawn as in the static layer, highlighted or
+	 * clicked, and of the elements drawn under the net, in the view
+	 */
+	private void computeOverlay() {
+		this.overlay.clear();
+		final Rectangle view = new Rectangle(-getTranslationX(), -getTranslationY(), getWidth(), getHeight());
+		for (final GraphicElement element : this.highlightedElements) {
+			addToOverlay(element, view);
+		}
+		for (final GraphicElement element : this.analysisHighlights.keySet()) {
+			addToOverlay(element, view);
+		}
+		if (this.root.getClickedElement() != null) {
+			addToOverlay(this.root.getClickedElement(), view);
+		}
+		for (final GraphicElement element : this.arcFeature.getBackgroundElements()) {
+			addToOverlay(element, view);
+		}
+	}
+
+	/*
+	 * Overlapping areas are merged, so that nothing is drawn twice
+	 */
+	private void addToOverlay(final GraphicElement element, final Rectangle view) {
+		final Rectangle area = GraphicPetriNet.getDrawnBounds(element).intersection(view);
+		if (!area.isEmpty()) {
+			addMerged(this.overlay, area);
+		}
+	}
+
+	/*
+	 * Keeps the areas disjoint: the area is merged with those it overlaps
+	 */
+	static void addMerged(final List<Rectangle> areas, final Rectangle area) {
+		final Rectangle merged = new Rectangle(area);
+		boolean merging = true;
+		while (merging) {
+			merging = false;
+			for (final Iterator<Rectangle> i = areas.iterator(); i.hasNext();) {
+				final Rectangle other = i.next();
+				if (other.intersects(merged)) {
+					merged.add(other);
+					i.remove();
+					merging = true;
+				}
+			}
+		}
+		areas.add(merged);
+	}
+
+	/**
+	 * Replaces the highlights of the previous analysis, if any
+	 */
+	public void setAnalysisHighlights(final Map<GraphicElement, Color> highlights) {
+		for (final GraphicElement element : this.analysisHighlights.keySet()) {
+			element.setHighlightColor(null);
+			repaintElement(element);
+		}
+		this.analysisHighlights.clear();
+		this.analysisHighlights.putAll(highlights);
+		for (final Map.Entry<GraphicElement, Color> entry : this.analysisHighlights.entrySet()) {
+			entry.getKey().setHighlightColor(entry.getValue());
+			repaintElement(entry.getKey());
+		}
+	}
+
 	void setCursor(final int x, final int y) {
 		this.alternativeCursor = null;
 
@@ -86,6 +86,7 @@ class EdgeZigzagFeature implements Feature {
 	public void mouseDragged(final int x, final int y) {
         if (this.started) {
             this.activeBreakPoint.move(x, y);
+            this.arc.breakPointMoved();
             this.canvas.repaint();
         }
     }
@@ -146,7 +147,8 @@ class EdgeZigzagFeature implements Feature {
             if (element != null) {
                 this.canvas.getHighlightedElements().add(element);
                 element.setHighlightColor(Colors.POINTING);
-                this.canvas.repaint();
+                // the handle, if any, is in the area of the arc
+                this.canvas.repaintElement(element);
             }
         }
     }
@@ -17,6 +17,7 @@
 package org.pneditor.editor.canvas;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import org.pneditor.editor.Root;
 
@@ -27,15 +28,25 @@ import org.pneditor.editor.Root;
  */
 public class PetriNetFeature implements Feature {
 
+    private final Canvas canvas;
     private final Root root;
 
     public PetriNetFeature(final Canvas canvas) {
+        this.canvas = canvas;
         this.root = canvas.getRoot();
     }
 
+    /*
+     * The rest of the net is in the static layer of the canvas
+     */
     @Override
 	public void drawMainLayer(final Graphics g) {
-    	this.root.getGraphicPetriNet().draw(g);
+    	for (final Rectangle area : this.canvas.getOverlay()) {
+    		final Graphics clipped = g.create();
+    		clipped.clipRect(area.x, area.y, area.width, area.height);
+    		this.root.getGraphicPetriNet().draw(clipped);
+    		clipped.dispose();
+    	}
     }
 
     @Override
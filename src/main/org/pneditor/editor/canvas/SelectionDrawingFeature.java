@@ -56,7 +56,7 @@ class SelectionDrawingFeature implements Feature {
             this.selecting = true;
             this.visualSelection.setStart(x, y);
             this.visualSelection.setEnd(x, y);
-            this.canvas.repaint();
+            this.canvas.repaintElement(this.visualSelection);
             if (event.isShiftDown()) {
                 this.previousSelection.addAll(this.root.getSelection().getElements());
             } else {
@@ -69,8 +69,9 @@ class SelectionDrawingFeature implements Feature {
     @Override
 	public void mouseDragged(final int x, final int y) {
         if (this.selecting) {
+            this.canvas.repaintElement(this.visualSelection);
             this.visualSelection.setEnd(x, y);
-            this.canvas.repaint();
+            this.canvas.repaintElement(this.visualSelection);
         }
     }
 
@@ -78,7 +79,7 @@ class SelectionDrawingFeature implements Feature {
 	public void mouseReleased(final int x, final int y) {
         if (this.selecting) {
             this.selecting = false;
-            this.canvas.repaint();
+            this.canvas.repaintElement(this.visualSelection);
         }
     }
 
@@ -97,13 +98,13 @@ class SelectionDrawingFeature implements Feature {
                     addElementToSelection(visualElement);
                 }
             }
-            this.canvas.repaint();
         }
     }
 
     private void addElementToSelection(final GraphicElement element) {
         this.canvas.getHighlightedElements().add(element);
         element.setHighlightColor(Colors.SELECTED);
+        this.canvas.repaintElement(element);
 
         this.root.getSelection().add(element);
     }
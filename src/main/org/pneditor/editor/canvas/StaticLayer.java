@@ -0,0 +1,116 @@
+package org.pneditor.editor.canvas;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JComponent;
+
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
+
+/**
+ * The net of the canvas drawn without highlights in an image, drawn again
+ * only when the net, the view or the size of the canvas changes, so that
+ * hover feedback only draws the few highlighted elements over it.
+ *
+ * Changes of tokens, labels or multiplicities are not seen by the graphic net:
+ * the layer is invalidated by the root when it refreshes, after every command,
+ * only in the area changed by the command when it is known.
+ */
+final class StaticLayer {
+
+	// gives the size, the font and the background
+	private final JComponent canvas;
+	private BufferedImage image;
+	private boolean valid;
+	// of the net, drawn again at the next paint if the layer is valid otherwise
+	private Rectangle dirtyArea;
+	private GraphicPetriNet petriNet;
+	private int changeCount;
+	private int translationX;
+	private int translationY;
+	private double scale;
+	private int renderCount;
+
+	StaticLayer(final JComponent canvas) {
+		this.canvas = canvas;
+	}
+
+	void invalidate() {
+		this.valid = false;
+	}
+
+	void invalidate(final Rectangle area) {
+		if (this.dirtyArea == null) {
+			this.dirtyArea = new Rectangle(area);
+		} else {
+			this.dirtyArea.add(area);
+		}
+	}
+
+	/**
+	 * Draws the image at the origin of g, not translated yet
+	 *
+	 * @param newTranslationX where the origin of the net is on the canvas
+	 */
+	void draw(final Graphics2D g, final GraphicPetriNet gPetriNet, final int newTranslationX,
+			final int newTranslationY) {
+		final int width = this.canvas.getWidth();
+		final int height = this.canvas.getHeight();
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		// pixels of the device, on screens scaled by the system
+		final double newScale = g.getTransform().getScaleX();
+		final int imageWidth = (int) Math.ceil(width * newScale);
+		final int imageHeight = (int) Math.ceil(height * newScale);
+		if (this.image == null || this.image.getWidth() != imageWidth || this.image.getHeight() != imageHeight) {
+			this.image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+			this.valid = false;
+		}
+		if (!this.valid || this.petriNet != gPetriNet || this.changeCount != gPetriNet.getChangeCount()
+				|| this.translationX != newTranslationX || this.translationY != newTranslationY
+				|| this.scale != newScale) {
+			this.petriNet = gPetriNet;
+			this.changeCount = gPetriNet.getChangeCount();
+			this.translationX = newTranslationX;
+			this.translationY = newTranslationY;
+			this.scale = newScale;
+			// a pixel more, when the scale rounds the size of the image up
+			render(new Rectangle(-newTranslationX, -newTranslationY, width + 1, height + 1));
+			this.valid = true;
+			this.dirtyArea = null;
+		} else if (this.dirtyArea != null) {
+			render(this.dirtyArea);
+			this.dirtyArea = null;
+		}
+		g.drawImage(this.image, 0, 0, width, height, null);
+	}
+
+	/**
+	 * @return the number of times the net was drawn in the image, whole or in
+	 *         part
+	 */
+	int getRenderCount() {
+		return this.renderCount;
+	}
+
+	/*
+	 * Draws again the net in the area, in its coordinates
+	 */
+	private void render(final Rectangle area) {
+		this.renderCount++;
+		final Graphics2D g = this.image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setFont(this.canvas.getFont());
+		g.scale(this.scale, this.scale);
+		g.translate(this.translationX, this.translationY);
+		g.clipRect(area.x, area.y, area.width, area.height);
+		g.setColor(this.canvas.getBackground());
+		g.fillRect(area.x, area.y, area.width, area.height);
+		this.petriNet.drawWithoutHighlights(g);
+		g.dispose();
+	}
+
+}
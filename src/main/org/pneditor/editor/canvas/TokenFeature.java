@@ -68,9 +68,9 @@ class TokenFeature implements Feature {
 			if (targetElement.isPlace()) {
 				final GraphicPlace place = (GraphicPlace) targetElement;
 				if (mouseButton == MouseEvent.BUTTON1) {
-					this.root.getUndoManager().executeCommand(new AddTokenCommand(place));
+					this.root.getUndoManager().executeCommand(new AddTokenCommand(place, this.root.getGraphicPetriNet()));
 				} else if (mouseButton == MouseEvent.BUTTON3 && place.getPlace().getTokens() > 0) {
-					this.root.getUndoManager().executeCommand(new RemoveTokenCommand(place));
+					this.root.getUndoManager().executeCommand(new RemoveTokenCommand(place, this.root.getGraphicPetriNet()));
 				}
 
 			} else if (targetElement.isTransition()) {
@@ -78,7 +78,7 @@ class TokenFeature implements Feature {
 				if (mouseButton == MouseEvent.BUTTON1) {
 					try {
 						final PetriNetInterface petriNet = this.root.getPetriNet();
-						if (petriNet.isEnabled(transition.getTransition())) {
+						if (petriNet.getEnabledSet().isEnabled(transition.getTransition())) {
 							this.root.getUndoManager().executeCommand(
 									new FireTransitionCommand(transition, this.root.getGraphicPetriNet()));
 						}
@@ -98,18 +98,18 @@ class TokenFeature implements Feature {
 			if (targetElement.isPlace()) {
 				this.canvas.getHighlightedElements().add(targetElement);
 				targetElement.setHighlightColor(Colors.POINTING);
-				this.canvas.repaint();
+				this.canvas.repaintElement(targetElement);
 			} else if (targetElement.isTransition()) {
 				try {
 					final PetriNetInterface petriNet = this.root.getPetriNet();
-					if (petriNet.isEnabled(((GraphicTransition) targetElement).getTransition())) {
+					if (petriNet.getEnabledSet().isEnabled(((GraphicTransition) targetElement).getTransition())) {
 						this.canvas.getHighlightedElements().add(targetElement);
 						targetElement.setHighlightColor(Colors.PERMITTED);
-						this.canvas.repaint();
+						this.canvas.repaintElement(targetElement);
 					} else {
 						this.canvas.getHighlightedElements().add(targetElement);
 						targetElement.setHighlightColor(Colors.DISALLOWED);
-						this.canvas.repaint();
+						this.canvas.repaintElement(targetElement);
 					}
 				} catch (ResetArcMultiplicityException e) {
 					PNEditorLogger.severeLogs(e.getMessage());
@@ -127,7 +127,7 @@ class TokenFeature implements Feature {
 					final GraphicTransition transition = (GraphicTransition) element;
 					try {
 						final PetriNetInterface petriNet = this.root.getPetriNet();
-						if (petriNet.isEnabled(transition.getTransition())) {
+						if (petriNet.getEnabledSet().isEnabled(transition.getTransition())) {
 							g.setColor(Colors.PERMITTED);
 						} else {
 							g.setColor(Colors.DISALLOWED);
@@ -54,7 +54,7 @@ public class AddPlaceCommand implements Command {
 	public void redo() {
     	final AbstractPlace newPlace = this.gPetriNet.getPetriNet().addAbstractPlace();
     	newPlace.setLabel(this.createdPlace.getLabel()); // in case of a given name on construction, we put it back 
-    	newPlace.setTokens(this.createdPlace.getTokens()); // same as before, except with tokens
+    	this.gPetriNet.getPetriNet().setAbstractTokens(newPlace, this.createdPlace.getTokens()); // same as before, except with tokens
         this.representation.setPlace(newPlace);
         this.gPetriNet.addElement(this.representation);
     }
@@ -16,8 +16,12 @@
  */
 package org.pneditor.editor.commands;
 
+import java.awt.Rectangle;
+
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
 import org.pneditor.editor.gpetrinet.GraphicPlace;
 import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.PetriNetInterface;
 import org.pneditor.util.Command;
 
 /**
@@ -28,21 +32,25 @@ public class AddTokenCommand implements Command {
 
     private AbstractPlace place;
     final private GraphicPlace gPlace;
+    final private PetriNetInterface petriNet;
+    final private GraphicPetriNet gPetriNet;
 
-    public AddTokenCommand(GraphicPlace gPlace) {
+    public AddTokenCommand(final GraphicPlace gPlace, final GraphicPetriNet gPetriNet) {
         this.gPlace = gPlace;
+        this.gPetriNet = gPetriNet;
+        this.petriNet = gPetriNet.getPetriNet();
     }
 
     @Override
 	public void execute() {
     	this.place = this.gPlace.getPlace();
-    	this.place.addToken();
+    	this.petriNet.addAbstractToken(this.place);
     }
 
     @Override
 	public void undo() {
     	this.place = this.gPlace.getPlace();
-    	this.place.removeToken();
+    	this.petriNet.removeAbstractToken(this.place);
     }
 
     @Override
@@ -50,6 +58,14 @@ public class AddTokenCommand implements Command {
         execute();
     }
 
+    /**
+     * The place and the transitions whose enabling depends on it
+     */
+    @Override
+	public Rectangle getChangedArea() {
+        return this.gPetriNet.getTokensChangedArea(this.gPlace);
+    }
+
     @Override
     public String toString() {
         return "Add token";
@@ -39,7 +39,7 @@ public class DeletePlaceCommand implements Command {
 	public DeletePlaceCommand(final GraphicPlace gPlace, final GraphicPetriNet gPetriNet) {
 		this.gPetriNet = gPetriNet;
 		this.gPlace = gPlace;
-		this.connectedArcs = gPetriNet.getConnectedGraphicArcs(gPlace);
+		this.connectedArcs = new HashSet<>(gPetriNet.getConnectedGraphicArcs(gPlace));
 		for (final GraphicArc arc : this.connectedArcs) {
 			this.deleteAllArcEdges.add(new DeleteArcCommand(arc, gPetriNet));
 		}
@@ -60,7 +60,7 @@ public class DeletePlaceCommand implements Command {
 	public void undo() {
 		final AbstractPlace place = this.gPetriNet.getPetriNet().addAbstractPlace();
         place.setLabel(this.gPlace.getLabel());
-        place.setTokens(this.gPlace.getPlace().getTokens());
+        this.gPetriNet.getPetriNet().setAbstractTokens(place, this.gPlace.getPlace().getTokens());
         this.deleteAllArcEdges.clear();
         this.gPetriNet.addElement(this.gPlace);
         this.gPlace.setPlace(place);
@@ -39,7 +39,7 @@ public class DeleteTransitionCommand implements Command {
     public DeleteTransitionCommand(final GraphicTransition gTransition, final GraphicPetriNet gPetriNet) {
         this.gTransition = gTransition;
         this.gPetriNet = gPetriNet;
-        this.connectedArcs = gPetriNet.getConnectedGraphicArcs(gTransition);
+        this.connectedArcs = new HashSet<>(gPetriNet.getConnectedGraphicArcs(gTransition));
         for (final GraphicArc arc : this.connectedArcs) {
         	this.deleteAllArcEdges.add(new DeleteArcCommand(arc, gPetriNet));
         }
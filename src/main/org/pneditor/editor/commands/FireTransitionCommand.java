@@ -16,15 +16,15 @@
  */
 package org.pneditor.editor.commands;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.awt.Rectangle;
 
+import org.pneditor.editor.gpetrinet.GraphicArc;
+import org.pneditor.editor.gpetrinet.GraphicNode;
 import org.pneditor.editor.gpetrinet.GraphicPetriNet;
 import org.pneditor.editor.gpetrinet.GraphicPlace;
 import org.pneditor.editor.gpetrinet.GraphicTransition;
 import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.TokenDelta;
 import org.pneditor.util.Command;
 
 import logger.PNEditorLogger;
@@ -37,7 +37,8 @@ public class FireTransitionCommand implements Command {
 
 	final private GraphicTransition transition;
 	final private GraphicPetriNet gPetriNet;
-	final private Map<GraphicPlace,Integer> firedPlaces = new HashMap<>();
+	// only the places the firing changed
+	private TokenDelta delta;
 
 	public FireTransitionCommand(final GraphicTransition gTransition, final GraphicPetriNet gPetriNet) {
 		this.transition = gTransition;
@@ -45,35 +46,42 @@ public class FireTransitionCommand implements Command {
 	}
 
 	@Override
-	public void execute() { //TODO: Temporary solution to remove the undoFire from the PetriNet
-		for (final GraphicPlace place : this.gPetriNet.getPlaces()) {
-			this.firedPlaces.put(place, place.getPlace().getTokens());
-		}
+	public void execute() {
 		try {
-			this.gPetriNet.getPetriNet().fire(this.transition.getTransition());
+			this.delta = this.gPetriNet.getPetriNet().fireAbstractTransitionWithDelta(this.transition.getTransition());
 		} catch (ResetArcMultiplicityException e) {
 			PNEditorLogger.severeLogs(e.getMessage());
 		}
-		
-		final Iterator<Entry<GraphicPlace, Integer>> iter = this.firedPlaces.entrySet().iterator(); //to avoid ConcurrentModificationExceptions
-		while (iter.hasNext()) {
-			final Map.Entry<GraphicPlace, Integer> pair = iter.next();
-			if (pair.getKey().getPlace().getTokens() == pair.getValue()) {
-				iter.remove();
-			}
-		}
 	}
 
 	@Override
 	public void undo() {
-		for (final Map.Entry<GraphicPlace, Integer> entry : this.firedPlaces.entrySet()) {
-			entry.getKey().getPlace().setTokens(entry.getValue());
+		if (this.delta != null) {
+			this.delta.revert(this.gPetriNet.getPetriNet());
 		}
 	}
 
 	@Override
 	public void redo() {
-		execute();
+		if (this.delta != null) {
+			this.delta.apply(this.gPetriNet.getPetriNet());
+		} else {
+			execute();
+		}
+	}
+
+	/**
+	 * The transition, the places around it and the transitions whose enabling
+	 * depends on these places
+	 */
+	@Override
+	public Rectangle getChangedArea() {
+		final Rectangle area = GraphicPetriNet.getDrawnBounds(this.transition);
+		for (final GraphicArc arc : this.gPetriNet.getConnectedGraphicArcs(this.transition)) {
+			final GraphicNode node = arc.getSource() == this.transition ? arc.getDestination() : arc.getSource();
+			area.add(this.gPetriNet.getTokensChangedArea((GraphicPlace) node));
+		}
+		return area;
 	}
 
 	@Override
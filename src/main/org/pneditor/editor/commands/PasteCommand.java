@@ -62,9 +62,7 @@ public class PasteCommand implements Command {
 
     private Point calculateTranslationToCenter(final Set<GraphicElement> elements, final GraphicPetriNet petriNet) {
     	final Point viewTranslation = petriNet.getViewTranslation();
-    	final GraphicPetriNet tempPetriNet = new GraphicPetriNet(this.root.getCurrentModel());
-        tempPetriNet.addAll(elements);
-        final Rectangle bounds = tempPetriNet.getBounds();
+        final Rectangle bounds = GraphicPetriNet.getBounds(elements);
 
         final Point result = new Point();
         result.translate(Math.round(-(float) bounds.getCenterX()), Math.round(-(float) bounds.getCenterY()));
@@ -16,7 +16,11 @@
  */
 package org.pneditor.editor.commands;
 
+import java.awt.Rectangle;
+
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
 import org.pneditor.editor.gpetrinet.GraphicPlace;
+import org.pneditor.petrinet.PetriNetInterface;
 import org.pneditor.util.Command;
 
 /**
@@ -26,19 +30,23 @@ import org.pneditor.util.Command;
 public class RemoveTokenCommand implements Command {
 
 	final private GraphicPlace gPlace;
+	final private PetriNetInterface petriNet;
+	final private GraphicPetriNet gPetriNet;
 
-    public RemoveTokenCommand(final GraphicPlace gPlace) {
+    public RemoveTokenCommand(final GraphicPlace gPlace, final GraphicPetriNet gPetriNet) {
         this.gPlace = gPlace;
+        this.gPetriNet = gPetriNet;
+        this.petriNet = gPetriNet.getPetriNet();
     }
 
     @Override
 	public void execute() {
-    	this.gPlace.getPlace().removeToken();
+    	this.petriNet.removeAbstractToken(this.gPlace.getPlace());
     }
 
     @Override
 	public void undo() {
-    	this.gPlace.getPlace().addToken();
+    	this.petriNet.addAbstractToken(this.gPlace.getPlace());
     }
 
     @Override
@@ -46,6 +54,14 @@ public class RemoveTokenCommand implements Command {
         execute();
     }
 
+    /**
+     * The place and the transitions whose enabling depends on it
+     */
+    @Override
+	public Rectangle getChangedArea() {
+        return this.gPetriNet.getTokensChangedArea(this.gPlace);
+    }
+
     @Override
     public String toString() {
         return "Remove token";
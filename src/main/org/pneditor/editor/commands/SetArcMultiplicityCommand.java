@@ -16,7 +16,11 @@
  */
 package org.pneditor.editor.commands;
 
+import java.awt.Rectangle;
+
 import org.pneditor.editor.gpetrinet.GraphicArc;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
+import org.pneditor.petrinet.PetriNetInterface;
 import org.pneditor.petrinet.ResetArcMultiplicityException;
 import org.pneditor.util.Command;
 
@@ -30,11 +34,14 @@ import logger.PNEditorLogger;
 public class SetArcMultiplicityCommand implements Command {
 
     private final GraphicArc gArc;
+    private final PetriNetInterface petriNet;
     private final int newMultiplicity;
     private int oldMultiplicity;
 
-    public SetArcMultiplicityCommand(final GraphicArc gArc, final int newMultiplicity) {
+    public SetArcMultiplicityCommand(final GraphicArc gArc, final int newMultiplicity,
+    		final PetriNetInterface petriNet) {
         this.gArc = gArc;
+        this.petriNet = petriNet;
         this.newMultiplicity = newMultiplicity;
     }
 
@@ -42,7 +49,7 @@ public class SetArcMultiplicityCommand implements Command {
 	public void execute() {
         try {
 			this.oldMultiplicity = this.gArc.getArc().getMultiplicity();
-	        this.gArc.getArc().setMultiplicity(this.newMultiplicity);
+	        this.petriNet.setAbstractMultiplicity(this.gArc.getArc(), this.newMultiplicity);
 		} catch (ResetArcMultiplicityException e) {
 			PNEditorLogger.severeLogs(e.getMessage());
 		}
@@ -51,7 +58,7 @@ public class SetArcMultiplicityCommand implements Command {
     @Override
 	public void undo() {
         try {
-			this.gArc.getArc().setMultiplicity(this.oldMultiplicity);
+			this.petriNet.setAbstractMultiplicity(this.gArc.getArc(), this.oldMultiplicity);
 		} catch (ResetArcMultiplicityException e) {
 			PNEditorLogger.severeLogs(e.getMessage());
 		}
@@ -62,6 +69,17 @@ public class SetArcMultiplicityCommand implements Command {
         execute();
     }
 
+    /**
+     * The arc and its transition, whose enabling may change
+     */
+    @Override
+	public Rectangle getChangedArea() {
+        final Rectangle area = GraphicPetriNet.getDrawnBounds(this.gArc);
+        area.add(GraphicPetriNet.getDrawnBounds(this.gArc.getSource()));
+        area.add(GraphicPetriNet.getDrawnBounds(this.gArc.getDestination()));
+        return area;
+    }
+
     @Override
     public String toString() {
         return "Set arc multiplicity";
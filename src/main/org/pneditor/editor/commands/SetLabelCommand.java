@@ -16,7 +16,10 @@
  */
 package org.pneditor.editor.commands;
 
+import java.awt.Rectangle;
+
 import org.pneditor.editor.gpetrinet.GraphicNode;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
 import org.pneditor.petrinet.AbstractNode;
 import org.pneditor.util.Command;
 
@@ -55,6 +58,11 @@ public class SetLabelCommand implements Command {
         execute();
     }
 
+    @Override
+	public Rectangle getChangedArea() {
+        return GraphicPetriNet.getDrawnBounds(this.gNode);
+    }
+
     @Override
     public String toString() {
         return "Set label to " + this.newLabel;
@@ -16,7 +16,11 @@
  */
 package org.pneditor.editor.commands;
 
+import java.awt.Rectangle;
+
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
 import org.pneditor.editor.gpetrinet.GraphicPlace;
+import org.pneditor.petrinet.PetriNetInterface;
 import org.pneditor.util.Command;
 
 /**
@@ -27,29 +31,41 @@ import org.pneditor.util.Command;
 public class SetTokensCommand implements Command {
 
     private final GraphicPlace gPlace;
+    private final PetriNetInterface petriNet;
+    private final GraphicPetriNet gPetriNet;
     
     private final int newValue;
     private final int oldValue;
 
-    public SetTokensCommand(final GraphicPlace gPlace, final int tokens) {
+    public SetTokensCommand(final GraphicPlace gPlace, final int tokens, final GraphicPetriNet gPetriNet) {
         this.gPlace = gPlace;
+        this.gPetriNet = gPetriNet;
+        this.petriNet = gPetriNet.getPetriNet();
         this.newValue = tokens;
         this.oldValue = gPlace.getPlace().getTokens();
     }
 
     @Override
 	public void execute() {
-    	this.gPlace.getPlace().setTokens(this.newValue);
+    	this.petriNet.setAbstractTokens(this.gPlace.getPlace(), this.newValue);
     }
 
     @Override
 	public void undo() {
-    	this.gPlace.getPlace().setTokens(this.oldValue);
+    	this.petriNet.setAbstractTokens(this.gPlace.getPlace(), this.oldValue);
     }
 
     @Override
 	public void redo() {
-        this.gPlace.getPlace().setTokens(this.newValue);
+        this.petriNet.setAbstractTokens(this.gPlace.getPlace(), this.newValue);
+    }
+
+    /**
+     * The place and the transitions whose enabling depends on it
+     */
+    @Override
+	public Rectangle getChangedArea() {
+        return this.gPetriNet.getTokensChangedArea(this.gPlace);
     }
 
     @Override
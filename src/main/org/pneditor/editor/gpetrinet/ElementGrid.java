@@ -0,0 +1,253 @@
+package org.pneditor.editor.gpetrinet;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid over the elements of a GraphicPetriNet, so that the element
+ * under a point is found among the few elements of one cell.
+ *
+ * A node is in the cells its bounds overlap, an arc in the cells its segments
+ * pass near, within the tolerance of GraphicArc.containsPoint. Every element
+ * has a depth reproducing the order of the element list: arcs added later are
+ * further behind, nodes added later further in front.
+ *
+ * Drawing goes beyond the hit area of an element: the arrow heads and
+ * multiplicities of arcs, the labels of nodes. An area to draw is grown by
+ * these margins to find the cells of the elements that may be drawn in it.
+ */
+final class ElementGrid {
+
+	static final int CELL_SIZE = 64;
+
+	// around the bounding box of an arc, its points included
+	static final int ARC_MARGIN = 16;
+	// around the bounds of a node, for its label
+	static final int LABEL_HALF_WIDTH = 4 * CELL_SIZE;
+	static final int LABEL_HEIGHT = 24;
+
+	private static final long[] NO_CELLS = new long[0];
+
+	private final Map<Long, List<Entry>> cells = new HashMap<>();
+	private final Map<GraphicElement, Entry> entries = new IdentityHashMap<>();
+	private long nextNodeDepth;
+	private long nextArcDepth = -1;
+	private int nextQuery;
+
+	private static final class Entry {
+
+		final GraphicElement element;
+		final long depth;
+		long[] cellKeys = NO_CELLS;
+		// number of the last query that met the entry
+		int query;
+
+		Entry(final GraphicElement element, final long depth) {
+			this.element = element;
+			this.depth = depth;
+		}
+	}
+
+	void add(final GraphicElement element) {
+		remove(element);
+		final Entry entry = new Entry(element, element.isNode() ? this.nextNodeDepth++ : this.nextArcDepth--);
+		this.entries.put(element, entry);
+		insert(entry);
+	}
+
+	void remove(final GraphicElement element) {
+		final Entry entry = this.entries.remove(element);
+		if (entry != null) {
+			erase(entry);
+		}
+	}
+
+	/**
+	 * Puts the element in the cells of its current geometry
+	 */
+	void update(final GraphicElement element) {
+		final Entry entry = this.entries.get(element);
+		if (entry != null) {
+			erase(entry);
+			insert(entry);
+		}
+	}
+
+	void clear() {
+		this.cells.clear();
+		this.entries.clear();
+	}
+
+	/**
+	 * @return the front-most element containing the point, null if none
+	 */
+	GraphicElement getElementAt(final int x, final int y) {
+		final List<Entry> cell = this.cells.get(key(Math.floorDiv(x, CELL_SIZE), Math.floorDiv(y, CELL_SIZE)));
+		if (cell == null) {
+			return null;
+		}
+		Entry front = null;
+		for (final Entry entry : cell) {
+			if ((front == null || entry.depth > front.depth) && entry.element.containsPoint(x, y)) {
+				front = entry;
+			}
+		}
+		return front == null ? null : front.element;
+	}
+
+	/**
+	 * @param all the elements of the grid, in order, read instead of the cells
+	 *            when the area covers more cells than there are elements
+	 * @return the elements that may be drawn in the area, back to front
+	 */
+	List<GraphicElement> getElementsIn(final Rectangle area, final List<GraphicElement> all) {
+		final int left = Math.floorDiv(area.x - LABEL_HALF_WIDTH, CELL_SIZE);
+		final int right = Math.floorDiv(area.x + area.width + LABEL_HALF_WIDTH, CELL_SIZE);
+		final int top = Math.floorDiv(area.y - LABEL_HEIGHT - ARC_MARGIN, CELL_SIZE);
+		final int bottom = Math.floorDiv(area.y + area.height + LABEL_HEIGHT + ARC_MARGIN, CELL_SIZE);
+		final List<GraphicElement> visible = new ArrayList<>();
+		if ((long) (right - left + 1) * (bottom - top + 1) > this.entries.size()) {
+			for (final GraphicElement element : all) {
+				if (isDrawnIn(element, area)) {
+					visible.add(element);
+				}
+			}
+			return visible;
+		}
+		final int query = ++this.nextQuery;
+		final List<Entry> met = new ArrayList<>();
+		for (int cx = left; cx <= right; cx++) {
+			for (int cy = top; cy <= bottom; cy++) {
+				final List<Entry> cell = this.cells.get(key(cx, cy));
+				if (cell == null) {
+					continue;
+				}
+				for (final Entry entry : cell) {
+					if (entry.query != query) {
+						entry.query = query;
+						if (isDrawnIn(entry.element, area)) {
+							met.add(entry);
+						}
+					}
+				}
+			}
+		}
+		met.sort((a, b) -> Long.compare(a.depth, b.depth));
+		for (final Entry entry : met) {
+			visible.add(entry.element);
+		}
+		return visible;
+	}
+
+	private static boolean isDrawnIn(final GraphicElement element, final Rectangle area) {
+		return getDrawnBounds(element).intersects(area);
+	}
+
+	/**
+	 * @return the bounds the element may be drawn in, its label included
+	 */
+	static Rectangle getDrawnBounds(final GraphicElement element) {
+		int left = Math.min(element.getStart().x, element.getEnd().x);
+		int top = Math.min(element.getStart().y, element.getEnd().y);
+		int right = Math.max(element.getStart().x, element.getEnd().x);
+		int bottom = Math.max(element.getStart().y, element.getEnd().y);
+		if (element.isNode()) {
+			left -= LABEL_HALF_WIDTH;
+			right += LABEL_HALF_WIDTH;
+			bottom += LABEL_HEIGHT;
+		} else {
+			if (element instanceof GraphicArc) {
+				for (final Point breakPoint : ((GraphicArc) element).getBreakPoints()) {
+					left = Math.min(left, breakPoint.x);
+					top = Math.min(top, breakPoint.y);
+					right = Math.max(right, breakPoint.x);
+					bottom = Math.max(bottom, breakPoint.y);
+				}
+			}
+			left -= ARC_MARGIN;
+			top -= ARC_MARGIN;
+			right += ARC_MARGIN;
+			bottom += ARC_MARGIN;
+		}
+		return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+	}
+
+	private void insert(final Entry entry) {
+		final Set<Long> keys = new LinkedHashSet<>();
+		if (entry.element.isNode()) {
+			final GraphicElement node = entry.element;
+			addCells(keys, Math.min(node.getStart().x, node.getEnd().x), Math.min(node.getStart().y, node.getEnd().y),
+					Math.max(node.getStart().x, node.getEnd().x), Math.max(node.getStart().y, node.getEnd().y));
+		} else {
+			final GraphicArc arc = (GraphicArc) entry.element;
+			Point previous = arc.getStart();
+			for (final Point breakPoint : arc.getBreakPoints()) {
+				addSegmentCells(keys, previous, breakPoint);
+				previous = breakPoint;
+			}
+			addSegmentCells(keys, previous, arc.getEnd());
+		}
+		entry.cellKeys = new long[keys.size()];
+		int i = 0;
+		for (final long key : keys) {
+			entry.cellKeys[i++] = key;
+			this.cells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(entry);
+		}
+	}
+
+	private void erase(final Entry entry) {
+		for (final long key : entry.cellKeys) {
+			final List<Entry> cell = this.cells.get(key);
+			if (cell != null) {
+				cell.remove(entry);
+				if (cell.isEmpty()) {
+					this.cells.remove(key);
+				}
+			}
+		}
+		entry.cellKeys = NO_CELLS;
+	}
+
+	private static void addCells(final Set<Long> keys, final int left, final int top, final int right,
+			final int bottom) {
+		for (int cx = Math.floorDiv(left, CELL_SIZE); cx <= Math.floorDiv(right, CELL_SIZE); cx++) {
+			for (int cy = Math.floorDiv(top, CELL_SIZE); cy <= Math.floorDiv(bottom, CELL_SIZE); cy++) {
+				keys.add(key(cx, cy));
+			}
+		}
+	}
+
+	/*
+	 * The cells of the bounding box of the segment, grown by the tolerance,
+	 * that the segment crosses once the cell is grown by the tolerance
+	 */
+	private static void addSegmentCells(final Set<Long> keys, final Point from, final Point to) {
+		final int margin = GraphicArc.NEARTOLERANCE / 2 + 1;
+		final int left = Math.floorDiv(Math.min(from.x, to.x) - margin, CELL_SIZE);
+		final int right = Math.floorDiv(Math.max(from.x, to.x) + margin, CELL_SIZE);
+		final int top = Math.floorDiv(Math.min(from.y, to.y) - margin, CELL_SIZE);
+		final int bottom = Math.floorDiv(Math.max(from.y, to.y) + margin, CELL_SIZE);
+		final Rectangle cell = new Rectangle();
+		for (int cx = left; cx <= right; cx++) {
+			for (int cy = top; cy <= bottom; cy++) {
+				cell.setBounds(cx * CELL_SIZE - margin, cy * CELL_SIZE - margin, CELL_SIZE + 2 * margin,
+						CELL_SIZE + 2 * margin);
+				if (cell.intersectsLine(from.x, from.y, to.x, to.y)) {
+					keys.add(key(cx, cy));
+				}
+			}
+		}
+	}
+
+	private static long key(final int cx, final int cy) {
+		return (long) cx << 32 | cy & 0xffffffffL;
+	}
+
+}
@@ -83,6 +83,14 @@ public class GraphicArc extends GraphicElement {
 		for (final Point breakPoint : breakPoints) {
 			this.breakPoints.add(breakPoint.getLocation()); // getLocation because Point is mutable
 		}
+		geometryChanged();
+	}
+
+	/**
+	 * To be called after moving one of the points of getBreakPoints()
+	 */
+	public void breakPointMoved() {
+		geometryChanged();
 	}
 
 	public void draw(final Graphics g) {
@@ -236,7 +244,11 @@ public class GraphicArc extends GraphicElement {
 	}
 
 	public void setDestination(final GraphicNode destination) {
+		final GraphicNode previous = this.destination;
 		this.destination = destination;
+		for (final GraphicPetriNet owner : getOwners()) {
+			owner.arcReconnected(this, previous, destination);
+		}
 	}
 
 	public GraphicNode getSource() {
@@ -244,7 +256,11 @@ public class GraphicArc extends GraphicElement {
 	}
 
 	public void setSource(final GraphicNode source) {
+		final GraphicNode previous = this.source;
 		this.source = source;
+		for (final GraphicPetriNet owner : getOwners()) {
+			owner.arcReconnected(this, previous, source);
+		}
 	}
 
 	public static final int NEARTOLERANCE = 10;
@@ -276,6 +292,7 @@ public class GraphicArc extends GraphicElement {
 			for (int i = 0; i < this.breakPoints.size(); i++) {
 				if (GraphicsTools.isPointNearSegment(previous, this.breakPoints.get(i), newPoint, NEARTOLERANCE)) {
 					this.breakPoints.add(i, newPoint);
+					geometryChanged();
 					return newPoint;
 				}
 				previous = this.breakPoints.get(i);
@@ -284,15 +301,18 @@ public class GraphicArc extends GraphicElement {
 				this.breakPoints.add(newPoint);
 			}
 		}
+		geometryChanged();
 		return newPoint;
 	}
 
 	public void addDistantBreakPointToEnd(final Point newPoint) {
 		this.breakPoints.add(newPoint);
+		geometryChanged();
 	}
 
 	public void addDistantBreakPointToBeginning(final Point newPoint) {
 		this.breakPoints.add(0, newPoint);
+		geometryChanged();
 	}
 
 	public void cleanupUnecessaryBreakPoints() {
@@ -307,6 +327,7 @@ public class GraphicArc extends GraphicElement {
 				previous = this.breakPoints.get(i);
 			}
 		}
+		geometryChanged();
 	}
 
 	@Override
@@ -17,6 +17,9 @@
 package org.pneditor.editor.gpetrinet;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.pneditor.petrinet.PetriNetInterface;
 
@@ -33,6 +36,8 @@ public abstract class GraphicElement {
     protected Color color = Color.black;
     protected Color highlightColor;
 
+    // nets containing this element, told when its geometry changes
+    private List<GraphicPetriNet> owners;
 
     public Point getStart() {
         if (this.start == null) {
@@ -54,6 +59,7 @@ public abstract class GraphicElement {
         }
         this.start.x = x;
         this.start.y = y;
+        geometryChanged();
     }
 
     public void setEnd(final int x, final int y) {
@@ -62,6 +68,7 @@ public abstract class GraphicElement {
         }
         this.end.x = x;
         this.end.y = y;
+        geometryChanged();
     }
 
     public int getWidth() {
@@ -108,8 +115,40 @@ public abstract class GraphicElement {
     }
 
     public void moveBy(final int dx, final int dy) {
+        final List<GraphicPetriNet> toTell = this.owners;
+        this.owners = null; // told once, after both points moved
         setStart(getStart().x + dx, getStart().y + dy);
         setEnd(getEnd().x + dx, getEnd().y + dy);
+        this.owners = toTell;
+        geometryChanged();
+    }
+
+    void addOwner(final GraphicPetriNet owner) {
+        if (this.owners == null) {
+            this.owners = new ArrayList<>(1);
+        }
+        this.owners.add(owner);
+    }
+
+    List<GraphicPetriNet> getOwners() {
+        return this.owners == null ? Collections.emptyList() : this.owners;
+    }
+
+    void removeOwner(final GraphicPetriNet owner) {
+        if (this.owners != null) {
+            this.owners.remove(owner);
+        }
+    }
+
+    /**
+     * Tells the nets containing this element that it moved or changed shape
+     */
+    protected void geometryChanged() {
+        if (this.owners != null) {
+            for (final GraphicPetriNet owner : this.owners) {
+                owner.elementMoved(this);
+            }
+        }
     }
 
     public void setColor(final Color color) {
@@ -24,15 +24,18 @@ import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.pneditor.util.CachedGraphics2D;
 
 import logger.PNEditorLogger;
 
-import org.pneditor.petrinet.AbstractArc;
 import org.pneditor.petrinet.PetriNetInterface;
 
 /**
@@ -46,6 +49,15 @@ import org.pneditor.petrinet.PetriNetInterface;
 public class GraphicPetriNet {
 
 	private final List<GraphicElement> elements = new LinkedList<>();
+	private final ElementGrid grid = new ElementGrid();
+	// the elements by kind, kept along with the list
+	private final Set<GraphicPlace> places = new HashSet<>();
+	private final Set<GraphicTransition> transitions = new HashSet<>();
+	private final Set<GraphicArc> arcs = new HashSet<>();
+	// the arcs connected to each node, also put again in the grid when it moves
+	private final Map<GraphicNode, List<GraphicArc>> nodeArcs = new IdentityHashMap<>();
+	// elements added, removed or moved, for the static layer of the canvas
+	private int changeCount;
 	private Point viewTranslation = new Point(0, 0);
 	private PetriNetInterface petriNet;
 	private final String modelPath = "org.pneditor.petrinet.adapters.";
@@ -103,30 +115,119 @@ public class GraphicPetriNet {
 		return Collections.unmodifiableList(this.elements);
 	}
 
+	/**
+	 * @return the front-most element containing the point, found in the cell of
+	 *         the point in the grid
+	 */
 	public GraphicElement getElementByXY(final int x, final int y) {
-		for (int i = this.elements.size() - 1; i >= 0; i--) { // Check elements from front to back.
-			final GraphicElement element = this.elements.get(i);
-			if (element.containsPoint(x, y)) {
-				return element;
-			}
-		}
-		return null;
+		return this.grid.getElementAt(x, y);
 	}
 
 	public void addElement(final GraphicElement element) {
 		if (!element.isNode()) {
 			this.elements.add(0, element); // background
+			final GraphicArc arc = (GraphicArc) element;
+			this.arcs.add(arc);
+			attach(arc, arc.getSource());
+			attach(arc, arc.getDestination());
 		} else {
 			this.elements.add(element);
+			// the list lives as long as the node is in the net: see getConnectedGraphicArcs
+			this.nodeArcs.computeIfAbsent((GraphicNode) element, n -> new ArrayList<>(2));
+			if (element.isPlace()) {
+				this.places.add((GraphicPlace) element);
+			} else {
+				this.transitions.add((GraphicTransition) element);
+			}
 		}
+		this.grid.add(element);
+		element.addOwner(this);
+		this.changeCount++;
 	}
 
 	public void removeElement(final GraphicElement element) {
-		this.elements.remove(element);
+		if (this.elements.remove(element)) {
+			this.grid.remove(element);
+			element.removeOwner(this);
+			if (!element.isNode()) {
+				final GraphicArc arc = (GraphicArc) element;
+				this.arcs.remove(arc);
+				detach(arc, arc.getSource());
+				detach(arc, arc.getDestination());
+			} else {
+				if (element.isPlace()) {
+					this.places.remove(element);
+				} else {
+					this.transitions.remove(element);
+				}
+				final List<GraphicArc> arcs = this.nodeArcs.get(element);
+				if (arcs != null && arcs.isEmpty()) {
+					this.nodeArcs.remove(element);
+				}
+			}
+			this.changeCount++;
+		}
 	}
 
 	public void removeElements() {
+		for (final GraphicElement element : this.elements) {
+			element.removeOwner(this);
+		}
 		this.elements.clear();
+		this.grid.clear();
+		this.places.clear();
+		this.transitions.clear();
+		this.arcs.clear();
+		this.nodeArcs.clear();
+		this.changeCount++;
+	}
+
+	/**
+	 * @return a count that changes whenever elements are added, removed or
+	 *         moved, but not when tokens, labels or multiplicities change
+	 */
+	public int getChangeCount() {
+		return this.changeCount;
+	}
+
+	/*
+	 * Called by the elements of the net when their geometry changes
+	 */
+
+	void elementMoved(final GraphicElement element) {
+		this.changeCount++;
+		this.grid.update(element);
+		if (element.isNode()) {
+			final List<GraphicArc> arcs = this.nodeArcs.get(element);
+			if (arcs != null) {
+				for (final GraphicArc arc : arcs) {
+					this.grid.update(arc);
+				}
+			}
+		}
+	}
+
+	void arcReconnected(final GraphicArc arc, final GraphicNode previous, final GraphicNode next) {
+		detach(arc, previous);
+		attach(arc, next);
+		this.grid.update(arc);
+		this.changeCount++;
+	}
+
+	private void attach(final GraphicArc arc, final GraphicNode node) {
+		if (node != null) {
+			this.nodeArcs.computeIfAbsent(node, n -> new ArrayList<>(2)).add(arc);
+		}
+	}
+
+	private void detach(final GraphicArc arc, final GraphicNode node) {
+		final List<GraphicArc> arcs = node == null ? null : this.nodeArcs.get(node);
+		if (arcs != null) {
+			arcs.remove(arc);
+			if (arcs.isEmpty() && !this.places.contains(node) && !this.transitions.contains(node)) {
+				this.nodeArcs.remove(node);
+			}
+		}
 	}
 
 	public void addAll(final Set<GraphicElement> elementsToAdd) {
@@ -141,32 +242,38 @@ public class GraphicPetriNet {
 		}
 	}
 
+	/**
+	 * @return a read-only view of the arcs, kept up to date
+	 */
 	public Set<GraphicArc> getArcs() {
-		final Set<GraphicArc> arcs = new HashSet<>();
-		for (final GraphicElement element : this.elements) {
-			if (!element.isNode()) {
-				final GraphicArc arc = (GraphicArc) element;
-				arcs.add(arc);
-			}
-		}
-		return arcs;
+		return Collections.unmodifiableSet(this.arcs);
 	}
 
+	/**
+	 * @return a read-only view of the places, kept up to date
+	 */
 	public Set<GraphicPlace> getPlaces() {
-		final Set<GraphicPlace> places = new HashSet<>();
-		for (final GraphicElement element : this.elements) {
-			if (element.isPlace()) {
-				final GraphicPlace place = (GraphicPlace) element;
-				places.add(place);
-			}
-		}
-		return places;
+		return Collections.unmodifiableSet(this.places);
+	}
+
+	/**
+	 * @return a read-only view of the transitions, kept up to date
+	 */
+	public Set<GraphicTransition> getTransitions() {
+		return Collections.unmodifiableSet(this.transitions);
 	}
 
 	public Rectangle getBounds() {
+		return getBounds(this.elements);
+	}
+
+	/**
+	 * @return the bounds of elements, whether in a net or not
+	 */
+	public static Rectangle getBounds(final Collection<GraphicElement> elements) {
 		Rectangle bounds = null;
 
-		for (final GraphicElement element : this.elements) {
+		for (final GraphicElement element : elements) {
 			if (bounds == null) {
 				bounds = new Rectangle(element.getStart().x, element.getStart().y, element.getWidth(),
 						element.getHeight());
@@ -190,19 +297,55 @@ public class GraphicPetriNet {
 		return bounds;
 	}
 
+	/**
+	 * @return the bounds the element may be drawn in, its label included,
+	 *         whether in a net or not
+	 */
+	public static Rectangle getDrawnBounds(final GraphicElement element) {
+		return ElementGrid.getDrawnBounds(element);
+	}
+
+	/**
+	 * @return the elements that may be drawn in the area, back to front
+	 */
+	public List<GraphicElement> getElementsIn(final Rectangle area) {
+		return this.grid.getElementsIn(area, this.elements);
+	}
+
+	/**
+	 * Draws only the elements that may be drawn in the clip of g, if any
+	 */
 	public void draw(final Graphics g) {
+		for (final GraphicElement element : getElementsIn(g)) {
+			drawHighlighted(g, element);
+		}
+	}
 
-		for (final GraphicElement element : this.elements) {
-			if (element.highlightColor != null) {
-				final Color previousColor = element.getColor();
+	/**
+	 * Draws like draw, but every element in its own color, as in the static
+	 * layer of the canvas
+	 */
+	public void drawWithoutHighlights(final Graphics g) {
+		for (final GraphicElement element : getElementsIn(g)) {
+			element.draw(g, this.petriNet);
+		}
+	}
 
-				element.setColor(element.highlightColor);
-				element.draw(g, this.petriNet); // TODO
+	private List<GraphicElement> getElementsIn(final Graphics g) {
+		final Rectangle clip = g.getClipBounds();
+		return clip == null ? this.elements : getElementsIn(clip);
+	}
 
-				element.setColor(previousColor);
-			} else {
-				element.draw(g, this.petriNet); // TODO
-			}
+	private void drawHighlighted(final Graphics g, final GraphicElement element) {
+		if (element.highlightColor != null) {
+			final Color previousColor = element.getColor();
+
+			element.setColor(element.highlightColor);
+			element.draw(g, this.petriNet);
+
+			element.setColor(previousColor);
+		} else {
+			element.draw(g, this.petriNet);
 		}
 	}
 
@@ -212,19 +355,36 @@ public class GraphicPetriNet {
 
 	public void setPetriNet(final PetriNetInterface petriNet) {
 		this.petriNet = petriNet;
+		this.changeCount++;
 	}
 
-	public Set<GraphicArc> getConnectedGraphicArcs(final GraphicNode node) {
-		final Set<GraphicArc> graphicArcs = new HashSet<>();
-		for (final GraphicElement element : this.elements) {
-			if (!element.isNode()) {
-				final AbstractArc arc = ((GraphicArc) element).getArc();
-				if (arc.getSource().equals(node.getNode()) || arc.getDestination().equals(node.getNode())) {
-					graphicArcs.add((GraphicArc) element);
+	/**
+	 * @return a read-only view of the arcs of this net connected to the node,
+	 *         which follows the changes of the net while the node is in it:
+	 *         copy it to change the net while iterating. An arc from the node
+	 *         to itself is there twice.
+	 */
+	public List<GraphicArc> getConnectedGraphicArcs(final GraphicNode node) {
+		final List<GraphicArc> connectedArcs = this.nodeArcs.get(node);
+		return connectedArcs == null ? Collections.emptyList() : Collections.unmodifiableList(connectedArcs);
+	}
+
+	/**
+	 * @return the drawn bounds of the place and of the transitions it is an
+	 *         input of, whose enabled border drawn in token mode may change
+	 *         with the tokens of the place
+	 */
+	public Rectangle getTokensChangedArea(final GraphicPlace place) {
+		final Rectangle area = getDrawnBounds(place);
+		final List<GraphicArc> connectedArcs = this.nodeArcs.get(place);
+		if (connectedArcs != null) {
+			for (final GraphicArc arc : connectedArcs) {
+				if (arc.getSource() == place) {
+					area.add(getDrawnBounds(arc.getDestination()));
 				}
 			}
 		}
-		return graphicArcs;
+		return area;
 	}
 
 	/**
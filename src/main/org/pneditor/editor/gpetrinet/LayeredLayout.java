@@ -0,0 +1,99 @@
+package org.pneditor.editor.gpetrinet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pneditor.petrinet.AbstractArc;
+import org.pneditor.petrinet.AbstractNode;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+
+/**
+ * Draws a net built without the editor, such as a discovered one: its nodes
+ * are placed in columns by their distance along the arcs from the marked
+ * places, then from the nodes not reached yet.
+ */
+public final class LayeredLayout {
+
+	private static final int SPACING = 80;
+
+	private LayeredLayout() {
+	}
+
+	/**
+	 * Adds to the graphic net, without elements yet, an element for every node
+	 * and every arc of its Petri net
+	 */
+	public static void layout(final GraphicPetriNet gPetriNet) {
+		final PetriNetInterface petriNet = gPetriNet.getPetriNet();
+		final List<AbstractNode> nodes = new ArrayList<>(petriNet.getPlaces());
+		nodes.addAll(petriNet.getTransitions());
+		// marked places first, then nodes without inputs, each kind by ID
+		nodes.sort(Comparator.comparing((AbstractNode node) -> !isMarked(node))
+				.thenComparing(node -> !petriNet.getInputArcs(node).isEmpty())
+				.thenComparing(node -> !node.isPlace()).thenComparingInt(AbstractNode::getId));
+
+		final Map<AbstractNode, Integer> columns = new HashMap<>();
+		final List<List<AbstractNode>> layers = new ArrayList<>();
+		final Deque<AbstractNode> toVisit = new ArrayDeque<>();
+		for (final AbstractNode root : nodes) {
+			if (columns.containsKey(root)) {
+				continue;
+			}
+			visit(root, 0, columns, layers, toVisit);
+			while (!toVisit.isEmpty()) {
+				final AbstractNode node = toVisit.poll();
+				for (final AbstractArc arc : petriNet.getOutputArcs(node)) {
+					if (!columns.containsKey(arc.getDestination())) {
+						visit(arc.getDestination(), columns.get(node) + 1, columns, layers, toVisit);
+					}
+				}
+			}
+		}
+
+		final Map<AbstractNode, GraphicNode> representations = new HashMap<>();
+		for (int column = 0; column < layers.size(); column++) {
+			final List<AbstractNode> layer = layers.get(column);
+			for (int row = 0; row < layer.size(); row++) {
+				final AbstractNode node = layer.get(row);
+				final int x = SPACING + column * SPACING;
+				// layers are centered on the same line
+				final int y = SPACING + row * SPACING - (layer.size() - 1) * SPACING / 2;
+				final GraphicNode representation = node.isPlace()
+						? new GraphicPlace((AbstractPlace) node, x, y)
+						: new GraphicTransition((AbstractTransition) node, x, y);
+				representations.put(node, representation);
+				gPetriNet.addElement(representation);
+			}
+		}
+		for (final AbstractNode node : nodes) {
+			for (final AbstractArc arc : petriNet.getOutputArcs(node)) {
+				final GraphicArc gArc = new GraphicArc(arc);
+				gArc.setSource(representations.get(arc.getSource()));
+				gArc.setDestination(representations.get(arc.getDestination()));
+				gPetriNet.addElement(gArc);
+			}
+		}
+	}
+
+	private static boolean isMarked(final AbstractNode node) {
+		return node.isPlace() && ((AbstractPlace) node).getTokens() > 0;
+	}
+
+	private static void visit(final AbstractNode node, final int column, final Map<AbstractNode, Integer> columns,
+			final List<List<AbstractNode>> layers, final Deque<AbstractNode> toVisit) {
+		columns.put(node, column);
+		while (layers.size() <= column) {
+			layers.add(new ArrayList<>());
+		}
+		layers.get(column).add(node);
+		toVisit.add(node);
+	}
+
+}
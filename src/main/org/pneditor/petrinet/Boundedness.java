@@ -16,191 +16,70 @@
  */
 package org.pneditor.petrinet;
 
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.pneditor.petrinet.algorithms.CompiledNet;
+import org.pneditor.petrinet.algorithms.CoverabilityGraph;
+import org.pneditor.petrinet.algorithms.Invariants;
 
 /**
+ * Boundedness of a net, decided on its Karp-Miller coverability graph unless
+ * its P-invariants already prove it.
  *
  * @author milka
  */
 public class Boundedness {
 
-	final private ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
 	final private PetriNetInterface petriNet;
-	private Stack<Map<AbstractPlace, Integer>> markingsStack;
-	private boolean isUnboundedness;
 
 	public Boundedness(final PetriNetInterface petriNet) {
 		this.petriNet = petriNet;
 	}
 
+	/**
+	 * @return true if every place of the net is bounded. A net covered by
+	 *         P-invariants is bounded without any search, otherwise the search
+	 *         stops at the first unbounded place.
+	 */
 	public boolean isBounded() throws ResetArcMultiplicityException {
-
-		this.isUnboundedness = false;
-
-		final Map<AbstractPlace, Integer> initMap = initFill();
-		this.markingsStack = new Stack<>();
-		this.markingsStack.push(initMap);
-
-		final Set<AbstractTransition> executableTransitions = getAllEnabledTransitions(initMap);
-		for (final AbstractTransition t : executableTransitions) {
-			if (checkBranchBoundedness(initMap, t)) {
-				this.markingsStack.pop();
-			}
-		}
-		return this.isUnboundedness;
-	}
-
-	private boolean checkBranchBoundedness(final Map<AbstractPlace, Integer> marking,
-			final AbstractTransition transition) throws ResetArcMultiplicityException {
-
-		if (this.isUnboundedness) {
-			return false;
-		}
-
-		final Map<AbstractPlace, Integer> newMarking = new ConcurrentHashMap<>(marking);
-		fire(newMarking, transition);
-
-		for (final Map<AbstractPlace, Integer> oldMarking : this.markingsStack) {
-			if (isOmega(newMarking, oldMarking)) {
-				this.isUnboundedness = true;
-				return false;
-			}
-		}
-
-		if (!this.markingsStack.contains(newMarking)) {
-			this.markingsStack.push(newMarking);
-			final Set<AbstractTransition> executableTransitions = getAllEnabledTransitions(newMarking);
-			for (final AbstractTransition t : executableTransitions) {
-				if (checkBranchBoundedness(newMarking, t)) {
-					this.markingsStack.pop();
-				}
-			}
+		final CompiledNet net = new CompiledNet(this.petriNet);
+		if (new Invariants(net).isCoveredByPlaceInvariants()) {
 			return true;
 		}
-
-		return false;
-
-	}
-
-	private boolean isOmega(final Map<AbstractPlace, Integer> newMarking,
-			final Map<AbstractPlace, Integer> oldMarking) {
-
-		boolean isOneSharplyHigher = false;
-
-		for (final AbstractPlace newMarkingAbstractPlace : newMarking.keySet()) {
-
-			final int newTokens = newMarking.get(newMarkingAbstractPlace);
-
-			AbstractPlace oldMarkingAbstractPlace = null;
-			for (final AbstractPlace place : oldMarking.keySet()) {
-				if (place.equals(newMarkingAbstractPlace)) {
-					oldMarkingAbstractPlace = place;
-					break;
-				}
-			}
-
-			final int oldTokens = oldMarking.get(oldMarkingAbstractPlace);
-
-			if (newTokens < oldTokens) {
-				return false;
-			} else if (newTokens > oldTokens) {
-				isOneSharplyHigher = true;
-			}
-
-		}
-		return isOneSharplyHigher;
+		return new CoverabilityGraph(net, true, Integer.MAX_VALUE).isBounded();
 	}
 
-	private Map<AbstractPlace, Integer> initFill() {
-		final Map<AbstractPlace, Integer> marking = new ConcurrentHashMap<>();
-		for (final AbstractPlace place : this.petriNet.getPlaces()) {
-			marking.put(place, place.getTokens());
-		}
-		return marking;
+	/**
+	 * @return the bound of every place, CoverabilityGraph.OMEGA for the unbounded
+	 *         ones
+	 */
+	public Map<AbstractPlace, Integer> getBounds() throws ResetArcMultiplicityException {
+		return getBounds(new CompiledNet(this.petriNet));
 	}
 
-	private boolean fire(final Map<AbstractPlace, Integer> marking, final AbstractTransition transition)
-			throws ResetArcMultiplicityException {
-		boolean success;
-		this.lock.writeLock().lock();
-		try {
-			if (isEnabled(marking, transition)) {
-				for (final AbstractArc arc : this.petriNet.getConnectedArcs(transition)) {
-					if (arc.isSourceAPlace()) {
-						if (arc.isReset()) { // reset arc consumes them all
-							marking.put((AbstractPlace) arc.getSource(), 0);
-						}
-						if (arc.isRegular()) {
-							marking.put((AbstractPlace) arc.getSource(),
-									marking.get(arc.getSource()) - arc.getMultiplicity());
-						}
-
-					}
-				}
-				for (final AbstractArc arc : this.petriNet.getConnectedArcs(transition)) {
-					if (!arc.isSourceAPlace()) {
-						marking.put((AbstractPlace) arc.getDestination(),
-								marking.get(arc.getDestination()) + arc.getMultiplicity());
-					}
-				}
-				success = true;
-			} else {
-				success = false;
-			}
-		} finally {
-			this.lock.writeLock().unlock();
-		}
-		return success;
+	/**
+	 * Bounds of a net compiled beforehand, e.g. on the event dispatch thread
+	 * before the search runs in a worker
+	 */
+	public static Map<AbstractPlace, Integer> getBounds(final CompiledNet net) {
+		return getBounds(net, Integer.MAX_VALUE);
 	}
 
-	private boolean isEnabled(final Map<AbstractPlace, Integer> marking, final AbstractTransition transition)
-			throws ResetArcMultiplicityException {
-		boolean isEnabled = true;
-		this.lock.readLock().lock();
-		try {
-			for (final AbstractArc arc : this.petriNet.getConnectedArcs(transition)) {
-				if (arc.isSourceAPlace() && !arc.isReset()) {
-					// reset arc is always fireable
-					// but can be blocked by other arcs
-
-					if (arc.isRegular()) { 
-						if (marking.get(arc.getSource()) < arc.getMultiplicity()) {// normal arc
-							isEnabled = false;
-							break;
-						}
-					} else {
-						if (marking.get(arc.getSource()) >= arc.getMultiplicity()) {// inhibitory arc
-							isEnabled = false;
-							break;
-						}
-					}
-
-				}
-			}
-		} finally {
-			this.lock.readLock().unlock();
+	/**
+	 * @throws IllegalStateException if the coverability graph has more than
+	 *                               maxNodes nodes, the bounds found so far
+	 *                               being only lower bounds
+	 */
+	public static Map<AbstractPlace, Integer> getBounds(final CompiledNet net, final int maxNodes) {
+		final CoverabilityGraph graph = new CoverabilityGraph(net, false, maxNodes);
+		if (!graph.isComplete()) {
+			throw new IllegalStateException("More than " + maxNodes + " nodes in the coverability graph");
 		}
-		return isEnabled;
-	}
-
-	public Set<AbstractTransition> getAllEnabledTransitions(final Map<AbstractPlace, Integer> marking)
-			throws ResetArcMultiplicityException {
-		final Set<AbstractTransition> enabledTransitions = new HashSet<>();
-		this.lock.readLock().lock();
-		try {
-			for (final AbstractTransition transition : this.petriNet.getTransitions()) {
-				if (isEnabled(marking, transition)) {
-					enabledTransitions.add(transition);
-				}
-			}
-		} finally {
-			this.lock.readLock().unlock();
+		final Map<AbstractPlace, Integer> bounds = new LinkedHashMap<>(); // ordered by place id
+		for (int p = 0; p < graph.getNet().getPlaceCount(); p++) {
+			bounds.put(graph.getNet().getPlace(p), graph.getBound(p));
 		}
-		return enabledTransitions;
+		return bounds;
 	}
 }
@@ -0,0 +1,71 @@
+package org.pneditor.petrinet;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Set of the enabled transitions of a PetriNetInterface, maintained
+ * incrementally. The net marks as stale the transitions that depend on a place
+ * whose tokens changed (or whose arcs changed); only those are checked again
+ * by the model on the next query, instead of every transition of the net.
+ */
+public final class EnabledSet {
+
+	final private PetriNetInterface petriNet;
+	final private Set<AbstractTransition> enabled = new HashSet<>();
+	final private Set<AbstractTransition> stale = new HashSet<>();
+	final private Set<AbstractTransition> enabledView = Collections.unmodifiableSet(this.enabled);
+
+	EnabledSet(final PetriNetInterface petriNet) {
+		this.petriNet = petriNet;
+	}
+
+	public boolean isEnabled(final AbstractTransition transition) throws ResetArcMultiplicityException {
+		refresh();
+		return this.enabled.contains(transition);
+	}
+
+	/**
+	 * @return a read-only view of the enabled transitions, valid until the next
+	 *         change of the net
+	 */
+	public Set<AbstractTransition> getEnabledTransitions() throws ResetArcMultiplicityException {
+		refresh();
+		return this.enabledView;
+	}
+
+	/**
+	 * Forces every transition to be checked again, e.g. after the tokens of a
+	 * place were changed without going through the net.
+	 */
+	public void invalidateAll() {
+		this.stale.addAll(this.petriNet.getTransitions());
+	}
+
+	void invalidate(final AbstractTransition transition) {
+		this.stale.add(transition);
+	}
+
+	void remove(final AbstractTransition transition) {
+		this.stale.remove(transition);
+		this.enabled.remove(transition);
+	}
+
+	private void refresh() throws ResetArcMultiplicityException {
+		final Iterator<AbstractTransition> iter = this.stale.iterator();
+		while (iter.hasNext()) {
+			final AbstractTransition transition = iter.next();
+			if (!this.petriNet.getTransitions().contains(transition)) { // removed meanwhile
+				this.enabled.remove(transition);
+			} else if (this.petriNet.isEnabled(transition)) {
+				this.enabled.add(transition);
+			} else {
+				this.enabled.remove(transition);
+			}
+			iter.remove();
+		}
+	}
+
+}
@@ -1,6 +1,12 @@
 package org.pneditor.petrinet;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import logger.PNEditorLogger;
@@ -16,6 +22,21 @@ public abstract class PetriNetInterface {
 	private final Set<AbstractArc> arcs = new HashSet<>();
 	private int nextId = 1;
 
+	/*
+	 * Dependency index used to maintain the enabled transitions incrementally:
+	 * the transitions reading each place, and the places written by each
+	 * transition when it fires. A pair appears once per arc.
+	 */
+	private final Map<AbstractPlace, List<AbstractTransition>> dependentTransitions = new HashMap<>();
+	private final Map<AbstractTransition, List<AbstractPlace>> changedPlaces = new HashMap<>();
+	private final EnabledSet enabledSet = new EnabledSet(this);
+
+	/*
+	 * Arcs of each node, so that the arcs of a node are found without scanning
+	 * all the arcs of the net
+	 */
+	private final Map<AbstractNode, NodeArcs> nodeArcs = new HashMap<>();
+
 	/*
 	 * Interface that adapters must implement (+ the element specific methods)
 	 */
@@ -43,6 +64,17 @@ public abstract class PetriNetInterface {
 
 	public abstract void fire(AbstractTransition transition) throws ResetArcMultiplicityException;
 
+	/**
+	 * Firing rule of the reset arcs of the model, read by the compiled analyses
+	 * (CompiledNet) so that they fire the net like the model does.
+	 *
+	 * @return true if a reset arc disables its transition while its place is
+	 *         empty; false by default, a reset arc then never disables it
+	 */
+	public boolean isResetArcEnabling() {
+		return false;
+	}
+
 	/*
 	 * Methods used by the software, not defined by the models. It mostly concerns
 	 * stocking the elements, and adding the ID
@@ -69,6 +101,7 @@ public abstract class PetriNetInterface {
 		final AbstractTransition transition = addTransition();
 		this.transitions.add(transition);
 		transition.setId(this.nextId++);
+		this.enabledSet.invalidate(transition);
 		return transition;
 	}
 
@@ -79,6 +112,7 @@ public abstract class PetriNetInterface {
 		if (id >= this.nextId) {
 			this.nextId = id + 1;
 		}
+		this.enabledSet.invalidate(transition);
 		return transition;
 	}
 
@@ -111,6 +145,8 @@ public abstract class PetriNetInterface {
 			throws UnimplementedCaseException {
 		final AbstractArc arc = addRegularArc(source, destination);
 		this.arcs.add(arc);
+		addToNodeArcs(arc);
+		indexArc(arc);
 		return arc;
 	}
 
@@ -118,6 +154,8 @@ public abstract class PetriNetInterface {
 			throws UnimplementedCaseException {
 		final AbstractArc arc = addInhibitoryArc(place, transition);
 		this.arcs.add(arc);
+		addToNodeArcs(arc);
+		indexArc(arc);
 		return arc;
 	}
 
@@ -125,22 +163,191 @@ public abstract class PetriNetInterface {
 			throws UnimplementedCaseException {
 		final AbstractArc arc = addResetArc(place, transition);
 		this.arcs.add(arc);
+		addToNodeArcs(arc);
+		indexArc(arc);
 		return arc;
 	}
 
 	public final void removeAbstractPlace(final AbstractPlace place) {
+		removeNodeArcs(place);
 		removePlace(place);
 		this.places.remove(place);
+		this.dependentTransitions.remove(place);
 	}
 
 	public final void removeAbstractTransition(final AbstractTransition transition) {
+		removeNodeArcs(transition);
 		removeTransition(transition);
 		this.transitions.remove(transition);
+		this.enabledSet.remove(transition);
+		this.changedPlaces.remove(transition);
 	}
 
 	public final void removeAbstractArc(final AbstractArc arc) {
+		unindexArc(arc);
 		removeArc(arc);
 		this.arcs.remove(arc);
+		removeFromNodeArcs(arc);
+	}
+
+	/*
+	 * Token and firing changes made by the software go through these methods, so
+	 * that the enabled transitions are kept up to date
+	 */
+
+	public final void addAbstractToken(final AbstractPlace place) {
+		place.addToken();
+		tokensChanged(place);
+	}
+
+	public final void removeAbstractToken(final AbstractPlace place) {
+		place.removeToken();
+		tokensChanged(place);
+	}
+
+	public final void setAbstractTokens(final AbstractPlace place, final int tokens) {
+		place.setTokens(tokens);
+		tokensChanged(place);
+	}
+
+	public final void setAbstractMultiplicity(final AbstractArc arc, final int multiplicity)
+			throws ResetArcMultiplicityException {
+		arc.setMultiplicity(multiplicity);
+		this.enabledSet.invalidate(getArcTransition(arc));
+	}
+
+	public final void fireAbstractTransition(final AbstractTransition transition) throws ResetArcMultiplicityException {
+		fire(transition);
+		for (final AbstractPlace place : getChangedPlaces(transition)) {
+			tokensChanged(place);
+		}
+	}
+
+	/**
+	 * Fires the transition like fireAbstractTransition
+	 *
+	 * @return the tokens changed, read on the places the transition may change
+	 *         before and after the firing
+	 */
+	public final TokenDelta fireAbstractTransitionWithDelta(final AbstractTransition transition)
+			throws ResetArcMultiplicityException {
+		final List<AbstractPlace> changed = getChangedPlaces(transition);
+		// a place appears once per arc
+		final AbstractPlace[] places = new AbstractPlace[changed.size()];
+		int nbPlaces = 0;
+		for (final AbstractPlace place : changed) {
+			int i = 0;
+			while (i < nbPlaces && places[i] != place) {
+				i++;
+			}
+			if (i == nbPlaces) {
+				places[nbPlaces++] = place;
+			}
+		}
+		final int[] deltas = new int[nbPlaces];
+		for (int i = 0; i < nbPlaces; i++) {
+			deltas[i] = places[i].getTokens();
+		}
+		fireAbstractTransition(transition);
+		int nbChanged = 0;
+		for (int i = 0; i < nbPlaces; i++) {
+			final int delta = places[i].getTokens() - deltas[i];
+			if (delta != 0) {
+				places[nbChanged] = places[i];
+				deltas[nbChanged++] = delta;
+			}
+		}
+		return new TokenDelta(Arrays.copyOf(places, nbChanged), Arrays.copyOf(deltas, nbChanged));
+	}
+
+	/**
+	 * Marks as stale the transitions reading the given place. To be called when
+	 * its tokens were changed directly on the place.
+	 */
+	public final void tokensChanged(final AbstractPlace place) {
+		for (final AbstractTransition transition : getDependentTransitions(place)) {
+			this.enabledSet.invalidate(transition);
+		}
+	}
+
+	public final EnabledSet getEnabledSet() {
+		return this.enabledSet;
+	}
+
+	private void indexArc(final AbstractArc arc) {
+		final AbstractTransition transition = getArcTransition(arc);
+		if (arc.isSourceAPlace()) {
+			final AbstractPlace place = (AbstractPlace) arc.getSource();
+			this.dependentTransitions.computeIfAbsent(place, p -> new ArrayList<>()).add(transition);
+			if (!arc.isInhibitory()) { // an inhibitor arc only reads the place
+				this.changedPlaces.computeIfAbsent(transition, t -> new ArrayList<>()).add(place);
+			}
+		} else {
+			this.changedPlaces.computeIfAbsent(transition, t -> new ArrayList<>())
+					.add((AbstractPlace) arc.getDestination());
+		}
+		this.enabledSet.invalidate(transition);
+	}
+
+	private void unindexArc(final AbstractArc arc) {
+		final AbstractTransition transition = getArcTransition(arc);
+		if (arc.isSourceAPlace()) {
+			final AbstractPlace place = (AbstractPlace) arc.getSource();
+			final List<AbstractTransition> dependents = this.dependentTransitions.get(place);
+			if (dependents != null) {
+				dependents.remove(transition);
+			}
+			if (!arc.isInhibitory()) {
+				removeChangedPlace(transition, place);
+			}
+		} else {
+			removeChangedPlace(transition, (AbstractPlace) arc.getDestination());
+		}
+		this.enabledSet.invalidate(transition);
+	}
+
+	private void removeChangedPlace(final AbstractTransition transition, final AbstractPlace place) {
+		final List<AbstractPlace> changed = this.changedPlaces.get(transition);
+		if (changed != null) {
+			changed.remove(place);
+		}
+	}
+
+	private void addToNodeArcs(final AbstractArc arc) {
+		this.nodeArcs.computeIfAbsent(arc.getSource(), n -> new NodeArcs()).addOutput(arc);
+		this.nodeArcs.computeIfAbsent(arc.getDestination(), n -> new NodeArcs()).addInput(arc);
+	}
+
+	private void removeFromNodeArcs(final AbstractArc arc) {
+		final NodeArcs sourceArcs = this.nodeArcs.get(arc.getSource());
+		if (sourceArcs != null) {
+			sourceArcs.removeOutput(arc);
+		}
+		final NodeArcs destinationArcs = this.nodeArcs.get(arc.getDestination());
+		if (destinationArcs != null) {
+			destinationArcs.removeInput(arc);
+		}
+	}
+
+	/*
+	 * Arcs left on a node about to be removed are removed like any other arc,
+	 * from the model and from the index, before the node itself
+	 */
+	private void removeNodeArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		if (arcsOfNode != null) {
+			for (final AbstractArc arc : new ArrayList<>(arcsOfNode.inputs)) {
+				removeAbstractArc(arc);
+			}
+			for (final AbstractArc arc : new ArrayList<>(arcsOfNode.outputs)) {
+				removeAbstractArc(arc);
+			}
+			this.nodeArcs.remove(node);
+		}
+	}
+
+	private static AbstractTransition getArcTransition(final AbstractArc arc) {
+		return (AbstractTransition) (arc.isSourceAPlace() ? arc.getDestination() : arc.getSource());
 	}
 
 	public final boolean isBounded() throws ResetArcMultiplicityException {
@@ -150,7 +357,7 @@ public abstract class PetriNetInterface {
 	public final AbstractPlace clonePlace(final AbstractPlace place) {
 		final AbstractPlace placeClone = addAbstractPlace();
 		placeClone.setLabel(place.getLabel());
-		placeClone.setTokens(place.getTokens());
+		setAbstractTokens(placeClone, place.getTokens());
 		return placeClone;
 	}
 
@@ -194,14 +401,126 @@ public abstract class PetriNetInterface {
 		return this.transitions;
 	}
 
+	/**
+	 * @return the transitions having an arc from the given place, once per arc
+	 */
+	public List<AbstractTransition> getDependentTransitions(final AbstractPlace place) {
+		final List<AbstractTransition> dependents = this.dependentTransitions.get(place);
+		return dependents == null ? Collections.emptyList() : Collections.unmodifiableList(dependents);
+	}
+
+	/**
+	 * @return the places whose tokens may change when the given transition fires
+	 */
+	public List<AbstractPlace> getChangedPlaces(final AbstractTransition transition) {
+		final List<AbstractPlace> changed = this.changedPlaces.get(transition);
+		return changed == null ? Collections.emptyList() : Collections.unmodifiableList(changed);
+	}
+
 	public Set<AbstractArc> getConnectedArcs(final AbstractTransition transition) {
-		final Set<AbstractArc> connectedArcs = new HashSet<>();
-		for (final AbstractArc arc : this.arcs) {
-			if (arc.getSource().equals(transition) || arc.getDestination().equals(transition)) {
-				connectedArcs.add(arc);
+		final Set<AbstractArc> connectedArcs = new HashSet<>(getInputArcs(transition));
+		connectedArcs.addAll(getOutputArcs(transition));
+		return connectedArcs;
+	}
+
+	/*
+	 * Read-only views of the arcs of a node, kept up to date as arcs are added
+	 * and removed. They are not copies: iterate them before changing the net.
+	 */
+
+	/**
+	 * @return the arcs whose destination is the node, of every kind
+	 */
+	public final List<AbstractArc> getInputArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		return arcsOfNode == null ? Collections.emptyList() : arcsOfNode.inputsView;
+	}
+
+	/**
+	 * @return the arcs whose source is the node, of every kind
+	 */
+	public final List<AbstractArc> getOutputArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		return arcsOfNode == null ? Collections.emptyList() : arcsOfNode.outputsView;
+	}
+
+	/**
+	 * @return the regular arcs whose destination is the node
+	 */
+	public final List<AbstractArc> getRegularInputArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		return arcsOfNode == null ? Collections.emptyList() : arcsOfNode.regularInputsView;
+	}
+
+	/**
+	 * @return the regular arcs whose source is the node
+	 */
+	public final List<AbstractArc> getRegularOutputArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		return arcsOfNode == null ? Collections.emptyList() : arcsOfNode.regularOutputsView;
+	}
+
+	/**
+	 * @return the inhibitory arcs of the node, from a place or to a transition
+	 */
+	public final List<AbstractArc> getInhibitoryArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		return arcsOfNode == null ? Collections.emptyList() : arcsOfNode.inhibitoryView;
+	}
+
+	/**
+	 * @return the reset arcs of the node, from a place or to a transition
+	 */
+	public final List<AbstractArc> getResetArcs(final AbstractNode node) {
+		final NodeArcs arcsOfNode = this.nodeArcs.get(node);
+		return arcsOfNode == null ? Collections.emptyList() : arcsOfNode.resetView;
+	}
+
+	/*
+	 * Arcs of one node by direction and kind; the views are created once so that
+	 * reading them never allocates
+	 */
+	private static final class NodeArcs {
+
+		final List<AbstractArc> inputs = new ArrayList<>();
+		final List<AbstractArc> outputs = new ArrayList<>();
+		final List<AbstractArc> regularInputs = new ArrayList<>();
+		final List<AbstractArc> regularOutputs = new ArrayList<>();
+		final List<AbstractArc> inhibitory = new ArrayList<>();
+		final List<AbstractArc> reset = new ArrayList<>();
+		final List<AbstractArc> inputsView = Collections.unmodifiableList(this.inputs);
+		final List<AbstractArc> outputsView = Collections.unmodifiableList(this.outputs);
+		final List<AbstractArc> regularInputsView = Collections.unmodifiableList(this.regularInputs);
+		final List<AbstractArc> regularOutputsView = Collections.unmodifiableList(this.regularOutputs);
+		final List<AbstractArc> inhibitoryView = Collections.unmodifiableList(this.inhibitory);
+		final List<AbstractArc> resetView = Collections.unmodifiableList(this.reset);
+
+		void addInput(final AbstractArc arc) {
+			this.inputs.add(arc);
+			kindList(arc, this.regularInputs).add(arc);
+		}
+
+		void addOutput(final AbstractArc arc) {
+			this.outputs.add(arc);
+			kindList(arc, this.regularOutputs).add(arc);
+		}
+
+		void removeInput(final AbstractArc arc) {
+			this.inputs.remove(arc);
+			kindList(arc, this.regularInputs).remove(arc);
+		}
+
+		void removeOutput(final AbstractArc arc) {
+			this.outputs.remove(arc);
+			kindList(arc, this.regularOutputs).remove(arc);
+		}
+
+		private List<AbstractArc> kindList(final AbstractArc arc, final List<AbstractArc> regular) {
+			if (arc.isReset()) {
+				return this.reset;
 			}
+			return arc.isInhibitory() ? this.inhibitory : regular;
 		}
-		return connectedArcs;
 	}
 
 }
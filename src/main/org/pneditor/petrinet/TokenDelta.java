@@ -0,0 +1,51 @@
+package org.pneditor.petrinet;
+
+/**
+ * Tokens gained or lost by the places touched by one firing, only the places
+ * whose tokens changed. It can be reverted and applied again, to undo and redo
+ * the firing without firing.
+ */
+public final class TokenDelta {
+
+	final private AbstractPlace[] places;
+	final private int[] deltas;
+
+	TokenDelta(final AbstractPlace[] places, final int[] deltas) {
+		this.places = places;
+		this.deltas = deltas;
+	}
+
+	public int size() {
+		return this.places.length;
+	}
+
+	public AbstractPlace getPlace(final int i) {
+		return this.places[i];
+	}
+
+	/**
+	 * @return the tokens after the firing minus the tokens before it
+	 */
+	public int getDelta(final int i) {
+		return this.deltas[i];
+	}
+
+	/**
+	 * Adds the deltas to the places of the net
+	 */
+	public void apply(final PetriNetInterface petriNet) {
+		for (int i = 0; i < this.places.length; i++) {
+			petriNet.setAbstractTokens(this.places[i], this.places[i].getTokens() + this.deltas[i]);
+		}
+	}
+
+	/**
+	 * Subtracts the deltas from the places of the net
+	 */
+	public void revert(final PetriNetInterface petriNet) {
+		for (int i = 0; i < this.places.length; i++) {
+			petriNet.setAbstractTokens(this.places[i], this.places[i].getTokens() - this.deltas[i]);
+		}
+	}
+
+}
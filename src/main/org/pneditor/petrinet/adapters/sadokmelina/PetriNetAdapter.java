@@ -186,6 +186,17 @@ public class PetriNetAdapter extends PetriNetInterface {
         return ((TransitionAdapter) transition).getTransition().canFire();
     };
 
+    /**
+     * A ResetArc is active only when its place holds at least one token, so an
+     * empty reset place disables the transition.
+     *
+     * @return true
+     */
+    @Override
+	public boolean isResetArcEnabling() {
+        return true;
+    }
+
     /**
      * Fires a transition.
      * When a transition fires:
@@ -0,0 +1,189 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.UnimplementedCaseException;
+
+/**
+ * Discovers a workflow net from the directly-follows counts of an event log,
+ * by the alpha algorithm.
+ *
+ * An activity a is followed by b if b directly follows a at least the minimum
+ * count of times, which filters out rare noise. a causes b if a is followed by
+ * b but not the other way round, and they are unrelated if neither is
+ * followed by the other. Every maximal pair (A, B) of sets of activities
+ * unrelated among them, where every activity of A causes every one of B,
+ * becomes a place from the transitions of A to the ones of B. A start place,
+ * marked, leads to the activities that start cases, and the ones that end
+ * cases lead to an end place.
+ *
+ * Validity of a pair is kept by its subsets, so the maximal pairs are the ones
+ * no single activity can extend, found by growing the pairs of two activities
+ * one activity at a time. Activities that follow themselves are never
+ * unrelated to themselves and are left without places, as in the basic
+ * algorithm.
+ */
+public class AlphaMiner {
+
+	final private DirectlyFollowsGraph graph;
+	private long minimumCount = 1;
+
+	public AlphaMiner(final DirectlyFollowsGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * @param minimumCount the number of times b must directly follow a for a to
+	 *                     be followed by b
+	 */
+	public void setMinimumCount(final long minimumCount) {
+		this.minimumCount = Math.max(1, minimumCount);
+	}
+
+	public DirectlyFollowsGraph getGraph() {
+		return this.graph;
+	}
+
+	/**
+	 * @return the maximal pairs (A, B) as arrays {A, B} of activity indexes
+	 */
+	public List<BitSet[]> findPairs() {
+		final int n = this.graph.getActivityCount();
+		final BitSet[] causes = new BitSet[n];
+		final BitSet[] causedBy = new BitSet[n];
+		final BitSet[] unrelated = new BitSet[n];
+		for (int a = 0; a < n; a++) {
+			causes[a] = new BitSet(n);
+			causedBy[a] = new BitSet(n);
+			unrelated[a] = new BitSet(n);
+		}
+		for (int a = 0; a < n; a++) {
+			for (int b = 0; b < n; b++) {
+				final boolean isFollowed = isFollowed(a, b);
+				final boolean isPreceded = isFollowed(b, a);
+				if (isFollowed && !isPreceded) {
+					causes[a].set(b);
+					causedBy[b].set(a);
+				} else if (!isFollowed && !isPreceded) {
+					unrelated[a].set(b);
+				}
+			}
+		}
+
+		final BitSet loopFree = new BitSet(n);
+		for (int a = 0; a < n; a++) {
+			loopFree.set(a, unrelated[a].get(a));
+		}
+
+		final Set<List<BitSet>> seen = new HashSet<>();
+		final Deque<BitSet[]> toGrow = new ArrayDeque<>();
+		for (int a = 0; a < n; a++) {
+			for (int b = causes[a].nextSetBit(0); b >= 0; b = causes[a].nextSetBit(b + 1)) {
+				if (loopFree.get(a) && loopFree.get(b)) {
+					final BitSet[] pair = { new BitSet(n), new BitSet(n) };
+					pair[0].set(a);
+					pair[1].set(b);
+					if (seen.add(Arrays.asList(pair))) {
+						toGrow.push(pair);
+					}
+				}
+			}
+		}
+		final List<BitSet[]> maximal = new ArrayList<>();
+		while (!toGrow.isEmpty()) {
+			final BitSet[] pair = toGrow.pop();
+			// activities unrelated to the ones of their side and causing or
+			// caused by all the ones of the other side
+			final BitSet inputs = intersection(loopFree, pair[0], unrelated);
+			intersect(inputs, pair[1], causedBy);
+			inputs.andNot(pair[0]);
+			final BitSet outputs = intersection(loopFree, pair[1], unrelated);
+			intersect(outputs, pair[0], causes);
+			outputs.andNot(pair[1]);
+			if (inputs.isEmpty() && outputs.isEmpty()) {
+				maximal.add(pair);
+				continue;
+			}
+			for (int a = inputs.nextSetBit(0); a >= 0; a = inputs.nextSetBit(a + 1)) {
+				final BitSet[] grown = { (BitSet) pair[0].clone(), pair[1] };
+				grown[0].set(a);
+				if (seen.add(Arrays.asList(grown))) {
+					toGrow.push(grown);
+				}
+			}
+			for (int b = outputs.nextSetBit(0); b >= 0; b = outputs.nextSetBit(b + 1)) {
+				final BitSet[] grown = { pair[0], (BitSet) pair[1].clone() };
+				grown[1].set(b);
+				if (seen.add(Arrays.asList(grown))) {
+					toGrow.push(grown);
+				}
+			}
+		}
+		return Collections.unmodifiableList(maximal);
+	}
+
+	private boolean isFollowed(final int a, final int b) {
+		return this.graph.getCount(a, b) >= this.minimumCount;
+	}
+
+	private static BitSet intersection(final BitSet base, final BitSet activities, final BitSet[] relation) {
+		final BitSet result = (BitSet) base.clone();
+		intersect(result, activities, relation);
+		return result;
+	}
+
+	private static void intersect(final BitSet result, final BitSet activities, final BitSet[] relation) {
+		for (int a = activities.nextSetBit(0); a >= 0; a = activities.nextSetBit(a + 1)) {
+			result.and(relation[a]);
+		}
+	}
+
+	/**
+	 * Adds the discovered net to an empty net: a transition labelled by each
+	 * activity, and the start, end and pair places
+	 */
+	public void build(final PetriNetInterface petriNet) throws UnimplementedCaseException {
+		final int n = this.graph.getActivityCount();
+		final AbstractTransition[] transitions = new AbstractTransition[n];
+		for (int a = 0; a < n; a++) {
+			transitions[a] = petriNet.addAbstractTransition();
+			transitions[a].setLabel(this.graph.getActivity(a));
+		}
+		final AbstractPlace start = petriNet.addAbstractPlace();
+		start.setLabel("start");
+		start.setTokens(1);
+		for (int a = 0; a < n; a++) {
+			if (this.graph.getStartCount(a) > 0) {
+				petriNet.addRegArc(start, transitions[a]);
+			}
+		}
+		for (final BitSet[] pair : findPairs()) {
+			final AbstractPlace place = petriNet.addAbstractPlace();
+			for (int a = pair[0].nextSetBit(0); a >= 0; a = pair[0].nextSetBit(a + 1)) {
+				petriNet.addRegArc(transitions[a], place);
+			}
+			for (int b = pair[1].nextSetBit(0); b >= 0; b = pair[1].nextSetBit(b + 1)) {
+				petriNet.addRegArc(place, transitions[b]);
+			}
+		}
+		final AbstractPlace end = petriNet.addAbstractPlace();
+		end.setLabel("end");
+		for (int a = 0; a < n; a++) {
+			if (this.graph.getEndCount(a) > 0) {
+				petriNet.addRegArc(transitions[a], end);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,344 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pneditor.petrinet.AbstractArc;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Read-only snapshot of a PetriNetInterface, whatever its model, used by the
+ * analysis algorithms. Places and transitions are numbered by increasing id and
+ * the arcs of each transition are flattened into sparse rows of primitive
+ * arrays, so that markings are plain int[] and firing never allocates.
+ *
+ * The firing rule is the one of Boundedness: a regular arc needs at least its
+ * multiplicity, an inhibitory arc disables the transition as soon as the place
+ * holds its multiplicity (at least one token), a reset arc empties its place.
+ * Whether a reset arc also needs a token is the rule of the model
+ * (PetriNetInterface.isResetArcEnabling). The snapshot does not follow later
+ * edits of the net.
+ *
+ * Unlike CompiledPetriNetwork, which compiles the object model of sadokmelina
+ * and writes its marking back into the places, the snapshot only reads the net
+ * through PetriNetInterface and keeps markings apart from it.
+ */
+public final class CompiledNet {
+
+	final private AbstractPlace[] places;
+	final private AbstractTransition[] transitions;
+	final private Map<AbstractPlace, Integer> placeIndex = new HashMap<>();
+	final private Map<AbstractTransition, Integer> transitionIndex = new HashMap<>();
+
+	/*
+	 * Rows of transition t are [xxxStart[t], xxxStart[t + 1]), rows of place p are
+	 * [readerStart[p], readerStart[p + 1]). Package-private so that the algorithms
+	 * can walk them without copying.
+	 */
+	final int[] preStart;
+	final int[] prePlace;
+	final int[] preWeight;
+	final int[] inhibStart;
+	final int[] inhibPlace;
+	final int[] inhibWeight;
+	final int[] resetStart;
+	final int[] resetPlace;
+	final int[] postStart;
+	final int[] postPlace;
+	final int[] postWeight;
+	// places whose tokens may change when t fires, without duplicates
+	final int[] changedStart;
+	final int[] changedPlace;
+	// transitions whose enabling depends on p (regular, inhibitory and enabling reset arcs), without duplicates
+	final int[] readerStart;
+	final int[] readerTransition;
+	// a reset arc disables its transition while its place is empty
+	final boolean isResetEnabling;
+	// t has several output arcs to one place, whose weights add up
+	final private boolean[] hasRepeatedPost;
+
+	final private int[] initialMarking;
+
+	public CompiledNet(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this.isResetEnabling = petriNet.isResetArcEnabling();
+		this.places = petriNet.getPlaces().toArray(new AbstractPlace[0]);
+		Arrays.sort(this.places, Comparator.comparingInt(AbstractPlace::getId));
+		this.transitions = petriNet.getTransitions().toArray(new AbstractTransition[0]);
+		Arrays.sort(this.transitions, Comparator.comparingInt(AbstractTransition::getId));
+		for (int p = 0; p < this.places.length; p++) {
+			this.placeIndex.put(this.places[p], p);
+		}
+		for (int t = 0; t < this.transitions.length; t++) {
+			this.transitionIndex.put(this.transitions[t], t);
+		}
+
+		final int nbTransitions = this.transitions.length;
+		this.preStart = new int[nbTransitions + 1];
+		this.inhibStart = new int[nbTransitions + 1];
+		this.resetStart = new int[nbTransitions + 1];
+		this.postStart = new int[nbTransitions + 1];
+		this.changedStart = new int[nbTransitions + 1];
+		final IntList pre = new IntList();
+		final IntList preW = new IntList();
+		final IntList inhib = new IntList();
+		final IntList inhibW = new IntList();
+		final IntList reset = new IntList();
+		final IntList post = new IntList();
+		final IntList postW = new IntList();
+		final IntList changed = new IntList();
+		final List<List<Integer>> readers = new ArrayList<>();
+		for (int p = 0; p < this.places.length; p++) {
+			readers.add(new ArrayList<>());
+		}
+		final int[] lastChange = new int[this.places.length];
+		final int[] lastRead = new int[this.places.length];
+		final int[] lastPost = new int[this.places.length];
+		Arrays.fill(lastChange, -1);
+		Arrays.fill(lastRead, -1);
+		Arrays.fill(lastPost, -1);
+		this.hasRepeatedPost = new boolean[nbTransitions];
+
+		for (int t = 0; t < nbTransitions; t++) {
+			for (final AbstractArc arc : petriNet.getInputArcs(this.transitions[t])) {
+				final int p = indexOf((AbstractPlace) arc.getSource());
+				if (arc.isReset()) {
+					reset.add(p);
+				} else if (arc.isInhibitory()) {
+					inhib.add(p);
+					// models whose inhibitory arcs test for an empty place give them weight 0
+					inhibW.add(Math.max(1, arc.getMultiplicity()));
+				} else {
+					pre.add(p);
+					preW.add(arc.getMultiplicity());
+				}
+				if ((!arc.isReset() || this.isResetEnabling) && lastRead[p] != t) {
+					lastRead[p] = t;
+					readers.get(p).add(t);
+				}
+				if (!arc.isInhibitory() && lastChange[p] != t) {
+					lastChange[p] = t;
+					changed.add(p);
+				}
+			}
+			for (final AbstractArc arc : petriNet.getOutputArcs(this.transitions[t])) {
+				final int p = indexOf((AbstractPlace) arc.getDestination());
+				post.add(p);
+				postW.add(arc.getMultiplicity());
+				this.hasRepeatedPost[t] |= lastPost[p] == t;
+				lastPost[p] = t;
+				if (lastChange[p] != t) {
+					lastChange[p] = t;
+					changed.add(p);
+				}
+			}
+			this.preStart[t + 1] = pre.size();
+			this.inhibStart[t + 1] = inhib.size();
+			this.resetStart[t + 1] = reset.size();
+			this.postStart[t + 1] = post.size();
+			this.changedStart[t + 1] = changed.size();
+		}
+		this.prePlace = pre.toArray();
+		this.preWeight = preW.toArray();
+		this.inhibPlace = inhib.toArray();
+		this.inhibWeight = inhibW.toArray();
+		this.resetPlace = reset.toArray();
+		this.postPlace = post.toArray();
+		this.postWeight = postW.toArray();
+		this.changedPlace = changed.toArray();
+
+		this.readerStart = new int[this.places.length + 1];
+		final IntList reader = new IntList();
+		for (int p = 0; p < this.places.length; p++) {
+			for (final int t : readers.get(p)) {
+				reader.add(t);
+			}
+			this.readerStart[p + 1] = reader.size();
+		}
+		this.readerTransition = reader.toArray();
+
+		this.initialMarking = new int[this.places.length];
+		for (int p = 0; p < this.places.length; p++) {
+			this.initialMarking[p] = this.places[p].getTokens();
+		}
+	}
+
+	public boolean isEnabled(final int[] marking, final int t) {
+		for (int i = this.preStart[t]; i < this.preStart[t + 1]; i++) {
+			if (marking[this.prePlace[i]] < this.preWeight[i]) {
+				return false;
+			}
+		}
+		for (int i = this.inhibStart[t]; i < this.inhibStart[t + 1]; i++) {
+			if (marking[this.inhibPlace[i]] >= this.inhibWeight[i]) {
+				return false;
+			}
+		}
+		if (this.isResetEnabling) {
+			for (int i = this.resetStart[t]; i < this.resetStart[t + 1]; i++) {
+				if (marking[this.resetPlace[i]] == 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fires t in the given marking, which is modified in place. The transition is
+	 * not checked: call isEnabled first.
+	 *
+	 * @throws ArithmeticException if a place would hold more than
+	 *                             Integer.MAX_VALUE tokens; the marking is then
+	 *                             left unchanged
+	 */
+	public void fire(final int[] marking, final int t) {
+		if (this.hasRepeatedPost[t]) {
+			checkOverflow(marking, t);
+		} else {
+			for (int i = this.postStart[t]; i < this.postStart[t + 1]; i++) {
+				// the tokens consumed by t only make room: exact count near the limit
+				if (marking[this.postPlace[i]] > Integer.MAX_VALUE - this.postWeight[i]) {
+					checkOverflow(marking, t);
+					break;
+				}
+			}
+		}
+		for (int i = this.preStart[t]; i < this.preStart[t + 1]; i++) {
+			marking[this.prePlace[i]] -= this.preWeight[i];
+		}
+		for (int i = this.resetStart[t]; i < this.resetStart[t + 1]; i++) {
+			marking[this.resetPlace[i]] = 0;
+		}
+		for (int i = this.postStart[t]; i < this.postStart[t + 1]; i++) {
+			marking[this.postPlace[i]] += this.postWeight[i];
+		}
+	}
+
+	/*
+	 * Computes the tokens of each output place of t after firing, before
+	 * anything is changed
+	 */
+	private void checkOverflow(final int[] marking, final int t) {
+		for (int i = this.postStart[t]; i < this.postStart[t + 1]; i++) {
+			final int p = this.postPlace[i];
+			long tokens = marking[p];
+			for (int j = this.preStart[t]; j < this.preStart[t + 1]; j++) {
+				if (this.prePlace[j] == p) {
+					tokens -= this.preWeight[j];
+				}
+			}
+			for (int j = this.resetStart[t]; j < this.resetStart[t + 1]; j++) {
+				if (this.resetPlace[j] == p) {
+					tokens = 0;
+				}
+			}
+			for (int j = this.postStart[t]; j < this.postStart[t + 1]; j++) {
+				if (this.postPlace[j] == p) {
+					tokens += this.postWeight[j];
+				}
+			}
+			if (tokens > Integer.MAX_VALUE) {
+				throw new ArithmeticException("Too many tokens in " + this.places[p].getLabel());
+			}
+		}
+	}
+
+	/**
+	 * @return true if no transition is enabled in the marking
+	 */
+	public boolean isDeadlock(final int[] marking) {
+		for (int t = 0; t < this.transitions.length; t++) {
+			if (isEnabled(marking, t)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a copy of the marking of the net when it was compiled
+	 */
+	public int[] getInitialMarking() {
+		return this.initialMarking.clone();
+	}
+
+	public int getPlaceCount() {
+		return this.places.length;
+	}
+
+	public int getTransitionCount() {
+		return this.transitions.length;
+	}
+
+	public AbstractPlace getPlace(final int p) {
+		return this.places[p];
+	}
+
+	public AbstractTransition getTransition(final int t) {
+		return this.transitions[t];
+	}
+
+	public int indexOf(final AbstractPlace place) {
+		final Integer index = this.placeIndex.get(place);
+		if (index == null) {
+			throw new IllegalArgumentException("Place not in the compiled net: " + place.getLabel());
+		}
+		return index;
+	}
+
+	public int indexOf(final AbstractTransition transition) {
+		final Integer index = this.transitionIndex.get(transition);
+		if (index == null) {
+			throw new IllegalArgumentException("Transition not in the compiled net: " + transition.getLabel());
+		}
+		return index;
+	}
+
+	/*
+	 * Growable int array used while compiling
+	 */
+	static final class IntList {
+
+		private int[] values = new int[16];
+		private int size;
+
+		void add(final int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = value;
+		}
+
+		int get(final int i) {
+			return this.values[i];
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		void truncate(final int newSize) {
+			this.size = newSize;
+		}
+
+		void removeLast() {
+			this.size--;
+		}
+
+		void clear() {
+			this.size = 0;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free set of packed markings shared by the threads of a parallel
+ * exploration. Open addressing with linear probing: a thread claims an empty
+ * slot by a compare-and-set on its status, writes the marking in place, then
+ * publishes the slot with a fingerprint of the marking. Readers meeting a slot
+ * being written wait for its publication, other slots are compared on their
+ * fingerprint first.
+ *
+ * The table does not grow while threads are adding; the caller checks isFull()
+ * and grows it between two exploration rounds.
+ */
+final class ConcurrentMarkingSet {
+
+	private static final int EMPTY = 0;
+	private static final int BUSY = -1;
+	private static final double MAX_LOAD = 0.75;
+
+	final private int words;
+	final private long[] data;
+	final private AtomicIntegerArray status;
+	final private int mask;
+	final private AtomicInteger size = new AtomicInteger();
+
+	ConcurrentMarkingSet(final int words, final int capacity) {
+		this.words = words;
+		final int slots = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+		this.data = new long[slots * words];
+		this.status = new AtomicIntegerArray(slots);
+		this.mask = slots - 1;
+	}
+
+	/**
+	 * @return true if the marking was added, false if it was already there
+	 */
+	boolean add(final long[] packed, final int offset) {
+		final int hash = MarkingPacker.hash(packed, offset, this.words);
+		final int fingerprint = hash & Integer.MAX_VALUE | 1;
+		int slot = hash & this.mask;
+		while (true) {
+			int current = this.status.get(slot);
+			if (current == EMPTY) {
+				if (this.status.compareAndSet(slot, EMPTY, BUSY)) {
+					System.arraycopy(packed, offset, this.data, slot * this.words, this.words);
+					this.status.set(slot, fingerprint);
+					this.size.incrementAndGet();
+					return true;
+				}
+				current = this.status.get(slot);
+			}
+			while (current == BUSY) {
+				Thread.onSpinWait();
+				current = this.status.get(slot);
+			}
+			if (current == fingerprint && Arrays.equals(this.data, slot * this.words, (slot + 1) * this.words, packed,
+					offset, offset + this.words)) {
+				return false;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	boolean contains(final long[] packed, final int offset) {
+		final int hash = MarkingPacker.hash(packed, offset, this.words);
+		final int fingerprint = hash & Integer.MAX_VALUE | 1;
+		int slot = hash & this.mask;
+		int current = this.status.get(slot);
+		while (current != EMPTY) {
+			while (current == BUSY) {
+				Thread.onSpinWait();
+				current = this.status.get(slot);
+			}
+			if (current == fingerprint && Arrays.equals(this.data, slot * this.words, (slot + 1) * this.words, packed,
+					offset, offset + this.words)) {
+				return true;
+			}
+			slot = (slot + 1) & this.mask;
+			current = this.status.get(slot);
+		}
+		return false;
+	}
+
+	boolean isFull() {
+		return this.size.get() > MAX_LOAD * (this.mask + 1);
+	}
+
+	int size() {
+		return this.size.get();
+	}
+
+	/**
+	 * @return a set twice as large with the same markings. Must not be called
+	 *         while other threads are adding.
+	 */
+	ConcurrentMarkingSet grow() {
+		final ConcurrentMarkingSet bigger = new ConcurrentMarkingSet(this.words, 2 * (this.mask + 1));
+		for (int slot = 0; slot <= this.mask; slot++) {
+			if (this.status.get(slot) != EMPTY) {
+				bigger.add(this.data, slot * this.words);
+			}
+		}
+		return bigger;
+	}
+
+}
@@ -0,0 +1,347 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+
+import org.pneditor.petrinet.AbstractPlace;
+
+/**
+ * Karp-Miller coverability graph of a CompiledNet.
+ *
+ * Nodes are int[] markings where OMEGA stands for an unbounded number of
+ * tokens. They are stored one after the other in a single int array and found
+ * again through an open-addressing hash table, so a marking reached twice is
+ * expanded once. Each node keeps the node it was discovered from; when a new
+ * marking strictly covers one of these ancestors, the places that grew are
+ * accelerated to OMEGA. The exploration uses an explicit stack and never
+ * recurses.
+ *
+ * A graph whose markings no longer fit in one int array throws an
+ * IllegalStateException.
+ *
+ * The graph is exact for nets with regular arcs only. Inhibitory and reset
+ * arcs are handled with the same firing rule (OMEGA inhibits, reset empties
+ * even OMEGA), which makes OMEGA mean "possibly unbounded" for those nets.
+ */
+public final class CoverabilityGraph {
+
+	public static final int OMEGA = Integer.MAX_VALUE;
+
+	private static final int NO_PARENT = -1;
+
+	final private CompiledNet net;
+	final private int nbPlaces;
+
+	// markings of the nodes, node i at [i * nbPlaces, (i + 1) * nbPlaces)
+	private int[] markings;
+	private int[] parents;
+	private int nbNodes;
+	// node + 1 in each slot, 0 for an empty slot
+	private int[] table;
+
+	final private CompiledNet.IntList edgeSources = new CompiledNet.IntList();
+	final private CompiledNet.IntList edgeTargets = new CompiledNet.IntList();
+	final private CompiledNet.IntList edgeTransitions = new CompiledNet.IntList();
+
+	private boolean hasOmega;
+	private boolean isComplete = true;
+	final private int[] bounds;
+
+	public CoverabilityGraph(final CompiledNet net) {
+		this(net, false, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param stopAtOmega stop as soon as a place is found unbounded, enough to
+	 *                    decide boundedness but leaves the graph incomplete
+	 * @param maxNodes    stop when the graph reaches this number of nodes
+	 */
+	public CoverabilityGraph(final CompiledNet net, final boolean stopAtOmega, final int maxNodes) {
+		this.net = net;
+		this.nbPlaces = net.getPlaceCount();
+		this.markings = new int[Math.max(1, this.nbPlaces) * 64];
+		this.parents = new int[64];
+		this.table = new int[128];
+		this.bounds = new int[this.nbPlaces];
+		explore(stopAtOmega, maxNodes);
+	}
+
+	private void explore(final boolean stopAtOmega, final int maxNodes) {
+		final CompiledNet n = this.net;
+		final int words = (n.getTransitionCount() + 63) >>> 6;
+		final int[] initial = n.getInitialMarking();
+		addNode(initial, NO_PARENT);
+		final CompiledNet.IntList stack = new CompiledNet.IntList();
+		// enabled transitions of the node at each depth of the stack, words longs each
+		long[] enabledStack = new long[Math.max(1, words) * 16];
+		for (int t = 0; t < n.getTransitionCount(); t++) {
+			if (n.isEnabled(initial, t)) {
+				enabledStack[t >>> 6] |= 1L << t;
+			}
+		}
+		stack.add(0);
+		final int[] marking = new int[this.nbPlaces];
+		final int[] next = new int[this.nbPlaces];
+		final long[] enabled = new long[words];
+		final int[] lastChecked = new int[n.getTransitionCount()];
+		int stamp = 0;
+
+		while (stack.size() > 0) {
+			final int depth = stack.size() - 1;
+			final int node = stack.get(depth);
+			stack.removeLast();
+			System.arraycopy(enabledStack, depth * words, enabled, 0, words);
+			System.arraycopy(this.markings, node * this.nbPlaces, marking, 0, this.nbPlaces);
+			for (int w = 0; w < words; w++) {
+				for (long bits = enabled[w]; bits != 0; bits &= bits - 1) {
+					final int t = (w << 6) + Long.numberOfTrailingZeros(bits);
+					System.arraycopy(marking, 0, next, 0, this.nbPlaces);
+					fire(next, t);
+					final boolean isAccelerated = accelerate(next, node);
+					int target = find(next);
+					if (target < 0) {
+						if (this.nbNodes >= maxNodes) {
+							this.isComplete = false;
+							return;
+						}
+						target = addNode(next, node);
+						final int top = stack.size();
+						final int end = checkedSize(top + 1, words);
+						if (end > enabledStack.length) {
+							enabledStack = Arrays.copyOf(enabledStack,
+									(int) Math.min(Integer.MAX_VALUE - 8, Math.max(end, 2L * enabledStack.length)));
+						}
+						System.arraycopy(enabled, 0, enabledStack, top * words, words);
+						// only the transitions reading a place that changed need a check
+						stamp++;
+						for (int i = n.changedStart[t]; i < n.changedStart[t + 1]; i++) {
+							check(next, n.changedPlace[i], enabledStack, top * words, lastChecked, stamp);
+						}
+						if (isAccelerated) {
+							for (int p = 0; p < this.nbPlaces; p++) {
+								if (next[p] == OMEGA && marking[p] != OMEGA) {
+									check(next, p, enabledStack, top * words, lastChecked, stamp);
+								}
+							}
+						}
+						stack.add(target);
+					}
+					this.edgeSources.add(node);
+					this.edgeTargets.add(target);
+					this.edgeTransitions.add(t);
+					if (stopAtOmega && this.hasOmega) {
+						this.isComplete = false;
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Updates the enabling of the transitions reading p, each at most once per
+	 * stamp
+	 */
+	private void check(final int[] m, final int p, final long[] enabled, final int offset, final int[] lastChecked,
+			final int stamp) {
+		final CompiledNet n = this.net;
+		for (int j = n.readerStart[p]; j < n.readerStart[p + 1]; j++) {
+			final int t = n.readerTransition[j];
+			if (lastChecked[t] == stamp) {
+				continue;
+			}
+			lastChecked[t] = stamp;
+			if (n.isEnabled(m, t)) {
+				enabled[offset + (t >>> 6)] |= 1L << t;
+			} else {
+				enabled[offset + (t >>> 6)] &= ~(1L << t);
+			}
+		}
+	}
+
+	private static int checkedSize(final int count, final int width) {
+		try {
+			return Math.multiplyExact(count, width);
+		} catch (ArithmeticException e) {
+			throw new IllegalStateException("Too many markings for the coverability graph", e);
+		}
+	}
+
+	/*
+	 * Firing rule of CompiledNet, extended to OMEGA. A place that would overflow
+	 * is considered unbounded.
+	 */
+	private void fire(final int[] m, final int t) {
+		final CompiledNet n = this.net;
+		for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+			if (m[n.prePlace[i]] != OMEGA) {
+				m[n.prePlace[i]] -= n.preWeight[i];
+			}
+		}
+		for (int i = n.resetStart[t]; i < n.resetStart[t + 1]; i++) {
+			m[n.resetPlace[i]] = 0;
+		}
+		for (int i = n.postStart[t]; i < n.postStart[t + 1]; i++) {
+			final int p = n.postPlace[i];
+			if (m[p] != OMEGA) {
+				final long tokens = (long) m[p] + n.postWeight[i];
+				m[p] = tokens >= OMEGA ? OMEGA : (int) tokens;
+			}
+		}
+	}
+
+	/*
+	 * Walks up the discovery chain and sets to OMEGA every place that grew since
+	 * a covered ancestor, returns true if a place was set
+	 */
+	private boolean accelerate(final int[] m, final int parent) {
+		boolean isAccelerated = false;
+		for (int ancestor = parent; ancestor != NO_PARENT; ancestor = this.parents[ancestor]) {
+			final int offset = ancestor * this.nbPlaces;
+			boolean isCovered = true;
+			boolean isStrictlyCovered = false;
+			for (int p = 0; p < this.nbPlaces; p++) {
+				final int tokens = this.markings[offset + p];
+				if (tokens > m[p]) {
+					isCovered = false;
+					break;
+				}
+				if (tokens < m[p]) {
+					isStrictlyCovered = true;
+				}
+			}
+			if (isCovered && isStrictlyCovered) {
+				for (int p = 0; p < this.nbPlaces; p++) {
+					if (this.markings[offset + p] < m[p] && m[p] != OMEGA) {
+						m[p] = OMEGA;
+						isAccelerated = true;
+					}
+				}
+			}
+		}
+		return isAccelerated;
+	}
+
+	private int addNode(final int[] m, final int parent) {
+		final int end = checkedSize(this.nbNodes + 1, this.nbPlaces);
+		final int node = this.nbNodes++;
+		if (end > this.markings.length) {
+			this.markings = Arrays.copyOf(this.markings,
+					(int) Math.min(Integer.MAX_VALUE - 8, Math.max(end, 2L * this.markings.length)));
+		}
+		if (node == this.parents.length) {
+			this.parents = Arrays.copyOf(this.parents, node * 2);
+		}
+		System.arraycopy(m, 0, this.markings, node * this.nbPlaces, this.nbPlaces);
+		this.parents[node] = parent;
+		for (int p = 0; p < this.nbPlaces; p++) {
+			if (m[p] > this.bounds[p]) {
+				this.bounds[p] = m[p];
+			}
+			if (m[p] == OMEGA) {
+				this.hasOmega = true;
+			}
+		}
+		if (this.nbNodes * 2 > this.table.length) {
+			rehash();
+		} else {
+			insert(node);
+		}
+		return node;
+	}
+
+	private int find(final int[] m) {
+		final int mask = this.table.length - 1;
+		int slot = hash(m, 0, this.nbPlaces) & mask;
+		while (this.table[slot] != 0) {
+			final int node = this.table[slot] - 1;
+			if (Arrays.equals(this.markings, node * this.nbPlaces, (node + 1) * this.nbPlaces, m, 0, this.nbPlaces)) {
+				return node;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void insert(final int node) {
+		final int mask = this.table.length - 1;
+		int slot = hash(this.markings, node * this.nbPlaces, this.nbPlaces) & mask;
+		while (this.table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		this.table[slot] = node + 1;
+	}
+
+	private void rehash() {
+		this.table = new int[this.table.length * 2];
+		for (int node = 0; node < this.nbNodes; node++) {
+			insert(node);
+		}
+	}
+
+	private static int hash(final int[] values, final int offset, final int length) {
+		int h = 1;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + values[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return true if no place has reached OMEGA
+	 */
+	public boolean isBounded() {
+		return !this.hasOmega;
+	}
+
+	/**
+	 * @return false if the exploration was stopped early (first OMEGA or
+	 *         maximum number of nodes)
+	 */
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	/**
+	 * @return the maximum number of tokens of the place over the nodes, OMEGA if
+	 *         the place is unbounded
+	 */
+	public int getBound(final int p) {
+		return this.bounds[p];
+	}
+
+	public int getBound(final AbstractPlace place) {
+		return this.bounds[this.net.indexOf(place)];
+	}
+
+	public int getNodeCount() {
+		return this.nbNodes;
+	}
+
+	/**
+	 * @return a copy of the marking of the node, node 0 being the initial marking
+	 */
+	public int[] getMarking(final int node) {
+		return Arrays.copyOfRange(this.markings, node * this.nbPlaces, (node + 1) * this.nbPlaces);
+	}
+
+	public int getEdgeCount() {
+		return this.edgeSources.size();
+	}
+
+	public int getEdgeSource(final int edge) {
+		return this.edgeSources.get(edge);
+	}
+
+	public int getEdgeTarget(final int edge) {
+		return this.edgeTargets.get(edge);
+	}
+
+	public int getEdgeTransition(final int edge) {
+		return this.edgeTransitions.get(edge);
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+}
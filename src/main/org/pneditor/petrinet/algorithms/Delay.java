@@ -0,0 +1,76 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.SplittableRandom;
+
+/**
+ * Firing delay of a transition in a GspnSimulation, sampled each time the
+ * transition becomes enabled. Any distribution can be given as a lambda.
+ */
+@FunctionalInterface
+public interface Delay {
+
+	/**
+	 * Fires in zero time, before any timed transition
+	 */
+	Delay IMMEDIATE = new Delay() {
+
+		@Override
+		public double sample(final SplittableRandom random) {
+			return 0;
+		}
+
+		@Override
+		public boolean isImmediate() {
+			return true;
+		}
+	};
+
+	/**
+	 * @return a delay, not negative
+	 */
+	double sample(SplittableRandom random);
+
+	default boolean isImmediate() {
+		return false;
+	}
+
+	/**
+	 * @return the rate of an exponential delay, NaN for any other delay
+	 */
+	default double getRate() {
+		return Double.NaN;
+	}
+
+	static Delay exponential(final double rate) {
+		if (!(rate > 0)) {
+			throw new IllegalArgumentException("The rate must be positive");
+		}
+		return new Delay() {
+
+			@Override
+			public double sample(final SplittableRandom random) {
+				return -Math.log(1 - random.nextDouble()) / rate;
+			}
+
+			@Override
+			public double getRate() {
+				return rate;
+			}
+		};
+	}
+
+	static Delay deterministic(final double delay) {
+		if (!(delay >= 0)) {
+			throw new IllegalArgumentException("The delay cannot be negative");
+		}
+		return random -> delay;
+	}
+
+	static Delay uniform(final double min, final double max) {
+		if (!(min >= 0) || !(max >= min)) {
+			throw new IllegalArgumentException("Expected 0 <= min <= max");
+		}
+		return random -> min + (max - min) * random.nextDouble();
+	}
+
+}
@@ -0,0 +1,388 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How many times each activity of an event log directly follows another in a
+ * case, counted in one pass over the log.
+ *
+ * A line log of WorkflowLogger, in time order, is cut into chunks of whole
+ * lines counted in parallel. A chunk keeps the first and the last activity of
+ * each of its cases, so that the cases running over several chunks are
+ * stitched when the chunks are merged, in order. An XES log is counted by a
+ * single thread.
+ */
+public final class DirectlyFollowsGraph {
+
+	private static final int CHUNKS_PER_WORKER = 4;
+
+	final private List<String> activities;
+	final private Map<String, Integer> indexes = new HashMap<>();
+	final private LongCounter follows;
+	final private long[] frequencies;
+	final private long[] starts;
+	final private long[] ends;
+	final private long events;
+	final private long cases;
+	final private long malformedLines;
+
+	private DirectlyFollowsGraph(final List<String> activities, final LongCounter follows,
+			final LongCounter frequencies, final LongCounter starts, final LongCounter ends, final long cases,
+			final long malformedLines) {
+		this.activities = activities;
+		for (int a = 0; a < activities.size(); a++) {
+			this.indexes.put(activities.get(a), a);
+		}
+		this.follows = follows;
+		this.frequencies = frequencies.toArray(activities.size());
+		this.starts = starts.toArray(activities.size());
+		this.ends = ends.toArray(activities.size());
+		long nbEvents = 0;
+		for (final long frequency : this.frequencies) {
+			nbEvents += frequency;
+		}
+		this.events = nbEvents;
+		this.cases = cases;
+		this.malformedLines = malformedLines;
+	}
+
+	/**
+	 * Counts an XES log if the file name ends with .xes, a WorkflowLogger log
+	 * otherwise
+	 */
+	public static DirectlyFollowsGraph count(final Path file, final int nbWorkers) throws IOException {
+		return file.toString().toLowerCase().endsWith(".xes") ? countXes(file) : countLines(file, nbWorkers);
+	}
+
+	/**
+	 * Counts a log of lines "caseId timestamp userId label", the label being the
+	 * rest of the line, with nbWorkers threads
+	 */
+	public static DirectlyFollowsGraph countLines(final Path file, final int nbWorkers) throws IOException {
+		final Dictionary dictionary = new Dictionary();
+		final List<Chunk> chunks = new ArrayList<>();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, nbWorkers), runnable -> {
+			final Thread thread = new Thread(runnable, "Directly-follows counting");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long[] bounds = EventLogReader.chunks(channel, Math.max(1, nbWorkers) * CHUNKS_PER_WORKER);
+			final List<Future<Chunk>> counted = new ArrayList<>();
+			for (int c = 0; c + 1 < bounds.length; c++) {
+				final long from = bounds[c];
+				final long to = bounds[c + 1];
+				counted.add(executor.submit(() -> {
+					final Chunk chunk = new Chunk(dictionary);
+					EventLogReader.readLines(channel, from, to, chunk);
+					return chunk;
+				}));
+			}
+			for (final Future<Chunk> future : counted) {
+				chunks.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Counting interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Counting failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		final LongCounter follows = new LongCounter();
+		final LongCounter frequencies = new LongCounter();
+		final LongCounter starts = new LongCounter();
+		final LongCounter ends = new LongCounter();
+		final Map<String, Integer> lastActivities = new HashMap<>();
+		long malformed = 0;
+		for (final Chunk chunk : chunks) {
+			follows.addAll(chunk.follows);
+			frequencies.addAll(chunk.frequencies);
+			malformed += chunk.malformed;
+			for (final Map.Entry<String, int[]> entry : chunk.cases.entrySet()) {
+				final int[] firstAndLast = entry.getValue();
+				final Integer last = lastActivities.put(entry.getKey(), firstAndLast[1]);
+				if (last == null) {
+					starts.add(firstAndLast[0], 1);
+				} else {
+					follows.add(key(last, firstAndLast[0]), 1);
+				}
+			}
+			chunk.cases.clear();
+		}
+		for (final int last : lastActivities.values()) {
+			ends.add(last, 1);
+		}
+		return new DirectlyFollowsGraph(dictionary.toList(), follows, frequencies, starts, ends,
+				lastActivities.size(), malformed);
+	}
+
+	/**
+	 * Counts the complete events of an XES log
+	 */
+	public static DirectlyFollowsGraph countXes(final Path file) throws IOException {
+		final Dictionary dictionary = new Dictionary();
+		final LongCounter follows = new LongCounter();
+		final LongCounter frequencies = new LongCounter();
+		final LongCounter starts = new LongCounter();
+		final LongCounter ends = new LongCounter();
+		final long[] nbCases = new long[1];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			EventLogReader.readXes(channel, (caseId, labels) -> {
+				nbCases[0]++;
+				int previous = -1;
+				for (final String label : labels) {
+					final int activity = dictionary.indexOf(label);
+					frequencies.add(activity, 1);
+					if (previous < 0) {
+						starts.add(activity, 1);
+					} else {
+						follows.add(key(previous, activity), 1);
+					}
+					previous = activity;
+				}
+				if (previous >= 0) {
+					ends.add(previous, 1);
+				}
+			});
+		}
+		return new DirectlyFollowsGraph(dictionary.toList(), follows, frequencies, starts, ends, nbCases[0], 0);
+	}
+
+	private static long key(final int from, final int to) {
+		return (long) from << 32 | to;
+	}
+
+	public int getActivityCount() {
+		return this.activities.size();
+	}
+
+	public String getActivity(final int activity) {
+		return this.activities.get(activity);
+	}
+
+	/**
+	 * @return the index of the activity of this label, -1 if none
+	 */
+	public int indexOf(final String label) {
+		final Integer index = this.indexes.get(label);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return the number of times the activity to directly follows the activity
+	 *         from in a case
+	 */
+	public long getCount(final int from, final int to) {
+		return this.follows.get(key(from, to));
+	}
+
+	/**
+	 * @return the number of distinct pairs of activities that follow each other
+	 */
+	public int getPairCount() {
+		return this.follows.size();
+	}
+
+	/**
+	 * @return the number of events of the activity
+	 */
+	public long getFrequency(final int activity) {
+		return this.frequencies[activity];
+	}
+
+	/**
+	 * @return the number of cases starting with the activity
+	 */
+	public long getStartCount(final int activity) {
+		return this.starts[activity];
+	}
+
+	/**
+	 * @return the number of cases ending with the activity
+	 */
+	public long getEndCount(final int activity) {
+		return this.ends[activity];
+	}
+
+	public long getEventCount() {
+		return this.events;
+	}
+
+	public long getCaseCount() {
+		return this.cases;
+	}
+
+	public long getMalformedLineCount() {
+		return this.malformedLines;
+	}
+
+	/*
+	 * Activity indexes shared by the chunks
+	 */
+	private static final class Dictionary {
+
+		final private Map<String, Integer> indexes = new ConcurrentHashMap<>();
+		final private AtomicInteger next = new AtomicInteger();
+
+		int indexOf(final String label) {
+			return this.indexes.computeIfAbsent(label, l -> this.next.getAndIncrement());
+		}
+
+		List<String> toList() {
+			final String[] labels = new String[this.next.get()];
+			for (final Map.Entry<String, Integer> entry : this.indexes.entrySet()) {
+				labels[entry.getValue()] = entry.getKey();
+			}
+			return Arrays.asList(labels);
+		}
+	}
+
+	/*
+	 * Counts of a chunk of a line log, with the first and the last activity of
+	 * its cases
+	 */
+	private static final class Chunk implements EventLogReader.LineHandler {
+
+		final private Dictionary dictionary;
+		// labels already met by this chunk, not to contend on the dictionary
+		final private Map<String, Integer> known = new HashMap<>();
+		final LongCounter follows = new LongCounter();
+		final LongCounter frequencies = new LongCounter();
+		final Map<String, int[]> cases = new HashMap<>();
+		long malformed;
+
+		Chunk(final Dictionary dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		public void event(final String caseId, final String label) {
+			Integer activity = this.known.get(label);
+			if (activity == null) {
+				activity = this.dictionary.indexOf(label);
+				this.known.put(label, activity);
+			}
+			this.frequencies.add(activity, 1);
+			final int[] firstAndLast = this.cases.get(caseId);
+			if (firstAndLast == null) {
+				this.cases.put(caseId, new int[] { activity, activity });
+			} else {
+				this.follows.add(key(firstAndLast[1], activity), 1);
+				firstAndLast[1] = activity;
+			}
+		}
+
+		@Override
+		public void malformed() {
+			this.malformed++;
+		}
+	}
+
+	/*
+	 * Open addressing map from non negative long keys to counts
+	 */
+	static final class LongCounter {
+
+		private static final long FREE = -1;
+
+		private long[] keys;
+		private long[] counts;
+		private int size;
+		private int shift;
+
+		LongCounter() {
+			this.keys = new long[16];
+			this.counts = new long[16];
+			this.shift = 64 - 4;
+			Arrays.fill(this.keys, FREE);
+		}
+
+		private int slot(final long key) {
+			final int mask = this.keys.length - 1;
+			int i = (int) (key * 0x9E3779B97F4A7C15L >>> this.shift);
+			while (this.keys[i] != FREE && this.keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		void add(final long key, final long count) {
+			int i = slot(key);
+			if (this.keys[i] == FREE) {
+				if (2 * (this.size + 1) > this.keys.length) {
+					grow();
+					i = slot(key);
+				}
+				this.keys[i] = key;
+				this.size++;
+			}
+			this.counts[i] += count;
+		}
+
+		long get(final long key) {
+			final int i = slot(key);
+			return this.keys[i] == FREE ? 0 : this.counts[i];
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		void addAll(final LongCounter other) {
+			for (int i = 0; i < other.keys.length; i++) {
+				if (other.keys[i] != FREE) {
+					add(other.keys[i], other.counts[i]);
+				}
+			}
+		}
+
+		/**
+		 * @return the counts of the keys 0 to length - 1
+		 */
+		long[] toArray(final int length) {
+			final long[] array = new long[length];
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] != FREE && this.keys[i] < length) {
+					array[(int) this.keys[i]] = this.counts[i];
+				}
+			}
+			return array;
+		}
+
+		private void grow() {
+			final long[] oldKeys = this.keys;
+			final long[] oldCounts = this.counts;
+			this.keys = new long[oldKeys.length * 2];
+			this.counts = new long[oldKeys.length * 2];
+			this.shift--;
+			Arrays.fill(this.keys, FREE);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != FREE) {
+					final int j = slot(oldKeys[i]);
+					this.keys[j] = oldKeys[i];
+					this.counts[j] = oldCounts[i];
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,273 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams event logs from memory-mapped files: either the lines "caseId
+ * timestamp userId label" written by WorkflowLogger, or XES.
+ *
+ * A line log can be cut into chunks of whole lines, to be read by several
+ * threads.
+ */
+final class EventLogReader {
+
+	/**
+	 * Told about every line of a line log, in order
+	 */
+	interface LineHandler {
+
+		void event(String caseId, String label) throws IOException;
+
+		void malformed();
+	}
+
+	/**
+	 * Told about every trace of an XES log, in order
+	 */
+	interface TraceHandler {
+
+		/**
+		 * @param caseId null if the trace has no concept:name
+		 */
+		void trace(String caseId, List<String> labels) throws IOException;
+	}
+
+	private static final int REGION_SIZE = 1 << 30;
+
+	private EventLogReader() {
+	}
+
+	/**
+	 * @return the nbChunks + 1 bounds of chunks of about the same size, each
+	 *         starting at the beginning of a line
+	 */
+	static long[] chunks(final FileChannel channel, final int nbChunks) throws IOException {
+		final long size = channel.size();
+		final long[] bounds = new long[nbChunks + 1];
+		bounds[nbChunks] = size;
+		final ByteBuffer buffer = ByteBuffer.allocate(4096);
+		for (int c = 1; c < nbChunks; c++) {
+			long position = Math.max(bounds[c - 1], size * c / nbChunks);
+			// the chunk starts after the end of the line cut by its nominal start
+			boolean isFound = position == 0;
+			position = Math.max(0, position - 1);
+			while (!isFound && position < size) {
+				buffer.clear();
+				final int count = channel.read(buffer, position);
+				if (count <= 0) {
+					break;
+				}
+				for (int i = 0; i < count; i++) {
+					if (buffer.get(i) == '\n') {
+						position += i + 1;
+						isFound = true;
+						break;
+					}
+				}
+				if (!isFound) {
+					position += count;
+				}
+			}
+			bounds[c] = Math.min(position, size);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Reads the lines from the byte from, at the beginning of a line, to the
+	 * byte to, excluded, at the beginning of a line or the end of the file
+	 */
+	static void readLines(final FileChannel channel, final long from, final long to, final LineHandler handler)
+			throws IOException {
+		byte[] line = new byte[256];
+		long start = from;
+		while (start < to) {
+			final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start,
+					Math.min(REGION_SIZE, to - start));
+			final boolean isLastRegion = start + region.limit() == to;
+			int lineStart = 0;
+			for (int i = 0; i < region.limit(); i++) {
+				if (region.get(i) != '\n') {
+					continue;
+				}
+				final int length = i - lineStart;
+				if (length > line.length) {
+					line = new byte[Math.max(length, line.length * 2)];
+				}
+				region.get(lineStart, line, 0, length);
+				parseLine(line, length, handler);
+				lineStart = i + 1;
+			}
+			if (isLastRegion && lineStart < region.limit()) {
+				final int length = region.limit() - lineStart;
+				if (length > line.length) {
+					line = new byte[length];
+				}
+				region.get(lineStart, line, 0, length);
+				parseLine(line, length, handler);
+				lineStart = region.limit();
+			}
+			if (lineStart == 0 && !isLastRegion) {
+				throw new IOException("Line longer than " + REGION_SIZE + " bytes");
+			}
+			// the next region starts with the line cut by this one
+			start += lineStart;
+		}
+	}
+
+	private static void parseLine(final byte[] line, final int length, final LineHandler handler)
+			throws IOException {
+		int end = length;
+		while (end > 0 && isBlank(line[end - 1])) {
+			end--;
+		}
+		int i = 0;
+		final int[] fieldStart = new int[3];
+		final int[] fieldEnd = new int[3];
+		for (int field = 0; field < 3; field++) {
+			while (i < end && isBlank(line[i])) {
+				i++;
+			}
+			fieldStart[field] = i;
+			while (i < end && !isBlank(line[i])) {
+				i++;
+			}
+			fieldEnd[field] = i;
+		}
+		while (i < end && isBlank(line[i])) {
+			i++;
+		}
+		if (fieldStart[0] == end) {
+			return; // empty line
+		}
+		if (i == end) {
+			handler.malformed();
+			return;
+		}
+		final String caseId = new String(line, fieldStart[0], fieldEnd[0] - fieldStart[0], StandardCharsets.UTF_8);
+		final String label = new String(line, i, end - i, StandardCharsets.UTF_8);
+		handler.event(caseId, label);
+	}
+
+	private static boolean isBlank(final byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Reads the traces of an XES log. The events with a lifecycle other than
+	 * complete are skipped.
+	 */
+	static void readXes(final FileChannel channel, final TraceHandler handler) throws IOException {
+		try (InputStream input = new MappedInputStream(channel)) {
+			final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+			final List<String> trace = new ArrayList<>();
+			String caseId = null;
+			int depth = 0;
+			int traceDepth = -1;
+			int eventDepth = -1;
+			String eventLabel = null;
+			boolean isComplete = true;
+			while (reader.hasNext()) {
+				final int type = reader.next();
+				if (type == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					final String element = reader.getLocalName();
+					if ("trace".equals(element)) {
+						traceDepth = depth;
+						trace.clear();
+						caseId = null;
+					} else if ("event".equals(element) && traceDepth > 0) {
+						eventDepth = depth;
+						eventLabel = null;
+						isComplete = true;
+					} else if (traceDepth > 0) {
+						final String key = reader.getAttributeValue(null, "key");
+						final String value = reader.getAttributeValue(null, "value");
+						if (eventDepth > 0 && depth == eventDepth + 1) {
+							if ("concept:name".equals(key)) {
+								eventLabel = value;
+							} else if ("lifecycle:transition".equals(key)) {
+								isComplete = "complete".equalsIgnoreCase(value);
+							}
+						} else if (eventDepth < 0 && depth == traceDepth + 1 && "concept:name".equals(key)) {
+							caseId = value;
+						}
+					}
+				} else if (type == XMLStreamConstants.END_ELEMENT) {
+					if (depth == eventDepth) {
+						eventDepth = -1;
+						if (isComplete && eventLabel != null) {
+							trace.add(eventLabel);
+						}
+					} else if (depth == traceDepth) {
+						traceDepth = -1;
+						handler.trace(caseId, trace);
+					}
+					depth--;
+				}
+			}
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/*
+	 * Reads a file through successive memory-mapped regions
+	 */
+	private static final class MappedInputStream extends InputStream {
+
+		final private FileChannel channel;
+		private MappedByteBuffer region;
+		private long regionStart;
+
+		MappedInputStream(final FileChannel channel) {
+			this.channel = channel;
+		}
+
+		private boolean hasRemaining() throws IOException {
+			if (this.region != null && this.region.hasRemaining()) {
+				return true;
+			}
+			final long start = this.region == null ? 0 : this.regionStart + this.region.limit();
+			final long size = this.channel.size();
+			if (start >= size) {
+				return false;
+			}
+			this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+			this.regionStart = start;
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return hasRemaining() ? this.region.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			if (!hasRemaining()) {
+				return -1;
+			}
+			final int count = Math.min(length, this.region.remaining());
+			this.region.get(bytes, offset, count);
+			return count;
+		}
+	}
+
+}
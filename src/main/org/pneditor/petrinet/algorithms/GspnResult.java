@@ -0,0 +1,72 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+
+/**
+ * Time-averaged measures of a GspnSimulation, taken between the end of the
+ * warm-up and the end of the run.
+ */
+public final class GspnResult {
+
+	final private CompiledNet net;
+	final private double measuredTime;
+	final private double[] tokenTime;
+	final private double[] enabledTime;
+	final private long[] firings;
+
+	GspnResult(final CompiledNet net, final double measuredTime, final double[] tokenTime,
+			final double[] enabledTime, final long[] firings) {
+		this.net = net;
+		this.measuredTime = measuredTime;
+		this.tokenTime = tokenTime;
+		this.enabledTime = enabledTime;
+		this.firings = firings;
+	}
+
+	public double getMeasuredTime() {
+		return this.measuredTime;
+	}
+
+	/**
+	 * @return the number of tokens of the place averaged over time
+	 */
+	public double getMeanTokens(final AbstractPlace place) {
+		return this.tokenTime[this.net.indexOf(place)] / this.measuredTime;
+	}
+
+	/**
+	 * @return the number of firings of the transition per time unit
+	 */
+	public double getThroughput(final AbstractTransition transition) {
+		return this.firings[this.net.indexOf(transition)] / this.measuredTime;
+	}
+
+	/**
+	 * @return the fraction of the time the transition was enabled
+	 */
+	public double getUtilisation(final AbstractTransition transition) {
+		return this.enabledTime[this.net.indexOf(transition)] / this.measuredTime;
+	}
+
+	public long getFiringCount(final AbstractTransition transition) {
+		return this.firings[this.net.indexOf(transition)];
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(this.measuredTime).append(" time units measured\n");
+		for (int p = 0; p < this.net.getPlaceCount(); p++) {
+			final AbstractPlace place = this.net.getPlace(p);
+			builder.append(place.getLabel()).append(": mean ").append(getMeanTokens(place)).append('\n');
+		}
+		for (int t = 0; t < this.net.getTransitionCount(); t++) {
+			final AbstractTransition transition = this.net.getTransition(t);
+			builder.append(transition.getLabel()).append(": throughput ").append(getThroughput(transition))
+					.append(", utilisation ").append(getUtilisation(transition)).append('\n');
+		}
+		return builder.toString();
+	}
+
+}
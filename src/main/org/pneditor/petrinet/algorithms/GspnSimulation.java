@@ -0,0 +1,359 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Headless discrete-event simulation of a generalised stochastic Petri net:
+ * the net plus its StochasticAttributes.
+ *
+ * A timed transition samples its delay when it becomes enabled and keeps it
+ * until it fires or is disabled (race policy with enabling memory). Scheduled
+ * firings are kept in an indexed binary heap, so the next one is found and any
+ * one is moved or removed in O(log n). After a firing, only the transitions
+ * reading a changed place are checked again, and only those whose enabling
+ * changed are rescheduled. Immediate transitions fire in zero time first.
+ */
+public class GspnSimulation {
+
+	/*
+	 * Immediate firings allowed at a single instant before giving up on a loop
+	 * of immediate transitions
+	 */
+	private static final int MAX_IMMEDIATE_FIRINGS = 1000000;
+
+	final private CompiledNet net;
+	final private Delay[] delays;
+	final private int[] priorities;
+	final private double[] weights;
+
+	public GspnSimulation(final PetriNetInterface petriNet, final StochasticAttributes attributes)
+			throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet), attributes);
+	}
+
+	public GspnSimulation(final CompiledNet net, final StochasticAttributes attributes) {
+		this.net = net;
+		final int nbTransitions = net.getTransitionCount();
+		this.delays = new Delay[nbTransitions];
+		this.priorities = new int[nbTransitions];
+		this.weights = new double[nbTransitions];
+		for (int t = 0; t < nbTransitions; t++) {
+			this.delays[t] = attributes.getDelay(net.getTransition(t));
+			this.priorities[t] = attributes.getPriority(net.getTransition(t));
+			this.weights[t] = attributes.getWeight(net.getTransition(t));
+		}
+	}
+
+	public GspnResult run(final double endTime, final long seed) {
+		return run(0, endTime, seed);
+	}
+
+	/**
+	 * @param warmUp time before which nothing is measured
+	 * @throws IllegalStateException if immediate transitions keep firing forever
+	 */
+	public GspnResult run(final double warmUp, final double endTime, final long seed) {
+		if (!(warmUp >= 0) || !(endTime > warmUp)) {
+			throw new IllegalArgumentException("Expected 0 <= warmUp < endTime");
+		}
+		return new Run(warmUp, seed).simulate(endTime);
+	}
+
+	/*
+	 * State of one simulation
+	 */
+	private final class Run {
+
+		final private double warmUp;
+		final private SplittableRandom random;
+		final private int[] marking;
+		final private boolean[] isEnabled;
+		final private Calendar calendar;
+		// enabled immediate transitions, with the position of each one in the array
+		final private int[] immediate;
+		final private int[] immediatePosition;
+		private int nbImmediate;
+		// transitions already checked after the current firing
+		final private long[] lastChecked;
+		private long firingStamp;
+		private double now;
+
+		final private double[] tokenTime;
+		final private double[] lastTokenChange;
+		final private double[] enabledTime;
+		final private double[] enabledSince;
+		final private long[] firings;
+
+		Run(final double warmUp, final long seed) {
+			final CompiledNet n = GspnSimulation.this.net;
+			final int nbPlaces = n.getPlaceCount();
+			final int nbTransitions = n.getTransitionCount();
+			this.warmUp = warmUp;
+			this.random = new SplittableRandom(seed);
+			this.marking = n.getInitialMarking();
+			this.isEnabled = new boolean[nbTransitions];
+			this.calendar = new Calendar(nbTransitions, GspnSimulation.this.priorities);
+			this.immediate = new int[nbTransitions];
+			this.immediatePosition = new int[nbTransitions];
+			this.lastChecked = new long[nbTransitions];
+			this.tokenTime = new double[nbPlaces];
+			this.lastTokenChange = new double[nbPlaces];
+			this.enabledTime = new double[nbTransitions];
+			this.enabledSince = new double[nbTransitions];
+			this.firings = new long[nbTransitions];
+		}
+
+		GspnResult simulate(final double endTime) {
+			final CompiledNet n = GspnSimulation.this.net;
+			for (int t = 0; t < n.getTransitionCount(); t++) {
+				check(t);
+			}
+			while (true) {
+				int nbFired = 0;
+				while (this.nbImmediate > 0) {
+					if (++nbFired > MAX_IMMEDIATE_FIRINGS) {
+						throw new IllegalStateException("Immediate transitions keep firing at time " + this.now);
+					}
+					fire(chooseImmediate());
+				}
+				if (this.calendar.isEmpty() || this.calendar.getTime(this.calendar.first()) > endTime) {
+					break;
+				}
+				final int next = this.calendar.first();
+				this.now = this.calendar.getTime(next);
+				fire(next);
+			}
+
+			this.now = endTime;
+			for (int p = 0; p < n.getPlaceCount(); p++) {
+				accumulateTokens(p);
+			}
+			for (int t = 0; t < n.getTransitionCount(); t++) {
+				if (this.isEnabled[t]) {
+					accumulateEnabling(t);
+				}
+			}
+			return new GspnResult(n, endTime - this.warmUp, this.tokenTime, this.enabledTime, this.firings);
+		}
+
+		private void fire(final int t) {
+			final CompiledNet n = GspnSimulation.this.net;
+			if (this.now >= this.warmUp) {
+				this.firings[t]++;
+			}
+			for (int i = n.changedStart[t]; i < n.changedStart[t + 1]; i++) {
+				accumulateTokens(n.changedPlace[i]);
+			}
+			n.fire(this.marking, t);
+			disable(t); // its clock is used up
+			this.firingStamp++;
+			check(t);
+			for (int i = n.changedStart[t]; i < n.changedStart[t + 1]; i++) {
+				final int p = n.changedPlace[i];
+				for (int j = n.readerStart[p]; j < n.readerStart[p + 1]; j++) {
+					check(n.readerTransition[j]);
+				}
+			}
+		}
+
+		/*
+		 * Enables or disables the transition if its enabling changed, once per
+		 * firing
+		 */
+		private void check(final int t) {
+			if (this.lastChecked[t] == this.firingStamp && this.firingStamp != 0) {
+				return;
+			}
+			this.lastChecked[t] = this.firingStamp;
+			final boolean isNowEnabled = GspnSimulation.this.net.isEnabled(this.marking, t);
+			if (isNowEnabled && !this.isEnabled[t]) {
+				this.isEnabled[t] = true;
+				this.enabledSince[t] = this.now;
+				final Delay delay = GspnSimulation.this.delays[t];
+				if (delay.isImmediate()) {
+					this.immediatePosition[t] = this.nbImmediate;
+					this.immediate[this.nbImmediate++] = t;
+				} else {
+					this.calendar.schedule(t, this.now + delay.sample(this.random));
+				}
+			} else if (!isNowEnabled && this.isEnabled[t]) {
+				disable(t);
+			}
+		}
+
+		private void disable(final int t) {
+			if (!this.isEnabled[t]) {
+				return;
+			}
+			this.isEnabled[t] = false;
+			accumulateEnabling(t);
+			if (GspnSimulation.this.delays[t].isImmediate()) {
+				final int last = this.immediate[--this.nbImmediate];
+				this.immediate[this.immediatePosition[t]] = last;
+				this.immediatePosition[last] = this.immediatePosition[t];
+			} else {
+				this.calendar.remove(t);
+			}
+		}
+
+		/*
+		 * Weighted choice among the enabled immediate transitions of highest
+		 * priority
+		 */
+		private int chooseImmediate() {
+			int priority = Integer.MIN_VALUE;
+			double totalWeight = 0;
+			for (int i = 0; i < this.nbImmediate; i++) {
+				final int t = this.immediate[i];
+				if (GspnSimulation.this.priorities[t] > priority) {
+					priority = GspnSimulation.this.priorities[t];
+					totalWeight = 0;
+				}
+				if (GspnSimulation.this.priorities[t] == priority) {
+					totalWeight += GspnSimulation.this.weights[t];
+				}
+			}
+			double choice = this.random.nextDouble() * totalWeight;
+			int chosen = -1;
+			for (int i = 0; i < this.nbImmediate; i++) {
+				final int t = this.immediate[i];
+				if (GspnSimulation.this.priorities[t] == priority) {
+					chosen = t;
+					choice -= GspnSimulation.this.weights[t];
+					if (choice < 0) {
+						break;
+					}
+				}
+			}
+			return chosen;
+		}
+
+		/*
+		 * Time integrals, counted from the end of the warm-up
+		 */
+
+		private void accumulateTokens(final int p) {
+			this.tokenTime[p] += this.marking[p] * measured(this.lastTokenChange[p], this.now);
+			this.lastTokenChange[p] = this.now;
+		}
+
+		private void accumulateEnabling(final int t) {
+			this.enabledTime[t] += measured(this.enabledSince[t], this.now);
+		}
+
+		private double measured(final double from, final double to) {
+			return Math.max(0, to - Math.max(from, this.warmUp));
+		}
+	}
+
+	/*
+	 * Indexed binary min-heap of the scheduled firings, ordered by time then by
+	 * decreasing priority then by index
+	 */
+	private static final class Calendar {
+
+		final private int[] heap;
+		final private int[] position;
+		final private double[] time;
+		final private int[] priorities;
+		private int size;
+
+		Calendar(final int nbTransitions, final int[] priorities) {
+			this.heap = new int[nbTransitions];
+			this.position = new int[nbTransitions];
+			this.time = new double[nbTransitions];
+			this.priorities = priorities;
+			Arrays.fill(this.position, -1);
+		}
+
+		boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		int first() {
+			return this.heap[0];
+		}
+
+		double getTime(final int t) {
+			return this.time[t];
+		}
+
+		void schedule(final int t, final double when) {
+			this.time[t] = when;
+			if (this.position[t] < 0) {
+				this.position[t] = this.size;
+				this.heap[this.size++] = t;
+			}
+			siftUp(this.position[t]);
+			siftDown(this.position[t]);
+		}
+
+		void remove(final int t) {
+			final int i = this.position[t];
+			if (i < 0) {
+				return;
+			}
+			this.position[t] = -1;
+			final int last = this.heap[--this.size];
+			if (i < this.size) {
+				this.heap[i] = last;
+				this.position[last] = i;
+				siftUp(i);
+				siftDown(this.position[last]);
+			}
+		}
+
+		private boolean isBefore(final int a, final int b) {
+			if (this.time[a] != this.time[b]) {
+				return this.time[a] < this.time[b];
+			}
+			if (this.priorities[a] != this.priorities[b]) {
+				return this.priorities[a] > this.priorities[b];
+			}
+			return a < b;
+		}
+
+		private void siftUp(final int from) {
+			int i = from;
+			final int t = this.heap[i];
+			while (i > 0) {
+				final int parent = (i - 1) >>> 1;
+				if (!isBefore(t, this.heap[parent])) {
+					break;
+				}
+				this.heap[i] = this.heap[parent];
+				this.position[this.heap[i]] = i;
+				i = parent;
+			}
+			this.heap[i] = t;
+			this.position[t] = i;
+		}
+
+		private void siftDown(final int from) {
+			int i = from;
+			final int t = this.heap[i];
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= this.size) {
+					break;
+				}
+				if (child + 1 < this.size && isBefore(this.heap[child + 1], this.heap[child])) {
+					child++;
+				}
+				if (!isBefore(this.heap[child], t)) {
+					break;
+				}
+				this.heap[i] = this.heap[child];
+				this.position[this.heap[i]] = i;
+				i = child;
+			}
+			this.heap[i] = t;
+			this.position[t] = i;
+		}
+	}
+
+}
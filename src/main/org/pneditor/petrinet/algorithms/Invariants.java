@@ -0,0 +1,425 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Minimal-support P-semiflows (y >= 0, y.C = 0) and T-semiflows (x >= 0,
+ * C.x = 0) of the incidence matrix C, computed by the Farkas algorithm: the
+ * columns are eliminated one at a time by positive combinations of the rows,
+ * the rows whose support contains the support of another one being dropped.
+ * Rows are sparse and combined with exact arithmetic; a combination that would
+ * overflow a long is skipped.
+ *
+ * Inhibitory and reset arcs are not part of the incidence matrix. Inhibitory
+ * arcs only remove behaviours, and a reset can only lower the weighted sum of
+ * a P-semiflow, so y.M <= y.M0 still holds in every reachable marking M and a
+ * net covered by P-semiflows is bounded whatever its initial marking.
+ * T-semiflows ignore resets.
+ */
+public final class Invariants {
+
+	public static final int DEFAULT_MAX_ROWS = 20000;
+
+	final private CompiledNet net;
+	private int maxRows = DEFAULT_MAX_ROWS;
+	private List<long[]> placeInvariants;
+	private List<long[]> transitionInvariants;
+	private boolean isComplete = true;
+
+	public Invariants(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet));
+	}
+
+	public Invariants(final CompiledNet net) {
+		this.net = net;
+	}
+
+	/**
+	 * @param maxRows number of intermediate rows above which the elimination
+	 *                stops; the semiflows found so far are kept
+	 */
+	public void setMaxRows(final int maxRows) {
+		this.maxRows = maxRows;
+		this.placeInvariants = null;
+		this.transitionInvariants = null;
+		this.isComplete = true;
+	}
+
+	/**
+	 * @return the minimal P-semiflows, weights indexed like the places of the
+	 *         compiled net
+	 */
+	public List<long[]> getPlaceInvariants() {
+		if (this.placeInvariants == null) {
+			this.placeInvariants = compute(true);
+		}
+		return this.placeInvariants;
+	}
+
+	/**
+	 * @return the minimal T-semiflows, weights indexed like the transitions of
+	 *         the compiled net
+	 */
+	public List<long[]> getTransitionInvariants() {
+		if (this.transitionInvariants == null) {
+			this.transitionInvariants = compute(false);
+		}
+		return this.transitionInvariants;
+	}
+
+	/**
+	 * @return false if a budget or an overflow may have hidden some semiflows of
+	 *         the ones computed so far
+	 */
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	/**
+	 * @return true if every place belongs to a P-semiflow, which proves the net
+	 *         structurally bounded
+	 */
+	public boolean isCoveredByPlaceInvariants() {
+		final boolean[] isCovered = new boolean[this.net.getPlaceCount()];
+		int nbCovered = 0;
+		for (final long[] invariant : getPlaceInvariants()) {
+			for (int p = 0; p < invariant.length; p++) {
+				if (invariant[p] > 0 && !isCovered[p]) {
+					isCovered[p] = true;
+					nbCovered++;
+				}
+			}
+		}
+		return nbCovered == isCovered.length;
+	}
+
+	/**
+	 * @return an upper bound of the tokens of each place given by the
+	 *         P-semiflows, -1 for the places not covered
+	 */
+	public int[] getBounds() {
+		final int[] initial = this.net.getInitialMarking();
+		final int[] bounds = new int[initial.length];
+		Arrays.fill(bounds, -1);
+		for (final long[] invariant : getPlaceInvariants()) {
+			long weightedSum = 0;
+			for (int p = 0; p < invariant.length && weightedSum < Long.MAX_VALUE; p++) {
+				weightedSum = saturatedAdd(weightedSum, saturatedMultiply(invariant[p], initial[p]));
+			}
+			for (int p = 0; p < invariant.length; p++) {
+				if (invariant[p] > 0) {
+					final int bound = (int) Math.min(Integer.MAX_VALUE - 1, weightedSum / invariant[p]);
+					if (bounds[p] < 0 || bound < bounds[p]) {
+						bounds[p] = bound;
+					}
+				}
+			}
+		}
+		return bounds;
+	}
+
+	public int getBound(final AbstractPlace place) {
+		return getBounds()[this.net.indexOf(place)];
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	private static long saturatedAdd(final long a, final long b) {
+		final long sum = a + b;
+		return sum < a ? Long.MAX_VALUE : sum;
+	}
+
+	private static long saturatedMultiply(final long a, final long b) {
+		return Math.multiplyHigh(a, b) != 0 || a * b < 0 ? Long.MAX_VALUE : a * b;
+	}
+
+	/*
+	 * Incidence matrix
+	 */
+
+	private List<long[]> compute(final boolean isForPlaces) {
+		final CompiledNet n = this.net;
+		final int nbPlaces = n.getPlaceCount();
+		final int nbTransitions = n.getTransitionCount();
+		// incidence entries, one list of (column, value) per row
+		final int nbRows = isForPlaces ? nbPlaces : nbTransitions;
+		final List<List<long[]>> entries = new ArrayList<>(nbRows);
+		for (int r = 0; r < nbRows; r++) {
+			entries.add(new ArrayList<>());
+		}
+		final long[] delta = new long[nbPlaces];
+		for (int t = 0; t < nbTransitions; t++) {
+			for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+				delta[n.prePlace[i]] -= n.preWeight[i];
+			}
+			for (int i = n.postStart[t]; i < n.postStart[t + 1]; i++) {
+				delta[n.postPlace[i]] += n.postWeight[i];
+			}
+			for (int i = n.changedStart[t]; i < n.changedStart[t + 1]; i++) {
+				final int p = n.changedPlace[i];
+				if (delta[p] != 0) {
+					if (isForPlaces) {
+						entries.get(p).add(new long[] { t, delta[p] });
+					} else {
+						entries.get(t).add(new long[] { p, delta[p] });
+					}
+					delta[p] = 0;
+				}
+			}
+		}
+		final List<Row> rows = new ArrayList<>(nbRows);
+		for (int r = 0; r < nbRows; r++) {
+			final List<long[]> row = entries.get(r);
+			row.sort(Comparator.comparingLong(entry -> entry[0]));
+			final int[] columns = new int[row.size()];
+			final long[] values = new long[row.size()];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = (int) row.get(i)[0];
+				values[i] = row.get(i)[1];
+			}
+			rows.add(new Row(columns, values, new int[] { r }, new long[] { 1 }, nbRows));
+		}
+		return eliminate(rows, isForPlaces ? nbTransitions : nbPlaces, nbRows);
+	}
+
+	/*
+	 * Farkas algorithm
+	 */
+
+	private List<long[]> eliminate(final List<Row> initialRows, final int nbColumns, final int nbRows) {
+		List<Row> rows = initialRows;
+		final boolean[] isEliminated = new boolean[nbColumns];
+		for (int step = 0; step < nbColumns; step++) {
+			// column giving the fewest new rows
+			final int[] nbPositive = new int[nbColumns];
+			final int[] nbNegative = new int[nbColumns];
+			for (final Row row : rows) {
+				for (int i = 0; i < row.columns.length; i++) {
+					if (row.values[i] > 0) {
+						nbPositive[row.columns[i]]++;
+					} else {
+						nbNegative[row.columns[i]]++;
+					}
+				}
+			}
+			int column = -1;
+			long bestCost = Long.MAX_VALUE;
+			for (int c = 0; c < nbColumns; c++) {
+				final long cost = (long) nbPositive[c] * nbNegative[c] - nbPositive[c] - nbNegative[c];
+				if (!isEliminated[c] && cost < bestCost) {
+					bestCost = cost;
+					column = c;
+				}
+			}
+			isEliminated[column] = true;
+
+			final List<Row> positive = new ArrayList<>();
+			final List<Row> negative = new ArrayList<>();
+			final List<Row> next = new ArrayList<>();
+			for (final Row row : rows) {
+				final long value = row.valueAt(column);
+				if (value > 0) {
+					positive.add(row);
+				} else if (value < 0) {
+					negative.add(row);
+				} else {
+					next.add(row);
+				}
+			}
+			final int nbKept = next.size();
+			combinations: for (final Row a : positive) {
+				for (final Row b : negative) {
+					if (next.size() >= this.maxRows) {
+						this.isComplete = false;
+						break combinations;
+					}
+					try {
+						next.add(a.combine(-b.valueAt(column), b, a.valueAt(column), nbRows));
+					} catch (final ArithmeticException e) {
+						this.isComplete = false;
+					}
+				}
+			}
+			rows = minimalSupports(next, nbKept);
+		}
+
+		final List<long[]> invariants = new ArrayList<>();
+		for (final Row row : rows) {
+			if (row.columns.length == 0) {
+				final long[] weights = new long[nbRows];
+				for (int i = 0; i < row.support.length; i++) {
+					weights[row.support[i]] = row.weights[i];
+				}
+				invariants.add(weights);
+			}
+		}
+		return Collections.unmodifiableList(invariants);
+	}
+
+	/*
+	 * Drops the rows whose support strictly contains the support of another row,
+	 * and the duplicates. The first nbKept rows are already minimal among
+	 * themselves, so only the new rows are compared with all the others.
+	 */
+	private static List<Row> minimalSupports(final List<Row> rows, final int nbKept) {
+		if (rows.size() == nbKept) {
+			return rows;
+		}
+		final List<Row> added = new ArrayList<>(rows.subList(nbKept, rows.size()));
+		added.sort(Comparator.comparingInt(row -> row.support.length));
+		final List<Row> newRows = new ArrayList<>(added.size());
+		candidates: for (final Row candidate : added) {
+			for (final Row row : newRows) {
+				if (row.isSupportIn(candidate)
+						&& (row.support.length < candidate.support.length || row.hasSameWeights(candidate))) {
+					continue candidates;
+				}
+			}
+			for (int i = 0; i < nbKept; i++) {
+				final Row row = rows.get(i);
+				if (row.support.length <= candidate.support.length && row.isSupportIn(candidate)
+						&& (row.support.length < candidate.support.length || row.hasSameWeights(candidate))) {
+					continue candidates;
+				}
+			}
+			newRows.add(candidate);
+		}
+		final List<Row> minimal = new ArrayList<>(nbKept + newRows.size());
+		kept: for (int i = 0; i < nbKept; i++) {
+			final Row row = rows.get(i);
+			for (final Row newRow : newRows) {
+				if (newRow.support.length < row.support.length && newRow.isSupportIn(row)) {
+					continue kept;
+				}
+			}
+			minimal.add(row);
+		}
+		minimal.addAll(newRows);
+		return minimal;
+	}
+
+	/*
+	 * Remaining columns of a row, and the combination of the initial rows it
+	 * comes from
+	 */
+	private static final class Row {
+
+		final int[] columns;
+		final long[] values;
+		final int[] support;
+		final long[] weights;
+		final long[] supportBits;
+
+		Row(final int[] columns, final long[] values, final int[] support, final long[] weights, final int nbRows) {
+			this.columns = columns;
+			this.values = values;
+			this.support = support;
+			this.weights = weights;
+			this.supportBits = new long[(nbRows + 63) >>> 6];
+			for (final int r : support) {
+				this.supportBits[r >>> 6] |= 1L << r;
+			}
+		}
+
+		long valueAt(final int column) {
+			final int i = Arrays.binarySearch(this.columns, column);
+			return i < 0 ? 0 : this.values[i];
+		}
+
+		boolean isSupportIn(final Row other) {
+			for (int w = 0; w < this.supportBits.length; w++) {
+				if ((this.supportBits[w] & ~other.supportBits[w]) != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean hasSameWeights(final Row other) {
+			return Arrays.equals(this.weights, other.weights) && Arrays.equals(this.values, other.values);
+		}
+
+		/**
+		 * @return factor * this + otherFactor * other, divided by the gcd of its
+		 *         coefficients
+		 * @throws ArithmeticException on overflow
+		 */
+		Row combine(final long factor, final Row other, final long otherFactor, final int nbRows) {
+			final CompiledNet.IntList columnList = new CompiledNet.IntList();
+			final long[] valueBuffer = new long[this.columns.length + other.columns.length];
+			merge(this.columns, this.values, factor, other.columns, other.values, otherFactor, columnList, valueBuffer);
+			final CompiledNet.IntList supportList = new CompiledNet.IntList();
+			final long[] weightBuffer = new long[this.support.length + other.support.length];
+			merge(this.support, this.weights, factor, other.support, other.weights, otherFactor, supportList,
+					weightBuffer);
+
+			long gcd = 0;
+			for (int i = 0; i < columnList.size(); i++) {
+				gcd = gcd(gcd, Math.abs(valueBuffer[i]));
+			}
+			for (int i = 0; i < supportList.size() && gcd != 1; i++) {
+				gcd = gcd(gcd, weightBuffer[i]);
+			}
+			final long[] newValues = Arrays.copyOf(valueBuffer, columnList.size());
+			final long[] newWeights = Arrays.copyOf(weightBuffer, supportList.size());
+			if (gcd > 1) {
+				for (int i = 0; i < newValues.length; i++) {
+					newValues[i] /= gcd;
+				}
+				for (int i = 0; i < newWeights.length; i++) {
+					newWeights[i] /= gcd;
+				}
+			}
+			return new Row(columnList.toArray(), newValues, supportList.toArray(), newWeights, nbRows);
+		}
+
+		/*
+		 * Sparse a * x + b * y, zero entries dropped
+		 */
+		private static void merge(final int[] xIndexes, final long[] x, final long a, final int[] yIndexes,
+				final long[] y, final long b, final CompiledNet.IntList indexes, final long[] values) {
+			int i = 0;
+			int j = 0;
+			while (i < xIndexes.length || j < yIndexes.length) {
+				final int index;
+				long value;
+				if (j == yIndexes.length || i < xIndexes.length && xIndexes[i] < yIndexes[j]) {
+					index = xIndexes[i];
+					value = Math.multiplyExact(a, x[i++]);
+				} else if (i == xIndexes.length || yIndexes[j] < xIndexes[i]) {
+					index = yIndexes[j];
+					value = Math.multiplyExact(b, y[j++]);
+				} else {
+					index = xIndexes[i];
+					value = Math.addExact(Math.multiplyExact(a, x[i++]), Math.multiplyExact(b, y[j++]));
+				}
+				if (value != 0) {
+					values[indexes.size()] = value;
+					indexes.add(index);
+				}
+			}
+		}
+
+		private static long gcd(final long a, final long b) {
+			long x = a;
+			long y = b;
+			while (y != 0) {
+				final long r = x % y;
+				x = y;
+				y = r;
+			}
+			return x;
+		}
+	}
+
+}
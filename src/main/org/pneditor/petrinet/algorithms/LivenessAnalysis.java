@@ -0,0 +1,281 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Deadlocks and liveness levels of the transitions, read from a complete
+ * reachability graph explored without reduction. The strongly connected
+ * components are computed once by an iterative Tarjan walk over the edges of
+ * the graph, everything else being flat int arrays indexed by state.
+ *
+ * On a finite graph a transition that can fire arbitrarily often fires on a
+ * cycle, so levels L2 and L3 coincide and L2 is never returned.
+ */
+public final class LivenessAnalysis {
+
+	public enum Level {
+		/** never fires */
+		L0,
+		/** fires in some firing sequence */
+		L1,
+		/** fires arbitrarily often in some firing sequence */
+		L2,
+		/** fires infinitely often in some firing sequence */
+		L3,
+		/** can always fire again: live */
+		L4
+	}
+
+	final private ReachabilityGraph graph;
+	final private int[] component;
+	private int nbComponents;
+	final private Level[] levels;
+	// breadth-first predecessor of each state, and the transition leading to it
+	final private int[] parent;
+	final private int[] parentTransition;
+	private int firstDeadlock = -1;
+
+	public LivenessAnalysis(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new StateSpaceExplorer(new CompiledNet(petriNet)).explore());
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the graph is incomplete
+	 */
+	public LivenessAnalysis(final ReachabilityGraph graph) {
+		if (!graph.isComplete()) {
+			throw new IllegalArgumentException("The reachability graph is incomplete");
+		}
+		this.graph = graph;
+		final int nbStates = graph.getStateCount();
+		this.component = new int[nbStates];
+		this.parent = new int[nbStates];
+		this.parentTransition = new int[nbStates];
+		computeComponents();
+		this.levels = computeLevels();
+		computeWitnesses();
+	}
+
+	/*
+	 * Tarjan's algorithm with explicit stacks; component numbers are assigned in
+	 * reverse topological order, terminal components first
+	 */
+	private void computeComponents() {
+		final int nbStates = this.graph.getStateCount();
+		final int[] index = new int[nbStates];
+		final int[] lowLink = new int[nbStates];
+		final boolean[] isOnStack = new boolean[nbStates];
+		final int[] stack = new int[nbStates];
+		int stackSize = 0;
+		final int[] callState = new int[nbStates];
+		final int[] callEdge = new int[nbStates];
+		int callSize = 0;
+		Arrays.fill(index, -1);
+		int nextIndex = 0;
+		for (int root = 0; root < nbStates; root++) {
+			if (index[root] >= 0) {
+				continue;
+			}
+			index[root] = lowLink[root] = nextIndex++;
+			stack[stackSize++] = root;
+			isOnStack[root] = true;
+			callState[callSize] = root;
+			callEdge[callSize++] = 0;
+			while (callSize > 0) {
+				final int state = callState[callSize - 1];
+				final int edge = callEdge[callSize - 1];
+				if (edge < this.graph.getSuccessorCount(state)) {
+					callEdge[callSize - 1]++;
+					final int successor = this.graph.getSuccessor(state, edge);
+					if (index[successor] < 0) {
+						index[successor] = lowLink[successor] = nextIndex++;
+						stack[stackSize++] = successor;
+						isOnStack[successor] = true;
+						callState[callSize] = successor;
+						callEdge[callSize++] = 0;
+					} else if (isOnStack[successor]) {
+						lowLink[state] = Math.min(lowLink[state], index[successor]);
+					}
+					continue;
+				}
+				callSize--;
+				if (callSize > 0) {
+					final int caller = callState[callSize - 1];
+					lowLink[caller] = Math.min(lowLink[caller], lowLink[state]);
+				}
+				if (lowLink[state] == index[state]) {
+					int member;
+					do {
+						member = stack[--stackSize];
+						isOnStack[member] = false;
+						this.component[member] = this.nbComponents;
+					} while (member != state);
+					this.nbComponents++;
+				}
+			}
+		}
+	}
+
+	private Level[] computeLevels() {
+		final CompiledNet net = this.graph.getNet();
+		final int nbTransitions = net.getTransitionCount();
+		final boolean[] isFired = new boolean[nbTransitions];
+		final boolean[] isOnCycle = new boolean[nbTransitions];
+		final boolean[] isTerminal = new boolean[this.nbComponents];
+		Arrays.fill(isTerminal, true);
+		for (int state = 0; state < this.graph.getStateCount(); state++) {
+			for (int i = 0; i < this.graph.getSuccessorCount(state); i++) {
+				final int t = this.graph.getSuccessorTransition(state, i);
+				isFired[t] = true;
+				if (this.component[this.graph.getSuccessor(state, i)] == this.component[state]) {
+					isOnCycle[t] = true;
+				} else {
+					isTerminal[this.component[state]] = false;
+				}
+			}
+		}
+		// number of terminal components in which each transition fires
+		final int[] nbTerminalFiring = new int[nbTransitions];
+		final int[] lastComponent = new int[nbTransitions];
+		Arrays.fill(lastComponent, -1);
+		int nbTerminal = 0;
+		for (int c = 0; c < this.nbComponents; c++) {
+			if (isTerminal[c]) {
+				nbTerminal++;
+			}
+		}
+		for (int state = 0; state < this.graph.getStateCount(); state++) {
+			final int c = this.component[state];
+			if (isTerminal[c]) {
+				for (int i = 0; i < this.graph.getSuccessorCount(state); i++) {
+					final int t = this.graph.getSuccessorTransition(state, i);
+					if (lastComponent[t] != c) {
+						lastComponent[t] = c;
+						nbTerminalFiring[t]++;
+					}
+				}
+			}
+		}
+		final Level[] result = new Level[nbTransitions];
+		for (int t = 0; t < nbTransitions; t++) {
+			if (nbTerminalFiring[t] == nbTerminal) {
+				result[t] = Level.L4;
+			} else if (isOnCycle[t]) {
+				result[t] = Level.L3;
+			} else if (isFired[t]) {
+				result[t] = Level.L1;
+			} else {
+				result[t] = Level.L0;
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Breadth-first tree from the initial state, so that witnesses are shortest
+	 */
+	private void computeWitnesses() {
+		Arrays.fill(this.parent, -1);
+		final int[] queue = new int[this.graph.getStateCount()];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = 0;
+		this.parent[0] = 0;
+		while (head < tail) {
+			final int state = queue[head++];
+			final int nbSuccessors = this.graph.getSuccessorCount(state);
+			if (nbSuccessors == 0 && this.firstDeadlock < 0) {
+				this.firstDeadlock = state;
+			}
+			for (int i = 0; i < nbSuccessors; i++) {
+				final int successor = this.graph.getSuccessor(state, i);
+				if (this.parent[successor] < 0) {
+					this.parent[successor] = state;
+					this.parentTransition[successor] = this.graph.getSuccessorTransition(state, i);
+					queue[tail++] = successor;
+				}
+			}
+		}
+	}
+
+	public ReachabilityGraph getGraph() {
+		return this.graph;
+	}
+
+	public boolean hasDeadlock() {
+		return this.firstDeadlock >= 0;
+	}
+
+	/**
+	 * @return the state of a deadlock closest to the initial marking, -1 if
+	 *         there is none
+	 */
+	public int getDeadlock() {
+		return this.firstDeadlock;
+	}
+
+	/**
+	 * @return the transitions, indexed like the compiled net, of a shortest
+	 *         firing sequence from the initial marking to the state
+	 */
+	public int[] getFiringSequence(final int state) {
+		int length = 0;
+		for (int s = state; s != 0; s = this.parent[s]) {
+			length++;
+		}
+		final int[] sequence = new int[length];
+		for (int s = state; s != 0; s = this.parent[s]) {
+			sequence[--length] = this.parentTransition[s];
+		}
+		return sequence;
+	}
+
+	/**
+	 * @return a shortest firing sequence leading to a deadlock, null if there is
+	 *         none
+	 */
+	public AbstractTransition[] getDeadlockWitness() {
+		if (this.firstDeadlock < 0) {
+			return null;
+		}
+		final int[] sequence = getFiringSequence(this.firstDeadlock);
+		final AbstractTransition[] witness = new AbstractTransition[sequence.length];
+		for (int i = 0; i < sequence.length; i++) {
+			witness[i] = this.graph.getNet().getTransition(sequence[i]);
+		}
+		return witness;
+	}
+
+	public Level getLevel(final int t) {
+		return this.levels[t];
+	}
+
+	public Level getLevel(final AbstractTransition transition) {
+		return this.levels[this.graph.getNet().indexOf(transition)];
+	}
+
+	/**
+	 * @return true if every transition is live
+	 */
+	public boolean isLive() {
+		for (final Level level : this.levels) {
+			if (level != Level.L4) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getComponentCount() {
+		return this.nbComponents;
+	}
+
+	public int getComponent(final int state) {
+		return this.component[state];
+	}
+
+}
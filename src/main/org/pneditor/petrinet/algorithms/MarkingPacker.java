@@ -0,0 +1,109 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Packs int[] markings into long[] words, each place using only the bits its
+ * bound needs. A field never straddles two words, so packing and unpacking
+ * are one shift and one mask per place.
+ */
+final class MarkingPacker {
+
+	private static final int MAX_BITS = 31;
+
+	final private int[] bits;
+	final private int[] word;
+	final private int[] shift;
+	final private int words;
+
+	MarkingPacker(final int[] bits) {
+		this.bits = bits.clone();
+		this.word = new int[bits.length];
+		this.shift = new int[bits.length];
+		int w = 0;
+		int used = 0;
+		for (int p = 0; p < bits.length; p++) {
+			if (used + bits[p] > Long.SIZE) {
+				w++;
+				used = 0;
+			}
+			this.word[p] = w;
+			this.shift[p] = used;
+			used += bits[p];
+		}
+		this.words = bits.length == 0 ? 0 : w + 1;
+	}
+
+	/**
+	 * @return a packer for the given bounds, a place with a negative bound
+	 *         getting the width of its initial marking
+	 */
+	static MarkingPacker forBounds(final int[] bounds, final int[] initialMarking) {
+		final int[] bits = new int[bounds.length];
+		for (int p = 0; p < bounds.length; p++) {
+			bits[p] = bitsFor(bounds[p] < 0 ? initialMarking[p] : bounds[p]);
+		}
+		return new MarkingPacker(bits);
+	}
+
+	static int bitsFor(final int tokens) {
+		return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(tokens));
+	}
+
+	int getWords() {
+		return this.words;
+	}
+
+	/**
+	 * @return true if every place of the marking fits in its field
+	 */
+	boolean fits(final int[] marking) {
+		for (int p = 0; p < marking.length; p++) {
+			if (marking[p] >>> this.bits[p] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a packer whose fields are wide enough for the marking; the places
+	 *         that overflow get at least twice their width so that the growth
+	 *         of a counter does not repack at every token. This packer itself
+	 *         if no field can grow, i.e. the marking has a negative count that
+	 *         no width holds.
+	 */
+	MarkingPacker widen(final int[] marking) {
+		final int[] newBits = this.bits.clone();
+		boolean isWidened = false;
+		for (int p = 0; p < marking.length; p++) {
+			if (marking[p] >>> this.bits[p] != 0 && this.bits[p] < MAX_BITS) {
+				newBits[p] = Math.min(MAX_BITS, Math.max(bitsFor(marking[p]), 2 * this.bits[p]));
+				isWidened = true;
+			}
+		}
+		return isWidened ? new MarkingPacker(newBits) : this;
+	}
+
+	void pack(final int[] marking, final long[] destination, final int offset) {
+		Arrays.fill(destination, offset, offset + this.words, 0L);
+		for (int p = 0; p < marking.length; p++) {
+			destination[offset + this.word[p]] |= (long) marking[p] << this.shift[p];
+		}
+	}
+
+	void unpack(final long[] source, final int offset, final int[] marking) {
+		for (int p = 0; p < marking.length; p++) {
+			marking[p] = (int) (source[offset + this.word[p]] >>> this.shift[p]) & ((1 << this.bits[p]) - 1);
+		}
+	}
+
+	static int hash(final long[] packed, final int offset, final int length) {
+		long h = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = (h + packed[i]) * 0x9E3779B97F4A7C15L;
+		}
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+
+/**
+ * Aggregated statistics of a MonteCarloSimulation batch. Token statistics are
+ * taken over every marking visited by every run, initial markings included.
+ */
+public final class MonteCarloResult {
+
+	final private CompiledNet net;
+	final private int runs;
+	final private int steps;
+	final private MonteCarloSimulation.Statistics statistics;
+
+	MonteCarloResult(final CompiledNet net, final int runs, final int steps,
+			final MonteCarloSimulation.Statistics statistics) {
+		this.net = net;
+		this.runs = runs;
+		this.steps = steps;
+		this.statistics = statistics;
+	}
+
+	public int getRuns() {
+		return this.runs;
+	}
+
+	public int getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * @return the number of runs that stopped on a marking enabling no transition
+	 */
+	public long getDeadlockCount() {
+		return this.statistics.deadlocks;
+	}
+
+	/**
+	 * @return the number of runs stopped before a firing that would put more
+	 *         than Integer.MAX_VALUE tokens in a place
+	 */
+	public long getOverflowCount() {
+		return this.statistics.overflows;
+	}
+
+	public double getDeadlockFrequency() {
+		return this.runs == 0 ? 0 : (double) this.statistics.deadlocks / this.runs;
+	}
+
+	public double getMeanTokens(final AbstractPlace place) {
+		if (this.statistics.markings == 0) {
+			return 0;
+		}
+		return (double) this.statistics.tokenSum[this.net.indexOf(place)] / this.statistics.markings;
+	}
+
+	public int getMinTokens(final AbstractPlace place) {
+		return this.runs == 0 ? 0 : this.statistics.minTokens[this.net.indexOf(place)];
+	}
+
+	public int getMaxTokens(final AbstractPlace place) {
+		return this.statistics.maxTokens[this.net.indexOf(place)];
+	}
+
+	/**
+	 * @return the mean number of tokens of the place at the end of a run
+	 */
+	public double getMeanFinalTokens(final AbstractPlace place) {
+		return this.runs == 0 ? 0 : (double) this.statistics.finalTokenSum[this.net.indexOf(place)] / this.runs;
+	}
+
+	/**
+	 * @return the number of firings of the transition, summed over all runs
+	 */
+	public long getFiringCount(final AbstractTransition transition) {
+		return this.statistics.firings[this.net.indexOf(transition)];
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(this.runs).append(" runs of ").append(this.steps).append(" steps, ")
+				.append(this.statistics.deadlocks).append(" deadlocked");
+		if (this.statistics.overflows > 0) {
+			builder.append(", ").append(this.statistics.overflows).append(" overflowed");
+		}
+		builder.append('\n');
+		for (int p = 0; p < this.net.getPlaceCount(); p++) {
+			final AbstractPlace place = this.net.getPlace(p);
+			builder.append(place.getLabel()).append(": mean ").append(getMeanTokens(place)).append(", min ")
+					.append(getMinTokens(place)).append(", max ").append(getMaxTokens(place)).append('\n');
+		}
+		for (int t = 0; t < this.net.getTransitionCount(); t++) {
+			final AbstractTransition transition = this.net.getTransition(t);
+			builder.append(transition.getLabel()).append(": fired ").append(getFiringCount(transition))
+					.append(" times\n");
+		}
+		return builder.toString();
+	}
+
+}
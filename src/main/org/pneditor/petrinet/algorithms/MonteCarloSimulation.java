@@ -0,0 +1,207 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Headless batch of random firing runs. Each run starts from the initial
+ * marking of the net, fires uniformly chosen enabled transitions until it
+ * reaches the requested length or a deadlock, and has its own marking and its
+ * own random generator seeded from the batch seed and the run number, so the
+ * result does not depend on how the runs are spread over the threads. A run
+ * whose next firing would put more than Integer.MAX_VALUE tokens in a place
+ * stops before it and is counted as overflowed.
+ */
+public class MonteCarloSimulation {
+
+	/*
+	 * Number of runs below which a task does not split anymore
+	 */
+	private static final int RUNS_PER_TASK = 16;
+	private static final long SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+	final private CompiledNet net;
+
+	public MonteCarloSimulation(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet));
+	}
+
+	public MonteCarloSimulation(final CompiledNet net) {
+		this.net = net;
+	}
+
+	public MonteCarloResult run(final int runs, final int steps, final long seed) {
+		return run(runs, steps, seed, ForkJoinPool.commonPool());
+	}
+
+	public MonteCarloResult run(final int runs, final int steps, final long seed, final ForkJoinPool pool) {
+		if (runs < 0 || steps < 0) {
+			throw new IllegalArgumentException("The number of runs and steps cannot be negative");
+		}
+		final Statistics statistics = pool.invoke(new RunsTask(0, runs, steps, seed));
+		return new MonteCarloResult(this.net, runs, steps, statistics);
+	}
+
+	/*
+	 * Sums are kept as longs so that merging is exact and the result reproducible
+	 */
+	static final class Statistics {
+
+		final long[] tokenSum;
+		final int[] minTokens;
+		final int[] maxTokens;
+		final long[] finalTokenSum;
+		final long[] firings;
+		long markings;
+		long deadlocks;
+		long overflows;
+
+		Statistics(final int nbPlaces, final int nbTransitions) {
+			this.tokenSum = new long[nbPlaces];
+			this.minTokens = new int[nbPlaces];
+			this.maxTokens = new int[nbPlaces];
+			this.finalTokenSum = new long[nbPlaces];
+			this.firings = new long[nbTransitions];
+			Arrays.fill(this.minTokens, Integer.MAX_VALUE);
+		}
+
+		void observe(final int[] marking) {
+			for (int p = 0; p < marking.length; p++) {
+				final int tokens = marking[p];
+				this.tokenSum[p] += tokens;
+				if (tokens < this.minTokens[p]) {
+					this.minTokens[p] = tokens;
+				}
+				if (tokens > this.maxTokens[p]) {
+					this.maxTokens[p] = tokens;
+				}
+			}
+			this.markings++;
+		}
+
+		void merge(final Statistics other) {
+			for (int p = 0; p < this.tokenSum.length; p++) {
+				this.tokenSum[p] += other.tokenSum[p];
+				this.minTokens[p] = Math.min(this.minTokens[p], other.minTokens[p]);
+				this.maxTokens[p] = Math.max(this.maxTokens[p], other.maxTokens[p]);
+				this.finalTokenSum[p] += other.finalTokenSum[p];
+			}
+			for (int t = 0; t < this.firings.length; t++) {
+				this.firings[t] += other.firings[t];
+			}
+			this.markings += other.markings;
+			this.deadlocks += other.deadlocks;
+			this.overflows += other.overflows;
+		}
+	}
+
+	private final class RunsTask extends RecursiveTask<Statistics> {
+
+		private static final long serialVersionUID = 1L;
+
+		final private int from;
+		final private int to;
+		final private int steps;
+		final private long seed;
+
+		RunsTask(final int from, final int to, final int steps, final long seed) {
+			this.from = from;
+			this.to = to;
+			this.steps = steps;
+			this.seed = seed;
+		}
+
+		@Override
+		protected Statistics compute() {
+			if (this.to - this.from <= RUNS_PER_TASK) {
+				final Statistics statistics = new Statistics(MonteCarloSimulation.this.net.getPlaceCount(),
+						MonteCarloSimulation.this.net.getTransitionCount());
+				final Run run = new Run();
+				for (int i = this.from; i < this.to; i++) {
+					run.execute(new SplittableRandom(this.seed + i * SEED_GAMMA), this.steps, statistics);
+				}
+				return statistics;
+			}
+			final int middle = (this.from + this.to) >>> 1;
+			final RunsTask left = new RunsTask(this.from, middle, this.steps, this.seed);
+			left.fork();
+			final Statistics statistics = new RunsTask(middle, this.to, this.steps, this.seed).compute();
+			final Statistics leftStatistics = left.join();
+			leftStatistics.merge(statistics);
+			return leftStatistics;
+		}
+	}
+
+	/*
+	 * One random run. The enabled transitions are kept in a dense array updated
+	 * after each firing from the readers of the changed places; the buffers are
+	 * reused between the runs of a task.
+	 */
+	private final class Run {
+
+		final private CompiledNet n = MonteCarloSimulation.this.net;
+		final private int[] marking = new int[this.n.getPlaceCount()];
+		final private int[] enabled = new int[this.n.getTransitionCount()];
+		// position of each transition in enabled, -1 if disabled
+		final private int[] position = new int[this.n.getTransitionCount()];
+		private int nbEnabled;
+
+		void execute(final SplittableRandom random, final int steps, final Statistics statistics) {
+			final int[] initial = this.n.getInitialMarking();
+			System.arraycopy(initial, 0, this.marking, 0, initial.length);
+			this.nbEnabled = 0;
+			for (int t = 0; t < this.position.length; t++) {
+				this.position[t] = -1;
+				update(t);
+			}
+			statistics.observe(this.marking);
+
+			int step = 0;
+			while (step < steps && this.nbEnabled > 0) {
+				final int t = this.enabled[random.nextInt(this.nbEnabled)];
+				try {
+					this.n.fire(this.marking, t);
+				} catch (ArithmeticException e) {
+					// the marking is left as it was
+					statistics.overflows++;
+					break;
+				}
+				statistics.firings[t]++;
+				for (int i = this.n.changedStart[t]; i < this.n.changedStart[t + 1]; i++) {
+					final int p = this.n.changedPlace[i];
+					for (int j = this.n.readerStart[p]; j < this.n.readerStart[p + 1]; j++) {
+						update(this.n.readerTransition[j]);
+					}
+				}
+				statistics.observe(this.marking);
+				step++;
+			}
+			if (this.nbEnabled == 0) {
+				statistics.deadlocks++;
+			}
+			for (int p = 0; p < this.marking.length; p++) {
+				statistics.finalTokenSum[p] += this.marking[p];
+			}
+		}
+
+		private void update(final int t) {
+			final boolean isEnabled = this.n.isEnabled(this.marking, t);
+			final int pos = this.position[t];
+			if (isEnabled && pos < 0) {
+				this.enabled[this.nbEnabled] = t;
+				this.position[t] = this.nbEnabled++;
+			} else if (!isEnabled && pos >= 0) {
+				final int last = this.enabled[--this.nbEnabled];
+				this.enabled[pos] = last;
+				this.position[last] = pos;
+				this.position[t] = -1;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Multi-threaded counterpart of StateSpaceExplorer. The markings of each
+ * breadth-first level are split into fork/join tasks, idle threads stealing
+ * the remaining halves, and every new marking is claimed in a lock-free
+ * ConcurrentMarkingSet, so each state is expanded by exactly one thread.
+ *
+ * When the exploration is complete and the reduction, if any, has no visible
+ * transitions, the counts are the ones of a sequential exploration. Otherwise
+ * they depend on the schedule: the proviso of the visible transitions expands
+ * a state fully depending on which thread claimed its successors first, and
+ * under maxStates the edges to the markings left out are still counted.
+ *
+ * Only the counts are kept, not the edges. Between two levels the visited set
+ * is grown if needed; the markings that could not be added because it was
+ * full, or because the state budget was reserved by other threads, are added
+ * then. If a place outgrows its packed field, the exploration starts again
+ * with wider fields. A firing that would overflow a place is skipped and
+ * reported in the summary, as in StateSpaceExplorer.
+ */
+public class ParallelStateSpaceExplorer {
+
+	/*
+	 * Number of markings below which a task does not split anymore
+	 */
+	private static final int STATES_PER_TASK = 64;
+	private static final int INITIAL_CAPACITY = 1 << 16;
+
+	final private CompiledNet net;
+	private int maxStates = Integer.MAX_VALUE - 1;
+	private int[] bounds;
+	private StubbornSetReduction reduction;
+
+	public ParallelStateSpaceExplorer(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet));
+	}
+
+	public ParallelStateSpaceExplorer(final CompiledNet net) {
+		this.net = net;
+		this.bounds = new int[net.getPlaceCount()];
+		Arrays.fill(this.bounds, -1);
+	}
+
+	public void setMaxStates(final int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * @param bounds known bound of each place, indexed like the compiled net, -1
+	 *               when unknown
+	 */
+	public void setBounds(final int[] bounds) {
+		if (bounds.length != this.net.getPlaceCount()) {
+			throw new IllegalArgumentException("One bound per place is expected");
+		}
+		this.bounds = bounds.clone();
+	}
+
+	/**
+	 * @param reduction the partial-order reduction to apply, null to explore
+	 *                  every interleaving
+	 */
+	public void setReduction(final StubbornSetReduction reduction) {
+		this.reduction = reduction;
+	}
+
+	public StateSpaceSummary explore() {
+		return explore(ForkJoinPool.commonPool());
+	}
+
+	public StateSpaceSummary explore(final ForkJoinPool pool) {
+		MarkingPacker packer = MarkingPacker.forBounds(this.bounds, this.net.getInitialMarking());
+		while (true) {
+			final Exploration exploration = new Exploration(packer);
+			final StateSpaceSummary summary = exploration.run(pool);
+			if (summary != null) {
+				return summary;
+			}
+			if (exploration.widenedPacker == packer) {
+				throw new IllegalStateException("A marking has a negative number of tokens");
+			}
+			packer = exploration.widenedPacker;
+		}
+	}
+
+	/*
+	 * One attempt with a given packing
+	 */
+	private final class Exploration {
+
+		final private MarkingPacker packer;
+		final private int words;
+		private ConcurrentMarkingSet visited;
+		// states added or about to be, never above maxStates
+		final private AtomicInteger reserved = new AtomicInteger();
+		// a place outgrew its packed field
+		private volatile boolean isOverflowed;
+		// a place would have held more than Integer.MAX_VALUE tokens
+		private volatile boolean hasTokenOverflow;
+		private volatile boolean isIncomplete;
+		private MarkingPacker widenedPacker;
+
+		Exploration(final MarkingPacker packer) {
+			this.packer = packer;
+			this.words = Math.max(1, packer.getWords());
+			this.widenedPacker = packer;
+		}
+
+		/**
+		 * @return the counts, or null if a place overflowed its field
+		 */
+		StateSpaceSummary run(final ForkJoinPool pool) {
+			this.visited = new ConcurrentMarkingSet(this.words, INITIAL_CAPACITY);
+			final int[] initial = ParallelStateSpaceExplorer.this.net.getInitialMarking();
+			LongList frontier = new LongList();
+			if (!this.packer.fits(initial)) {
+				overflow(initial);
+				return null;
+			}
+			frontier.grow(this.words);
+			this.packer.pack(initial, frontier.values, 0);
+			frontier.size = this.words;
+			this.visited.add(frontier.values, 0);
+			this.reserved.set(1);
+
+			long edges = 0;
+			long deadlocks = 0;
+			while (frontier.size > 0) {
+				final Level level = pool.invoke(new ExpandTask(frontier, 0, frontier.size / this.words));
+				if (this.isOverflowed) {
+					return null;
+				}
+				edges += level.edges;
+				deadlocks += level.deadlocks;
+				// single-threaded: no task is running
+				while (this.visited.isFull()) {
+					this.visited = this.visited.grow();
+				}
+				for (int offset = 0; offset < level.deferred.size; offset += this.words) {
+					if (this.visited.isFull()) {
+						this.visited = this.visited.grow();
+					}
+					tryAdd(level.deferred.values, offset, level.next, null);
+				}
+				frontier = level.next;
+			}
+			return new StateSpaceSummary(this.visited.size(), edges, deadlocks, !this.isIncomplete,
+					this.hasTokenOverflow);
+		}
+
+		/**
+		 * Adds the marking if a state is left in the budget. The slot is reserved
+		 * before the marking is added, so that concurrent threads never go over
+		 * maxStates.
+		 *
+		 * @param deferred where to put a new marking refused while other threads
+		 *                 may still give their slot back, null when no other
+		 *                 thread is running
+		 * @return true if the marking was not visited yet
+		 */
+		private boolean tryAdd(final long[] packed, final int offset, final LongList next, final LongList deferred) {
+			if (this.reserved.incrementAndGet() <= ParallelStateSpaceExplorer.this.maxStates) {
+				if (this.visited.add(packed, offset)) {
+					next.add(packed, offset, this.words);
+					return true;
+				}
+				this.reserved.decrementAndGet(); // already visited
+				return false;
+			}
+			this.reserved.decrementAndGet();
+			if (this.visited.contains(packed, offset)) {
+				return false;
+			}
+			if (deferred != null) {
+				deferred.add(packed, offset, this.words);
+				return true; // not known yet, counted as new
+			}
+			this.isIncomplete = true;
+			return false;
+		}
+
+		private synchronized void overflow(final int[] marking) {
+			this.widenedPacker = this.widenedPacker.widen(marking);
+			this.isOverflowed = true;
+		}
+
+		private final class ExpandTask extends RecursiveTask<Level> {
+
+			private static final long serialVersionUID = 1L;
+
+			final private LongList frontier;
+			final private int from;
+			final private int to;
+
+			ExpandTask(final LongList frontier, final int from, final int to) {
+				this.frontier = frontier;
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected Level compute() {
+				if (this.to - this.from > STATES_PER_TASK) {
+					final int middle = (this.from + this.to) >>> 1;
+					final ExpandTask left = new ExpandTask(this.frontier, this.from, middle);
+					left.fork();
+					final Level right = new ExpandTask(this.frontier, middle, this.to).compute();
+					final Level level = left.join();
+					level.merge(right);
+					return level;
+				}
+				final CompiledNet n = ParallelStateSpaceExplorer.this.net;
+				final StubbornSetReduction r = ParallelStateSpaceExplorer.this.reduction;
+				final StubbornSetReduction.Selector selector = r == null ? null : r.newSelector();
+				final Level level = new Level();
+				final int[] marking = new int[n.getPlaceCount()];
+				final int[] fired = new int[n.getTransitionCount()];
+				final int w = Exploration.this.words;
+				final int[] successor = new int[n.getPlaceCount()];
+				final long[] packed = new long[w];
+				for (int state = this.from; state < this.to && !Exploration.this.isOverflowed; state++) {
+					Exploration.this.packer.unpack(this.frontier.values, state * w, marking);
+					final int nbFired = selector == null ? enabled(marking, fired) : selector.select(marking, fired);
+					if (nbFired == 0) {
+						level.deadlocks++;
+					}
+					final long edges = level.edges;
+					final int nbNew = expand(marking, fired, nbFired, successor, packed, level);
+					if (nbNew == 0 && nbFired > 0 && r != null && r.hasVisibleTransitions()) {
+						// only visited states reached: expand fully so that no visible transition is ignored forever
+						final int nbEnabled = enabled(marking, fired);
+						if (nbEnabled > nbFired) {
+							level.edges = edges;
+							expand(marking, fired, nbEnabled, successor, packed, level);
+						}
+					}
+				}
+				return level;
+			}
+
+			/**
+			 * @return the number of successors not visited yet
+			 */
+			private int expand(final int[] marking, final int[] fired, final int nbFired, final int[] successor,
+					final long[] packed, final Level level) {
+				final CompiledNet n = ParallelStateSpaceExplorer.this.net;
+				int nbNew = 0;
+				for (int i = 0; i < nbFired; i++) {
+					System.arraycopy(marking, 0, successor, 0, marking.length);
+					try {
+						n.fire(successor, fired[i]);
+					} catch (ArithmeticException e) {
+						Exploration.this.hasTokenOverflow = true;
+						continue;
+					}
+					level.edges++;
+					if (!Exploration.this.packer.fits(successor)) {
+						overflow(successor);
+						continue;
+					}
+					Exploration.this.packer.pack(successor, packed, 0);
+					if (Exploration.this.visited.isFull()) {
+						level.deferred.add(packed, 0, packed.length);
+						nbNew++; // not known yet, counted as new
+					} else if (tryAdd(packed, 0, level.next, level.deferred)) {
+						nbNew++;
+					}
+				}
+				return nbNew;
+			}
+
+			private int enabled(final int[] marking, final int[] enabled) {
+				final CompiledNet n = ParallelStateSpaceExplorer.this.net;
+				int nbEnabled = 0;
+				for (int t = 0; t < n.getTransitionCount(); t++) {
+					if (n.isEnabled(marking, t)) {
+						enabled[nbEnabled++] = t;
+					}
+				}
+				return nbEnabled;
+			}
+		}
+	}
+
+	/*
+	 * What the expansion of a part of a level produced
+	 */
+	private static final class Level {
+
+		final LongList next = new LongList();
+		final LongList deferred = new LongList();
+		long edges;
+		long deadlocks;
+
+		void merge(final Level other) {
+			this.next.add(other.next.values, 0, other.next.size);
+			this.deferred.add(other.deferred.values, 0, other.deferred.size);
+			this.edges += other.edges;
+			this.deadlocks += other.deadlocks;
+		}
+	}
+
+	/*
+	 * Growable long array holding packed markings one after the other
+	 */
+	private static final class LongList {
+
+		long[] values = new long[0];
+		int size;
+
+		void grow(final int length) {
+			if (this.size + length > this.values.length) {
+				this.values = Arrays.copyOf(this.values, Math.max(16, 2 * (this.size + length)));
+			}
+		}
+
+		void add(final long[] source, final int offset, final int length) {
+			grow(length);
+			System.arraycopy(source, offset, this.values, this.size, length);
+			this.size += length;
+		}
+	}
+
+}
@@ -0,0 +1,307 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+
+import org.pneditor.petrinet.AbstractPlace;
+
+/**
+ * Explicit reachability graph built by a StateSpaceExplorer.
+ *
+ * States are packed markings stored one after the other in a single long
+ * array and found again through an open-addressing hash table; state 0 is the
+ * initial marking. The edges of a state are stored contiguously in primitive
+ * arrays when the state is expanded.
+ */
+public final class ReachabilityGraph {
+
+	private static final int UNEXPANDED = -1;
+	// the hash table keeps at least two slots per state and cannot have more than 2^30
+	private static final int MAX_STATES = 1 << 29;
+
+	final private CompiledNet net;
+	private MarkingPacker packer;
+	private int words;
+
+	private long[] states;
+	private int nbStates;
+	// state + 1 in each slot, 0 for an empty slot
+	private int[] table;
+	// packed marking being looked up
+	private long[] buffer;
+
+	private int[] firstEdge;
+	private int[] outDegree;
+	final private CompiledNet.IntList edgeTargets = new CompiledNet.IntList();
+	final private CompiledNet.IntList edgeTransitions = new CompiledNet.IntList();
+	final private CompiledNet.IntList deadlocks = new CompiledNet.IntList();
+
+	private boolean isComplete = true;
+	private boolean hasOverflow;
+
+	ReachabilityGraph(final CompiledNet net, final MarkingPacker packer, final int initialCapacity) {
+		this.net = net;
+		this.packer = packer;
+		this.words = Math.max(1, packer.getWords());
+		final int capacity = Math.max(16, initialCapacity);
+		this.states = new long[length(capacity, this.words)];
+		this.firstEdge = new int[capacity];
+		this.outDegree = new int[capacity];
+		this.table = new int[Integer.highestOneBit(capacity) * 4];
+		this.buffer = new long[this.words];
+	}
+
+	/*
+	 * Storage, used by the explorers
+	 */
+
+	/**
+	 * @return the state of the marking, or -1 if it was never added
+	 */
+	int find(final int[] marking) {
+		if (!this.packer.fits(marking)) {
+			return -1;
+		}
+		this.packer.pack(marking, this.buffer, 0);
+		final int mask = this.table.length - 1;
+		int slot = MarkingPacker.hash(this.buffer, 0, this.words) & mask;
+		while (this.table[slot] != 0) {
+			final int state = this.table[slot] - 1;
+			if (Arrays.equals(this.states, state * this.words, (state + 1) * this.words, this.buffer, 0,
+					this.words)) {
+				return state;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return false if one more state would not fit in the heap, which is then
+	 *         left as it is
+	 */
+	boolean hasRoom() {
+		if (this.nbStates < this.firstEdge.length) {
+			return true;
+		}
+		if (this.nbStates >= MAX_STATES) {
+			return false;
+		}
+		// 8 bytes per word of a state, 8 for its edge row, at most 16 in the table
+		final long stateBytes = 8L * this.words + 24;
+		final Runtime runtime = Runtime.getRuntime();
+		final long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		// the old arrays stay alive during the copy, so the new ones must fit beside them
+		final long capacity = Math.min(Math.min(2L * this.nbStates, MAX_STATES), free / stateBytes);
+		if (capacity <= this.nbStates) {
+			return false;
+		}
+		this.states = Arrays.copyOf(this.states, length(capacity, this.words));
+		this.firstEdge = Arrays.copyOf(this.firstEdge, (int) capacity);
+		this.outDegree = Arrays.copyOf(this.outDegree, (int) capacity);
+		return true;
+	}
+
+	/**
+	 * Adds a marking that find() did not return. Widens the packing first if one
+	 * of its places does not fit.
+	 *
+	 * @throws IllegalStateException if the state does not fit in the heap, see
+	 *                               hasRoom()
+	 */
+	int add(final int[] marking) {
+		if (!hasRoom()) {
+			throw new IllegalStateException("Not enough memory for more than " + this.nbStates + " markings");
+		}
+		if (!this.packer.fits(marking)) {
+			repack(this.packer.widen(marking));
+		}
+		final int state = this.nbStates;
+		this.packer.pack(marking, this.states, state * this.words);
+		this.firstEdge[state] = UNEXPANDED;
+		this.nbStates++;
+		if (this.nbStates > this.table.length >> 1) {
+			this.table = new int[this.table.length * 2];
+			for (int s = 0; s < this.nbStates; s++) {
+				insert(s);
+			}
+		} else {
+			insert(state);
+		}
+		return state;
+	}
+
+	/**
+	 * Starts the edges of a state. Its successors must be added right after,
+	 * before expanding another state.
+	 */
+	void expand(final int state) {
+		this.firstEdge[state] = this.edgeTargets.size();
+		this.outDegree[state] = 0;
+	}
+
+	/**
+	 * Drops the edges of the last expanded state, to expand it again
+	 */
+	void clearEdges(final int state) {
+		this.edgeTargets.truncate(this.firstEdge[state]);
+		this.edgeTransitions.truncate(this.firstEdge[state]);
+		this.outDegree[state] = 0;
+	}
+
+	void addEdge(final int source, final int target, final int transition) {
+		this.edgeTargets.add(target);
+		this.edgeTransitions.add(transition);
+		this.outDegree[source]++;
+	}
+
+	void addDeadlock(final int state) {
+		this.deadlocks.add(state);
+	}
+
+	void setIncomplete() {
+		this.isComplete = false;
+	}
+
+	void setOverflow() {
+		this.hasOverflow = true;
+		this.isComplete = false;
+	}
+
+	void unpack(final int state, final int[] marking) {
+		this.packer.unpack(this.states, state * this.words, marking);
+	}
+
+	/**
+	 * @return an estimate of the memory used by the graph, in bytes
+	 */
+	long getMemory() {
+		return 8L * this.states.length + 4L * this.table.length + 8L * this.firstEdge.length
+				+ 8L * this.edgeTargets.size() + 4L * this.deadlocks.size();
+	}
+
+	private void repack(final MarkingPacker newPacker) {
+		final int newWords = Math.max(1, newPacker.getWords());
+		final long[] newStates = new long[length(this.firstEdge.length, newWords)];
+		final int[] marking = new int[this.net.getPlaceCount()];
+		for (int s = 0; s < this.nbStates; s++) {
+			this.packer.unpack(this.states, s * this.words, marking);
+			newPacker.pack(marking, newStates, s * newWords);
+		}
+		this.packer = newPacker;
+		this.words = newWords;
+		this.states = newStates;
+		this.buffer = new long[newWords];
+		Arrays.fill(this.table, 0);
+		for (int s = 0; s < this.nbStates; s++) {
+			insert(s);
+		}
+	}
+
+	/*
+	 * Length of an array of count rows of width elements, so that the offset of
+	 * a row never overflows
+	 */
+	private static int length(final long count, final int width) {
+		final long length = count * width;
+		if (length > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Too many markings for the reachability graph");
+		}
+		return (int) length;
+	}
+
+	private void insert(final int state) {
+		final int mask = this.table.length - 1;
+		int slot = MarkingPacker.hash(this.states, state * this.words, this.words) & mask;
+		while (this.table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		this.table[slot] = state + 1;
+	}
+
+	/*
+	 * Read-only view of the graph
+	 */
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	public int getStateCount() {
+		return this.nbStates;
+	}
+
+	public int getEdgeCount() {
+		return this.edgeTargets.size();
+	}
+
+	/**
+	 * @return false if the exploration was stopped by a budget; some states then
+	 *         have no successors recorded
+	 */
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	/**
+	 * @return true if a firing would have put more than Integer.MAX_VALUE tokens
+	 *         in a place: the net is unbounded in practice and the graph is
+	 *         incomplete
+	 */
+	public boolean hasOverflow() {
+		return this.hasOverflow;
+	}
+
+	public boolean isExpanded(final int state) {
+		return this.firstEdge[state] != UNEXPANDED;
+	}
+
+	/**
+	 * @return a copy of the marking of the state, state 0 being the initial
+	 *         marking
+	 */
+	public int[] getMarking(final int state) {
+		final int[] marking = new int[this.net.getPlaceCount()];
+		unpack(state, marking);
+		return marking;
+	}
+
+	public int getTokens(final int state, final AbstractPlace place) {
+		return getMarking(state)[this.net.indexOf(place)];
+	}
+
+	/**
+	 * @return the state of the marking, or -1 if it is not in the graph
+	 */
+	public int indexOf(final int[] marking) {
+		return find(marking);
+	}
+
+	public int getSuccessorCount(final int state) {
+		return isExpanded(state) ? this.outDegree[state] : 0;
+	}
+
+	public int getSuccessor(final int state, final int i) {
+		return this.edgeTargets.get(this.firstEdge[state] + i);
+	}
+
+	/**
+	 * @return the index in the compiled net of the transition of the i-th edge
+	 *         leaving the state
+	 */
+	public int getSuccessorTransition(final int state, final int i) {
+		return this.edgeTransitions.get(this.firstEdge[state] + i);
+	}
+
+	public StateSpaceSummary getSummary() {
+		return new StateSpaceSummary(this.nbStates, this.edgeTargets.size(), this.deadlocks.size(), this.isComplete,
+				this.hasOverflow);
+	}
+
+	/**
+	 * @return the states enabling no transition
+	 */
+	public int[] getDeadlocks() {
+		return this.deadlocks.toArray();
+	}
+
+}
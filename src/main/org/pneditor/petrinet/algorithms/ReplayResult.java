@@ -0,0 +1,187 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+
+/**
+ * Token counts of a TokenReplay, over the whole log, per transition and per
+ * place.
+ */
+public final class ReplayResult {
+
+	final private CompiledNet net;
+
+	long cases;
+	long fittingCases;
+	long events;
+	long unknownEvents;
+	long malformedLines;
+	long missing;
+	long remaining;
+	long consumed;
+	long produced;
+
+	final long[] firings;
+	final long[] forcedFirings;
+	final long[] transitionMissing;
+	final long[] placeMissing;
+	final long[] placeRemaining;
+
+	ReplayResult(final CompiledNet net) {
+		this.net = net;
+		this.firings = new long[net.getTransitionCount()];
+		this.forcedFirings = new long[net.getTransitionCount()];
+		this.transitionMissing = new long[net.getTransitionCount()];
+		this.placeMissing = new long[net.getPlaceCount()];
+		this.placeRemaining = new long[net.getPlaceCount()];
+	}
+
+	void add(final long caseMissing, final long caseRemaining, final long caseConsumed, final long caseProduced) {
+		this.cases++;
+		if (caseMissing == 0 && caseRemaining == 0) {
+			this.fittingCases++;
+		}
+		this.missing += caseMissing;
+		this.remaining += caseRemaining;
+		this.consumed += caseConsumed;
+		this.produced += caseProduced;
+	}
+
+	void merge(final ReplayResult other) {
+		this.cases += other.cases;
+		this.fittingCases += other.fittingCases;
+		this.events += other.events;
+		this.unknownEvents += other.unknownEvents;
+		this.malformedLines += other.malformedLines;
+		this.missing += other.missing;
+		this.remaining += other.remaining;
+		this.consumed += other.consumed;
+		this.produced += other.produced;
+		for (int t = 0; t < this.firings.length; t++) {
+			this.firings[t] += other.firings[t];
+			this.forcedFirings[t] += other.forcedFirings[t];
+			this.transitionMissing[t] += other.transitionMissing[t];
+		}
+		for (int p = 0; p < this.placeMissing.length; p++) {
+			this.placeMissing[p] += other.placeMissing[p];
+			this.placeRemaining[p] += other.placeRemaining[p];
+		}
+	}
+
+	/**
+	 * @return 1/2 (1 - missing / consumed) + 1/2 (1 - remaining / produced), 1
+	 *         for a perfect fit
+	 */
+	public static double fitness(final long missing, final long remaining, final long consumed,
+			final long produced) {
+		final double consumedPart = consumed == 0 ? 1 : 1 - (double) missing / consumed;
+		final double producedPart = produced == 0 ? 1 : 1 - (double) remaining / produced;
+		return (consumedPart + producedPart) / 2;
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	/**
+	 * @return the fitness of the whole log, from the tokens of all its cases
+	 */
+	public double getFitness() {
+		return fitness(this.missing, this.remaining, this.consumed, this.produced);
+	}
+
+	public long getCaseCount() {
+		return this.cases;
+	}
+
+	/**
+	 * @return the number of cases without missing nor remaining tokens
+	 */
+	public long getFittingCaseCount() {
+		return this.fittingCases;
+	}
+
+	public long getEventCount() {
+		return this.events;
+	}
+
+	/**
+	 * @return the number of events whose label is not the one of a transition
+	 */
+	public long getUnknownEventCount() {
+		return this.unknownEvents;
+	}
+
+	public long getMalformedLineCount() {
+		return this.malformedLines;
+	}
+
+	public long getMissing() {
+		return this.missing;
+	}
+
+	public long getRemaining() {
+		return this.remaining;
+	}
+
+	public long getConsumed() {
+		return this.consumed;
+	}
+
+	public long getProduced() {
+		return this.produced;
+	}
+
+	public long getFiringCount(final AbstractTransition transition) {
+		return this.firings[this.net.indexOf(transition)];
+	}
+
+	/**
+	 * @return the number of firings of the transition that lacked tokens
+	 */
+	public long getForcedFiringCount(final AbstractTransition transition) {
+		return this.forcedFirings[this.net.indexOf(transition)];
+	}
+
+	public long getMissing(final AbstractTransition transition) {
+		return this.transitionMissing[this.net.indexOf(transition)];
+	}
+
+	/**
+	 * @return the tokens missing in the place, to fire or to end a case
+	 */
+	public long getMissing(final AbstractPlace place) {
+		return this.placeMissing[this.net.indexOf(place)];
+	}
+
+	/**
+	 * @return the tokens left in the place when cases ended
+	 */
+	public long getRemaining(final AbstractPlace place) {
+		return this.placeRemaining[this.net.indexOf(place)];
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(this.cases).append(" cases, ").append(this.fittingCases).append(" fitting, ")
+				.append(this.events).append(" events (").append(this.unknownEvents).append(" unknown)\n");
+		builder.append("Fitness ").append(getFitness()).append(": ").append(this.missing).append(" missing, ")
+				.append(this.remaining).append(" remaining, ").append(this.consumed).append(" consumed, ")
+				.append(this.produced).append(" produced\n");
+		for (int t = 0; t < this.firings.length; t++) {
+			final AbstractTransition transition = this.net.getTransition(t);
+			builder.append(transition.getLabel()).append(": ").append(this.firings[t]).append(" firings, ")
+					.append(this.forcedFirings[t]).append(" forced\n");
+		}
+		for (int p = 0; p < this.placeMissing.length; p++) {
+			final AbstractPlace place = this.net.getPlace(p);
+			if (this.placeMissing[p] > 0 || this.placeRemaining[p] > 0) {
+				builder.append(place.getLabel()).append(": ").append(this.placeMissing[p]).append(" missing, ")
+						.append(this.placeRemaining[p]).append(" remaining\n");
+			}
+		}
+		return builder.toString();
+	}
+
+}
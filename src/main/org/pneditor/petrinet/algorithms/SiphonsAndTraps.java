@@ -0,0 +1,416 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Minimal siphons and maximal traps of a net, and Commoner's liveness check
+ * for extended free-choice nets.
+ *
+ * A siphon is a set of places whose every input transition also takes a token
+ * from it: once empty, it stays empty. A trap is a set of places whose every
+ * output transition also puts a token into it: once marked, it stays marked.
+ * Regular arcs count as inputs of a transition, and so do reset arcs when the
+ * model makes them need a token (CompiledNet.isResetEnabling); reset arcs
+ * always count as outputs of a place since they take its tokens. Inhibitory
+ * arcs are ignored.
+ *
+ * Minimal siphons are enumerated by branch and bound: a problem is a set of
+ * places every siphon must contain and a set none may contain. The largest
+ * siphon avoiding the excluded places, computed by a linear fixpoint, either
+ * misses an included place and the problem is pruned, or is shrunk to a
+ * siphon minimal among those containing the included places. That siphon is
+ * reported if it is minimal, and the problem is split on its places so that
+ * every other minimal siphon falls in exactly one subproblem.
+ */
+public final class SiphonsAndTraps {
+
+	public enum Verdict {
+		LIVE, NOT_LIVE, UNKNOWN
+	}
+
+	final private CompiledNet net;
+	// transitions taking tokens from each place (regular and reset arcs)
+	final private int[] consumerStart;
+	final private int[] consumer;
+	private long timeBudget = Long.MAX_VALUE;
+	private int[] unmarkedSiphon;
+
+	public SiphonsAndTraps(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet));
+	}
+
+	public SiphonsAndTraps(final CompiledNet net) {
+		this.net = net;
+		final int nbPlaces = net.getPlaceCount();
+		final CompiledNet.IntList[] consumers = new CompiledNet.IntList[nbPlaces];
+		for (int p = 0; p < nbPlaces; p++) {
+			consumers[p] = new CompiledNet.IntList();
+		}
+		final int[] lastConsumed = new int[nbPlaces];
+		Arrays.fill(lastConsumed, -1);
+		for (int t = 0; t < net.getTransitionCount(); t++) {
+			for (int i = net.preStart[t]; i < net.preStart[t + 1]; i++) {
+				final int p = net.prePlace[i];
+				if (lastConsumed[p] != t) {
+					lastConsumed[p] = t;
+					consumers[p].add(t);
+				}
+			}
+			for (int i = net.resetStart[t]; i < net.resetStart[t + 1]; i++) {
+				final int p = net.resetPlace[i];
+				if (lastConsumed[p] != t) {
+					lastConsumed[p] = t;
+					consumers[p].add(t);
+				}
+			}
+		}
+		this.consumerStart = new int[nbPlaces + 1];
+		final CompiledNet.IntList allConsumers = new CompiledNet.IntList();
+		for (int p = 0; p < nbPlaces; p++) {
+			for (int i = 0; i < consumers[p].size(); i++) {
+				allConsumers.add(consumers[p].get(i));
+			}
+			this.consumerStart[p + 1] = allConsumers.size();
+		}
+		this.consumer = allConsumers.toArray();
+	}
+
+	/**
+	 * @param millis time after which an enumeration stops, reporting itself
+	 *               incomplete
+	 */
+	public void setTimeBudget(final long millis) {
+		this.timeBudget = millis;
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	/*
+	 * Fixpoints
+	 */
+
+	/**
+	 * Removes from the set the places that cannot belong to a siphon inside it;
+	 * what is left is the largest siphon in the set, possibly empty.
+	 */
+	private void shrinkToSiphon(final BitSet places) {
+		final CompiledNet n = this.net;
+		// number of input places of each transition inside the set
+		final int[] nbInputs = new int[n.getTransitionCount()];
+		final Deque<Integer> removed = new ArrayDeque<>();
+		for (int t = 0; t < nbInputs.length; t++) {
+			for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+				if (places.get(n.prePlace[i])) {
+					nbInputs[t]++;
+				}
+			}
+			if (n.isResetEnabling) {
+				for (int i = n.resetStart[t]; i < n.resetStart[t + 1]; i++) {
+					if (places.get(n.resetPlace[i])) {
+						nbInputs[t]++;
+					}
+				}
+			}
+			if (nbInputs[t] == 0) {
+				removeOutputs(t, places, removed);
+			}
+		}
+		while (!removed.isEmpty()) {
+			final int p = removed.pop();
+			for (int j = this.consumerStart[p]; j < this.consumerStart[p + 1]; j++) {
+				final int t = this.consumer[j];
+				for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+					if (n.prePlace[i] == p && --nbInputs[t] == 0) {
+						removeOutputs(t, places, removed);
+					}
+				}
+				if (n.isResetEnabling) {
+					for (int i = n.resetStart[t]; i < n.resetStart[t + 1]; i++) {
+						if (n.resetPlace[i] == p && --nbInputs[t] == 0) {
+							removeOutputs(t, places, removed);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void removeOutputs(final int t, final BitSet places, final Deque<Integer> removed) {
+		for (int i = this.net.postStart[t]; i < this.net.postStart[t + 1]; i++) {
+			final int p = this.net.postPlace[i];
+			if (places.get(p)) {
+				places.clear(p);
+				removed.push(p);
+			}
+		}
+	}
+
+	/**
+	 * @return the largest trap made of the given places, possibly empty
+	 */
+	public int[] getMaximalTrap(final int[] places) {
+		final BitSet trap = new BitSet();
+		for (final int p : places) {
+			trap.set(p);
+		}
+		boolean isChanged = true;
+		while (isChanged) {
+			isChanged = false;
+			for (int p = trap.nextSetBit(0); p >= 0; p = trap.nextSetBit(p + 1)) {
+				for (int j = this.consumerStart[p]; j < this.consumerStart[p + 1]; j++) {
+					if (!hasOutputIn(this.consumer[j], trap)) {
+						trap.clear(p);
+						isChanged = true;
+						break;
+					}
+				}
+			}
+		}
+		return trap.stream().toArray();
+	}
+
+	/**
+	 * @return the largest trap of the net
+	 */
+	public int[] getMaximalTrap() {
+		final int[] places = new int[this.net.getPlaceCount()];
+		for (int p = 0; p < places.length; p++) {
+			places[p] = p;
+		}
+		return getMaximalTrap(places);
+	}
+
+	private boolean hasOutputIn(final int t, final BitSet places) {
+		for (int i = this.net.postStart[t]; i < this.net.postStart[t + 1]; i++) {
+			if (places.get(this.net.postPlace[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isSiphon(final int[] places) {
+		final BitSet set = new BitSet();
+		for (final int p : places) {
+			set.set(p);
+		}
+		shrinkToSiphon(set);
+		return set.cardinality() == places.length;
+	}
+
+	public boolean isMarked(final int[] places) {
+		final int[] initial = this.net.getInitialMarking();
+		for (final int p : places) {
+			if (initial[p] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Enumeration
+	 */
+
+	/**
+	 * Enumerates the minimal siphons, each one given as its places in increasing
+	 * order as soon as it is found.
+	 *
+	 * @param listener returns false to stop the enumeration
+	 * @return true if every minimal siphon was given, false if the enumeration
+	 *         was stopped by the listener or the time budget
+	 */
+	public boolean enumerateMinimalSiphons(final Predicate<int[]> listener) {
+		final long deadline = this.timeBudget == Long.MAX_VALUE ? Long.MAX_VALUE
+				: System.nanoTime() + this.timeBudget * 1000000;
+		final int nbPlaces = this.net.getPlaceCount();
+		final Deque<BitSet[]> problems = new ArrayDeque<>();
+		problems.push(new BitSet[] { new BitSet(), new BitSet() });
+		while (!problems.isEmpty()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			final BitSet[] problem = problems.pop();
+			final BitSet included = problem[0];
+			final BitSet excluded = problem[1];
+			final BitSet siphon = new BitSet();
+			siphon.set(0, nbPlaces);
+			siphon.andNot(excluded);
+			shrinkToSiphon(siphon);
+			if (siphon.isEmpty() || !contains(siphon, included)) {
+				continue;
+			}
+			// smallest siphon containing the included places
+			final BitSet candidates = (BitSet) siphon.clone();
+			candidates.andNot(included);
+			for (int p = candidates.nextSetBit(0); p >= 0; p = candidates.nextSetBit(p + 1)) {
+				if (siphon.get(p)) {
+					final BitSet smaller = (BitSet) siphon.clone();
+					smaller.clear(p);
+					shrinkToSiphon(smaller);
+					if (!smaller.isEmpty() && contains(smaller, included)) {
+						siphon.and(smaller);
+					}
+				}
+			}
+			if (isMinimal(siphon) && !listener.test(siphon.stream().toArray())) {
+				return false;
+			}
+			// split on the places of the siphon the problem does not force
+			final BitSet nextIncluded = (BitSet) included.clone();
+			for (int p = siphon.nextSetBit(0); p >= 0; p = siphon.nextSetBit(p + 1)) {
+				if (!included.get(p)) {
+					final BitSet nextExcluded = (BitSet) excluded.clone();
+					nextExcluded.set(p);
+					problems.push(new BitSet[] { (BitSet) nextIncluded.clone(), nextExcluded });
+					nextIncluded.set(p);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the minimal siphons found within the time budget
+	 */
+	public List<int[]> getMinimalSiphons() {
+		final List<int[]> siphons = new ArrayList<>();
+		enumerateMinimalSiphons(siphons::add);
+		return Collections.unmodifiableList(siphons);
+	}
+
+	private boolean isMinimal(final BitSet siphon) {
+		for (int p = siphon.nextSetBit(0); p >= 0; p = siphon.nextSetBit(p + 1)) {
+			final BitSet smaller = (BitSet) siphon.clone();
+			smaller.clear(p);
+			shrinkToSiphon(smaller);
+			if (!smaller.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean contains(final BitSet set, final BitSet subset) {
+		final BitSet missing = (BitSet) subset.clone();
+		missing.andNot(set);
+		return missing.isEmpty();
+	}
+
+	/*
+	 * Commoner's property
+	 */
+
+	/**
+	 * @return true if the net is ordinary, has no inhibitory or reset arc, and
+	 *         transitions sharing an input place share all their input places
+	 */
+	public boolean isExtendedFreeChoice() {
+		final CompiledNet n = this.net;
+		for (int t = 0; t < n.getTransitionCount(); t++) {
+			if (n.inhibStart[t] != n.inhibStart[t + 1] || n.resetStart[t] != n.resetStart[t + 1]) {
+				return false;
+			}
+			for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+				if (n.preWeight[i] != 1) {
+					return false;
+				}
+			}
+			for (int i = n.postStart[t]; i < n.postStart[t + 1]; i++) {
+				if (n.postWeight[i] != 1) {
+					return false;
+				}
+			}
+		}
+		for (int p = 0; p < n.getPlaceCount(); p++) {
+			for (int j = this.consumerStart[p] + 1; j < this.consumerStart[p + 1]; j++) {
+				if (!hasSameInputs(this.consumer[this.consumerStart[p]], this.consumer[j])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean hasSameInputs(final int t1, final int t2) {
+		final CompiledNet n = this.net;
+		final BitSet inputs = new BitSet();
+		for (int i = n.preStart[t1]; i < n.preStart[t1 + 1]; i++) {
+			inputs.set(n.prePlace[i]);
+		}
+		final BitSet otherInputs = new BitSet();
+		for (int i = n.preStart[t2]; i < n.preStart[t2 + 1]; i++) {
+			otherInputs.set(n.prePlace[i]);
+		}
+		return inputs.equals(otherInputs);
+	}
+
+	/**
+	 * Commoner's theorem: an extended free-choice net is live if and only if
+	 * every minimal siphon contains a trap marked initially.
+	 *
+	 * @return UNKNOWN if the net is not extended free-choice or the time budget
+	 *         ran out
+	 */
+	public Verdict checkCommoner() {
+		this.unmarkedSiphon = null;
+		if (!isExtendedFreeChoice()) {
+			return Verdict.UNKNOWN;
+		}
+		final boolean isComplete = enumerateMinimalSiphons(siphon -> {
+			if (isMarked(getMaximalTrap(siphon))) {
+				return true;
+			}
+			this.unmarkedSiphon = siphon;
+			return false;
+		});
+		if (this.unmarkedSiphon != null) {
+			return Verdict.NOT_LIVE;
+		}
+		return isComplete ? Verdict.LIVE : Verdict.UNKNOWN;
+	}
+
+	/**
+	 * Commoner's check on minimal siphons already enumerated, e.g. while they
+	 * were shown, so that they are not enumerated again.
+	 *
+	 * @param siphons    minimal siphons of the net
+	 * @param isComplete true if they are all the minimal siphons
+	 * @return UNKNOWN if the net is not extended free-choice, or if the siphons
+	 *         are not complete and all contain a marked trap
+	 */
+	public Verdict checkCommoner(final List<int[]> siphons, final boolean isComplete) {
+		this.unmarkedSiphon = null;
+		if (!isExtendedFreeChoice()) {
+			return Verdict.UNKNOWN;
+		}
+		for (final int[] siphon : siphons) {
+			if (!isMarked(getMaximalTrap(siphon))) {
+				this.unmarkedSiphon = siphon;
+				return Verdict.NOT_LIVE;
+			}
+		}
+		return isComplete ? Verdict.LIVE : Verdict.UNKNOWN;
+	}
+
+	/**
+	 * @return the minimal siphon without marked trap found by the last
+	 *         checkCommoner, null if none was
+	 */
+	public int[] getUnmarkedSiphon() {
+		return this.unmarkedSiphon;
+	}
+
+}
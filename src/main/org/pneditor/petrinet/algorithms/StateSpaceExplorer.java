@@ -0,0 +1,170 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Explicit-state exploration of the reachable markings of a net, building a
+ * ReachabilityGraph. Markings are packed according to the known bounds of the
+ * places (see setBounds) or, for the unknown ones, to the tokens observed so
+ * far. The exploration stops when a budget (number of states, memory) is
+ * exhausted, leaving an incomplete graph. A firing that overflows a place is
+ * skipped and also leaves the graph incomplete (see
+ * ReachabilityGraph.hasOverflow).
+ */
+public class StateSpaceExplorer {
+
+	public enum Order {
+		BREADTH_FIRST, DEPTH_FIRST
+	}
+
+	final private CompiledNet net;
+	private Order order = Order.BREADTH_FIRST;
+	private int maxStates = Integer.MAX_VALUE - 1;
+	private long maxMemory = Runtime.getRuntime().maxMemory() / 2;
+	private int[] bounds;
+	private StubbornSetReduction reduction;
+
+	public StateSpaceExplorer(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet));
+	}
+
+	public StateSpaceExplorer(final CompiledNet net) {
+		this.net = net;
+		this.bounds = new int[net.getPlaceCount()];
+		Arrays.fill(this.bounds, -1);
+	}
+
+	public void setOrder(final Order order) {
+		this.order = order;
+	}
+
+	public void setMaxStates(final int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * @param maxMemory estimated size of the graph, in bytes, above which the
+	 *                  exploration stops
+	 */
+	public void setMaxMemory(final long maxMemory) {
+		this.maxMemory = maxMemory;
+	}
+
+	/**
+	 * @param bounds known bound of each place, indexed like the compiled net, -1
+	 *               when unknown. A wrong bound only costs a repacking.
+	 */
+	public void setBounds(final int[] bounds) {
+		if (bounds.length != this.net.getPlaceCount()) {
+			throw new IllegalArgumentException("One bound per place is expected");
+		}
+		this.bounds = bounds.clone();
+	}
+
+	/**
+	 * @param reduction the partial-order reduction to apply, null to explore
+	 *                  every interleaving
+	 */
+	public void setReduction(final StubbornSetReduction reduction) {
+		this.reduction = reduction;
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	public ReachabilityGraph explore() {
+		final int[] initial = this.net.getInitialMarking();
+		final ReachabilityGraph graph = new ReachabilityGraph(this.net,
+				MarkingPacker.forBounds(this.bounds, initial), 1024);
+		graph.add(initial);
+
+		// breadth-first: states are expanded in the order they were added, no queue needed
+		int nextToExpand = 0;
+		final CompiledNet.IntList stack = new CompiledNet.IntList();
+		stack.add(0);
+
+		final int[] marking = new int[this.net.getPlaceCount()];
+		final int[] successor = new int[this.net.getPlaceCount()];
+		final int[] fired = new int[this.net.getTransitionCount()];
+		final StubbornSetReduction.Selector selector = this.reduction == null ? null : this.reduction.newSelector();
+		final boolean isProvisoChecked = this.reduction != null && this.reduction.hasVisibleTransitions();
+		while (true) {
+			final int state;
+			if (this.order == Order.BREADTH_FIRST) {
+				if (nextToExpand == graph.getStateCount()) {
+					break;
+				}
+				state = nextToExpand++;
+			} else {
+				if (stack.size() == 0) {
+					break;
+				}
+				state = stack.get(stack.size() - 1);
+				stack.removeLast();
+			}
+			if (graph.getMemory() > this.maxMemory) {
+				graph.setIncomplete();
+				break;
+			}
+
+			graph.unpack(state, marking);
+			graph.expand(state);
+			final int nbFired = selector == null ? enabled(marking, fired) : selector.select(marking, fired);
+			if (nbFired == 0) {
+				graph.addDeadlock(state);
+			}
+			final int nbStates = graph.getStateCount();
+			expand(graph, stack, state, marking, successor, fired, nbFired);
+			if (isProvisoChecked && nbFired > 0 && graph.getStateCount() == nbStates) {
+				// only visited states reached: expand fully so that no visible transition is ignored forever
+				final int nbEnabled = enabled(marking, fired);
+				if (nbEnabled > nbFired) {
+					graph.clearEdges(state);
+					expand(graph, stack, state, marking, successor, fired, nbEnabled);
+				}
+			}
+		}
+		return graph;
+	}
+
+	private void expand(final ReachabilityGraph graph, final CompiledNet.IntList stack, final int state,
+			final int[] marking, final int[] successor, final int[] fired, final int nbFired) {
+		for (int i = 0; i < nbFired; i++) {
+			final int t = fired[i];
+			System.arraycopy(marking, 0, successor, 0, marking.length);
+			try {
+				this.net.fire(successor, t);
+			} catch (ArithmeticException e) {
+				graph.setOverflow();
+				continue;
+			}
+			int target = graph.find(successor);
+			if (target < 0) {
+				if (graph.getStateCount() >= this.maxStates || !graph.hasRoom()) {
+					graph.setIncomplete();
+					continue;
+				}
+				target = graph.add(successor);
+				if (this.order == Order.DEPTH_FIRST) {
+					stack.add(target);
+				}
+			}
+			graph.addEdge(state, target, t);
+		}
+	}
+
+	private int enabled(final int[] marking, final int[] enabled) {
+		int nbEnabled = 0;
+		for (int t = 0; t < this.net.getTransitionCount(); t++) {
+			if (this.net.isEnabled(marking, t)) {
+				enabled[nbEnabled++] = t;
+			}
+		}
+		return nbEnabled;
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.pneditor.petrinet.algorithms;
+
+/**
+ * Counts of an exploration that does not keep the graph itself.
+ */
+public final class StateSpaceSummary {
+
+	final private long states;
+	final private long edges;
+	final private long deadlocks;
+	final private boolean isComplete;
+	final private boolean hasOverflow;
+
+	StateSpaceSummary(final long states, final long edges, final long deadlocks, final boolean isComplete,
+			final boolean hasOverflow) {
+		this.states = states;
+		this.edges = edges;
+		this.deadlocks = deadlocks;
+		this.isComplete = isComplete && !hasOverflow;
+		this.hasOverflow = hasOverflow;
+	}
+
+	public long getStateCount() {
+		return this.states;
+	}
+
+	public long getEdgeCount() {
+		return this.edges;
+	}
+
+	public long getDeadlockCount() {
+		return this.deadlocks;
+	}
+
+	/**
+	 * @return false if the exploration was stopped by a budget
+	 */
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	/**
+	 * @return true if a firing would have put more than Integer.MAX_VALUE tokens
+	 *         in a place, see ReachabilityGraph.hasOverflow
+	 */
+	public boolean hasOverflow() {
+		return this.hasOverflow;
+	}
+
+	@Override
+	public String toString() {
+		return this.states + " states, " + this.edges + " edges, " + this.deadlocks + " deadlocks"
+				+ (this.hasOverflow ? " (incomplete, token overflow)" : this.isComplete ? "" : " (incomplete)");
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+
+/**
+ * Steady-state distribution over the tangible markings computed by a
+ * SteadyStateSolver, and the measures derived from it.
+ */
+public final class SteadyStateResult {
+
+	final private ReachabilityGraph graph;
+	final private double[] probabilities;
+	final private double[] meanTokens;
+	final private double[] throughputs;
+	final private int iterations;
+	final private double residual;
+
+	SteadyStateResult(final ReachabilityGraph graph, final double[] probabilities, final double[] meanTokens,
+			final double[] throughputs, final int iterations, final double residual) {
+		this.graph = graph;
+		this.probabilities = probabilities;
+		this.meanTokens = meanTokens;
+		this.throughputs = throughputs;
+		this.iterations = iterations;
+		this.residual = residual;
+	}
+
+	public CompiledNet getNet() {
+		return this.graph.getNet();
+	}
+
+	/**
+	 * @return the number of tangible markings
+	 */
+	public int getStateCount() {
+		return this.graph.getStateCount();
+	}
+
+	public double getProbability(final int state) {
+		return this.probabilities[state];
+	}
+
+	public int[] getMarking(final int state) {
+		return this.graph.getMarking(state);
+	}
+
+	/**
+	 * @return the probability of a tangible marking, 0 if it is not one
+	 */
+	public double getProbability(final int[] marking) {
+		final int state = this.graph.indexOf(marking);
+		return state < 0 ? 0 : this.probabilities[state];
+	}
+
+	public double getMeanTokens(final AbstractPlace place) {
+		return this.meanTokens[this.graph.getNet().indexOf(place)];
+	}
+
+	/**
+	 * @return the mean number of firings of the transition per time unit
+	 */
+	public double getThroughput(final AbstractTransition transition) {
+		return this.throughputs[this.graph.getNet().indexOf(transition)];
+	}
+
+	/**
+	 * Little's law: the mean time a token spends in the place, when the place is
+	 * emptied by the transition.
+	 */
+	public double getResponseTime(final AbstractPlace place, final AbstractTransition transition) {
+		return getMeanTokens(place) / getThroughput(transition);
+	}
+
+	public boolean isConverged() {
+		return this.iterations > 0;
+	}
+
+	/**
+	 * @return the number of iterations to converge, or the maximum if it did not
+	 */
+	public int getIterationCount() {
+		return Math.abs(this.iterations);
+	}
+
+	/**
+	 * @return the largest component of pi Q, 0 for the exact solution
+	 */
+	public double getResidual() {
+		return this.residual;
+	}
+
+	@Override
+	public String toString() {
+		final CompiledNet net = this.graph.getNet();
+		final StringBuilder builder = new StringBuilder();
+		builder.append(getStateCount()).append(" tangible markings, ");
+		builder.append(isConverged() ? "converged after " : "not converged after ").append(getIterationCount())
+				.append(" iterations, residual ").append(this.residual).append('\n');
+		for (int p = 0; p < net.getPlaceCount(); p++) {
+			final AbstractPlace place = net.getPlace(p);
+			builder.append(place.getLabel()).append(": mean ").append(getMeanTokens(place)).append('\n');
+		}
+		for (int t = 0; t < net.getTransitionCount(); t++) {
+			final AbstractTransition transition = net.getTransition(t);
+			builder.append(transition.getLabel()).append(": throughput ").append(getThroughput(transition))
+					.append('\n');
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,573 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Exact steady-state analysis of a generalised stochastic Petri net whose
+ * timed transitions all have exponential delays.
+ *
+ * The continuous-time Markov chain is generated over the tangible markings
+ * only: the markings enabling an immediate transition are vanishing, and are
+ * crossed on the fly by following the immediate firings with their
+ * probabilities until tangible markings are reached. The generator is stored
+ * by columns in CSR form and the equations pi Q = 0 are solved with
+ * Gauss-Seidel, over-relaxed if asked (SOR), or with Jacobi (JOR) whose sweeps
+ * are run in parallel. The residual of the solution is always computed in
+ * parallel.
+ *
+ * The chain must have a single recurrent class, the other tangible markings
+ * being transient and getting a probability of 0. A marking whose timed
+ * transitions all lead back to it is a recurrent class by itself.
+ *
+ * Every path of immediate firings is followed, so the vanishing markings
+ * should not form cycles nor long chains of concurrent immediate transitions.
+ */
+public class SteadyStateSolver {
+
+	public enum Method {
+		SOR, JOR
+	}
+
+	private static final int DEFAULT_MAX_STATES = 10000000;
+	private static final int MAX_VANISHING_DEPTH = 1000;
+	private static final int COLUMNS_PER_TASK = 4096;
+
+	final private CompiledNet net;
+	final private boolean[] isImmediate;
+	final private double[] rates;
+	final private int[] priorities;
+	final private double[] weights;
+
+	private int maxStates = DEFAULT_MAX_STATES;
+	private Method method = Method.SOR;
+	private double relaxation = 1;
+	private double tolerance = 1e-10;
+	private int maxIterations = 100000;
+
+	public SteadyStateSolver(final PetriNetInterface petriNet, final StochasticAttributes attributes)
+			throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet), attributes);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if a timed transition is not exponential
+	 */
+	public SteadyStateSolver(final CompiledNet net, final StochasticAttributes attributes) {
+		this.net = net;
+		final int nbTransitions = net.getTransitionCount();
+		this.isImmediate = new boolean[nbTransitions];
+		this.rates = new double[nbTransitions];
+		this.priorities = new int[nbTransitions];
+		this.weights = new double[nbTransitions];
+		for (int t = 0; t < nbTransitions; t++) {
+			final Delay delay = attributes.getDelay(net.getTransition(t));
+			this.isImmediate[t] = delay.isImmediate();
+			this.rates[t] = delay.getRate();
+			if (!this.isImmediate[t] && Double.isNaN(this.rates[t])) {
+				throw new IllegalArgumentException(
+						"Transition #" + net.getTransition(t).getId() + " does not have an exponential delay");
+			}
+			this.priorities[t] = attributes.getPriority(net.getTransition(t));
+			this.weights[t] = attributes.getWeight(net.getTransition(t));
+		}
+	}
+
+	public void setMaxStates(final int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * @param method     SOR is sequential and converges faster, JOR sweeps in
+	 *                   parallel
+	 * @param relaxation 1 for plain Gauss-Seidel or Jacobi, between 0 and 2
+	 */
+	public void setMethod(final Method method, final double relaxation) {
+		if (!(relaxation > 0) || !(relaxation < 2)) {
+			throw new IllegalArgumentException("The relaxation must be between 0 and 2");
+		}
+		this.method = method;
+		this.relaxation = relaxation;
+	}
+
+	/**
+	 * @param tolerance     largest change of a probability over an iteration
+	 *                      for the solution to have converged
+	 * @param maxIterations iterations after which the solver gives up
+	 */
+	public void setConvergence(final double tolerance, final int maxIterations) {
+		this.tolerance = tolerance;
+		this.maxIterations = maxIterations;
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	public SteadyStateResult solve() {
+		return solve(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @throws IllegalStateException if there are more tangible markings than
+	 *                               the maximum, if a tangible marking enables
+	 *                               no transition, if the chain has several
+	 *                               recurrent classes, or if immediate
+	 *                               transitions keep firing
+	 */
+	public SteadyStateResult solve(final ForkJoinPool pool) {
+		final Chain chain = new Chain();
+		chain.generate();
+		final int recurrent = chain.findRecurrentClass();
+		chain.transpose();
+		final double[] probabilities = new double[chain.graph.getStateCount()];
+		final int iterations;
+		if (chain.exitRate[recurrent] == 0) {
+			// a marking the chain never leaves once there
+			probabilities[recurrent] = 1;
+			iterations = 1;
+		} else {
+			Arrays.fill(probabilities, 1.0 / probabilities.length);
+			iterations = this.method == Method.SOR ? chain.sor(probabilities) : chain.jor(probabilities, pool);
+		}
+		final double residual = chain.residual(probabilities, pool);
+		return chain.measure(probabilities, iterations, residual);
+	}
+
+	/*
+	 * Chain being generated and solved
+	 */
+	private final class Chain {
+
+		final private ReachabilityGraph graph;
+
+		// rows of the generator while it is generated, without the diagonal
+		final private CompiledNet.IntList rowStart = new CompiledNet.IntList();
+		final private CompiledNet.IntList rowTarget = new CompiledNet.IntList();
+		private double[] rowRate = new double[1024];
+		private double[] exitRate = new double[1024];
+
+		// columns of the generator, to solve
+		private int[] columnStart;
+		private int[] columnSource;
+		private double[] columnRate;
+
+		// tangible markings reached from a vanishing one, with their probability
+		final private CompiledNet.IntList reached = new CompiledNet.IntList();
+		private double[] reachedProbability = new double[16];
+
+		Chain() {
+			final CompiledNet n = SteadyStateSolver.this.net;
+			final int[] bounds = new int[n.getPlaceCount()];
+			Arrays.fill(bounds, -1);
+			this.graph = new ReachabilityGraph(n, MarkingPacker.forBounds(bounds, n.getInitialMarking()), 1024);
+		}
+
+		/*
+		 * Generation
+		 */
+
+		void generate() {
+			final CompiledNet n = SteadyStateSolver.this.net;
+			resolve(n.getInitialMarking(), 1, null);
+			final int[] marking = new int[n.getPlaceCount()];
+			final int[] successor = new int[n.getPlaceCount()];
+			for (int state = 0; state < this.graph.getStateCount(); state++) {
+				this.graph.unpack(state, marking);
+				this.rowStart.add(this.rowTarget.size());
+				double exit = 0;
+				boolean isLive = false;
+				for (int t = 0; t < n.getTransitionCount(); t++) {
+					if (SteadyStateSolver.this.isImmediate[t] || !n.isEnabled(marking, t)) {
+						continue;
+					}
+					isLive = true;
+					System.arraycopy(marking, 0, successor, 0, marking.length);
+					n.fire(successor, t);
+					resolve(successor, 1, null);
+					final double rate = SteadyStateSolver.this.rates[t];
+					for (int i = 0; i < this.reached.size(); i++) {
+						final int target = this.reached.get(i);
+						if (target != state) {
+							final double r = rate * this.reachedProbability[i];
+							addEntry(target, r);
+							exit += r;
+						}
+					}
+				}
+				if (!isLive) {
+					throw new IllegalStateException("The chain has an absorbing marking " + Arrays.toString(marking));
+				}
+				if (state == this.exitRate.length) {
+					this.exitRate = Arrays.copyOf(this.exitRate, state * 2);
+				}
+				this.exitRate[state] = exit;
+			}
+			this.rowStart.add(this.rowTarget.size());
+		}
+
+		/*
+		 * Finds the closed classes of the chain with Tarjan's algorithm over the
+		 * rows, returns a marking of the only one. A class is closed when no row
+		 * of its markings leaves it; the classes are found in reverse topological
+		 * order, so its rows can only lead to classes already numbered.
+		 */
+		int findRecurrentClass() {
+			final int nbStates = this.graph.getStateCount();
+			final int[] index = new int[nbStates];
+			final int[] lowLink = new int[nbStates];
+			final int[] component = new int[nbStates];
+			final int[] cursor = new int[nbStates];
+			Arrays.fill(index, -1);
+			Arrays.fill(component, -1);
+			final CompiledNet.IntList members = new CompiledNet.IntList();
+			final CompiledNet.IntList path = new CompiledNet.IntList();
+			int counter = 0;
+			int nbComponents = 0;
+			int nbClosed = 0;
+			int recurrent = -1;
+			for (int root = 0; root < nbStates; root++) {
+				if (index[root] >= 0) {
+					continue;
+				}
+				index[root] = lowLink[root] = counter++;
+				cursor[root] = this.rowStart.get(root);
+				members.add(root);
+				path.add(root);
+				while (path.size() > 0) {
+					final int v = path.get(path.size() - 1);
+					if (cursor[v] < this.rowStart.get(v + 1)) {
+						final int w = this.rowTarget.get(cursor[v]++);
+						if (index[w] < 0) {
+							index[w] = lowLink[w] = counter++;
+							cursor[w] = this.rowStart.get(w);
+							members.add(w);
+							path.add(w);
+						} else if (component[w] < 0) {
+							lowLink[v] = Math.min(lowLink[v], index[w]);
+						}
+						continue;
+					}
+					path.removeLast();
+					if (path.size() > 0) {
+						final int u = path.get(path.size() - 1);
+						lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+					}
+					if (lowLink[v] != index[v]) {
+						continue;
+					}
+					int first = members.size() - 1;
+					while (members.get(first) != v) {
+						first--;
+					}
+					for (int i = first; i < members.size(); i++) {
+						component[members.get(i)] = nbComponents;
+					}
+					boolean isClosed = true;
+					for (int i = first; i < members.size() && isClosed; i++) {
+						final int s = members.get(i);
+						for (int j = this.rowStart.get(s); j < this.rowStart.get(s + 1); j++) {
+							if (component[this.rowTarget.get(j)] != nbComponents) {
+								isClosed = false;
+								break;
+							}
+						}
+					}
+					if (isClosed) {
+						nbClosed++;
+						recurrent = v;
+					}
+					members.truncate(first);
+					nbComponents++;
+				}
+			}
+			if (nbClosed > 1) {
+				throw new IllegalStateException("The chain has " + nbClosed
+						+ " recurrent classes, its steady state depends on the initial marking");
+			}
+			return recurrent;
+		}
+
+		/*
+		 * Adds a rate to the current row, merging the transitions that lead to
+		 * the same marking
+		 */
+		private void addEntry(final int target, final double rate) {
+			final int start = this.rowStart.get(this.rowStart.size() - 1);
+			for (int i = start; i < this.rowTarget.size(); i++) {
+				if (this.rowTarget.get(i) == target) {
+					this.rowRate[i] += rate;
+					return;
+				}
+			}
+			if (this.rowTarget.size() == this.rowRate.length) {
+				this.rowRate = Arrays.copyOf(this.rowRate, this.rowRate.length * 2);
+			}
+			this.rowRate[this.rowTarget.size()] = rate;
+			this.rowTarget.add(target);
+		}
+
+		/**
+		 * Follows the immediate firings from a marking until tangible markings,
+		 * which are left in reached with their probability.
+		 *
+		 * @param immediateFlow if not null, receives the mean number of firings
+		 *                      of each immediate transition times the probability
+		 */
+		void resolve(final int[] marking, final double probability, final double[] immediateFlow) {
+			this.reached.clear();
+			final CompiledNet n = SteadyStateSolver.this.net;
+			final int[] enabled = new int[n.getTransitionCount()];
+			resolve(marking, probability, immediateFlow, enabled, 0);
+		}
+
+		private void resolve(final int[] marking, final double probability, final double[] immediateFlow,
+				final int[] enabled, final int depth) {
+			final CompiledNet n = SteadyStateSolver.this.net;
+			int priority = Integer.MIN_VALUE;
+			int nbEnabled = 0;
+			double totalWeight = 0;
+			for (int t = 0; t < n.getTransitionCount(); t++) {
+				if (!SteadyStateSolver.this.isImmediate[t] || SteadyStateSolver.this.priorities[t] < priority
+						|| !n.isEnabled(marking, t)) {
+					continue;
+				}
+				if (SteadyStateSolver.this.priorities[t] > priority) {
+					priority = SteadyStateSolver.this.priorities[t];
+					nbEnabled = 0;
+					totalWeight = 0;
+				}
+				enabled[nbEnabled++] = t;
+				totalWeight += SteadyStateSolver.this.weights[t];
+			}
+			if (nbEnabled == 0) {
+				reach(marking, probability);
+				return;
+			}
+			if (depth == MAX_VANISHING_DEPTH) {
+				throw new IllegalStateException("Immediate transitions keep firing from " + Arrays.toString(marking));
+			}
+			// the array is reused deeper down
+			final int[] choices = Arrays.copyOf(enabled, nbEnabled);
+			final int[] successor = new int[marking.length];
+			for (final int t : choices) {
+				final double p = probability * SteadyStateSolver.this.weights[t] / totalWeight;
+				if (immediateFlow != null) {
+					immediateFlow[t] += p;
+				}
+				System.arraycopy(marking, 0, successor, 0, marking.length);
+				n.fire(successor, t);
+				resolve(successor, p, immediateFlow, enabled, depth + 1);
+			}
+		}
+
+		private void reach(final int[] marking, final double probability) {
+			int state = this.graph.find(marking);
+			if (state < 0) {
+				if (this.graph.getStateCount() == SteadyStateSolver.this.maxStates) {
+					throw new IllegalStateException(
+							"More than " + SteadyStateSolver.this.maxStates + " tangible markings");
+				}
+				state = this.graph.add(marking);
+			}
+			for (int i = 0; i < this.reached.size(); i++) {
+				if (this.reached.get(i) == state) {
+					this.reachedProbability[i] += probability;
+					return;
+				}
+			}
+			if (this.reached.size() == this.reachedProbability.length) {
+				this.reachedProbability = Arrays.copyOf(this.reachedProbability, this.reached.size() * 2);
+			}
+			this.reachedProbability[this.reached.size()] = probability;
+			this.reached.add(state);
+		}
+
+		/*
+		 * Turns the rows into columns, counting the entries of each column first
+		 */
+		void transpose() {
+			final int nbStates = this.graph.getStateCount();
+			final int nbEntries = this.rowTarget.size();
+			this.columnStart = new int[nbStates + 1];
+			for (int i = 0; i < nbEntries; i++) {
+				this.columnStart[this.rowTarget.get(i) + 1]++;
+			}
+			for (int j = 0; j < nbStates; j++) {
+				this.columnStart[j + 1] += this.columnStart[j];
+			}
+			this.columnSource = new int[nbEntries];
+			this.columnRate = new double[nbEntries];
+			final int[] next = Arrays.copyOf(this.columnStart, nbStates);
+			for (int s = 0; s < nbStates; s++) {
+				for (int i = this.rowStart.get(s); i < this.rowStart.get(s + 1); i++) {
+					final int position = next[this.rowTarget.get(i)]++;
+					this.columnSource[position] = s;
+					this.columnRate[position] = this.rowRate[i];
+				}
+			}
+			this.rowTarget.clear();
+			this.rowRate = null;
+		}
+
+		/*
+		 * Solution
+		 */
+
+		/**
+		 * @return the number of iterations, negative if it did not converge
+		 */
+		int sor(final double[] pi) {
+			final double omega = SteadyStateSolver.this.relaxation;
+			for (int iteration = 1; iteration <= SteadyStateSolver.this.maxIterations; iteration++) {
+				double change = 0;
+				double sum = 0;
+				for (int j = 0; j < pi.length; j++) {
+					final double value = (1 - omega) * pi[j] + omega * inflow(pi, j) / this.exitRate[j];
+					// absolute: a transient marking goes to 0, where a relative change is NaN
+					change = Math.max(change, Math.abs(value - pi[j]));
+					pi[j] = value;
+					sum += value;
+				}
+				normalise(pi, sum);
+				if (change < SteadyStateSolver.this.tolerance) {
+					return iteration;
+				}
+			}
+			return -SteadyStateSolver.this.maxIterations;
+		}
+
+		int jor(final double[] pi, final ForkJoinPool pool) {
+			final double omega = SteadyStateSolver.this.relaxation;
+			double[] current = pi;
+			double[] next = new double[pi.length];
+			final double[] change = new double[1];
+			for (int iteration = 1; iteration <= SteadyStateSolver.this.maxIterations; iteration++) {
+				final double[] from = current;
+				final double[] to = next;
+				pool.invoke(new ColumnTask(0, pi.length, (j) -> {
+					to[j] = (1 - omega) * from[j] + omega * inflow(from, j) / this.exitRate[j];
+					return Math.abs(to[j] - from[j]);
+				}, change));
+				double sum = 0;
+				for (final double value : to) {
+					sum += value;
+				}
+				normalise(to, sum);
+				next = current;
+				current = to;
+				if (change[0] < SteadyStateSolver.this.tolerance) {
+					System.arraycopy(current, 0, pi, 0, pi.length);
+					return iteration;
+				}
+			}
+			System.arraycopy(current, 0, pi, 0, pi.length);
+			return -SteadyStateSolver.this.maxIterations;
+		}
+
+		/**
+		 * @return the largest component of pi Q
+		 */
+		double residual(final double[] pi, final ForkJoinPool pool) {
+			final double[] largest = new double[1];
+			pool.invoke(new ColumnTask(0, pi.length, (j) -> Math.abs(inflow(pi, j) - pi[j] * this.exitRate[j]),
+					largest));
+			return largest[0];
+		}
+
+		private double inflow(final double[] pi, final int j) {
+			double inflow = 0;
+			for (int i = this.columnStart[j]; i < this.columnStart[j + 1]; i++) {
+				inflow += pi[this.columnSource[i]] * this.columnRate[i];
+			}
+			return inflow;
+		}
+
+		private void normalise(final double[] pi, final double sum) {
+			for (int j = 0; j < pi.length; j++) {
+				pi[j] /= sum;
+			}
+		}
+
+		/*
+		 * Measures
+		 */
+
+		SteadyStateResult measure(final double[] pi, final int iterations, final double residual) {
+			final CompiledNet n = SteadyStateSolver.this.net;
+			final double[] meanTokens = new double[n.getPlaceCount()];
+			final double[] throughputs = new double[n.getTransitionCount()];
+			final int[] marking = new int[n.getPlaceCount()];
+			final int[] successor = new int[n.getPlaceCount()];
+			for (int state = 0; state < pi.length; state++) {
+				this.graph.unpack(state, marking);
+				for (int p = 0; p < marking.length; p++) {
+					meanTokens[p] += pi[state] * marking[p];
+				}
+				for (int t = 0; t < n.getTransitionCount(); t++) {
+					if (SteadyStateSolver.this.isImmediate[t] || !n.isEnabled(marking, t)) {
+						continue;
+					}
+					final double flow = pi[state] * SteadyStateSolver.this.rates[t];
+					throughputs[t] += flow;
+					System.arraycopy(marking, 0, successor, 0, marking.length);
+					n.fire(successor, t);
+					resolve(successor, flow, throughputs);
+				}
+			}
+			return new SteadyStateResult(this.graph, pi, meanTokens, throughputs, iterations, residual);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ColumnOperation {
+
+		/**
+		 * @return a value of which the largest is kept
+		 */
+		double apply(int column);
+	}
+
+	/*
+	 * Applies an operation to a range of columns, split between the workers
+	 */
+	private static final class ColumnTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final private int from;
+		final private int to;
+		final private ColumnOperation operation;
+		final private double[] largest;
+
+		ColumnTask(final int from, final int to, final ColumnOperation operation, final double[] largest) {
+			this.from = from;
+			this.to = to;
+			this.operation = operation;
+			this.largest = largest;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > COLUMNS_PER_TASK) {
+				final int middle = (this.from + this.to) >>> 1;
+				final double[] left = new double[1];
+				final double[] right = new double[1];
+				invokeAll(new ColumnTask(this.from, middle, this.operation, left),
+						new ColumnTask(middle, this.to, this.operation, right));
+				this.largest[0] = Math.max(left[0], right[0]);
+				return;
+			}
+			double largest = 0;
+			for (int j = this.from; j < this.to; j++) {
+				largest = Math.max(largest, this.operation.apply(j));
+			}
+			this.largest[0] = largest;
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pneditor.petrinet.AbstractTransition;
+
+/**
+ * Stochastic attributes of the transitions of a net, kept beside it so that
+ * the models do not have to know about them. A transition without attributes
+ * has an exponential delay of rate 1, priority 0 and weight 1.
+ *
+ * Among the enabled immediate transitions, only those of highest priority may
+ * fire, one of them being chosen with a probability proportional to its
+ * weight. Timed transitions scheduled at the same instant fire by decreasing
+ * priority.
+ */
+public final class StochasticAttributes {
+
+	public static final Delay DEFAULT_DELAY = Delay.exponential(1);
+
+	final private Map<AbstractTransition, Delay> delays = new HashMap<>();
+	final private Map<AbstractTransition, Integer> priorities = new HashMap<>();
+	final private Map<AbstractTransition, Double> weights = new HashMap<>();
+
+	public Delay getDelay(final AbstractTransition transition) {
+		return this.delays.getOrDefault(transition, DEFAULT_DELAY);
+	}
+
+	public void setDelay(final AbstractTransition transition, final Delay delay) {
+		this.delays.put(transition, delay);
+	}
+
+	public int getPriority(final AbstractTransition transition) {
+		return this.priorities.getOrDefault(transition, 0);
+	}
+
+	public void setPriority(final AbstractTransition transition, final int priority) {
+		this.priorities.put(transition, priority);
+	}
+
+	public double getWeight(final AbstractTransition transition) {
+		return this.weights.getOrDefault(transition, 1.0);
+	}
+
+	public void setWeight(final AbstractTransition transition, final double weight) {
+		if (!(weight > 0)) {
+			throw new IllegalArgumentException("The weight must be positive");
+		}
+		this.weights.put(transition, weight);
+	}
+
+}
@@ -0,0 +1,288 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.pneditor.petrinet.AbstractTransition;
+
+/**
+ * Partial-order reduction by stubborn sets. Switched on in a
+ * StateSpaceExplorer or a ParallelStateSpaceExplorer, only the enabled
+ * transitions of a stubborn set are fired from each state instead of all the
+ * enabled ones. The reduced graph has the same deadlocks as the full one.
+ *
+ * A stubborn set is closed under two rules computed from the arcs of the
+ * compiled net: an enabled member brings every transition it interferes with
+ * (one can disable the other, or their effects on a reset place do not
+ * commute), a disabled member brings the transitions able to enable it
+ * through one of its unsatisfied places.
+ *
+ * When visible transitions are given, a stubborn set containing one enabled
+ * visible transition contains all of them, and the explorer fully expands a
+ * state whose reduced successors were all visited already, so that the
+ * orderings of the visible transitions are preserved as well.
+ */
+public final class StubbornSetReduction {
+
+	final private CompiledNet net;
+	// transitions that can disable, or be disabled by, each transition
+	final private int[] interferenceStart;
+	final private int[] interference;
+	// transitions adding tokens to each place
+	final private int[] increaserStart;
+	final private int[] increaser;
+	// transitions removing tokens from each place (regular and reset arcs)
+	final private int[] decreaserStart;
+	final private int[] decreaser;
+	final private boolean[] isVisible;
+	private int[] visible = new int[0];
+
+	public StubbornSetReduction(final CompiledNet net) {
+		this.net = net;
+		final int nbPlaces = net.getPlaceCount();
+		final int nbTransitions = net.getTransitionCount();
+		this.isVisible = new boolean[nbTransitions];
+
+		final CompiledNet.IntList[] increasers = new CompiledNet.IntList[nbPlaces];
+		final CompiledNet.IntList[] decreasers = new CompiledNet.IntList[nbPlaces];
+		final CompiledNet.IntList[] consumers = new CompiledNet.IntList[nbPlaces];
+		final CompiledNet.IntList[] inhibited = new CompiledNet.IntList[nbPlaces];
+		final CompiledNet.IntList[] resetters = new CompiledNet.IntList[nbPlaces];
+		for (int p = 0; p < nbPlaces; p++) {
+			resetters[p] = new CompiledNet.IntList();
+			increasers[p] = new CompiledNet.IntList();
+			decreasers[p] = new CompiledNet.IntList();
+			consumers[p] = new CompiledNet.IntList();
+			inhibited[p] = new CompiledNet.IntList();
+		}
+		for (int t = 0; t < nbTransitions; t++) {
+			for (int i = net.preStart[t]; i < net.preStart[t + 1]; i++) {
+				decreasers[net.prePlace[i]].add(t);
+				consumers[net.prePlace[i]].add(t);
+			}
+			for (int i = net.resetStart[t]; i < net.resetStart[t + 1]; i++) {
+				decreasers[net.resetPlace[i]].add(t);
+				resetters[net.resetPlace[i]].add(t);
+				if (net.isResetEnabling) {
+					// the reset arc needs a token as well
+					consumers[net.resetPlace[i]].add(t);
+				}
+			}
+			for (int i = net.postStart[t]; i < net.postStart[t + 1]; i++) {
+				increasers[net.postPlace[i]].add(t);
+			}
+			for (int i = net.inhibStart[t]; i < net.inhibStart[t + 1]; i++) {
+				inhibited[net.inhibPlace[i]].add(t);
+			}
+		}
+
+		this.interferenceStart = new int[nbTransitions + 1];
+		final CompiledNet.IntList interferences = new CompiledNet.IntList();
+		final int[] lastAdded = new int[nbTransitions];
+		Arrays.fill(lastAdded, -1);
+		for (int t = 0; t < nbTransitions; t++) {
+			// transitions that can disable t
+			for (int i = net.preStart[t]; i < net.preStart[t + 1]; i++) {
+				addAll(decreasers[net.prePlace[i]], t, lastAdded, interferences);
+			}
+			for (int i = net.inhibStart[t]; i < net.inhibStart[t + 1]; i++) {
+				addAll(increasers[net.inhibPlace[i]], t, lastAdded, interferences);
+			}
+			if (net.isResetEnabling) {
+				for (int i = net.resetStart[t]; i < net.resetStart[t + 1]; i++) {
+					addAll(decreasers[net.resetPlace[i]], t, lastAdded, interferences);
+				}
+			}
+			// transitions that t can disable
+			for (int i = net.preStart[t]; i < net.preStart[t + 1]; i++) {
+				addAll(consumers[net.prePlace[i]], t, lastAdded, interferences);
+			}
+			for (int i = net.resetStart[t]; i < net.resetStart[t + 1]; i++) {
+				addAll(consumers[net.resetPlace[i]], t, lastAdded, interferences);
+			}
+			for (int i = net.postStart[t]; i < net.postStart[t + 1]; i++) {
+				addAll(inhibited[net.postPlace[i]], t, lastAdded, interferences);
+			}
+			// transitions whose effect does not commute with the one of t
+			for (int i = net.resetStart[t]; i < net.resetStart[t + 1]; i++) {
+				addAll(increasers[net.resetPlace[i]], t, lastAdded, interferences);
+			}
+			for (int i = net.postStart[t]; i < net.postStart[t + 1]; i++) {
+				addAll(resetters[net.postPlace[i]], t, lastAdded, interferences);
+			}
+			this.interferenceStart[t + 1] = interferences.size();
+		}
+		this.interference = interferences.toArray();
+
+		this.increaserStart = new int[nbPlaces + 1];
+		this.decreaserStart = new int[nbPlaces + 1];
+		final CompiledNet.IntList allIncreasers = new CompiledNet.IntList();
+		final CompiledNet.IntList allDecreasers = new CompiledNet.IntList();
+		for (int p = 0; p < nbPlaces; p++) {
+			for (int i = 0; i < increasers[p].size(); i++) {
+				allIncreasers.add(increasers[p].get(i));
+			}
+			for (int i = 0; i < decreasers[p].size(); i++) {
+				allDecreasers.add(decreasers[p].get(i));
+			}
+			this.increaserStart[p + 1] = allIncreasers.size();
+			this.decreaserStart[p + 1] = allDecreasers.size();
+		}
+		this.increaser = allIncreasers.toArray();
+		this.decreaser = allDecreasers.toArray();
+	}
+
+	private static void addAll(final CompiledNet.IntList transitions, final int t, final int[] lastAdded,
+			final CompiledNet.IntList destination) {
+		for (int i = 0; i < transitions.size(); i++) {
+			final int other = transitions.get(i);
+			if (other != t && lastAdded[other] != t) {
+				lastAdded[other] = t;
+				destination.add(other);
+			}
+		}
+	}
+
+	/**
+	 * @param transitions the transitions whose orderings must be preserved, e.g.
+	 *                    the ones a checked property talks about
+	 */
+	public void setVisibleTransitions(final Collection<AbstractTransition> transitions) {
+		Arrays.fill(this.isVisible, false);
+		final CompiledNet.IntList indexes = new CompiledNet.IntList();
+		for (final AbstractTransition transition : transitions) {
+			final int t = this.net.indexOf(transition);
+			if (!this.isVisible[t]) {
+				this.isVisible[t] = true;
+				indexes.add(t);
+			}
+		}
+		this.visible = indexes.toArray();
+	}
+
+	public boolean hasVisibleTransitions() {
+		return this.visible.length > 0;
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	/**
+	 * @return a selector computing stubborn sets; a selector is not thread-safe,
+	 *         each thread needs its own
+	 */
+	public Selector newSelector() {
+		return new Selector();
+	}
+
+	public final class Selector {
+
+		final private boolean[] isInSet;
+		final private int[] members;
+		private int nbMembers;
+
+		Selector() {
+			this.isInSet = new boolean[StubbornSetReduction.this.net.getTransitionCount()];
+			this.members = new int[this.isInSet.length];
+		}
+
+		/**
+		 * Computes a stubborn set of the marking.
+		 *
+		 * @param selected receives the enabled transitions of the set, must have
+		 *                 room for every transition of the net
+		 * @return the number of selected transitions, 0 if the marking is a
+		 *         deadlock
+		 */
+		public int select(final int[] marking, final int[] selected) {
+			final CompiledNet n = StubbornSetReduction.this.net;
+			int seed = -1;
+			for (int t = 0; t < n.getTransitionCount(); t++) {
+				if (n.isEnabled(marking, t)) {
+					seed = t;
+					break;
+				}
+			}
+			if (seed < 0) {
+				return 0;
+			}
+
+			this.nbMembers = 0;
+			add(seed);
+			boolean isVisibleAdded = false;
+			int nbSelected = 0;
+			// members are processed in the order they are added, so the array is also the work list
+			for (int next = 0; next < this.nbMembers; next++) {
+				final int t = this.members[next];
+				if (n.isEnabled(marking, t)) {
+					selected[nbSelected++] = t;
+					for (int i = StubbornSetReduction.this.interferenceStart[t]; i < StubbornSetReduction.this.interferenceStart[t
+							+ 1]; i++) {
+						add(StubbornSetReduction.this.interference[i]);
+					}
+					if (StubbornSetReduction.this.isVisible[t] && !isVisibleAdded) {
+						isVisibleAdded = true;
+						for (final int v : StubbornSetReduction.this.visible) {
+							add(v);
+						}
+					}
+				} else {
+					addEnablers(marking, t);
+				}
+			}
+			for (int i = 0; i < this.nbMembers; i++) {
+				this.isInSet[this.members[i]] = false;
+			}
+			return nbSelected;
+		}
+
+		/*
+		 * Adds the transitions able to fix one unsatisfied place of a disabled
+		 * transition
+		 */
+		private void addEnablers(final int[] marking, final int t) {
+			final CompiledNet n = StubbornSetReduction.this.net;
+			for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+				final int p = n.prePlace[i];
+				if (marking[p] < n.preWeight[i]) {
+					for (int j = StubbornSetReduction.this.increaserStart[p]; j < StubbornSetReduction.this.increaserStart[p
+							+ 1]; j++) {
+						add(StubbornSetReduction.this.increaser[j]);
+					}
+					return;
+				}
+			}
+			if (n.isResetEnabling) {
+				for (int i = n.resetStart[t]; i < n.resetStart[t + 1]; i++) {
+					final int p = n.resetPlace[i];
+					if (marking[p] == 0) {
+						for (int j = StubbornSetReduction.this.increaserStart[p]; j < StubbornSetReduction.this.increaserStart[p
+								+ 1]; j++) {
+							add(StubbornSetReduction.this.increaser[j]);
+						}
+						return;
+					}
+				}
+			}
+			for (int i = n.inhibStart[t]; i < n.inhibStart[t + 1]; i++) {
+				final int p = n.inhibPlace[i];
+				if (marking[p] >= n.inhibWeight[i]) {
+					for (int j = StubbornSetReduction.this.decreaserStart[p]; j < StubbornSetReduction.this.decreaserStart[p
+							+ 1]; j++) {
+						add(StubbornSetReduction.this.decreaser[j]);
+					}
+					return;
+				}
+			}
+		}
+
+		private void add(final int t) {
+			if (!this.isInSet[t]) {
+				this.isInSet[t] = true;
+				this.members[this.nbMembers++] = t;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,372 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Arrays;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.bdd.BddManager;
+
+/**
+ * Symbolic reachable set of a safe or bounded net, encoded in a BDD.
+ *
+ * Each place is a binary counter of a few variables, as many as its bound
+ * needs; a current and a next variable are interleaved for every bit. Each
+ * transition gets a relation over the places it changes, and the reachable
+ * set is computed by chaining the images of the transitions until a fixpoint,
+ * so no marking is ever enumerated.
+ *
+ * Bounds are those given, or 1 (safe net) by default. A firing that would
+ * overflow a place is not taken but detected afterwards; the place then gets
+ * wider counters and the computation starts again. A place still overflowing
+ * with MAX_BITS bits is reported unbounded.
+ */
+public final class SymbolicStateSpace {
+
+	public static final int MAX_BITS = 16;
+
+	final private CompiledNet net;
+	private int[] bits;
+	private int[] offset;
+	private BddManager manager;
+	// next variable of each variable for the image, current variable of each next variable
+	private int[] nextToCurrent;
+	private int reachable;
+	private int deadlocks;
+	private boolean isBounded = true;
+	private int nbCurrentVars;
+
+	public SymbolicStateSpace(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet), null);
+	}
+
+	/**
+	 * @param bounds known bound of each place, indexed like the compiled net, -1
+	 *               when unknown; null when all unknown
+	 */
+	public SymbolicStateSpace(final CompiledNet net, final int[] bounds) {
+		this.net = net;
+		final int nbPlaces = net.getPlaceCount();
+		final int[] initial = net.getInitialMarking();
+		this.bits = new int[nbPlaces];
+		for (int p = 0; p < nbPlaces; p++) {
+			final int bound = bounds == null || bounds[p] < 0 ? 1 : bounds[p];
+			this.bits[p] = Math.min(MAX_BITS, MarkingPacker.bitsFor(Math.max(bound, initial[p])));
+		}
+		while (!compute()) {
+			// some places overflowed: bits were widened, start again
+		}
+	}
+
+	/**
+	 * @return false if the counters of some places had to be widened
+	 */
+	private boolean compute() {
+		final int nbPlaces = this.net.getPlaceCount();
+		final int nbTransitions = this.net.getTransitionCount();
+		this.offset = new int[nbPlaces + 1];
+		for (int p = 0; p < nbPlaces; p++) {
+			this.offset[p + 1] = this.offset[p] + this.bits[p];
+		}
+		this.nbCurrentVars = this.offset[nbPlaces];
+		this.manager = new BddManager(2 * this.nbCurrentVars, 1 << 16);
+		final BddManager m = this.manager;
+		this.nextToCurrent = new int[2 * this.nbCurrentVars];
+		for (int v = 0; v < this.nextToCurrent.length; v++) {
+			this.nextToCurrent[v] = v & ~1;
+		}
+
+		// relations of the transitions
+		final int[] relations = new int[nbTransitions];
+		final int[] cubes = new int[nbTransitions];
+		final int[] enablings = new int[nbTransitions];
+		final int[] overflows = new int[nbTransitions];
+		final int[][] placeOverflows = new int[nbTransitions][];
+		for (int t = 0; t < nbTransitions; t++) {
+			final int[] changed = Arrays.copyOfRange(this.net.changedPlace, this.net.changedStart[t],
+					this.net.changedStart[t + 1]);
+			int relation = m.ref(BddManager.ONE);
+			int enabling = m.ref(BddManager.ONE);
+			int overflow = m.ref(BddManager.ZERO);
+			placeOverflows[t] = new int[changed.length];
+			final CompiledNet.IntList cubeVars = new CompiledNet.IntList();
+			for (int i = 0; i < changed.length; i++) {
+				final int p = changed[i];
+				int local = m.ref(BddManager.ZERO);
+				int condition = m.ref(BddManager.ZERO);
+				int placeOverflow = m.ref(BddManager.ZERO);
+				for (int tokens = 0; tokens < 1 << this.bits[p]; tokens++) {
+					if (!isAllowed(t, p, tokens)) {
+						continue;
+					}
+					condition = or(condition, m.ref(value(p, tokens)));
+					final int result = effect(t, p, tokens);
+					if (result >>> this.bits[p] != 0) {
+						placeOverflow = or(placeOverflow, m.ref(value(p, tokens)));
+					} else {
+						local = or(local, m.ref(transition(p, tokens, result)));
+					}
+				}
+				relation = and(relation, local);
+				enabling = and(enabling, condition);
+				placeOverflows[t][i] = placeOverflow;
+				overflow = or(overflow, m.ref(placeOverflow));
+				for (int b = 0; b < this.bits[p]; b++) {
+					cubeVars.add(2 * (this.offset[p] + b));
+				}
+			}
+			// places only read through inhibitory arcs
+			for (int i = this.net.inhibStart[t]; i < this.net.inhibStart[t + 1]; i++) {
+				final int p = this.net.inhibPlace[i];
+				int condition = m.ref(BddManager.ZERO);
+				for (int tokens = 0; tokens < 1 << this.bits[p]; tokens++) {
+					if (isAllowed(t, p, tokens)) {
+						condition = or(condition, m.ref(value(p, tokens)));
+					}
+				}
+				relation = and(relation, m.ref(condition));
+				enabling = and(enabling, condition);
+			}
+			relations[t] = relation;
+			enablings[t] = enabling;
+			overflows[t] = and(overflow, m.ref(enabling));
+			cubes[t] = m.ref(m.cube(cubeVars.toArray()));
+		}
+
+		// chained image computation
+		final int[] initial = this.net.getInitialMarking();
+		int states = m.ref(BddManager.ONE);
+		for (int p = 0; p < nbPlaces; p++) {
+			states = and(states, m.ref(value(p, initial[p])));
+		}
+		int previous;
+		do {
+			previous = m.ref(states);
+			for (int t = 0; t < nbTransitions; t++) {
+				final int image = m.ref(m.relProd(states, relations[t], cubes[t]));
+				final int renamed = m.ref(m.rename(image, this.nextToCurrent));
+				m.deref(image);
+				states = or(states, renamed);
+			}
+			m.deref(previous);
+		} while (states != previous);
+		this.reachable = states;
+
+		// overflows
+		boolean isWidened = false;
+		for (int t = 0; t < nbTransitions; t++) {
+			final int reached = m.ref(m.and(this.reachable, overflows[t]));
+			m.deref(reached);
+			if (reached == BddManager.ZERO) {
+				continue;
+			}
+			for (int i = 0; i < placeOverflows[t].length; i++) {
+				final int p = this.net.changedPlace[this.net.changedStart[t] + i];
+				final int enabled = m.ref(m.and(enablings[t], placeOverflows[t][i]));
+				final int placeReached = m.and(this.reachable, enabled);
+				m.deref(enabled);
+				if (placeReached != BddManager.ZERO) {
+					if (this.bits[p] >= MAX_BITS) {
+						this.isBounded = false;
+					} else {
+						this.bits[p] = Math.min(MAX_BITS, 2 * this.bits[p]);
+						isWidened = true;
+					}
+				}
+			}
+		}
+		if (isWidened) {
+			return false;
+		}
+
+		int dead = m.ref(BddManager.ONE);
+		for (int t = 0; t < nbTransitions; t++) {
+			dead = and(dead, m.ref(m.not(enablings[t])));
+		}
+		this.deadlocks = and(dead, m.ref(this.reachable));
+		return true;
+	}
+
+	/*
+	 * Local firing rule, the one of CompiledNet restricted to one place
+	 */
+
+	private boolean isAllowed(final int t, final int p, final int tokens) {
+		for (int i = this.net.preStart[t]; i < this.net.preStart[t + 1]; i++) {
+			if (this.net.prePlace[i] == p && tokens < this.net.preWeight[i]) {
+				return false;
+			}
+		}
+		for (int i = this.net.inhibStart[t]; i < this.net.inhibStart[t + 1]; i++) {
+			if (this.net.inhibPlace[i] == p && tokens >= this.net.inhibWeight[i]) {
+				return false;
+			}
+		}
+		if (this.net.isResetEnabling) {
+			for (int i = this.net.resetStart[t]; i < this.net.resetStart[t + 1]; i++) {
+				if (this.net.resetPlace[i] == p && tokens == 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private int effect(final int t, final int p, final int tokens) {
+		long result = tokens;
+		for (int i = this.net.preStart[t]; i < this.net.preStart[t + 1]; i++) {
+			if (this.net.prePlace[i] == p) {
+				result -= this.net.preWeight[i];
+			}
+		}
+		for (int i = this.net.resetStart[t]; i < this.net.resetStart[t + 1]; i++) {
+			if (this.net.resetPlace[i] == p) {
+				result = 0;
+			}
+		}
+		for (int i = this.net.postStart[t]; i < this.net.postStart[t + 1]; i++) {
+			if (this.net.postPlace[i] == p) {
+				result += this.net.postWeight[i];
+			}
+		}
+		return (int) Math.max(0, Math.min(Integer.MAX_VALUE, result));
+	}
+
+	/*
+	 * Encoding
+	 */
+
+	private int value(final int p, final int tokens) {
+		final int[] vars = new int[this.bits[p]];
+		final boolean[] values = new boolean[this.bits[p]];
+		for (int b = 0; b < this.bits[p]; b++) {
+			vars[b] = 2 * (this.offset[p] + b);
+			values[b] = (tokens >>> (this.bits[p] - 1 - b) & 1) != 0;
+		}
+		return this.manager.minterm(vars, values);
+	}
+
+	private int transition(final int p, final int tokens, final int result) {
+		final int[] vars = new int[2 * this.bits[p]];
+		final boolean[] values = new boolean[2 * this.bits[p]];
+		for (int b = 0; b < this.bits[p]; b++) {
+			vars[2 * b] = 2 * (this.offset[p] + b);
+			vars[2 * b + 1] = 2 * (this.offset[p] + b) + 1;
+			values[2 * b] = (tokens >>> (this.bits[p] - 1 - b) & 1) != 0;
+			values[2 * b + 1] = (result >>> (this.bits[p] - 1 - b) & 1) != 0;
+		}
+		return this.manager.minterm(vars, values);
+	}
+
+	/*
+	 * Referenced operands in, referenced result out
+	 */
+
+	private int and(final int a, final int b) {
+		final int result = this.manager.ref(this.manager.and(a, b));
+		this.manager.deref(a);
+		this.manager.deref(b);
+		return result;
+	}
+
+	private int or(final int a, final int b) {
+		final int result = this.manager.ref(this.manager.or(a, b));
+		this.manager.deref(a);
+		this.manager.deref(b);
+		return result;
+	}
+
+	/*
+	 * Queries
+	 */
+
+	/**
+	 * @return false if a place overflowed MAX_BITS bits
+	 */
+	public boolean isBounded() {
+		return this.isBounded;
+	}
+
+	/**
+	 * @return the number of reachable markings, only those with at most
+	 *         2^MAX_BITS - 1 tokens per place if the net is unbounded
+	 */
+	public double getStateCount() {
+		return this.manager.satCount(this.reachable) / Math.pow(2, this.nbCurrentVars);
+	}
+
+	public boolean isReachable(final int[] marking) {
+		final boolean[] assignment = new boolean[2 * this.nbCurrentVars];
+		for (int p = 0; p < marking.length; p++) {
+			if (marking[p] < 0 || marking[p] >>> this.bits[p] != 0) {
+				return false;
+			}
+			for (int b = 0; b < this.bits[p]; b++) {
+				assignment[2 * (this.offset[p] + b)] = (marking[p] >>> (this.bits[p] - 1 - b) & 1) != 0;
+			}
+		}
+		return this.manager.evaluate(this.reachable, assignment);
+	}
+
+	public boolean hasDeadlock() {
+		return this.deadlocks != BddManager.ZERO;
+	}
+
+	/**
+	 * @return one reachable marking enabling no transition, null if there is none
+	 */
+	public int[] getDeadlock() {
+		final boolean[] assignment = this.manager.anySat(this.deadlocks);
+		if (assignment == null) {
+			return null;
+		}
+		final int[] marking = new int[this.net.getPlaceCount()];
+		for (int p = 0; p < marking.length; p++) {
+			for (int b = 0; b < this.bits[p]; b++) {
+				marking[p] = marking[p] << 1 | (assignment[2 * (this.offset[p] + b)] ? 1 : 0);
+			}
+		}
+		return marking;
+	}
+
+	/**
+	 * @return the maximum number of tokens of the place over the reachable
+	 *         markings
+	 */
+	public int getBound(final int p) {
+		final BddManager m = this.manager;
+		int states = m.ref(this.reachable);
+		int bound = 0;
+		for (int b = 0; b < this.bits[p]; b++) {
+			final int var = 2 * (this.offset[p] + b);
+			final int withBit = m.ref(m.and(states, m.ref(m.ithVar(var))));
+			m.deref(m.ithVar(var));
+			bound <<= 1;
+			if (withBit != BddManager.ZERO) {
+				bound |= 1;
+				m.deref(states);
+				states = withBit;
+			} else {
+				m.deref(withBit);
+			}
+		}
+		m.deref(states);
+		return bound;
+	}
+
+	public int getBound(final AbstractPlace place) {
+		return getBound(this.net.indexOf(place));
+	}
+
+	/**
+	 * @return the number of nodes of the BDD of the reachable set
+	 */
+	public int getNodeCount() {
+		return this.manager.nodeCount(this.reachable);
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+}
@@ -0,0 +1,476 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+
+/**
+ * Token-based replay of an event log on a net, to measure how well the log
+ * conforms to it.
+ *
+ * Every event fires a transition of its label, an enabled one if there is
+ * one. The tokens a transition lacks are counted as missing and created, and
+ * the tokens left when a case ends, beyond the final marking, are counted as
+ * remaining. The fitness of a case is 1/2 (1 - missing / consumed) + 1/2 (1 -
+ * remaining / produced).
+ *
+ * Logs are streamed from memory-mapped files: either the lines "caseId
+ * timestamp userId label" written by WorkflowLogger, in time order, or XES.
+ * The cases are spread by ID over worker threads, which own their cases; only
+ * the cases under way are kept. A case of a line log ends when it reaches the
+ * final marking exactly, when the log has had no event of it for the case
+ * timeout, or at the end of the log. A case that goes on after its timeout is
+ * replayed as a new case, starting from the initial marking.
+ */
+public class TokenReplay {
+
+	/**
+	 * Told about every case replayed, from a worker thread
+	 */
+	@FunctionalInterface
+	public interface CaseListener {
+
+		void caseReplayed(String caseId, long missing, long remaining, long consumed, long produced);
+	}
+
+	private static final int EVENTS_PER_BATCH = 1024;
+	private static final int BATCHES_PER_WORKER = 16;
+	private static final long DEFAULT_CASE_TIMEOUT = 1000000;
+
+	// label of the event that ends a trace
+	private static final int END_OF_CASE = -2;
+	private static final int UNKNOWN = -1;
+
+	final private CompiledNet net;
+	final private Map<String, Integer> labels = new HashMap<>();
+	final private List<int[]> labelTransitions = new ArrayList<>();
+	private int[] finalMarking;
+	private int nbWorkers = Runtime.getRuntime().availableProcessors();
+	private long caseTimeout = DEFAULT_CASE_TIMEOUT;
+	private CaseListener listener;
+
+	public TokenReplay(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+		this(new CompiledNet(petriNet));
+	}
+
+	/**
+	 * The final marking is one token in every place that is produced but never
+	 * consumed.
+	 */
+	public TokenReplay(final CompiledNet net) {
+		this.net = net;
+		final Map<String, List<Integer>> byLabel = new HashMap<>();
+		for (int t = 0; t < net.getTransitionCount(); t++) {
+			byLabel.computeIfAbsent(net.getTransition(t).getLabel(), label -> new ArrayList<>()).add(t);
+		}
+		for (final Map.Entry<String, List<Integer>> entry : byLabel.entrySet()) {
+			this.labels.put(entry.getKey(), this.labelTransitions.size());
+			this.labelTransitions.add(entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+		}
+
+		final boolean[] isConsumed = new boolean[net.getPlaceCount()];
+		for (final int p : net.prePlace) {
+			isConsumed[p] = true;
+		}
+		for (final int p : net.resetPlace) {
+			isConsumed[p] = true;
+		}
+		this.finalMarking = new int[net.getPlaceCount()];
+		for (final int p : net.postPlace) {
+			if (!isConsumed[p]) {
+				this.finalMarking[p] = 1;
+			}
+		}
+	}
+
+	public void setFinalMarking(final int[] finalMarking) {
+		this.finalMarking = finalMarking.clone();
+	}
+
+	public void setWorkers(final int nbWorkers) {
+		this.nbWorkers = Math.max(1, nbWorkers);
+	}
+
+	/**
+	 * @param events number of events of a line log after which a case without
+	 *               any of them ends, 1000000 by default
+	 */
+	public void setCaseTimeout(final long events) {
+		this.caseTimeout = Math.max(1, events);
+	}
+
+	public void setListener(final CaseListener listener) {
+		this.listener = listener;
+	}
+
+	public CompiledNet getNet() {
+		return this.net;
+	}
+
+	/**
+	 * Replays an XES log if the file name ends with .xes, a WorkflowLogger log
+	 * otherwise
+	 */
+	public ReplayResult replay(final Path file) throws IOException {
+		return file.toString().toLowerCase().endsWith(".xes") ? replayXes(file) : replayLines(file);
+	}
+
+	/**
+	 * Replays a log of lines "caseId timestamp userId label", the label being
+	 * the rest of the line
+	 */
+	public ReplayResult replayLines(final Path file) throws IOException {
+		final Replay replay = new Replay(true);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			EventLogReader.readLines(channel, 0, channel.size(), replay);
+		} catch (IOException | RuntimeException e) {
+			replay.abort();
+			throw e;
+		}
+		return replay.finish();
+	}
+
+	private int labelOf(final String label) {
+		final Integer index = this.labels.get(label);
+		return index == null ? UNKNOWN : index;
+	}
+
+	/**
+	 * Replays an XES log. The events with a lifecycle other than complete are
+	 * skipped.
+	 */
+	public ReplayResult replayXes(final Path file) throws IOException {
+		final Replay replay = new Replay(false);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			EventLogReader.readXes(channel, replay);
+		} catch (IOException | RuntimeException e) {
+			replay.abort();
+			throw e;
+		}
+		return replay.finish();
+	}
+
+	/*
+	 * One replay: the reader thread dispatches batches of events to the
+	 * workers
+	 */
+	private final class Replay implements EventLogReader.LineHandler, EventLogReader.TraceHandler {
+
+		final private Worker[] workers;
+		final private Batch[] pending;
+		private long malformed;
+		private long traces;
+		private long nbEvents;
+
+		/**
+		 * @param isEndedByMarking true if a case ends when it reaches the final
+		 *                         marking, false if its end is an event
+		 */
+		Replay(final boolean isEndedByMarking) {
+			this.workers = new Worker[TokenReplay.this.nbWorkers];
+			this.pending = new Batch[this.workers.length];
+			final boolean isEnded = isEndedByMarking && !isEmpty(TokenReplay.this.finalMarking);
+			// the traces of an XES log end with an event
+			final long timeout = isEndedByMarking ? TokenReplay.this.caseTimeout : Long.MAX_VALUE;
+			for (int i = 0; i < this.workers.length; i++) {
+				this.workers[i] = new Worker(i, isEnded, timeout);
+				this.pending[i] = new Batch();
+				this.workers[i].start();
+			}
+		}
+
+		@Override
+		public void event(final String caseId, final String label) throws IOException {
+			dispatch(caseId, labelOf(label));
+		}
+
+		@Override
+		public void malformed() {
+			this.malformed++;
+		}
+
+		@Override
+		public void trace(final String caseId, final List<String> labels) throws IOException {
+			final String id = caseId == null ? "trace" + this.traces : caseId;
+			this.traces++;
+			for (final String label : labels) {
+				dispatch(id, labelOf(label));
+			}
+			dispatch(id, END_OF_CASE);
+		}
+
+		void dispatch(final String caseId, final int label) throws IOException {
+			final int w = Math.floorMod(caseId.hashCode(), this.workers.length);
+			final Batch batch = this.pending[w];
+			batch.caseIds[batch.size] = caseId;
+			batch.labels[batch.size] = label;
+			batch.indices[batch.size] = this.nbEvents++;
+			if (++batch.size == EVENTS_PER_BATCH) {
+				this.workers[w].put(batch);
+				this.pending[w] = new Batch();
+			}
+		}
+
+		void abort() {
+			for (final Worker worker : this.workers) {
+				worker.interrupt();
+			}
+		}
+
+		ReplayResult finish() throws IOException {
+			for (int w = 0; w < this.workers.length; w++) {
+				this.workers[w].put(this.pending[w]);
+				this.workers[w].put(Batch.END);
+			}
+			final ReplayResult result = new ReplayResult(TokenReplay.this.net);
+			result.malformedLines = this.malformed;
+			for (final Worker worker : this.workers) {
+				try {
+					worker.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Replay interrupted", e);
+				}
+				if (worker.failure != null) {
+					throw new IOException("Replay failed: " + worker.failure.getMessage(), worker.failure);
+				}
+				result.merge(worker.result);
+			}
+			return result;
+		}
+	}
+
+	private static final class Batch {
+
+		static final Batch END = new Batch();
+
+		final String[] caseIds = new String[EVENTS_PER_BATCH];
+		final int[] labels = new int[EVENTS_PER_BATCH];
+		// position of each event in the log
+		final long[] indices = new long[EVENTS_PER_BATCH];
+		int size;
+	}
+
+	/*
+	 * State of a case under way
+	 */
+	private static final class Case {
+
+		final int[] marking;
+		long missing;
+		long remaining;
+		long consumed;
+		long produced;
+		long lastEvent;
+
+		Case(final int[] marking) {
+			this.marking = marking;
+		}
+	}
+
+	private final class Worker extends Thread {
+
+		final private BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(BATCHES_PER_WORKER);
+		// least recently replayed first
+		final private LinkedHashMap<String, Case> cases = new LinkedHashMap<>(16, 0.75f, true);
+		final private ReplayResult result = new ReplayResult(TokenReplay.this.net);
+		final private boolean isEndedByMarking;
+		final private long caseTimeout;
+		private volatile Throwable failure;
+
+		Worker(final int index, final boolean isEndedByMarking, final long caseTimeout) {
+			super("Token replay " + index);
+			this.isEndedByMarking = isEndedByMarking;
+			this.caseTimeout = caseTimeout;
+			setDaemon(true);
+		}
+
+		void put(final Batch batch) throws IOException {
+			try {
+				this.queue.put(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Replay interrupted", e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					final Batch batch = this.queue.take();
+					if (batch == Batch.END) {
+						break;
+					}
+					for (int i = 0; i < batch.size; i++) {
+						endIdleCases(batch.indices[i]);
+						replay(batch.caseIds[i], batch.labels[i], batch.indices[i]);
+					}
+				}
+				for (final Map.Entry<String, Case> entry : this.cases.entrySet()) {
+					end(entry.getKey(), entry.getValue());
+				}
+				this.cases.clear();
+			} catch (InterruptedException e) {
+				this.failure = e;
+			} catch (RuntimeException | Error e) {
+				this.failure = e;
+				// let the reader go on to the end
+				this.queue.clear();
+				while (true) {
+					try {
+						if (this.queue.take() == Batch.END) {
+							break;
+						}
+					} catch (InterruptedException e1) {
+						break;
+					}
+				}
+			}
+		}
+
+		private void replay(final String caseId, final int label, final long index) {
+			if (label == END_OF_CASE) {
+				final Case ended = this.cases.remove(caseId);
+				end(caseId, ended == null ? startCase() : ended);
+				return;
+			}
+			Case replayed = this.cases.get(caseId);
+			if (replayed == null) {
+				replayed = startCase();
+				this.cases.put(caseId, replayed);
+			}
+			replayed.lastEvent = index;
+			this.result.events++;
+			if (label == UNKNOWN) {
+				this.result.unknownEvents++;
+				return;
+			}
+			fire(replayed, choose(replayed.marking, TokenReplay.this.labelTransitions.get(label)));
+			if (this.isEndedByMarking && Arrays.equals(replayed.marking, TokenReplay.this.finalMarking)) {
+				this.cases.remove(caseId);
+				end(caseId, replayed);
+			}
+		}
+
+		/*
+		 * Ends the cases without event for the timeout before the given one, the
+		 * least recently replayed coming first
+		 */
+		private void endIdleCases(final long index) {
+			final Iterator<Map.Entry<String, Case>> iterator = this.cases.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<String, Case> entry = iterator.next();
+				if (index - entry.getValue().lastEvent < this.caseTimeout) {
+					break;
+				}
+				iterator.remove();
+				end(entry.getKey(), entry.getValue());
+			}
+		}
+
+		private Case startCase() {
+			final Case started = new Case(TokenReplay.this.net.getInitialMarking());
+			for (final int tokens : started.marking) {
+				started.produced += tokens;
+			}
+			return started;
+		}
+
+		private int choose(final int[] marking, final int[] transitions) {
+			for (final int t : transitions) {
+				if (TokenReplay.this.net.isEnabled(marking, t)) {
+					return t;
+				}
+			}
+			return transitions[0];
+		}
+
+		/*
+		 * Creates the missing tokens, then fires
+		 */
+		private void fire(final Case replayed, final int t) {
+			final CompiledNet n = TokenReplay.this.net;
+			final int[] m = replayed.marking;
+			long missing = 0;
+			for (int i = n.preStart[t]; i < n.preStart[t + 1]; i++) {
+				final int p = n.prePlace[i];
+				replayed.consumed += n.preWeight[i];
+				if (m[p] < n.preWeight[i]) {
+					final int lacking = n.preWeight[i] - m[p];
+					missing += lacking;
+					this.result.placeMissing[p] += lacking;
+					m[p] = n.preWeight[i];
+				}
+				m[p] -= n.preWeight[i];
+			}
+			for (int i = n.resetStart[t]; i < n.resetStart[t + 1]; i++) {
+				final int p = n.resetPlace[i];
+				if (n.isResetEnabling && m[p] == 0) {
+					// the reset arc needs a token
+					missing++;
+					this.result.placeMissing[p]++;
+					m[p] = 1;
+				}
+				replayed.consumed += m[p];
+				m[p] = 0;
+			}
+			for (int i = n.postStart[t]; i < n.postStart[t + 1]; i++) {
+				m[n.postPlace[i]] += n.postWeight[i];
+				replayed.produced += n.postWeight[i];
+			}
+			replayed.missing += missing;
+			this.result.firings[t]++;
+			if (missing > 0) {
+				this.result.forcedFirings[t]++;
+				this.result.transitionMissing[t] += missing;
+			}
+		}
+
+		/*
+		 * Consumes the final marking and counts the tokens left
+		 */
+		private void end(final String caseId, final Case ended) {
+			final int[] f = TokenReplay.this.finalMarking;
+			final int[] m = ended.marking;
+			for (int p = 0; p < m.length; p++) {
+				ended.consumed += f[p];
+				if (m[p] < f[p]) {
+					ended.missing += f[p] - m[p];
+					this.result.placeMissing[p] += f[p] - m[p];
+				} else if (m[p] > f[p]) {
+					ended.remaining += m[p] - f[p];
+					this.result.placeRemaining[p] += m[p] - f[p];
+				}
+			}
+			this.result.add(ended.missing, ended.remaining, ended.consumed, ended.produced);
+			final CaseListener l = TokenReplay.this.listener;
+			if (l != null) {
+				l.caseReplayed(caseId, ended.missing, ended.remaining, ended.consumed, ended.produced);
+			}
+		}
+	}
+
+	private static boolean isEmpty(final int[] marking) {
+		for (final int tokens : marking) {
+			if (tokens != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,591 @@
+package org.pneditor.petrinet.algorithms.bdd;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reduced ordered binary decision diagrams.
+ *
+ * A BDD is an int, the index of its root node; ZERO and ONE are the two
+ * terminals and variable i is tested before variable j when i < j. Nodes are
+ * stored in parallel int arrays and shared through a unique table (hash
+ * buckets chained by the next array), results of the operations are kept in
+ * a direct-mapped cache.
+ *
+ * Memory is reclaimed by a mark and sweep garbage collector, run only at the
+ * start of a public operation when the table is nearly full: the BDDs that
+ * must survive have to be protected with ref() and released with deref().
+ * A manager is not thread-safe.
+ */
+public final class BddManager {
+
+	public static final int ZERO = 0;
+	public static final int ONE = 1;
+
+	private static final int FREE = -1;
+	private static final double GC_LOAD = 0.8;
+
+	private static final int OP_AND = 0;
+	private static final int OP_OR = 1;
+	private static final int OP_DIFF = 2;
+	private static final int OP_NOT = 3;
+	private static final int OP_EXISTS = 4;
+	private static final int OP_REL_PROD = 5;
+	private static final int OP_RENAME = 6;
+
+	final private int nbVars;
+
+	private int[] level;
+	private int[] low;
+	private int[] high;
+	private int[] next;
+	private int[] refs;
+	private boolean[] isMarked;
+	private int[] buckets;
+	private int freeList;
+	private int nbFree;
+
+	final private int[] cacheOp;
+	final private int[] cacheA;
+	final private int[] cacheB;
+	final private int[] cacheC;
+	final private int[] cacheResult;
+	final private int cacheMask;
+
+	// renaming used by OP_RENAME, and a stamp telling which renaming filled the cache
+	private int[] renaming;
+	private int renamingId;
+
+	public BddManager(final int nbVars, final int initialNodes) {
+		this.nbVars = nbVars;
+		final int capacity = Math.max(1024, initialNodes);
+		this.level = new int[capacity];
+		this.low = new int[capacity];
+		this.high = new int[capacity];
+		this.next = new int[capacity];
+		this.refs = new int[capacity];
+		this.isMarked = new boolean[capacity];
+		this.buckets = new int[Integer.highestOneBit(capacity - 1) << 1];
+		Arrays.fill(this.buckets, -1);
+		this.level[ZERO] = nbVars;
+		this.level[ONE] = nbVars;
+		this.next[ZERO] = -1;
+		this.next[ONE] = -1;
+		this.freeList = -1;
+		for (int node = capacity - 1; node > ONE; node--) {
+			release(node);
+		}
+
+		final int cacheSize = Integer.highestOneBit(Math.max(1024, capacity / 2));
+		this.cacheOp = new int[cacheSize];
+		this.cacheA = new int[cacheSize];
+		this.cacheB = new int[cacheSize];
+		this.cacheC = new int[cacheSize];
+		this.cacheResult = new int[cacheSize];
+		this.cacheMask = cacheSize - 1;
+		Arrays.fill(this.cacheOp, -1);
+	}
+
+	/*
+	 * Nodes
+	 */
+
+	public int getVarCount() {
+		return this.nbVars;
+	}
+
+	/**
+	 * @return the variable tested by the root of f, getVarCount() for a terminal
+	 */
+	public int getVar(final int f) {
+		return this.level[f];
+	}
+
+	public int getLow(final int f) {
+		return this.low[f];
+	}
+
+	public int getHigh(final int f) {
+		return this.high[f];
+	}
+
+	/*
+	 * The variables returned by ithVar and nithVar are not protected: ref them
+	 * before calling another operation
+	 */
+
+	public int ithVar(final int var) {
+		return makeNode(var, ZERO, ONE);
+	}
+
+	public int nithVar(final int var) {
+		return makeNode(var, ONE, ZERO);
+	}
+
+	/**
+	 * Protects f from the garbage collector
+	 *
+	 * @return f
+	 */
+	public int ref(final int f) {
+		if (f > ONE) {
+			this.refs[f]++;
+		}
+		return f;
+	}
+
+	public void deref(final int f) {
+		if (f > ONE && this.refs[f] > 0) {
+			this.refs[f]--;
+		}
+	}
+
+	/**
+	 * @return the number of live nodes, terminals included
+	 */
+	public int getNodeTableSize() {
+		return this.level.length - this.nbFree;
+	}
+
+	private int makeNode(final int var, final int lowChild, final int highChild) {
+		if (lowChild == highChild) {
+			return lowChild;
+		}
+		int bucket = hash(var, lowChild, highChild) & (this.buckets.length - 1);
+		for (int node = this.buckets[bucket]; node >= 0; node = this.next[node]) {
+			if (this.level[node] == var && this.low[node] == lowChild && this.high[node] == highChild) {
+				return node;
+			}
+		}
+		if (this.freeList < 0) {
+			grow();
+			bucket = hash(var, lowChild, highChild) & (this.buckets.length - 1);
+		}
+		final int node = this.freeList;
+		this.freeList = this.next[node];
+		this.nbFree--;
+		this.level[node] = var;
+		this.low[node] = lowChild;
+		this.high[node] = highChild;
+		this.next[node] = this.buckets[bucket];
+		this.buckets[bucket] = node;
+		return node;
+	}
+
+	private void release(final int node) {
+		this.level[node] = FREE;
+		this.refs[node] = 0;
+		this.next[node] = this.freeList;
+		this.freeList = node;
+		this.nbFree++;
+	}
+
+	private void grow() {
+		final int oldCapacity = this.level.length;
+		final int capacity = oldCapacity * 2;
+		this.level = Arrays.copyOf(this.level, capacity);
+		this.low = Arrays.copyOf(this.low, capacity);
+		this.high = Arrays.copyOf(this.high, capacity);
+		this.next = Arrays.copyOf(this.next, capacity);
+		this.refs = Arrays.copyOf(this.refs, capacity);
+		this.isMarked = new boolean[capacity];
+		for (int node = capacity - 1; node >= oldCapacity; node--) {
+			release(node);
+		}
+		rehash();
+	}
+
+	private void rehash() {
+		this.buckets = new int[Integer.highestOneBit(this.level.length - 1) << 1];
+		Arrays.fill(this.buckets, -1);
+		for (int node = 2; node < this.level.length; node++) {
+			if (this.level[node] != FREE) {
+				final int bucket = hash(this.level[node], this.low[node], this.high[node]) & (this.buckets.length - 1);
+				this.next[node] = this.buckets[bucket];
+				this.buckets[bucket] = node;
+			}
+		}
+	}
+
+	private static int hash(final int a, final int b, final int c) {
+		int h = a * 0x9E3779B1 + b;
+		h = h * 0x9E3779B1 + c;
+		return h ^ (h >>> 16);
+	}
+
+	/*
+	 * Garbage collection
+	 */
+
+	/**
+	 * Frees the nodes not reachable from a referenced BDD
+	 */
+	public void gc() {
+		for (int node = 2; node < this.level.length; node++) {
+			if (this.level[node] != FREE && this.refs[node] > 0) {
+				mark(node);
+			}
+		}
+		this.freeList = -1;
+		this.nbFree = 0;
+		for (int node = this.level.length - 1; node > ONE; node--) {
+			if (this.isMarked[node]) {
+				this.isMarked[node] = false;
+			} else {
+				release(node);
+			}
+		}
+		rehash();
+		Arrays.fill(this.cacheOp, -1);
+	}
+
+	private void mark(final int root) {
+		// explicit stack: BDDs over many variables are deep
+		int[] stack = new int[64];
+		int size = 0;
+		stack[size++] = root;
+		while (size > 0) {
+			final int node = stack[--size];
+			if (node <= ONE || this.isMarked[node]) {
+				continue;
+			}
+			this.isMarked[node] = true;
+			if (size + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			stack[size++] = this.low[node];
+			stack[size++] = this.high[node];
+		}
+	}
+
+	private void checkpoint() {
+		if (this.nbFree < (1 - GC_LOAD) * this.level.length) {
+			gc();
+			if (this.nbFree < (1 - GC_LOAD) * this.level.length) {
+				grow();
+			}
+		}
+	}
+
+	/*
+	 * Operation cache
+	 */
+
+	private int cacheLookup(final int op, final int a, final int b, final int c) {
+		final int slot = hash(op * 31 + a, b, c) & this.cacheMask;
+		if (this.cacheOp[slot] == op && this.cacheA[slot] == a && this.cacheB[slot] == b && this.cacheC[slot] == c) {
+			return this.cacheResult[slot];
+		}
+		return -1;
+	}
+
+	private int cacheStore(final int op, final int a, final int b, final int c, final int result) {
+		final int slot = hash(op * 31 + a, b, c) & this.cacheMask;
+		this.cacheOp[slot] = op;
+		this.cacheA[slot] = a;
+		this.cacheB[slot] = b;
+		this.cacheC[slot] = c;
+		this.cacheResult[slot] = result;
+		return result;
+	}
+
+	/*
+	 * Operations
+	 */
+
+	public int and(final int a, final int b) {
+		checkpoint();
+		return apply(OP_AND, a, b);
+	}
+
+	public int or(final int a, final int b) {
+		checkpoint();
+		return apply(OP_OR, a, b);
+	}
+
+	/**
+	 * @return a and not b
+	 */
+	public int diff(final int a, final int b) {
+		checkpoint();
+		return apply(OP_DIFF, a, b);
+	}
+
+	public int not(final int a) {
+		checkpoint();
+		return negate(a);
+	}
+
+	/**
+	 * @param cube conjunction of the variables to quantify
+	 */
+	public int exists(final int f, final int cube) {
+		checkpoint();
+		return quantify(f, cube);
+	}
+
+	/**
+	 * @return exists cube (f and g), without building f and g
+	 */
+	public int relProd(final int f, final int g, final int cube) {
+		checkpoint();
+		return andExists(f, g, cube);
+	}
+
+	/**
+	 * Renames the variables of f. The renaming must keep the order of the
+	 * variables f depends on.
+	 *
+	 * @param renaming new variable of each variable
+	 */
+	public int rename(final int f, final int[] renaming) {
+		checkpoint();
+		if (renaming != this.renaming) {
+			this.renaming = renaming;
+			this.renamingId++;
+		}
+		return substitute(f);
+	}
+
+	/**
+	 * @return the conjunction of the given variables
+	 */
+	public int cube(final int[] vars) {
+		checkpoint();
+		final int[] sorted = vars.clone();
+		Arrays.sort(sorted);
+		int result = ONE;
+		for (int i = sorted.length - 1; i >= 0; i--) {
+			result = makeNode(sorted[i], ZERO, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the conjunction of the literals vars[i] (when values[i]) or not
+	 *         vars[i], the variables being in increasing order
+	 */
+	public int minterm(final int[] vars, final boolean[] values) {
+		checkpoint();
+		int result = ONE;
+		for (int i = vars.length - 1; i >= 0; i--) {
+			result = values[i] ? makeNode(vars[i], ZERO, result) : makeNode(vars[i], result, ZERO);
+		}
+		return result;
+	}
+
+	private int apply(final int op, final int a, final int b) {
+		switch (op) {
+		case OP_AND:
+			if (a == ZERO || b == ZERO) {
+				return ZERO;
+			}
+			if (a == ONE || a == b) {
+				return b;
+			}
+			if (b == ONE) {
+				return a;
+			}
+			break;
+		case OP_OR:
+			if (a == ONE || b == ONE) {
+				return ONE;
+			}
+			if (a == ZERO || a == b) {
+				return b;
+			}
+			if (b == ZERO) {
+				return a;
+			}
+			break;
+		default: // OP_DIFF
+			if (a == ZERO || b == ONE || a == b) {
+				return ZERO;
+			}
+			if (b == ZERO) {
+				return a;
+			}
+			if (a == ONE) {
+				return negate(b);
+			}
+			break;
+		}
+		// and, or are commutative: normalize the operands to share cache entries
+		final int first = op != OP_DIFF && a > b ? b : a;
+		final int second = op != OP_DIFF && a > b ? a : b;
+		final int cached = cacheLookup(op, first, second, 0);
+		if (cached >= 0) {
+			return cached;
+		}
+		final int levelA = this.level[first];
+		final int levelB = this.level[second];
+		final int var = Math.min(levelA, levelB);
+		final int lowChild = apply(op, levelA == var ? this.low[first] : first, levelB == var ? this.low[second] : second);
+		final int highChild = apply(op, levelA == var ? this.high[first] : first,
+				levelB == var ? this.high[second] : second);
+		return cacheStore(op, first, second, 0, makeNode(var, lowChild, highChild));
+	}
+
+	private int negate(final int a) {
+		if (a <= ONE) {
+			return ONE - a;
+		}
+		final int cached = cacheLookup(OP_NOT, a, 0, 0);
+		if (cached >= 0) {
+			return cached;
+		}
+		return cacheStore(OP_NOT, a, 0, 0, makeNode(this.level[a], negate(this.low[a]), negate(this.high[a])));
+	}
+
+	private int quantify(final int f, final int cube) {
+		if (f <= ONE || cube == ONE) {
+			return f;
+		}
+		int c = cube;
+		while (c != ONE && this.level[c] < this.level[f]) {
+			c = this.high[c];
+		}
+		if (c == ONE) {
+			return f;
+		}
+		final int cached = cacheLookup(OP_EXISTS, f, c, 0);
+		if (cached >= 0) {
+			return cached;
+		}
+		final int result;
+		if (this.level[c] == this.level[f]) {
+			result = apply(OP_OR, quantify(this.low[f], this.high[c]), quantify(this.high[f], this.high[c]));
+		} else {
+			result = makeNode(this.level[f], quantify(this.low[f], c), quantify(this.high[f], c));
+		}
+		return cacheStore(OP_EXISTS, f, c, 0, result);
+	}
+
+	private int andExists(final int f, final int g, final int cube) {
+		if (f == ZERO || g == ZERO) {
+			return ZERO;
+		}
+		if (f == ONE && g == ONE) {
+			return ONE;
+		}
+		if (f == ONE || f == g) {
+			return quantify(g, cube);
+		}
+		if (g == ONE) {
+			return quantify(f, cube);
+		}
+		final int first = Math.min(f, g);
+		final int second = Math.max(f, g);
+		final int var = Math.min(this.level[first], this.level[second]);
+		int c = cube;
+		while (c != ONE && this.level[c] < var) {
+			c = this.high[c];
+		}
+		final int cached = cacheLookup(OP_REL_PROD, first, second, c);
+		if (cached >= 0) {
+			return cached;
+		}
+		final int f0 = this.level[first] == var ? this.low[first] : first;
+		final int f1 = this.level[first] == var ? this.high[first] : first;
+		final int g0 = this.level[second] == var ? this.low[second] : second;
+		final int g1 = this.level[second] == var ? this.high[second] : second;
+		final int result;
+		if (c != ONE && this.level[c] == var) {
+			final int lowChild = andExists(f0, g0, this.high[c]);
+			if (lowChild == ONE) {
+				result = ONE;
+			} else {
+				result = apply(OP_OR, lowChild, andExists(f1, g1, this.high[c]));
+			}
+		} else {
+			result = makeNode(var, andExists(f0, g0, c), andExists(f1, g1, c));
+		}
+		return cacheStore(OP_REL_PROD, first, second, c, result);
+	}
+
+	private int substitute(final int f) {
+		if (f <= ONE) {
+			return f;
+		}
+		final int cached = cacheLookup(OP_RENAME, f, this.renamingId, 0);
+		if (cached >= 0) {
+			return cached;
+		}
+		return cacheStore(OP_RENAME, f, this.renamingId, 0,
+				makeNode(this.renaming[this.level[f]], substitute(this.low[f]), substitute(this.high[f])));
+	}
+
+	/*
+	 * Queries, which do not create nodes
+	 */
+
+	/**
+	 * @return the number of assignments of all the variables satisfying f
+	 */
+	public double satCount(final int f) {
+		return satCount(f, new HashMap<>()) * Math.pow(2, this.level[f]);
+	}
+
+	private double satCount(final int f, final Map<Integer, Double> counts) {
+		if (f <= ONE) {
+			return f;
+		}
+		final Double known = counts.get(f);
+		if (known != null) {
+			return known;
+		}
+		final double count = satCount(this.low[f], counts) * Math.pow(2, this.level[this.low[f]] - this.level[f] - 1)
+				+ satCount(this.high[f], counts) * Math.pow(2, this.level[this.high[f]] - this.level[f] - 1);
+		counts.put(f, count);
+		return count;
+	}
+
+	/**
+	 * @return the value of f for the given assignment of the variables
+	 */
+	public boolean evaluate(final int f, final boolean[] assignment) {
+		int node = f;
+		while (node > ONE) {
+			node = assignment[this.level[node]] ? this.high[node] : this.low[node];
+		}
+		return node == ONE;
+	}
+
+	/**
+	 * @return one assignment satisfying f, the variables f does not depend on
+	 *         being false, or null if f is ZERO
+	 */
+	public boolean[] anySat(final int f) {
+		if (f == ZERO) {
+			return null;
+		}
+		final boolean[] assignment = new boolean[this.nbVars];
+		int node = f;
+		while (node > ONE) {
+			if (this.low[node] != ZERO) {
+				node = this.low[node];
+			} else {
+				assignment[this.level[node]] = true;
+				node = this.high[node];
+			}
+		}
+		return assignment;
+	}
+
+	/**
+	 * @return the number of nodes of f, terminals included
+	 */
+	public int nodeCount(final int f) {
+		mark(f);
+		int count = 0;
+		for (int node = 2; node < this.level.length; node++) {
+			if (this.isMarked[node]) {
+				this.isMarked[node] = false;
+				count++;
+			}
+		}
+		return count + (f <= ONE ? 1 : 2);
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.pneditor.petrinet.models.sadokmelina;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Abstract base class for all arc types in a Petri network.
  * Provides automatic ID assignment and management for arcs.
@@ -7,8 +9,8 @@ package org.pneditor.petrinet.models.sadokmelina;
  */
 public abstract class AArc implements Arc {
 
-    // incremental ID for each arc
-    private static int nextID = 1;
+    // incremental ID for each arc, atomic so that arcs can be created from several threads
+    private static final AtomicInteger nextID = new AtomicInteger(1);
     // unique ID of the arc
     private final int id;
 
@@ -18,7 +20,7 @@ public abstract class AArc implements Arc {
      */
     public AArc() {
         // Assign unique ID and increment for next arc
-        this.id = nextID++; 
+        this.id = nextID.getAndIncrement();
     }
 
     /**
@@ -0,0 +1,340 @@
+package org.pneditor.petrinet.models.sadokmelina;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, read-only snapshot of a PetriNetwork used for fast firing.
+ *
+ * The object model (Place, Transition and the arc classes) stays the editing
+ * representation. Compiling it flattens the arcs of every transition into
+ * sparse rows (CSR layout) and the tokens of every place into an int[] marking,
+ * so that isEnabled(t) and fire(t) only walk primitive arrays and never allocate.
+ *
+ * Places and transitions are numbered by increasing ID. For transition t:
+ * - pre arcs (InputArc) are stored in prePlace/preWeight[preStart[t] .. preStart[t+1]-1]
+ * - post arcs (OutputArc) are stored in postPlace/postWeight[postStart[t] .. postStart[t+1]-1]
+ * - zero arcs (ZeroArc) are stored in zeroPlace[zeroStart[t] .. zeroStart[t+1]-1]
+ * - reset arcs (ResetArc) are stored in resetPlace[resetStart[t] .. resetStart[t+1]-1]
+ *
+ * The semantics are the ones of the object model: an input arc needs at least
+ * 'weight' tokens, a zero arc needs an empty place, a reset arc needs at least
+ * one token and empties its place. The snapshot does not follow later edits of
+ * the network; compile it again after adding or removing elements or changing weights.
+ */
+public class CompiledPetriNetwork {
+
+    private final Place[] places;
+    private final Transition[] transitions;
+    private final Map<Place, Integer> placeIndex;
+    private final Map<Transition, Integer> transitionIndex;
+
+    // the arc rows are package-private so that ConcurrentPetriNetwork can walk them
+    final int[] preStart;
+    final int[] prePlace;
+    final int[] preWeight;
+
+    final int[] postStart;
+    final int[] postPlace;
+    final int[] postWeight;
+
+    final int[] zeroStart;
+    final int[] zeroPlace;
+
+    final int[] resetStart;
+    final int[] resetPlace;
+
+    // current number of tokens of each place, indexed like places
+    private final int[] marking;
+
+    /**
+     * Compiles the given network. The marking is initialized with the current
+     * tokens of its places.
+     * @param network the network to compile
+     */
+    public CompiledPetriNetwork(PetriNetwork network) {
+        // Number the places and transitions by ID so that the layout is stable
+        this.places = network.getPlaces().toArray(new Place[0]);
+        Arrays.sort(this.places, Comparator.comparingInt(Place::getId));
+        this.transitions = network.getTransitions().toArray(new Transition[0]);
+        Arrays.sort(this.transitions, Comparator.comparingInt(Transition::getId));
+
+        this.placeIndex = new HashMap<>();
+        for (int p = 0; p < this.places.length; p++) {
+            this.placeIndex.put(this.places[p], p);
+        }
+        this.transitionIndex = new HashMap<>();
+        for (int t = 0; t < this.transitions.length; t++) {
+            this.transitionIndex.put(this.transitions[t], t);
+        }
+
+        int nbTransitions = this.transitions.length;
+        this.preStart = new int[nbTransitions + 1];
+        this.postStart = new int[nbTransitions + 1];
+        this.zeroStart = new int[nbTransitions + 1];
+        this.resetStart = new int[nbTransitions + 1];
+
+        // Sort the arcs of each transition by kind
+        List<InputArc> pre = new ArrayList<>();
+        List<OutputArc> post = new ArrayList<>();
+        List<ZeroArc> zero = new ArrayList<>();
+        List<ResetArc> reset = new ArrayList<>();
+        for (int t = 0; t < nbTransitions; t++) {
+            for (Arc arc : this.transitions[t].getInputArcs()) {
+                if (arc instanceof ZeroArc zeroArc) {
+                    zero.add(zeroArc);
+                } else if (arc instanceof ResetArc resetArc) {
+                    reset.add(resetArc);
+                } else if (arc instanceof InputArc inputArc) {
+                    pre.add(inputArc);
+                }
+            }
+            for (Arc arc : this.transitions[t].getOutputArcs()) {
+                if (arc instanceof OutputArc outputArc) {
+                    post.add(outputArc);
+                }
+            }
+            this.preStart[t + 1] = pre.size();
+            this.postStart[t + 1] = post.size();
+            this.zeroStart[t + 1] = zero.size();
+            this.resetStart[t + 1] = reset.size();
+        }
+
+        this.prePlace = new int[pre.size()];
+        this.preWeight = new int[pre.size()];
+        for (int i = 0; i < pre.size(); i++) {
+            this.prePlace[i] = indexOf(pre.get(i).getSource());
+            this.preWeight[i] = pre.get(i).getWeight();
+        }
+        this.postPlace = new int[post.size()];
+        this.postWeight = new int[post.size()];
+        for (int i = 0; i < post.size(); i++) {
+            this.postPlace[i] = indexOf(post.get(i).getDestination());
+            this.postWeight[i] = post.get(i).getWeight();
+        }
+        this.zeroPlace = new int[zero.size()];
+        for (int i = 0; i < zero.size(); i++) {
+            this.zeroPlace[i] = indexOf(zero.get(i).getSource());
+        }
+        this.resetPlace = new int[reset.size()];
+        for (int i = 0; i < reset.size(); i++) {
+            this.resetPlace[i] = indexOf(reset.get(i).getSource());
+        }
+
+        this.marking = new int[this.places.length];
+        reload();
+    }
+
+    /**
+     * Checks if a transition is enabled in the current marking
+     * @param t index of the transition
+     * @return true if every input, zero and reset arc of the transition is active
+     */
+    public boolean isEnabled(int t) {
+        return isEnabled(this.marking, t);
+    }
+
+    /**
+     * Checks if a transition is enabled in the given marking
+     * @param m a marking indexed like the places of this network
+     * @param t index of the transition
+     * @return true if every input, zero and reset arc of the transition is active
+     */
+    public boolean isEnabled(int[] m, int t) {
+        for (int i = this.preStart[t]; i < this.preStart[t + 1]; i++) {
+            if (m[this.prePlace[i]] < this.preWeight[i]) {
+                return false;
+            }
+        }
+        for (int i = this.zeroStart[t]; i < this.zeroStart[t + 1]; i++) {
+            if (m[this.zeroPlace[i]] != 0) {
+                return false;
+            }
+        }
+        for (int i = this.resetStart[t]; i < this.resetStart[t + 1]; i++) {
+            if (m[this.resetPlace[i]] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fires a transition in the current marking.
+     * Like Transition.fire(), the transition is not checked: call isEnabled(t) first.
+     * @param t index of the transition
+     * @throws ArithmeticException if a place would hold more than Integer.MAX_VALUE tokens
+     */
+    public void fire(int t) {
+        fire(this.marking, t);
+    }
+
+    /**
+     * Fires a transition in the given marking, which is modified in place.
+     * Like Transition.fire(), the transition is not checked: call isEnabled(m, t) first.
+     * @param m a marking indexed like the places of this network
+     * @param t index of the transition
+     * @throws ArithmeticException if a place would hold more than Integer.MAX_VALUE tokens,
+     *         the marking is then partly fired
+     */
+    public void fire(int[] m, int t) {
+        // First, consume tokens (a place never goes below zero, as in Place.removeTokens)
+        for (int i = this.resetStart[t]; i < this.resetStart[t + 1]; i++) {
+            m[this.resetPlace[i]] = 0;
+        }
+        for (int i = this.preStart[t]; i < this.preStart[t + 1]; i++) {
+            int p = this.prePlace[i];
+            m[p] = m[p] >= this.preWeight[i] ? m[p] - this.preWeight[i] : 0;
+        }
+        // Then, produce tokens
+        for (int i = this.postStart[t]; i < this.postStart[t + 1]; i++) {
+            m[this.postPlace[i]] = Math.addExact(m[this.postPlace[i]], this.postWeight[i]);
+        }
+    }
+
+    /**
+     * Reads the tokens of the places of the network into the marking
+     */
+    public void reload() {
+        for (int p = 0; p < this.places.length; p++) {
+            this.marking[p] = this.places[p].getTokens();
+        }
+    }
+
+    /**
+     * Writes the marking back into the places of the network
+     */
+    public void writeBack() {
+        for (int p = 0; p < this.places.length; p++) {
+            Place place = this.places[p];
+            place.removeTokens(place.getTokens());
+            place.addTokens(this.marking[p]);
+        }
+    }
+
+    /**
+     * Getter for a copy of the current marking
+     * @return the number of tokens of each place, indexed like the places
+     */
+    public int[] getMarking() {
+        return this.marking.clone();
+    }
+
+    /**
+     * Replaces the current marking
+     * @param m the new number of tokens of each place, indexed like the places
+     */
+    public void setMarking(int[] m) {
+        if (m.length != this.marking.length) {
+            throw new PlaceExceptions("Marking size does not match the number of places");
+        }
+        for (int p = 0; p < m.length; p++) {
+            if (m[p] < 0) {
+                throw new PlaceExceptions("Number of tokens cannot be negative");
+            }
+        }
+        System.arraycopy(m, 0, this.marking, 0, m.length);
+    }
+
+    /**
+     * Getter for the tokens of one place in the current marking
+     * @param p index of the place
+     * @return the number of tokens
+     */
+    public int getTokens(int p) {
+        return this.marking[p];
+    }
+
+    /**
+     * Getter for the number of places
+     * @return the number of places of the snapshot
+     */
+    public int getPlaceCount() {
+        return this.places.length;
+    }
+
+    /**
+     * Getter for the number of transitions
+     * @return the number of transitions of the snapshot
+     */
+    public int getTransitionCount() {
+        return this.transitions.length;
+    }
+
+    /**
+     * Getter for a place
+     * @param p index of the place
+     * @return the place of the network
+     */
+    public Place getPlace(int p) {
+        return this.places[p];
+    }
+
+    /**
+     * Getter for a transition
+     * @param t index of the transition
+     * @return the transition of the network
+     */
+    public Transition getTransition(int t) {
+        return this.transitions[t];
+    }
+
+    /**
+     * Index of a place in the snapshot
+     * @param place a place of the compiled network
+     * @return its index in the marking
+     */
+    public int indexOf(Place place) {
+        Integer index = this.placeIndex.get(place);
+        if (index == null) {
+            throw new PlaceExceptions("Place not found: " + place);
+        }
+        return index;
+    }
+
+    /**
+     * Index of a transition in the snapshot
+     * @param transition a transition of the compiled network
+     * @return its index
+     */
+    public int indexOf(Transition transition) {
+        Integer index = this.transitionIndex.get(transition);
+        if (index == null) {
+            throw new ArcExceptions("Transition not found: " + transition);
+        }
+        return index;
+    }
+
+    /**
+     * String representation of the compiled network
+     * @return a string describing the compiled network
+     */
+    @Override
+    public String toString() {
+        return "CompiledPetriNetwork [places=" + this.places.length + ", transitions=" + this.transitions.length
+                + ", marking=" + Arrays.toString(this.marking) + "]";
+    }
+
+    public static void main(String[] args) {
+        // Example usage
+        PetriNetwork net = new PetriNetwork();
+        Place p1 = new Place(5);
+        Place p2 = new Place(0);
+        Transition t1 = new Transition();
+        net.addArc(new InputArc(p1, t1, 2));
+        net.addArc(new OutputArc(t1, p2, 1));
+
+        CompiledPetriNetwork compiled = net.compile();
+        int t = compiled.indexOf(t1);
+        while (compiled.isEnabled(t)) {
+            compiled.fire(t);
+        }
+        System.out.println(compiled); // p1 has 1 token left, p2 has 2 tokens
+        compiled.writeBack();
+        System.out.println(net);
+    }
+}
@@ -0,0 +1,406 @@
+package org.pneditor.petrinet.models.sadokmelina;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fires a CompiledPetriNetwork by maximal steps, the transitions of a step
+ * being fired in parallel.
+ *
+ * The marking is an AtomicIntegerArray. A step is fired in two phases:
+ * 1. every enabled transition claims the tokens of its input arcs with
+ *    compare-and-set, and gives back the tokens it already claimed if another
+ *    transition of the step took the ones it still needs (a conflict)
+ * 2. every transition that claimed its tokens produces on its output arcs
+ * Claims are tried again while tokens were given back, the last time from a
+ * single thread, so that no enabled transition is left once the step is
+ * fired: the step is maximal.
+ *
+ * Transitions with a zero arc or a reset arc test or empty their places as a
+ * whole, which cannot be claimed token by token; they are fired one by one at
+ * the end of the step, in the marking left by the parallel phases.
+ *
+ * Every step gives the same marking as firing its transitions one after the
+ * other. The compiled network is not modified until writeBack().
+ */
+public class ConcurrentPetriNetwork {
+
+    // transitions handled by one task of the pool
+    private static final int TRANSITIONS_PER_TASK = 1024;
+
+    // status of each transition in the current step
+    private static final byte IDLE = 0;
+    private static final byte FIRED = 1;
+    private static final byte CONFLICT = 2;
+
+    private final CompiledPetriNetwork compiled;
+    private final ForkJoinPool pool;
+    private final AtomicIntegerArray marking;
+
+    // transitions with only input and output arcs, fired in parallel
+    private final int[] parallel;
+    // transitions with zero or reset arcs, fired one by one
+    private final int[] sequential;
+
+    private final byte[] status;
+    private final int[] candidates;
+    private final int[] fired;
+    private int nbFired;
+    private long conflicts;
+
+    /**
+     * Creates a concurrent execution of a compiled network, on the common pool
+     * @param compiled the compiled network, whose current marking is the initial one
+     */
+    public ConcurrentPetriNetwork(CompiledPetriNetwork compiled) {
+        this(compiled, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a concurrent execution of a compiled network
+     * @param compiled the compiled network, whose current marking is the initial one
+     * @param pool the pool firing the steps
+     */
+    public ConcurrentPetriNetwork(CompiledPetriNetwork compiled, ForkJoinPool pool) {
+        this.compiled = compiled;
+        this.pool = pool;
+        this.marking = new AtomicIntegerArray(compiled.getMarking());
+
+        int nbTransitions = compiled.getTransitionCount();
+        int nbSequential = 0;
+        for (int t = 0; t < nbTransitions; t++) {
+            if (isSequential(t)) {
+                nbSequential++;
+            }
+        }
+        this.parallel = new int[nbTransitions - nbSequential];
+        this.sequential = new int[nbSequential];
+        int nbParallel = 0;
+        nbSequential = 0;
+        for (int t = 0; t < nbTransitions; t++) {
+            if (isSequential(t)) {
+                this.sequential[nbSequential++] = t;
+            } else {
+                this.parallel[nbParallel++] = t;
+            }
+        }
+
+        this.status = new byte[nbTransitions];
+        this.candidates = new int[nbTransitions];
+        this.fired = new int[nbTransitions];
+    }
+
+    private boolean isSequential(int t) {
+        return this.compiled.zeroStart[t] < this.compiled.zeroStart[t + 1]
+                || this.compiled.resetStart[t] < this.compiled.resetStart[t + 1];
+    }
+
+    /**
+     * Fires a maximal step of enabled transitions
+     * @return the number of transitions fired, 0 if no transition is enabled
+     * @throws ArithmeticException if a place would hold more than Integer.MAX_VALUE tokens,
+     *         the step is then partly fired
+     */
+    public int step() {
+        for (int i = 0; i < this.nbFired; i++) {
+            this.status[this.fired[i]] = IDLE;
+        }
+        this.nbFired = 0;
+
+        // Phase 1: claim the input tokens, again while tokens were given back
+        System.arraycopy(this.parallel, 0, this.candidates, 0, this.parallel.length);
+        int nbCandidates = this.parallel.length;
+        boolean isParallel = true;
+        while (nbCandidates > 0) {
+            if (isParallel) {
+                this.pool.invoke(new ClaimTask(0, nbCandidates));
+            } else {
+                // without other claims, a transition fails only if it is not enabled
+                for (int i = 0; i < nbCandidates; i++) {
+                    this.status[this.candidates[i]] = claim(this.candidates[i]);
+                }
+            }
+            int nbClaimed = 0;
+            int nbGivenBack = 0;
+            int nbRetries = 0;
+            for (int i = 0; i < nbCandidates; i++) {
+                int t = this.candidates[i];
+                if (this.status[t] == FIRED) {
+                    this.fired[this.nbFired++] = t;
+                    nbClaimed++;
+                } else {
+                    if (this.status[t] == CONFLICT) {
+                        nbGivenBack++;
+                        this.status[t] = IDLE;
+                    }
+                    this.candidates[nbRetries++] = t;
+                }
+            }
+            this.conflicts += nbGivenBack;
+            if (!isParallel || nbGivenBack == 0) {
+                break;
+            }
+            // parallel claims go on while they make progress
+            isParallel = nbClaimed > 0;
+            nbCandidates = nbRetries;
+        }
+
+        // Phase 2: produce the output tokens
+        if (this.nbFired > 0) {
+            this.pool.invoke(new ProduceTask(0, this.nbFired));
+        }
+
+        // Then the transitions that cannot claim their tokens, one by one
+        for (int t : this.sequential) {
+            if (isEnabled(t)) {
+                fireSequential(t);
+                this.status[t] = FIRED;
+                this.fired[this.nbFired++] = t;
+            }
+        }
+        return this.nbFired;
+    }
+
+    /**
+     * Fires maximal steps until no transition is enabled
+     * @param maxSteps the maximum number of steps to fire
+     * @return the number of transitions fired
+     */
+    public long run(int maxSteps) {
+        long total = 0;
+        for (int i = 0; i < maxSteps; i++) {
+            int nb = step();
+            if (nb == 0) {
+                break;
+            }
+            total += nb;
+        }
+        return total;
+    }
+
+    /**
+     * Claims the input tokens of a transition
+     * @param t index of the transition
+     * @return FIRED if all the tokens were claimed, CONFLICT if claimed tokens
+     * were given back, IDLE if the transition is not enabled
+     */
+    private byte claim(int t) {
+        CompiledPetriNetwork c = this.compiled;
+        for (int i = c.preStart[t]; i < c.preStart[t + 1]; i++) {
+            int p = c.prePlace[i];
+            int weight = c.preWeight[i];
+            while (true) {
+                int tokens = this.marking.get(p);
+                if (tokens < weight) {
+                    // give back what was already claimed
+                    for (int j = c.preStart[t]; j < i; j++) {
+                        this.marking.getAndAdd(c.prePlace[j], c.preWeight[j]);
+                    }
+                    return i == c.preStart[t] ? IDLE : CONFLICT;
+                }
+                if (this.marking.compareAndSet(p, tokens, tokens - weight)) {
+                    break;
+                }
+            }
+        }
+        return FIRED;
+    }
+
+    private void produce(int t) {
+        CompiledPetriNetwork c = this.compiled;
+        for (int i = c.postStart[t]; i < c.postStart[t + 1]; i++) {
+            this.marking.accumulateAndGet(c.postPlace[i], c.postWeight[i], Math::addExact);
+        }
+    }
+
+    /**
+     * Checks if a transition is enabled in the current marking.
+     * Only meaningful between steps.
+     * @param t index of the transition
+     * @return true if every input, zero and reset arc of the transition is active
+     */
+    public boolean isEnabled(int t) {
+        CompiledPetriNetwork c = this.compiled;
+        for (int i = c.preStart[t]; i < c.preStart[t + 1]; i++) {
+            if (this.marking.get(c.prePlace[i]) < c.preWeight[i]) {
+                return false;
+            }
+        }
+        for (int i = c.zeroStart[t]; i < c.zeroStart[t + 1]; i++) {
+            if (this.marking.get(c.zeroPlace[i]) != 0) {
+                return false;
+            }
+        }
+        for (int i = c.resetStart[t]; i < c.resetStart[t + 1]; i++) {
+            if (this.marking.get(c.resetPlace[i]) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Same firing as CompiledPetriNetwork.fire(int[], int), from a single thread
+     */
+    private void fireSequential(int t) {
+        CompiledPetriNetwork c = this.compiled;
+        for (int i = c.resetStart[t]; i < c.resetStart[t + 1]; i++) {
+            this.marking.set(c.resetPlace[i], 0);
+        }
+        for (int i = c.preStart[t]; i < c.preStart[t + 1]; i++) {
+            int p = c.prePlace[i];
+            int tokens = this.marking.get(p);
+            this.marking.set(p, tokens >= c.preWeight[i] ? tokens - c.preWeight[i] : 0);
+        }
+        produce(t);
+    }
+
+    /**
+     * Checks if a transition was fired by the last step
+     * @param t index of the transition
+     * @return true if it was part of the step
+     */
+    public boolean hasFired(int t) {
+        return this.status[t] == FIRED;
+    }
+
+    /**
+     * Getter for the number of conflicts, a transition giving back the tokens
+     * it claimed because the others were missing, most often taken by another
+     * transition of its step
+     * @return the number of conflicts since the creation
+     */
+    public long getConflictCount() {
+        return this.conflicts;
+    }
+
+    /**
+     * Getter for the tokens of one place in the current marking
+     * @param p index of the place
+     * @return the number of tokens
+     */
+    public int getTokens(int p) {
+        return this.marking.get(p);
+    }
+
+    /**
+     * Getter for a copy of the current marking
+     * @return the number of tokens of each place, indexed like the places
+     */
+    public int[] getMarking() {
+        int[] m = new int[this.marking.length()];
+        for (int p = 0; p < m.length; p++) {
+            m[p] = this.marking.get(p);
+        }
+        return m;
+    }
+
+    /**
+     * Writes the marking back into the compiled network and its places
+     */
+    public void writeBack() {
+        this.compiled.setMarking(getMarking());
+        this.compiled.writeBack();
+    }
+
+    /**
+     * Getter for the compiled network
+     * @return the compiled network fired by this execution
+     */
+    public CompiledPetriNetwork getCompiled() {
+        return this.compiled;
+    }
+
+    /**
+     * String representation of the concurrent execution
+     * @return a string describing the current marking
+     */
+    @Override
+    public String toString() {
+        return "ConcurrentPetriNetwork [marking=" + this.marking + ", conflicts=" + this.conflicts + "]";
+    }
+
+    /*
+     * Phase 1 over a range of the candidates
+     */
+    private final class ClaimTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ClaimTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > TRANSITIONS_PER_TASK) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ClaimTask(this.from, middle), new ClaimTask(middle, this.to));
+                return;
+            }
+            for (int i = this.from; i < this.to; i++) {
+                int t = ConcurrentPetriNetwork.this.candidates[i];
+                ConcurrentPetriNetwork.this.status[t] = claim(t);
+            }
+        }
+    }
+
+    /*
+     * Phase 2 over a range of the fired transitions
+     */
+    private final class ProduceTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ProduceTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > TRANSITIONS_PER_TASK) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ProduceTask(this.from, middle), new ProduceTask(middle, this.to));
+                return;
+            }
+            for (int i = this.from; i < this.to; i++) {
+                produce(ConcurrentPetriNetwork.this.fired[i]);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        // Example usage: two independent transitions and two in conflict for p3
+        PetriNetwork net = new PetriNetwork();
+        Place p1 = new Place(1);
+        Place p2 = new Place(1);
+        Place p3 = new Place(1);
+        Place p4 = new Place(0);
+        Transition t1 = new Transition();
+        Transition t2 = new Transition();
+        Transition t3 = new Transition();
+        Transition t4 = new Transition();
+        net.addArc(new InputArc(p1, t1, 1));
+        net.addArc(new InputArc(p2, t2, 1));
+        net.addArc(new InputArc(p3, t3, 1));
+        net.addArc(new InputArc(p3, t4, 1));
+        net.addArc(new OutputArc(t1, p4, 1));
+        net.addArc(new OutputArc(t2, p4, 1));
+        net.addArc(new OutputArc(t3, p4, 1));
+        net.addArc(new OutputArc(t4, p4, 1));
+
+        ConcurrentPetriNetwork concurrent = new ConcurrentPetriNetwork(net.compile());
+        System.out.println(concurrent.step() + " transitions fired"); // t1, t2 and one of t3, t4
+        concurrent.writeBack();
+        System.out.println(net);
+    }
+}
@@ -231,9 +231,20 @@ public class PetriNetwork implements IPetriNetwork{
         return this.arcs;
     }
 
+    /**
+     * Compiles the network into a CompiledPetriNetwork, a snapshot with an int[] marking
+     * and sparse arc matrices used for fast and allocation-free firing.
+     * The network itself stays the editing representation.
+     *
+     * @return the compiled snapshot of the network
+     */
+    public CompiledPetriNetwork compile() {
+        return new CompiledPetriNetwork(this);
+    }
+
     /**
      * String representation of the Petri network
-     * @return a string describing the Petri network       
+     * @return a string describing the Petri network
      */
     @Override
     public String toString() {
@@ -1,5 +1,7 @@
 package org.pneditor.petrinet.models.sadokmelina;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a place in a Petri network.
  * A place is a node that can hold tokens (represented as non-negative integers).
@@ -14,14 +16,15 @@ public class Place {
 
     private final int id;
     private int tokens;
-    private static int NextID = 1;
+    // atomic so that places can be created from several threads
+    private static final AtomicInteger NextID = new AtomicInteger(1);
 
     /**
      * Constructor to create a place without adding it to a Petri network
      * @param tokens the initial number of tokens in the place
      */
     public Place(int tokens) throws PlaceExceptions {
-        this.id = NextID++;
+        this.id = NextID.getAndIncrement();
         if (tokens < 0) {
             throw new PlaceExceptions("Number of tokens cannot be negative");
         }
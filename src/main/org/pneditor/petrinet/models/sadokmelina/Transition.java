@@ -1,6 +1,7 @@
 package org.pneditor.petrinet.models.sadokmelina;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a transition in a Petri network.
@@ -21,14 +22,15 @@ public class Transition {
     private final int id;  
     private final Set<Arc> inputArcs;  //list of the input (entering the transition) arcs 
     private final Set<Arc> outputArcs;  //list of the output (exiting the transition) arcs
-    private static int NextID = 1;
+    // atomic so that transitions can be created from several threads
+    private static final AtomicInteger NextID = new AtomicInteger(1);
 
     /** Constructor to create a transition without adding it to a Petri network
      * The transition ID is automatically assigned and incremented for each new transition
      * The input and output arc lists are initialized as empty
      */
     public Transition() {
-        this.id = NextID++;
+        this.id = NextID.getAndIncrement();
         this.inputArcs = new HashSet<>();  
         this.outputArcs = new HashSet<>();
     }
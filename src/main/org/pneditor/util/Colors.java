@@ -30,4 +30,5 @@ public class Colors {
     public static final Color SELECTED = Color.LIGHT_GRAY;
     public static final Color SINGLESELECTED = Color.GRAY;
     public static final Color POINTING = Color.BLUE;
+    public static final Color WARNING = Color.ORANGE;
 }
@@ -16,6 +16,8 @@
  */
 package org.pneditor.util;
 
+import java.awt.Rectangle;
+
 /**
  *
  * @author Martin Riesz <riesz.martin at gmail.com>
@@ -27,4 +29,12 @@ public interface Command {
     void undo();
 
     void redo();
+
+    /**
+     * @return the area of the drawing changed by the last execute, undo or
+     *         redo, or null if the change may be anywhere
+     */
+    default Rectangle getChangedArea() {
+        return null;
+    }
 }
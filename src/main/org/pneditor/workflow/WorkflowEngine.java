@@ -0,0 +1,320 @@
+package org.pneditor.workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.algorithms.CompiledNet;
+
+import logger.PNEditorLogger;
+
+/**
+ * Runs many cases of one workflow net at the same time.
+ *
+ * The structure of the net is compiled once, when the engine is created, and
+ * its marking at that time is the initial marking of every case. A case only
+ * keeps the places it marks, as (place, tokens) pairs. Cases are spread over a
+ * few event loops by case ID: the operations on a case run one after the
+ * other on its loop, in the order they were asked, so cases need no lock.
+ *
+ * Tasks are the transitions, found by label. Every operation returns at once
+ * with a future completed by the loop.
+ */
+public class WorkflowEngine implements AutoCloseable {
+
+    /**
+     * Told about every task fired, on the loop of the case. It must not wait for
+     * an operation of the engine: that operation may be queued behind it on the
+     * same loop. An exception it throws is logged; the task stays fired.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        void taskFired(String caseId, AbstractTransition task, String userId);
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    private final CompiledNet net;
+    private final int[] initialMarking;
+    private final Map<String, int[]> tasks = new HashMap<>();
+    private final EventLoop[] loops;
+    private final AtomicLong nextCaseId = new AtomicLong(1);
+    // updated by the loops, so that counting the cases waits for none of them
+    private final AtomicInteger caseCount = new AtomicInteger();
+    private volatile Listener listener;
+
+    public WorkflowEngine(final PetriNetInterface petriNet) throws ResetArcMultiplicityException {
+        this(petriNet, Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkflowEngine(final PetriNetInterface petriNet, final int nbLoops) throws ResetArcMultiplicityException {
+        this.net = new CompiledNet(petriNet);
+        this.initialMarking = compact(this.net.getInitialMarking());
+        final Map<String, List<Integer>> byLabel = new HashMap<>();
+        for (int t = 0; t < this.net.getTransitionCount(); t++) {
+            byLabel.computeIfAbsent(this.net.getTransition(t).getLabel(), label -> new ArrayList<>()).add(t);
+        }
+        for (final Map.Entry<String, List<Integer>> entry : byLabel.entrySet()) {
+            this.tasks.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.loops = new EventLoop[Math.max(1, nbLoops)];
+        for (int i = 0; i < this.loops.length; i++) {
+            this.loops[i] = new EventLoop(this.net.getPlaceCount(), i);
+        }
+    }
+
+    public void setListener(final Listener listener) {
+        this.listener = listener;
+    }
+
+    public CompiledNet getNet() {
+        return this.net;
+    }
+
+    /**
+     * Starts a case with a new ID
+     */
+    public CompletableFuture<String> startCase() {
+        return startCase("case" + this.nextCaseId.getAndIncrement());
+    }
+
+    /**
+     * @return a future failing with IllegalArgumentException if the case exists
+     */
+    public CompletableFuture<String> startCase(final String caseId) {
+        final EventLoop loop = loopOf(caseId);
+        return loop.submit(() -> {
+            if (loop.cases.putIfAbsent(caseId, this.initialMarking) != null) {
+                throw new IllegalArgumentException("Case " + caseId + " already exists");
+            }
+            this.caseCount.incrementAndGet();
+            return caseId;
+        });
+    }
+
+    /**
+     * Fires the first transition of the task label enabled in the case.
+     *
+     * @return a future of false if no such transition is enabled, failing with
+     *         IllegalArgumentException if the case or the task is unknown
+     */
+    public CompletableFuture<Boolean> fireTask(final String caseId, final String task, final String userId) {
+        final EventLoop loop = loopOf(caseId);
+        return loop.submit(() -> {
+            final int[] transitions = this.tasks.get(task);
+            if (transitions == null) {
+                throw new IllegalArgumentException("Unknown task " + task);
+            }
+            final int[] marking = loop.expand(get(loop, caseId));
+            try {
+                for (final int t : transitions) {
+                    if (this.net.isEnabled(marking, t)) {
+                        this.net.fire(marking, t);
+                        loop.cases.put(caseId, compact(marking));
+                        final Listener l = this.listener;
+                        if (l != null) {
+                            try {
+                                l.taskFired(caseId, this.net.getTransition(t), userId);
+                            } catch (RuntimeException e) {
+                                PNEditorLogger.warningLogs("Listener failed on task " + task + " of case " + caseId
+                                        + ": " + e);
+                            }
+                        }
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                Arrays.fill(marking, 0);
+            }
+        });
+    }
+
+    public CompletableFuture<CaseState> getState(final String caseId) {
+        final EventLoop loop = loopOf(caseId);
+        return loop.submit(() -> {
+            final int[] marking = loop.expand(get(loop, caseId));
+            try {
+                return new CaseState(caseId, marking.clone(), enabledTasks(marking));
+            } finally {
+                Arrays.fill(marking, 0);
+            }
+        });
+    }
+
+    /**
+     * Forgets a case, finished or not
+     *
+     * @return a future of false if the case did not exist
+     */
+    public CompletableFuture<Boolean> endCase(final String caseId) {
+        final EventLoop loop = loopOf(caseId);
+        return loop.submit(() -> {
+            if (loop.cases.remove(caseId) == null) {
+                return false;
+            }
+            this.caseCount.decrementAndGet();
+            return true;
+        });
+    }
+
+    /**
+     * Does not wait for the loops, so it can be called from a listener.
+     *
+     * @return the number of cases started and not ended by the operations done
+     *         so far
+     */
+    public int getCaseCount() {
+        return this.caseCount.get();
+    }
+
+    /**
+     * Stops the loops once the operations already asked are done
+     */
+    @Override
+    public void close() {
+        for (final EventLoop loop : this.loops) {
+            loop.executor.shutdown();
+        }
+    }
+
+    private EventLoop loopOf(final String caseId) {
+        return this.loops[Math.floorMod(caseId.hashCode(), this.loops.length)];
+    }
+
+    private static int[] get(final EventLoop loop, final String caseId) {
+        final int[] compact = loop.cases.get(caseId);
+        if (compact == null) {
+            throw new IllegalArgumentException("Unknown case " + caseId);
+        }
+        return compact;
+    }
+
+    private List<String> enabledTasks(final int[] marking) {
+        final List<String> enabled = new ArrayList<>();
+        for (final Map.Entry<String, int[]> entry : this.tasks.entrySet()) {
+            for (final int t : entry.getValue()) {
+                if (this.net.isEnabled(marking, t)) {
+                    enabled.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        return enabled;
+    }
+
+    /*
+     * A marking is kept as the pairs (place, tokens) of its marked places
+     */
+    private static int[] compact(final int[] marking) {
+        int nbMarked = 0;
+        for (final int tokens : marking) {
+            if (tokens != 0) {
+                nbMarked++;
+            }
+        }
+        if (nbMarked == 0) {
+            return EMPTY;
+        }
+        final int[] compact = new int[2 * nbMarked];
+        int i = 0;
+        for (int p = 0; p < marking.length; p++) {
+            if (marking[p] != 0) {
+                compact[i++] = p;
+                compact[i++] = marking[p];
+            }
+        }
+        return compact;
+    }
+
+    /*
+     * One thread and the cases it owns
+     */
+    private static final class EventLoop {
+
+        private final ExecutorService executor;
+        private final Map<String, int[]> cases = new HashMap<>();
+        // full marking of the case being handled, cleared after each operation
+        private final int[] scratch;
+
+        EventLoop(final int nbPlaces, final int index) {
+            this.scratch = new int[nbPlaces];
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "Workflow loop " + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        <T> CompletableFuture<T> submit(final Supplier<T> operation) {
+            return CompletableFuture.supplyAsync(operation, this.executor);
+        }
+
+        int[] expand(final int[] compact) {
+            for (int i = 0; i < compact.length; i += 2) {
+                this.scratch[compact[i]] = compact[i + 1];
+            }
+            return this.scratch;
+        }
+    }
+
+    /**
+     * State of a case when it was asked for
+     */
+    public final class CaseState {
+
+        private final String caseId;
+        private final int[] marking;
+        private final List<String> enabledTasks;
+
+        CaseState(final String caseId, final int[] marking, final List<String> enabledTasks) {
+            this.caseId = caseId;
+            this.marking = marking;
+            this.enabledTasks = Collections.unmodifiableList(enabledTasks);
+        }
+
+        public String getCaseId() {
+            return this.caseId;
+        }
+
+        public int getTokens(final AbstractPlace place) {
+            return this.marking[WorkflowEngine.this.net.indexOf(place)];
+        }
+
+        /**
+         * @return a copy of the marking, indexed like the places of getNet()
+         */
+        public int[] getMarking() {
+            return this.marking.clone();
+        }
+
+        /**
+         * @return the labels of the tasks that can be fired
+         */
+        public List<String> getEnabledTasks() {
+            return this.enabledTasks;
+        }
+
+        /**
+         * @return true if no task can be fired any more
+         */
+        public boolean isCompleted() {
+            return this.enabledTasks.isEmpty();
+        }
+    }
+
+}
@@ -16,41 +16,445 @@
  */
 package org.pneditor.workflow;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
+import org.pneditor.petrinet.AbstractTransition;
 import org.pneditor.petrinet.models.initial.Transition;
 
+import logger.PNEditorLogger;
+
 /**
+ * Appends the tasks fired in workflow cases to a log file, one line per task:
+ * case ID, time in milliseconds, user ID and task label.
+ *
+ * The static methods write one line synchronously. An instance logs
+ * asynchronously: log() only puts the line in a bounded ring buffer, and a
+ * single writer thread appends all the lines waiting in one write (group
+ * commit), then syncs the file to the disk as the FsyncPolicy says. The file
+ * is rotated when it grows too big or too old. When the buffer is full,
+ * log() waits for the writer or drops the line, as the OverflowPolicy says;
+ * both are counted.
  *
  * @author Martin Riesz <riesz.martin at gmail.com>
  */
-public class WorkflowLogger {
+public class WorkflowLogger implements AutoCloseable {
+
+    public enum FsyncPolicy {
+        /** Left to the operating system */
+        NEVER,
+        /** After every write */
+        EVERY_BATCH,
+        /** At most once per fsync interval */
+        PERIODIC
+    }
+
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
 
     private static String defaultLogDirectory = System.getProperty("user.home") + File.separator+"logs";
 
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long DEFAULT_COMMIT_INTERVAL = 1; // milliseconds
+
     public static void log(final String dirName, final String workflowFilename, final String caseId, final Transition transition, final String userId) throws IOException {
-    	final File directory = new File(dirName);
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
-        final File file = new File(dirName + File.separator + workflowFilename + ".log");
-        final OutputStream fileOutputStream = Files.newOutputStream(Paths.get(file.toURI()));
-        final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(fileOutputStream);
-        final PrintStream out = new PrintStream(bufferedOutputStream); 
-        out.println(caseId + "  " + new Date().getTime() + "    " + userId + "  " + transition.getLabel());
-        bufferedOutputStream.close();
-        fileOutputStream.close();
+        final Path file = logFile(dirName, workflowFilename);
+        final String line = line(caseId, new Date().getTime(), userId, transition.getLabel());
+        Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
     }
 
     public static void log(final String workflowFilename, final String caseId, final Transition transition, final String userId) throws IOException {
         log(defaultLogDirectory, workflowFilename, caseId, transition, userId);
     }
 
+    private static Path logFile(final String dirName, final String workflowFilename) throws IOException {
+        final Path directory = Paths.get(dirName);
+        Files.createDirectories(directory);
+        return directory.resolve(workflowFilename + ".log");
+    }
+
+    private static String line(final String caseId, final long time, final String userId, final String label) {
+        return caseId + "  " + time + "    " + userId + "  " + label + System.lineSeparator();
+    }
+
+    private final Path directory;
+    private final String workflowFilename;
+    private final Path file;
+
+    // ring buffer: lines are claimed through tail and taken at head by the writer
+    private final AtomicReferenceArray<String> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.NEVER;
+    private volatile long fsyncInterval = 1000; // milliseconds
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private volatile long commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private volatile long maxFileSize = Long.MAX_VALUE; // bytes
+    private volatile long maxFileAge = Long.MAX_VALUE; // milliseconds
+
+    private final Thread writer;
+    private volatile boolean isClosed;
+    // the writer parks until log() unparks it
+    private volatile boolean isWriterIdle;
+    private FileChannel channel;
+    private long fileSize;
+    private long fileOpened;
+    private long lastSync;
+    private boolean isSynced = true;
+
+    // backpressure metrics
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong maxQueueSize = new AtomicLong();
+    private volatile long written;
+    private volatile long batches;
+    private volatile long rotations;
+    private volatile long errors;
+
+    public WorkflowLogger(final String workflowFilename) throws IOException {
+        this(defaultLogDirectory, workflowFilename, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity lines the buffer holds, rounded up to a power of two
+     */
+    public WorkflowLogger(final String dirName, final String workflowFilename, final int capacity) throws IOException {
+        this.workflowFilename = workflowFilename;
+        this.file = logFile(dirName, workflowFilename);
+        this.directory = this.file.getParent();
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        open();
+        this.writer = new Thread(this::write, "Workflow logger " + workflowFilename);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void setFsyncPolicy(final FsyncPolicy fsyncPolicy, final long fsyncInterval) {
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * @param commitInterval milliseconds the writer waits for more lines
+     *                       between two writes
+     */
+    public void setCommitInterval(final long commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * @param maxFileSize bytes after which the file is rotated
+     * @param maxFileAge  milliseconds after which the file is rotated
+     */
+    public void setRotation(final long maxFileSize, final long maxFileAge) {
+        this.maxFileSize = maxFileSize;
+        this.maxFileAge = maxFileAge;
+    }
+
+    public boolean log(final String caseId, final AbstractTransition transition, final String userId) {
+        return log(caseId, transition.getLabel(), userId);
+    }
+
+    /**
+     * Puts a line in the buffer, never waiting for the disk
+     *
+     * @return false if the line was dropped because the buffer was full, or
+     *         the logger is closed, or its writer thread died
+     */
+    public boolean log(final String caseId, final String task, final String userId) {
+        final String line = line(caseId, new Date().getTime(), userId, task);
+        boolean hasWaited = false;
+        while (true) {
+            if (this.isClosed) {
+                this.dropped.incrementAndGet();
+                return false;
+            }
+            final long position = this.tail.get();
+            final long queued = position - this.head;
+            if (queued > this.mask) {
+                if (this.overflowPolicy == OverflowPolicy.DROP || !this.writer.isAlive()) {
+                    this.dropped.incrementAndGet();
+                    return false;
+                }
+                if (!hasWaited) {
+                    hasWaited = true;
+                    this.waits.incrementAndGet();
+                }
+                LockSupport.unpark(this.writer);
+                Thread.yield();
+            } else if (this.tail.compareAndSet(position, position + 1)) {
+                this.ring.set((int) position & this.mask, line);
+                if (queued + 1 > this.maxQueueSize.get()) {
+                    this.maxQueueSize.accumulateAndGet(queued + 1, Math::max);
+                }
+                if (this.isWriterIdle) {
+                    LockSupport.unpark(this.writer);
+                }
+                if (this.isClosed || !this.writer.isAlive()) {
+                    return isWritten(position, line);
+                }
+                return true;
+            }
+        }
+    }
+
+    /*
+     * A line put while the logger was closing may come after the last lines the
+     * writer took: once the writer is gone, the line is written only if the
+     * head went past it
+     */
+    private boolean isWritten(final long position, final String line) {
+        boolean isInterrupted = false;
+        while (this.writer.isAlive()) {
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.head > position) {
+            return true;
+        }
+        this.ring.compareAndSet((int) position & this.mask, line, null);
+        this.dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Waits until every line logged before is written
+     */
+    public void flush() {
+        final long position = this.tail.get();
+        while (this.head < position && this.writer.isAlive()) {
+            LockSupport.unpark(this.writer);
+            LockSupport.parkNanos(100000);
+        }
+    }
+
+    /**
+     * Writes the lines left, syncs and closes the file
+     */
+    @Override
+    public void close() {
+        this.isClosed = true;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Writer thread
+     */
+
+    private void write() {
+        final StringBuilder batch = new StringBuilder();
+        while (true) {
+            // closed is read before draining, so nothing logged before close is lost
+            final boolean isLast = this.isClosed;
+            long position = this.head;
+            while (true) {
+                final int slot = (int) position & this.mask;
+                final String line = this.ring.get(slot);
+                if (line == null) {
+                    if (position < this.tail.get()) {
+                        // claimed but not yet set by its producer
+                        Thread.yield();
+                        continue;
+                    }
+                    break;
+                }
+                batch.append(line);
+                this.ring.set(slot, null);
+                position++;
+            }
+            if (batch.length() > 0) {
+                commit(batch, position - this.head);
+                batch.setLength(0);
+            }
+            this.head = position;
+            if (isLast) {
+                break;
+            }
+            if (this.fsyncPolicy == FsyncPolicy.PERIODIC) {
+                sync(false);
+            }
+            // idle: parked until a line is logged, or the periodic sync is due
+            this.isWriterIdle = true;
+            if (this.tail.get() == position && !this.isClosed) {
+                if (this.fsyncPolicy == FsyncPolicy.PERIODIC && !this.isSynced) {
+                    LockSupport.parkNanos(this.fsyncInterval * 1000000);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            this.isWriterIdle = false;
+            // then waits for the lines logged along with the first one
+            if (!this.isClosed) {
+                LockSupport.parkNanos(this.commitInterval * 1000000);
+            }
+        }
+        sync(true);
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            error(e);
+        }
+    }
+
+    private void commit(final StringBuilder batch, final long lines) {
+        final long now = System.currentTimeMillis();
+        if (this.fileSize > 0 && (this.fileSize >= this.maxFileSize || now - this.fileOpened >= this.maxFileAge)) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                // the lines go on to the file that could not be rotated
+                error(e);
+            }
+        }
+        try {
+            if (!this.channel.isOpen()) {
+                open();
+            }
+            final ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                this.fileSize += this.channel.write(bytes);
+            }
+            this.written += lines;
+            this.batches++;
+            this.isSynced = false;
+            if (this.fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+                sync(true);
+            }
+        } catch (IOException e) {
+            error(e);
+        }
+    }
+
+    private void sync(final boolean isForced) {
+        final long now = System.currentTimeMillis();
+        if (this.fsyncPolicy == FsyncPolicy.NEVER || !isForced && now - this.lastSync < this.fsyncInterval) {
+            return;
+        }
+        try {
+            this.channel.force(false);
+            this.lastSync = now;
+            this.isSynced = true;
+        } catch (IOException e) {
+            error(e);
+        }
+    }
+
+    private void open() throws IOException {
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.fileSize = this.channel.size();
+        this.fileOpened = System.currentTimeMillis();
+    }
+
+    /*
+     * The full file is renamed with the time of the rotation and a new one is
+     * started. If it cannot be renamed, the file is opened again and the lines
+     * go on to it; if it cannot be opened, commit tries again.
+     */
+    private void rotate() throws IOException {
+        sync(true);
+        this.channel.close();
+        try {
+            final long now = System.currentTimeMillis();
+            Path rotated = this.directory.resolve(this.workflowFilename + "." + now + ".log");
+            for (int i = 1; Files.exists(rotated); i++) {
+                rotated = this.directory.resolve(this.workflowFilename + "." + now + "-" + i + ".log");
+            }
+            try {
+                Files.move(this.file, rotated, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(this.file, rotated);
+            }
+            this.rotations++;
+        } finally {
+            open();
+        }
+    }
+
+    private void error(final IOException e) {
+        this.errors++;
+        PNEditorLogger.severeLogs("Workflow log " + this.file + ": " + e.getMessage());
+    }
+
+    /*
+     * Metrics
+     */
+
+    /**
+     * @return the number of lines waiting in the buffer
+     */
+    public long getQueueSize() {
+        return this.tail.get() - this.head;
+    }
+
+    /**
+     * @return the largest number of lines that waited in the buffer
+     */
+    public long getMaxQueueSize() {
+        return this.maxQueueSize.get();
+    }
+
+    /**
+     * @return the number of lines that had to wait for room in the buffer
+     */
+    public long getWaitCount() {
+        return this.waits.get();
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return this.written;
+    }
+
+    /**
+     * @return the number of writes, each one of all the lines waiting
+     */
+    public long getBatchCount() {
+        return this.batches;
+    }
+
+    public long getRotationCount() {
+        return this.rotations;
+    }
+
+    public long getErrorCount() {
+        return this.errors;
+    }
+
 }
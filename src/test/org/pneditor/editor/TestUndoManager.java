@@ -0,0 +1,88 @@
+package org.pneditor.editor;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.editor.actions.edit.RedoAction;
+import org.pneditor.editor.actions.edit.UndoAction;
+import org.pneditor.editor.commands.AddPlaceCommand;
+import org.pneditor.editor.commands.AddTokenCommand;
+import org.pneditor.editor.commands.SetLabelCommand;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
+import org.pneditor.editor.gpetrinet.GraphicPlace;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestUndoManager {
+
+    /**
+     * Records the refreshes, null for a full one
+     */
+    private static class RecordingView implements UndoManager.View {
+
+        final List<Rectangle> refreshes = new ArrayList<>();
+
+        @Override
+        public void refreshAll() {
+            refreshes.add(null);
+        }
+
+        @Override
+        public void refreshArea(Rectangle area) {
+            refreshes.add(area);
+        }
+
+        @Override
+        public void setModified(boolean isModified) {
+        }
+    }
+
+    private RecordingView view;
+    private UndoManager undoManager;
+    private GraphicPetriNet net;
+    private GraphicPlace place;
+
+    @BeforeEach
+    public void setUp() {
+        view = new RecordingView();
+        undoManager = new UndoManager(view, new UndoAction(null), new RedoAction(null));
+        net = new GraphicPetriNet("sadokmelina");
+        place = new GraphicPlace(net.getPetriNet().addAbstractPlace(), 100, 100);
+        net.addElement(place);
+    }
+
+    // Tests for the area refreshed after a command
+    // ---------- UM1 ----------
+    @Test
+    public void testTokenCommandRefreshesItsNode() {
+        // a place without output arcs: no transition whose enabling may change
+        Rectangle bounds = GraphicPetriNet.getDrawnBounds(place);
+        undoManager.executeCommand(new AddTokenCommand(place, net));
+        undoManager.undoCommand();
+        undoManager.redoNextCommand();
+        assertEquals(List.of(bounds, bounds, bounds), view.refreshes);
+        assertEquals(1, place.getPlace().getTokens());
+
+        view.refreshes.clear();
+        undoManager.executeCommand(new SetLabelCommand(place, "p"));
+        assertEquals(List.of(bounds), view.refreshes);
+    }
+
+    // ---------- UM2 ----------
+    @Test
+    public void testCommandWithoutAreaRefreshesAll() {
+        AddPlaceCommand command = new AddPlaceCommand(300, 300, net);
+        undoManager.executeCommand(command);
+        assertNull(command.getChangedArea());
+        undoManager.undoCommand();
+        undoManager.redoNextCommand();
+        List<Rectangle> all = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            all.add(null);
+        }
+        assertEquals(all, view.refreshes);
+    }
+
+}
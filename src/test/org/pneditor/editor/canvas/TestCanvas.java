@@ -0,0 +1,42 @@
+package org.pneditor.editor.canvas;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCanvas {
+
+    // Tests for the merging of the damaged areas
+    // ---------- CV1 ----------
+    @Test
+    public void testOverlappingAreasMerge() {
+        List<Rectangle> areas = new ArrayList<>();
+        Canvas.addMerged(areas, new Rectangle(0, 0, 10, 10));
+        Canvas.addMerged(areas, new Rectangle(5, 5, 10, 10));
+        assertEquals(List.of(new Rectangle(0, 0, 15, 15)), areas);
+        // disjoint: kept apart
+        Canvas.addMerged(areas, new Rectangle(100, 0, 10, 10));
+        assertEquals(2, areas.size());
+        // contained: nothing grows
+        Canvas.addMerged(areas, new Rectangle(2, 2, 3, 3));
+        assertEquals(List.of(new Rectangle(100, 0, 10, 10), new Rectangle(0, 0, 15, 15)), areas);
+    }
+
+    // ---------- CV2 ----------
+    @Test
+    public void testMergeCascades() {
+        // the bridge joins both areas, whose union then meets the third one
+        List<Rectangle> areas = new ArrayList<>();
+        Canvas.addMerged(areas, new Rectangle(0, 0, 10, 10));
+        Canvas.addMerged(areas, new Rectangle(30, 0, 10, 10));
+        Canvas.addMerged(areas, new Rectangle(15, 30, 10, 10));
+        Canvas.addMerged(areas, new Rectangle(5, 0, 30, 5));
+        assertEquals(List.of(new Rectangle(15, 30, 10, 10), new Rectangle(0, 0, 40, 10)), areas);
+        Canvas.addMerged(areas, new Rectangle(20, 9, 2, 22));
+        assertEquals(List.of(new Rectangle(0, 0, 40, 40)), areas);
+    }
+
+}
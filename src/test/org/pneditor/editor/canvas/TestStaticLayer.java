@@ -0,0 +1,100 @@
+package org.pneditor.editor.canvas;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JPanel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
+import org.pneditor.editor.gpetrinet.GraphicPlace;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestStaticLayer {
+
+    private JPanel canvas;
+    private GraphicPetriNet net;
+    private StaticLayer layer;
+    private GraphicPlace place;
+
+    @BeforeEach
+    public void setUp() {
+        canvas = new JPanel();
+        canvas.setSize(200, 100);
+        net = new GraphicPetriNet("sadokmelina");
+        place = new GraphicPlace(net.getPetriNet().addAbstractPlace(), 0, 0);
+        net.addElement(place);
+        layer = new StaticLayer(canvas);
+    }
+
+    private void paint(double scale, int translationX, int translationY) {
+        BufferedImage screen = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        g.scale(scale, scale);
+        layer.draw(g, net, translationX, translationY);
+        g.dispose();
+    }
+
+    private void paint() {
+        paint(1, 100, 50);
+    }
+
+    // Tests for the cache
+    // ---------- SL1 ----------
+    @Test
+    public void testReusedWhenNothingChanged() {
+        paint();
+        assertEquals(1, layer.getRenderCount());
+        paint();
+        paint();
+        assertEquals(1, layer.getRenderCount());
+    }
+
+    // ---------- SL2 ----------
+    @Test
+    public void testRebuiltAfterEdit() {
+        paint();
+        place.setCenter(30, 10);
+        paint();
+        assertEquals(2, layer.getRenderCount());
+        paint();
+        assertEquals(2, layer.getRenderCount());
+
+        // changes the graphic net does not see, told by the root
+        layer.invalidate(new Rectangle(-20, -20, 40, 40));
+        paint();
+        assertEquals(3, layer.getRenderCount());
+        layer.invalidate();
+        paint();
+        assertEquals(4, layer.getRenderCount());
+        paint();
+        assertEquals(4, layer.getRenderCount());
+    }
+
+    // ---------- SL3 ----------
+    @Test
+    public void testRebuiltAfterZoom() {
+        paint();
+        paint(2, 100, 50);
+        assertEquals(2, layer.getRenderCount());
+        paint(2, 100, 50);
+        assertEquals(2, layer.getRenderCount());
+        // panning too
+        paint(2, 80, 50);
+        assertEquals(3, layer.getRenderCount());
+    }
+
+    // ---------- SL4 ----------
+    @Test
+    public void testRebuiltAfterResize() {
+        paint();
+        canvas.setSize(300, 100);
+        paint();
+        assertEquals(2, layer.getRenderCount());
+        paint();
+        assertEquals(2, layer.getRenderCount());
+    }
+
+}
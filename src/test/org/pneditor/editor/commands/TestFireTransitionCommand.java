@@ -0,0 +1,106 @@
+package org.pneditor.editor.commands;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.editor.gpetrinet.GraphicPetriNet;
+import org.pneditor.editor.gpetrinet.GraphicTransition;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.TokenDelta;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFireTransitionCommand {
+
+    private GraphicPetriNet gNet;
+    private PetriNetInterface net;
+    private AbstractPlace reset;
+    private AbstractPlace input;
+    private AbstractPlace inhibitor;
+    private AbstractPlace output;
+    private AbstractTransition t;
+
+    private AbstractPlace place(int tokens) {
+        AbstractPlace place = net.addAbstractPlace();
+        net.setAbstractTokens(place, tokens);
+        return place;
+    }
+
+    private int[] marking() {
+        return new int[] { reset.getTokens(), input.getTokens(), inhibitor.getTokens(), output.getTokens() };
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // t empties reset, takes a token of input while inhibitor is empty, puts 2 tokens in output
+        gNet = new GraphicPetriNet("sadokmelina");
+        net = gNet.getPetriNet();
+        reset = place(3);
+        input = place(2);
+        inhibitor = place(0);
+        output = place(1);
+        t = net.addAbstractTransition();
+        net.addResArc(reset, t);
+        net.addRegArc(input, t);
+        net.addInhibArc(inhibitor, t);
+        net.setAbstractMultiplicity(net.addRegArc(t, output), 2);
+    }
+
+    // Tests for the delta of a firing
+    // ---------- FT1 ----------
+    @Test
+    public void testDelta() throws Exception {
+        TokenDelta delta = net.fireAbstractTransitionWithDelta(t);
+        assertArrayEquals(new int[] { 0, 1, 0, 3 }, marking());
+        // the inhibitor place is only read: not in the delta
+        assertEquals(3, delta.size());
+        for (int i = 0; i < delta.size(); i++) {
+            AbstractPlace place = delta.getPlace(i);
+            int expected = place == reset ? -3 : place == input ? -1 : place == output ? 2 : 0;
+            assertEquals(expected, delta.getDelta(i));
+        }
+
+        delta.revert(net);
+        assertArrayEquals(new int[] { 3, 2, 0, 1 }, marking());
+        assertTrue(net.isEnabled(t));
+        delta.apply(net);
+        assertArrayEquals(new int[] { 0, 1, 0, 3 }, marking());
+    }
+
+    // Tests for undo and redo
+    // ---------- FT2 ----------
+    @Test
+    public void testUndoRedo() throws Exception {
+        FireTransitionCommand command = new FireTransitionCommand(new GraphicTransition(t, 0, 0), gNet);
+        command.execute();
+        assertArrayEquals(new int[] { 0, 1, 0, 3 }, marking());
+        // the reset arc needs a token in this model
+        assertFalse(net.getEnabledSet().isEnabled(t));
+        // the place emptied by the reset arc gets its 3 tokens back
+        command.undo();
+        assertArrayEquals(new int[] { 3, 2, 0, 1 }, marking());
+        assertTrue(net.getEnabledSet().isEnabled(t));
+        command.redo();
+        assertArrayEquals(new int[] { 0, 1, 0, 3 }, marking());
+        command.undo();
+        command.redo();
+        command.undo();
+        assertArrayEquals(new int[] { 3, 2, 0, 1 }, marking());
+    }
+
+    // ---------- FT3 ----------
+    @Test
+    public void testRedoAppliesSameDelta() throws Exception {
+        FireTransitionCommand command = new FireTransitionCommand(new GraphicTransition(t, 0, 0), gNet);
+        command.execute();
+        command.undo();
+        // t is now inhibited: redo does not fire again but applies the recorded delta
+        net.setAbstractTokens(inhibitor, 1);
+        assertFalse(net.isEnabled(t));
+        command.redo();
+        assertArrayEquals(new int[] { 0, 1, 1, 3 }, marking());
+        command.undo();
+        assertArrayEquals(new int[] { 3, 2, 1, 1 }, marking());
+    }
+
+}
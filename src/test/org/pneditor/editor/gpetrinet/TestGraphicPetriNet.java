@@ -0,0 +1,412 @@
+package org.pneditor.editor.gpetrinet;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGraphicPetriNet {
+
+    private static GraphicPlace place(GraphicPetriNet net, int x, int y) {
+        GraphicPlace place = new GraphicPlace();
+        place.setCenter(x, y);
+        net.addElement(place);
+        return place;
+    }
+
+    private static GraphicTransition transition(GraphicPetriNet net, int x, int y) {
+        GraphicTransition transition = new GraphicTransition();
+        transition.setCenter(x, y);
+        net.addElement(transition);
+        return transition;
+    }
+
+    private static GraphicArc arc(GraphicPetriNet net, GraphicNode source, GraphicNode destination) {
+        GraphicArc arc = new GraphicArc();
+        arc.setSource(source);
+        arc.setDestination(destination);
+        net.addElement(arc);
+        return arc;
+    }
+
+    private static Set<GraphicArc> connected(GraphicPetriNet net, GraphicNode node) {
+        return new HashSet<>(net.getConnectedGraphicArcs(node));
+    }
+
+    /**
+     * A net of random nodes, some overlapping, and of random arcs between
+     * them, some with break points
+     */
+    private static GraphicPetriNet randomNet(Random random, int nbNodes, int nbArcs) {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        List<GraphicNode> nodes = new ArrayList<>();
+        for (int i = 0; i < nbNodes; i++) {
+            int x = random.nextInt(800) - 200;
+            int y = random.nextInt(600) - 200;
+            nodes.add(random.nextBoolean() ? place(net, x, y) : transition(net, x, y));
+        }
+        for (int i = 0; i < nbArcs; i++) {
+            GraphicArc arc = arc(net, nodes.get(random.nextInt(nbNodes)), nodes.get(random.nextInt(nbNodes)));
+            if (random.nextInt(3) == 0) {
+                arc.addDistantBreakPointToEnd(new Point(random.nextInt(800) - 200, random.nextInt(600) - 200));
+            }
+        }
+        return net;
+    }
+
+    /**
+     * @return the front-most element containing the point, the last one of
+     *         the element list
+     */
+    private static GraphicElement scanAt(GraphicPetriNet net, int x, int y) {
+        GraphicElement front = null;
+        for (GraphicElement element : net.getElements()) {
+            if (element.containsPoint(x, y)) {
+                front = element;
+            }
+        }
+        return front;
+    }
+
+    private static void assertSameHits(GraphicPetriNet net, Random random) {
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(1000) - 300;
+            int y = random.nextInt(800) - 300;
+            assertSame(scanAt(net, x, y), net.getElementByXY(x, y), "at " + x + "," + y);
+        }
+        // the centers of the elements, where they overlap the most
+        for (GraphicElement element : net.getElements()) {
+            int x = element.getCenter().x;
+            int y = element.getCenter().y;
+            assertSame(scanAt(net, x, y), net.getElementByXY(x, y), "at " + x + "," + y);
+        }
+    }
+
+    /**
+     * @return the elements of the list drawn in the area, in order
+     */
+    private static List<GraphicElement> scanIn(GraphicPetriNet net, Rectangle area) {
+        List<GraphicElement> visible = new ArrayList<>();
+        for (GraphicElement element : net.getElements()) {
+            if (GraphicPetriNet.getDrawnBounds(element).intersects(area)) {
+                visible.add(element);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * @return whether the element is surely drawn in the area: the drawn
+     *         bounds of a node meet it, a segment of an arc passes near it
+     */
+    private static boolean isSurelyIn(GraphicElement element, Rectangle area) {
+        if (element.isNode()) {
+            return GraphicPetriNet.getDrawnBounds(element).intersects(area);
+        }
+        GraphicArc arc = (GraphicArc) element;
+        Rectangle near = new Rectangle(area);
+        near.grow(ElementGrid.ARC_MARGIN, ElementGrid.ARC_MARGIN);
+        Point previous = arc.getStart();
+        for (Point breakPoint : arc.getBreakPoints()) {
+            if (near.intersectsLine(previous.x, previous.y, breakPoint.x, breakPoint.y)) {
+                return true;
+            }
+            previous = breakPoint;
+        }
+        return near.intersectsLine(previous.x, previous.y, arc.getEnd().x, arc.getEnd().y);
+    }
+
+    /**
+     * The elements found are among those whose drawn bounds meet the area,
+     * back to front, and include every one surely drawn in it
+     */
+    private static void assertElementsIn(GraphicPetriNet net, Random random) {
+        for (int i = 0; i < 300; i++) {
+            // from a few pixels to the whole net and beyond
+            int size = 1 << random.nextInt(12);
+            Rectangle area = new Rectangle(random.nextInt(1400) - 600, random.nextInt(1200) - 600,
+                    random.nextInt(size) + 1, random.nextInt(size) + 1);
+            List<GraphicElement> found = net.getElementsIn(area);
+            List<GraphicElement> expected = new ArrayList<>();
+            for (GraphicElement element : scanIn(net, area)) {
+                if (found.contains(element)) {
+                    expected.add(element);
+                } else {
+                    assertFalse(isSurelyIn(element, area), "in " + area);
+                }
+            }
+            assertEquals(expected, found, "in " + area);
+        }
+    }
+
+    // Tests for the element under a point
+    // ---------- GP1 ----------
+    @Test
+    public void testFrontMost() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition t = transition(net, 110, 100);
+        GraphicTransition u = transition(net, 300, 100);
+        GraphicArc pu = arc(net, p, u);
+        GraphicArc tu = arc(net, t, u);
+
+        // the node added later is in front, every node in front of the arcs
+        assertSame(t, net.getElementByXY(105, 100));
+        assertSame(p, net.getElementByXY(90, 100));
+        // the arc added later is behind
+        assertSame(pu, net.getElementByXY(200, 100));
+        net.removeElement(pu);
+        assertSame(tu, net.getElementByXY(200, 100));
+        assertNull(net.getElementByXY(200, 150));
+        assertNull(net.getElementByXY(-5000, 7000));
+    }
+
+    // ---------- GP2 ----------
+    @Test
+    public void testMoves() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition t = transition(net, 300, 100);
+        GraphicArc pt = arc(net, p, t);
+        assertSame(pt, net.getElementByXY(200, 100));
+
+        // several cells away, to negative coordinates: the arc follows the node
+        t.moveBy(-400, 300);
+        assertNull(net.getElementByXY(300, 100));
+        assertSame(t, net.getElementByXY(-100, 400));
+        assertNull(net.getElementByXY(200, 100));
+        assertSame(pt, net.getElementByXY(0, 250));
+
+        t.setCenter(300, 100);
+        assertSame(pt, net.getElementByXY(200, 100));
+        pt.addDistantBreakPointToEnd(new Point(200, 500));
+        assertNull(net.getElementByXY(200, 100));
+        assertSame(pt, net.getElementByXY(150, 300));
+        pt.getBreakPoints().get(0).setLocation(200, -300);
+        pt.breakPointMoved();
+        assertNull(net.getElementByXY(150, 300));
+        assertSame(pt, net.getElementByXY(150, -100));
+    }
+
+    // ---------- GP3 ----------
+    @Test
+    public void testReconnects() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition t = transition(net, 300, 100);
+        GraphicTransition u = transition(net, 100, 500);
+        GraphicArc arc = arc(net, p, t);
+
+        arc.setDestination(u);
+        assertNull(net.getElementByXY(200, 100));
+        assertSame(arc, net.getElementByXY(100, 300));
+        arc.setSource(t);
+        assertNull(net.getElementByXY(100, 300));
+        assertSame(arc, net.getElementByXY(200, 300));
+        // moving the node the arc left does not move the arc
+        p.moveBy(0, 200);
+        assertSame(arc, net.getElementByXY(200, 300));
+        assertSame(p, net.getElementByXY(100, 300));
+    }
+
+    // ---------- GP4 ----------
+    @Test
+    public void testRemovals() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition t = transition(net, 100, 100);
+        net.removeElement(t);
+        assertSame(p, net.getElementByXY(100, 100));
+        // an element out of the net no longer updates the grid
+        t.moveBy(500, 0);
+        assertNull(net.getElementByXY(600, 100));
+        net.addElement(t);
+        assertSame(t, net.getElementByXY(600, 100));
+        net.removeElements();
+        assertNull(net.getElementByXY(100, 100));
+        assertNull(net.getElementByXY(600, 100));
+        p.moveBy(1, 1);
+        assertNull(net.getElementByXY(101, 101));
+    }
+
+    // ---------- GP5 ----------
+    @Test
+    public void testSameHitsAsScan() {
+        Random random = new Random(3);
+        GraphicPetriNet net = randomNet(random, 60, 80);
+        assertSameHits(net, random);
+
+        // after moves, reconnects and removals
+        List<GraphicElement> elements = new ArrayList<>(net.getElements());
+        for (GraphicElement element : elements) {
+            if (element.isNode()) {
+                if (random.nextInt(3) == 0) {
+                    element.moveBy(random.nextInt(400) - 200, random.nextInt(400) - 200);
+                }
+            } else if (random.nextInt(4) == 0) {
+                ((GraphicArc) element).setDestination(((GraphicArc) elements.get(0)).getSource());
+            } else if (random.nextInt(5) == 0) {
+                net.removeElement(element);
+            }
+        }
+        assertSameHits(net, random);
+    }
+
+    // Tests for the elements drawn in an area
+    // ---------- GP6 ----------
+    @Test
+    public void testElementsIn() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition t = transition(net, 300, 100);
+        GraphicTransition far = transition(net, 3000, 3000);
+        GraphicArc pt = arc(net, p, t);
+        GraphicArc tp = arc(net, t, p);
+        pt.addDistantBreakPointToEnd(new Point(200, -200));
+
+        // back to front: the arc added later first, then the nodes in order
+        assertEquals(List.of(tp, pt, p, t), net.getElementsIn(new Rectangle(90, 90, 220, 20)));
+        assertEquals(List.of(pt), net.getElementsIn(new Rectangle(190, -150, 20, 10)));
+        // the label drawn under a node, beyond its bounds
+        assertEquals(List.of(p, t), net.getElementsIn(new Rectangle(200, 130, 10, 10)));
+        assertEquals(List.of(far), net.getElementsIn(new Rectangle(2990, 2990, 20, 20)));
+        assertEquals(List.of(), net.getElementsIn(new Rectangle(1000, 1000, 20, 20)));
+
+        // the area of a moved element
+        far.setCenter(100, 1000);
+        assertEquals(List.of(), net.getElementsIn(new Rectangle(2990, 2990, 20, 20)));
+        assertEquals(List.of(far), net.getElementsIn(new Rectangle(90, 990, 20, 20)));
+        t.moveBy(0, 400);
+        assertEquals(List.of(tp, pt), net.getElementsIn(new Rectangle(190, 290, 20, 20)));
+        net.removeElement(tp);
+        assertEquals(List.of(pt), net.getElementsIn(new Rectangle(190, 290, 20, 20)));
+    }
+
+    // ---------- GP7 ----------
+    @Test
+    public void testElementsInAsScan() {
+        Random random = new Random(7);
+        GraphicPetriNet net = randomNet(random, 60, 80);
+        assertElementsIn(net, random);
+
+        List<GraphicElement> elements = new ArrayList<>(net.getElements());
+        for (GraphicElement element : elements) {
+            if (element.isNode()) {
+                if (random.nextInt(3) == 0) {
+                    element.moveBy(random.nextInt(1000) - 500, random.nextInt(1000) - 500);
+                }
+            } else if (random.nextInt(4) == 0) {
+                ((GraphicArc) element).addOrGetBreakPoint(element.getCenter());
+                ((GraphicArc) element).getBreakPoints().get(0).translate(random.nextInt(600) - 300, 0);
+                ((GraphicArc) element).breakPointMoved();
+            } else if (random.nextInt(5) == 0) {
+                net.removeElement(element);
+            }
+        }
+        assertElementsIn(net, random);
+    }
+
+    // Tests for the elements by kind and the arcs of each node
+    // ---------- GP8 ----------
+    @Test
+    public void testConnectedArcs() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition t = transition(net, 300, 100);
+        GraphicTransition u = transition(net, 100, 300);
+        GraphicArc pt = arc(net, p, t);
+        GraphicArc tp = arc(net, t, p);
+        GraphicArc pu = arc(net, p, u);
+        assertEquals(Set.of(pt, tp, pu), connected(net, p));
+        assertEquals(Set.of(pt, tp), connected(net, t));
+        assertEquals(Set.of(pu), connected(net, u));
+
+        // a read-only view, that follows the net while the node is in it
+        List<GraphicArc> connected = net.getConnectedGraphicArcs(u);
+        assertThrows(UnsupportedOperationException.class, connected::clear);
+        assertThrows(UnsupportedOperationException.class, () -> connected.add(pt));
+        net.removeElement(pu);
+        assertEquals(List.of(), connected);
+        assertEquals(Set.of(pt, tp), connected(net, p));
+        assertEquals(Set.of(), connected(net, u));
+
+        tp.setSource(u);
+        assertEquals(Set.of(pt), connected(net, t));
+        assertEquals(Set.of(tp), connected(net, u));
+        assertEquals(List.of(tp), connected);
+        // an arc from a node to itself
+        pt.setDestination(p);
+        assertEquals(Set.of(), connected(net, t));
+        assertEquals(Set.of(pt, tp), connected(net, p));
+        assertEquals(List.of(pt, pt), net.getConnectedGraphicArcs(p).stream().filter(arc -> arc == pt).toList());
+        net.removeElement(pt);
+        assertEquals(Set.of(tp), connected(net, p));
+
+        // arcs out of the net are not counted, nor changed when reconnected
+        pu.setDestination(t);
+        assertEquals(Set.of(), connected(net, t));
+        net.removeElements();
+        assertEquals(Set.of(), connected(net, p));
+        assertEquals(Set.of(), connected(net, u));
+    }
+
+    // ---------- GP9 ----------
+    @Test
+    public void testElementsByKind() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        Set<GraphicPlace> places = net.getPlaces();
+        Set<GraphicTransition> transitions = net.getTransitions();
+        Set<GraphicArc> arcs = net.getArcs();
+        GraphicPlace p = place(net, 100, 100);
+        GraphicPlace q = place(net, 100, 300);
+        GraphicTransition t = transition(net, 300, 100);
+        GraphicArc pt = arc(net, p, t);
+        GraphicArc tq = arc(net, t, q);
+
+        // views kept up to date
+        assertEquals(Set.of(p, q), places);
+        assertEquals(Set.of(t), transitions);
+        assertEquals(Set.of(pt, tq), arcs);
+        assertThrows(UnsupportedOperationException.class, () -> places.add(new GraphicPlace()));
+        assertThrows(UnsupportedOperationException.class, () -> arcs.remove(pt));
+
+        net.removeAll(Set.of(q, tq));
+        assertEquals(Set.of(p), places);
+        assertEquals(Set.of(pt), arcs);
+        net.addElement(q);
+        assertEquals(Set.of(p, q), places);
+        net.removeElements();
+        assertEquals(Set.of(), places);
+        assertEquals(Set.of(), transitions);
+        assertEquals(Set.of(), arcs);
+    }
+
+    // ---------- GP10 ----------
+    @Test
+    public void testTokensChangedArea() {
+        GraphicPetriNet net = new GraphicPetriNet("sadokmelina");
+        GraphicPlace p = place(net, 100, 100);
+        GraphicTransition in = transition(net, 100, 600);
+        GraphicTransition out = transition(net, 600, 100);
+        arc(net, in, p);
+        GraphicArc arc = arc(net, p, out);
+
+        // the transitions p is an input of, whose enabled border may change
+        Rectangle area = net.getTokensChangedArea(p);
+        assertTrue(area.contains(GraphicPetriNet.getDrawnBounds(p)));
+        assertTrue(area.contains(GraphicPetriNet.getDrawnBounds(out)));
+        assertFalse(area.intersects(in.getStart().x, in.getStart().y, in.getWidth(), in.getHeight()));
+
+        arc.setDestination(in);
+        area = net.getTokensChangedArea(p);
+        assertTrue(area.contains(GraphicPetriNet.getDrawnBounds(in)));
+        assertFalse(area.intersects(out.getStart().x, out.getStart().y, out.getWidth(), out.getHeight()));
+    }
+
+}
@@ -0,0 +1,148 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+
+/**
+ * Small nets built through the adapter, shared by the tests of the analysis
+ * algorithms. The number of reachable markings of each one is known.
+ */
+public final class SampleNets {
+
+    private SampleNets() {
+    }
+
+    /**
+     * Two processes entering a critical section guarded by a semaphore:
+     * 3 markings, 4 edges, no deadlock.
+     */
+    public static PetriNetInterface mutex() throws UnimplementedCaseException {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace semaphore = place(net, "semaphore", 1);
+        for (int i = 1; i <= 2; i++) {
+            AbstractPlace idle = place(net, "idle" + i, 1);
+            AbstractPlace critical = place(net, "critical" + i, 0);
+            AbstractTransition enter = transition(net, "enter" + i);
+            AbstractTransition exit = transition(net, "exit" + i);
+            net.addRegArc(idle, enter);
+            net.addRegArc(semaphore, enter);
+            net.addRegArc(enter, critical);
+            net.addRegArc(critical, exit);
+            net.addRegArc(exit, idle);
+            net.addRegArc(exit, semaphore);
+        }
+        return net;
+    }
+
+    /**
+     * A fork into n independent steps joined at the end: 2^n + 2 markings,
+     * n * 2^(n-1) + 2 edges, one deadlock (the end).
+     */
+    public static PetriNetInterface forkJoin(int n) throws UnimplementedCaseException {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace start = place(net, "start", 1);
+        AbstractPlace end = place(net, "end", 0);
+        AbstractTransition fork = transition(net, "fork");
+        AbstractTransition join = transition(net, "join");
+        net.addRegArc(start, fork);
+        net.addRegArc(join, end);
+        for (int i = 0; i < n; i++) {
+            AbstractPlace before = place(net, "before" + i, 0);
+            AbstractPlace after = place(net, "after" + i, 0);
+            AbstractTransition step = transition(net, "step" + i);
+            net.addRegArc(fork, before);
+            net.addRegArc(before, step);
+            net.addRegArc(step, after);
+            net.addRegArc(after, join);
+        }
+        return net;
+    }
+
+    /**
+     * A buffer of the given capacity filled and emptied one token at a time:
+     * capacity + 1 markings, 2 * capacity edges.
+     */
+    public static PetriNetInterface buffer(int capacity) throws UnimplementedCaseException {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace free = place(net, "free", capacity);
+        AbstractPlace full = place(net, "full", 0);
+        AbstractTransition produce = transition(net, "produce");
+        AbstractTransition consume = transition(net, "consume");
+        net.addRegArc(free, produce);
+        net.addRegArc(produce, full);
+        net.addRegArc(full, consume);
+        net.addRegArc(consume, free);
+        return net;
+    }
+
+    /**
+     * t1 moves the 2 tokens of p1 to p2 and p4; t2, inhibited by p1, moves a
+     * token of p2 to p3 and resets p4, which must hold a token: 4 markings,
+     * 3 edges, one deadlock with a token left in p2.
+     */
+    public static PetriNetInterface inhibitorReset() throws UnimplementedCaseException {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p1 = place(net, "p1", 2);
+        AbstractPlace p2 = place(net, "p2", 0);
+        AbstractPlace p3 = place(net, "p3", 0);
+        AbstractPlace p4 = place(net, "p4", 0);
+        AbstractTransition t1 = transition(net, "t1");
+        AbstractTransition t2 = transition(net, "t2");
+        net.addRegArc(p1, t1);
+        net.addRegArc(t1, p2);
+        net.addRegArc(t1, p4);
+        net.addInhibArc(p1, t2);
+        net.addRegArc(p2, t2);
+        net.addResArc(p4, t2);
+        net.addRegArc(t2, p3);
+        return net;
+    }
+
+    /**
+     * A source transition putting the given number of tokens in its place each
+     * time it fires: unbounded, and overflows an int when weight is large.
+     */
+    public static PetriNetInterface source(int weight) throws UnimplementedCaseException, ResetArcMultiplicityException {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p = place(net, "p", 0);
+        AbstractTransition t = transition(net, "t");
+        net.setAbstractMultiplicity(net.addRegArc(t, p), weight);
+        return net;
+    }
+
+    public static AbstractPlace place(PetriNetInterface net, String label, int tokens) {
+        AbstractPlace place = net.addAbstractPlace();
+        place.setLabel(label);
+        net.setAbstractTokens(place, tokens);
+        return place;
+    }
+
+    public static AbstractTransition transition(PetriNetInterface net, String label) {
+        AbstractTransition transition = net.addAbstractTransition();
+        transition.setLabel(label);
+        return transition;
+    }
+
+    public static AbstractPlace findPlace(CompiledNet net, String label) {
+        for (int p = 0; p < net.getPlaceCount(); p++) {
+            if (net.getPlace(p).getLabel().equals(label)) {
+                return net.getPlace(p);
+            }
+        }
+        throw new IllegalArgumentException("No place " + label);
+    }
+
+    public static AbstractTransition findTransition(CompiledNet net, String label) {
+        for (int t = 0; t < net.getTransitionCount(); t++) {
+            if (net.getTransition(t).getLabel().equals(label)) {
+                return net.getTransition(t);
+            }
+        }
+        throw new IllegalArgumentException("No transition " + label);
+    }
+
+}
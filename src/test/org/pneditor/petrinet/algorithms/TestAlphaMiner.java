@@ -0,0 +1,100 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAlphaMiner {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The log L1 of the textbook: [abcd^3, acbd^2, aed]
+     */
+    private static List<String[]> textbookLog() {
+        List<String[]> traces = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            traces.add(new String[] { "a", "b", "c", "d" });
+        }
+        for (int i = 0; i < 2; i++) {
+            traces.add(new String[] { "a", "c", "b", "d" });
+        }
+        traces.add(new String[] { "a", "e", "d" });
+        return traces;
+    }
+
+    private static Set<List<Set<String>>> pairs(AlphaMiner miner) {
+        Set<List<Set<String>>> pairs = new HashSet<>();
+        for (BitSet[] pair : miner.findPairs()) {
+            pairs.add(List.of(labels(miner, pair[0]), labels(miner, pair[1])));
+        }
+        return pairs;
+    }
+
+    private static Set<String> labels(AlphaMiner miner, BitSet activities) {
+        Set<String> labels = new HashSet<>();
+        for (int a = activities.nextSetBit(0); a >= 0; a = activities.nextSetBit(a + 1)) {
+            labels.add(miner.getGraph().getActivity(a));
+        }
+        return labels;
+    }
+
+    private static final Set<List<Set<String>>> TEXTBOOK_PAIRS = Set.of(List.of(Set.of("a"), Set.of("b", "e")),
+            List.of(Set.of("a"), Set.of("c", "e")), List.of(Set.of("b", "e"), Set.of("d")),
+            List.of(Set.of("c", "e"), Set.of("d")));
+
+    // Tests on the textbook log
+    // ---------- AM1 ----------
+    @Test
+    public void testTextbookLog() throws Exception {
+        Path log = TestDirectlyFollowsGraph.lineLog(directory.resolve("events.log"), textbookLog());
+        AlphaMiner miner = new AlphaMiner(DirectlyFollowsGraph.count(log, 2));
+        assertEquals(TEXTBOOK_PAIRS, pairs(miner));
+
+        // the net found replays its log perfectly
+        PetriNetInterface net = new PetriNetAdapter();
+        miner.build(net);
+        assertEquals(5, net.getTransitions().size());
+        assertEquals(6, net.getPlaces().size());
+        ReplayResult result = new TokenReplay(net).replay(log);
+        assertEquals(6, result.getCaseCount());
+        assertEquals(6, result.getFittingCaseCount());
+        assertEquals(1, result.getFitness());
+    }
+
+    // ---------- AM2 ----------
+    @Test
+    public void testMinimumCount() throws Exception {
+        // the log twice, and a noisy case where d follows a directly
+        List<String[]> traces = textbookLog();
+        traces.addAll(textbookLog());
+        traces.add(new String[] { "a", "d" });
+        Path log = TestDirectlyFollowsGraph.lineLog(directory.resolve("events.log"), traces);
+        AlphaMiner miner = new AlphaMiner(DirectlyFollowsGraph.count(log, 2));
+        assertNotEquals(TEXTBOOK_PAIRS, pairs(miner));
+        miner.setMinimumCount(2);
+        assertEquals(TEXTBOOK_PAIRS, pairs(miner));
+    }
+
+    // ---------- AM3 ----------
+    @Test
+    public void testSelfLoop() throws Exception {
+        // b follows itself: it gets no place, a and c stay connected
+        List<String[]> traces = List.of(new String[] { "a", "b", "c" }, new String[] { "a", "b", "b", "c" },
+                new String[] { "a", "c" });
+        Path log = TestDirectlyFollowsGraph.xesLog(directory.resolve("events.xes"), traces);
+        AlphaMiner miner = new AlphaMiner(DirectlyFollowsGraph.count(log, 1));
+        assertEquals(Set.of(List.of(Set.of("a"), Set.of("c"))), pairs(miner));
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.Boundedness;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBoundedness {
+
+    private PetriNetInterface net;
+    private AbstractPlace p1;
+    private AbstractPlace p2;
+    private AbstractTransition t1;
+    private AbstractTransition t2;
+
+    @BeforeEach
+    public void setUp() throws UnimplementedCaseException {
+        // p1 -> t1 -> p2 -> t2 -> p1 with 2 tokens
+        net = new PetriNetAdapter();
+        p1 = net.addAbstractPlace();
+        p2 = net.addAbstractPlace();
+        t1 = net.addAbstractTransition();
+        t2 = net.addAbstractTransition();
+        net.addRegArc(p1, t1);
+        net.addRegArc(t1, p2);
+        net.addRegArc(p2, t2);
+        net.addRegArc(t2, p1);
+        net.setAbstractTokens(p1, 2);
+    }
+
+    // ---------- B1 ----------
+    @Test
+    public void testBoundedCycle() throws ResetArcMultiplicityException {
+        assertTrue(net.isBounded());
+        Map<AbstractPlace, Integer> bounds = new Boundedness(net).getBounds();
+        assertEquals(2, bounds.get(p1));
+        assertEquals(2, bounds.get(p2));
+    }
+
+    // ---------- B2 ----------
+    @Test
+    public void testUnboundedPlace() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        // t1 also puts a token in p3 each time it fires
+        AbstractPlace p3 = net.addAbstractPlace();
+        net.addRegArc(t1, p3);
+        assertFalse(net.isBounded());
+        Map<AbstractPlace, Integer> bounds = new Boundedness(net).getBounds();
+        assertEquals(CoverabilityGraph.OMEGA, bounds.get(p3));
+        assertEquals(2, bounds.get(p1));
+    }
+
+    // ---------- B3 ----------
+    @Test
+    public void testInhibitorAndResetEnabling() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        // t2 is enabled only once p1 is empty: its enabling must follow the places t1 changes
+        CoverabilityGraph graph = new CoverabilityGraph(new CompiledNet(SampleNets.inhibitorReset()));
+        assertTrue(graph.isComplete());
+        assertTrue(graph.isBounded());
+        assertEquals(4, graph.getNodeCount());
+        assertEquals(3, graph.getEdgeCount());
+    }
+
+    // ---------- B4 ----------
+    @Test
+    public void testNodeCap() throws ResetArcMultiplicityException {
+        // the cycle has 3 markings
+        CompiledNet compiled = new CompiledNet(net);
+        assertEquals(2, Boundedness.getBounds(compiled, 3).get(p2));
+        assertThrows(IllegalStateException.class, () -> Boundedness.getBounds(compiled, 2));
+    }
+
+}
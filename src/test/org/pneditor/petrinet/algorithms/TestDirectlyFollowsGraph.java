@@ -0,0 +1,140 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDirectlyFollowsGraph {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Writes the traces as a line log, their events interleaved one case
+     * after the other
+     */
+    static Path lineLog(Path file, List<String[]> traces) throws Exception {
+        List<String> lines = new ArrayList<>();
+        int longest = 0;
+        for (String[] trace : traces) {
+            longest = Math.max(longest, trace.length);
+        }
+        for (int i = 0; i < longest; i++) {
+            for (int c = 0; c < traces.size(); c++) {
+                if (i < traces.get(c).length) {
+                    lines.add("case" + c + " " + lines.size() + " user " + traces.get(c)[i]);
+                }
+            }
+        }
+        return Files.write(file, lines);
+    }
+
+    static Path xesLog(Path file, List<String[]> traces) throws Exception {
+        StringBuilder xes = new StringBuilder("<log>\n");
+        for (int c = 0; c < traces.size(); c++) {
+            xes.append("<trace><string key=\"concept:name\" value=\"case").append(c).append("\"/>\n");
+            for (String label : traces.get(c)) {
+                xes.append("<event><string key=\"concept:name\" value=\"").append(label).append("\"/></event>\n");
+            }
+            xes.append("</trace>\n");
+        }
+        return Files.writeString(file, xes.append("</log>\n"));
+    }
+
+    private static void assertSameCounts(DirectlyFollowsGraph expected, DirectlyFollowsGraph graph) {
+        assertEquals(expected.getActivityCount(), graph.getActivityCount());
+        assertEquals(expected.getCaseCount(), graph.getCaseCount());
+        assertEquals(expected.getEventCount(), graph.getEventCount());
+        assertEquals(expected.getPairCount(), graph.getPairCount());
+        for (int a = 0; a < expected.getActivityCount(); a++) {
+            int ga = graph.indexOf(expected.getActivity(a));
+            assertEquals(expected.getFrequency(a), graph.getFrequency(ga));
+            assertEquals(expected.getStartCount(a), graph.getStartCount(ga));
+            assertEquals(expected.getEndCount(a), graph.getEndCount(ga));
+            for (int b = 0; b < expected.getActivityCount(); b++) {
+                assertEquals(expected.getCount(a, b), graph.getCount(ga, graph.indexOf(expected.getActivity(b))));
+            }
+        }
+    }
+
+    // Tests for the counts
+    // ---------- DF1 ----------
+    @Test
+    public void testCounts() throws Exception {
+        Path log = lineLog(directory.resolve("events.log"),
+                List.of(new String[] { "a", "b", "b", "c" }, new String[] { "a", "c" }, new String[] { "b" }));
+        Files.writeString(log, Files.readString(log) + "broken" + System.lineSeparator());
+        DirectlyFollowsGraph graph = DirectlyFollowsGraph.count(log, 2);
+        int a = graph.indexOf("a");
+        int b = graph.indexOf("b");
+        int c = graph.indexOf("c");
+        assertEquals(3, graph.getActivityCount());
+        assertEquals(-1, graph.indexOf("d"));
+        assertEquals("b", graph.getActivity(b));
+        assertEquals(3, graph.getCaseCount());
+        assertEquals(7, graph.getEventCount());
+        assertEquals(1, graph.getMalformedLineCount());
+        assertEquals(1, graph.getCount(a, b));
+        assertEquals(1, graph.getCount(b, b));
+        assertEquals(1, graph.getCount(b, c));
+        assertEquals(1, graph.getCount(a, c));
+        assertEquals(0, graph.getCount(c, a));
+        assertEquals(4, graph.getPairCount());
+        assertEquals(3, graph.getFrequency(b));
+        assertEquals(2, graph.getStartCount(a));
+        assertEquals(1, graph.getStartCount(b));
+        assertEquals(2, graph.getEndCount(c));
+        assertEquals(1, graph.getEndCount(b));
+    }
+
+    // ---------- DF2 ----------
+    @Test
+    public void testCasesAcrossChunks() throws Exception {
+        // long cases interleaved, so that each one runs over every chunk
+        List<String[]> traces = new ArrayList<>();
+        Map<String, Long> expected = new HashMap<>();
+        for (int c = 0; c < 300; c++) {
+            String[] trace = new String[40 + c % 7];
+            for (int i = 0; i < trace.length; i++) {
+                trace[i] = "task" + (i * (c % 5 + 1)) % 11;
+                if (i > 0) {
+                    expected.merge(trace[i - 1] + ">" + trace[i], 1L, Long::sum);
+                }
+            }
+            traces.add(trace);
+        }
+        Path log = lineLog(directory.resolve("events.log"), traces);
+        DirectlyFollowsGraph single = DirectlyFollowsGraph.countLines(log, 1);
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            String[] pair = entry.getKey().split(">");
+            assertEquals(entry.getValue(), single.getCount(single.indexOf(pair[0]), single.indexOf(pair[1])));
+        }
+        assertEquals(expected.size(), single.getPairCount());
+        assertEquals(300, single.getCaseCount());
+        assertEquals(300, single.getStartCount(single.indexOf("task0")));
+
+        // the chunks of more workers give the same counts
+        for (int nbWorkers : new int[] { 3, 8, 16 }) {
+            assertSameCounts(single, DirectlyFollowsGraph.countLines(log, nbWorkers));
+        }
+    }
+
+    // ---------- DF3 ----------
+    @Test
+    public void testXesLikeLines() throws Exception {
+        List<String[]> traces = List.of(new String[] { "a", "b", "c" }, new String[] { "a", "c", "b", "c" },
+                new String[] { "d" });
+        DirectlyFollowsGraph lines = DirectlyFollowsGraph.count(lineLog(directory.resolve("events.log"), traces), 4);
+        DirectlyFollowsGraph xes = DirectlyFollowsGraph.count(xesLog(directory.resolve("events.xes"), traces), 4);
+        assertSameCounts(lines, xes);
+        assertEquals(1, xes.getEndCount(xes.indexOf("d")));
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGspnSimulation {
+
+    private static final double LAMBDA = 1;
+    private static final double MU = 2;
+
+    // Tests against the closed form of the M/M/1 queue
+    // ---------- GS1 ----------
+    @Test
+    public void testMM1() throws Exception {
+        // arrivals of rate LAMBDA from a source transition, one server of rate MU
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace queue = SampleNets.place(net, "queue", 0);
+        AbstractTransition arrive = SampleNets.transition(net, "arrive");
+        AbstractTransition serve = SampleNets.transition(net, "serve");
+        net.addRegArc(arrive, queue);
+        net.addRegArc(queue, serve);
+        StochasticAttributes attributes = new StochasticAttributes();
+        attributes.setDelay(arrive, Delay.exponential(LAMBDA));
+        attributes.setDelay(serve, Delay.exponential(MU));
+
+        GspnResult result = new GspnSimulation(net, attributes).run(1000, 201000, 11);
+        double rho = LAMBDA / MU;
+        assertEquals(200000, result.getMeasuredTime(), 1e-6);
+        assertEquals(rho / (1 - rho), result.getMeanTokens(queue), 0.05);
+        assertEquals(LAMBDA, result.getThroughput(arrive), 0.02);
+        assertEquals(LAMBDA, result.getThroughput(serve), 0.02);
+        // the server is busy, that is serve enabled, a fraction rho of the time
+        assertEquals(rho, result.getUtilisation(serve), 0.01);
+        assertEquals(1, result.getUtilisation(arrive), 1e-12);
+    }
+
+    // ---------- GS2 ----------
+    @Test
+    public void testSameSeedSameResult() throws Exception {
+        GspnSimulation simulation = new GspnSimulation(SampleNets.mutex(), new StochasticAttributes());
+        assertEquals(simulation.run(500, 3).toString(), simulation.run(500, 3).toString());
+        assertNotEquals(simulation.run(500, 3).toString(), simulation.run(500, 4).toString());
+    }
+
+    // Tests for the immediate transitions
+    // ---------- GS3 ----------
+    @Test
+    public void testWeightsAndPriorities() throws Exception {
+        // from start, immediate a or b, then back to start after a timed delay
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace start = SampleNets.place(net, "start", 1);
+        AbstractPlace done = SampleNets.place(net, "done", 0);
+        AbstractTransition a = SampleNets.transition(net, "a");
+        AbstractTransition b = SampleNets.transition(net, "b");
+        AbstractTransition back = SampleNets.transition(net, "back");
+        net.addRegArc(start, a);
+        net.addRegArc(start, b);
+        net.addRegArc(a, done);
+        net.addRegArc(b, done);
+        net.addRegArc(done, back);
+        net.addRegArc(back, start);
+        StochasticAttributes attributes = new StochasticAttributes();
+        attributes.setDelay(a, Delay.IMMEDIATE);
+        attributes.setDelay(b, Delay.IMMEDIATE);
+        attributes.setWeight(b, 3);
+
+        GspnResult result = new GspnSimulation(net, attributes).run(20000, 5);
+        double nbA = result.getFiringCount(a);
+        double nbB = result.getFiringCount(b);
+        assertEquals(0.25, nbA / (nbA + nbB), 0.02);
+        // immediate firings take no time: the token is always in done
+        assertEquals(0, result.getMeanTokens(start), 1e-12);
+        assertEquals(1, result.getMeanTokens(done), 1e-12);
+
+        attributes.setPriority(a, 1);
+        result = new GspnSimulation(net, attributes).run(1000, 5);
+        assertEquals(0, result.getFiringCount(b));
+        assertEquals(result.getFiringCount(back) + 1, result.getFiringCount(a));
+    }
+
+    // ---------- GS4 ----------
+    @Test
+    public void testImmediateLoop() throws Exception {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p = SampleNets.place(net, "p", 1);
+        AbstractTransition t = SampleNets.transition(net, "t");
+        net.addRegArc(p, t);
+        net.addRegArc(t, p);
+        StochasticAttributes attributes = new StochasticAttributes();
+        attributes.setDelay(t, Delay.IMMEDIATE);
+        assertThrows(IllegalStateException.class, () -> new GspnSimulation(net, attributes).run(10, 1));
+    }
+
+    // Tests for the timed transitions
+    // ---------- GS5 ----------
+    @Test
+    public void testDeterministicDelay() throws Exception {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p = SampleNets.place(net, "p", 1);
+        AbstractTransition t = SampleNets.transition(net, "t");
+        net.addRegArc(p, t);
+        net.addRegArc(t, p);
+        StochasticAttributes attributes = new StochasticAttributes();
+        attributes.setDelay(t, Delay.deterministic(2));
+        GspnResult result = new GspnSimulation(net, attributes).run(101, 1);
+        assertEquals(50, result.getFiringCount(t));
+        assertEquals(1, result.getMeanTokens(p), 1e-12);
+    }
+
+    // ---------- GS6 ----------
+    @Test
+    public void testBadArguments() throws Exception {
+        GspnSimulation simulation = new GspnSimulation(SampleNets.mutex(), new StochasticAttributes());
+        assertThrows(IllegalArgumentException.class, () -> simulation.run(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> simulation.run(10, 5, 1));
+        assertThrows(IllegalArgumentException.class, () -> simulation.run(-1, 5, 1));
+        assertThrows(IllegalArgumentException.class, () -> Delay.exponential(0));
+        assertThrows(IllegalArgumentException.class, () -> Delay.uniform(2, 1));
+    }
+
+}
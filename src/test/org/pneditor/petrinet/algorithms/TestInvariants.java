@@ -0,0 +1,172 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestInvariants {
+
+    /**
+     * @return the change of the tokens of each place when t fires
+     */
+    private static long[] incidence(CompiledNet net, int t) {
+        long[] delta = new long[net.getPlaceCount()];
+        for (int i = net.preStart[t]; i < net.preStart[t + 1]; i++) {
+            delta[net.prePlace[i]] -= net.preWeight[i];
+        }
+        for (int i = net.postStart[t]; i < net.postStart[t + 1]; i++) {
+            delta[net.postPlace[i]] += net.postWeight[i];
+        }
+        return delta;
+    }
+
+    private static void assertPlaceInvariants(Invariants invariants) {
+        CompiledNet net = invariants.getNet();
+        for (long[] y : invariants.getPlaceInvariants()) {
+            assertSemiflow(y);
+            for (int t = 0; t < net.getTransitionCount(); t++) {
+                long[] delta = incidence(net, t);
+                long sum = 0;
+                for (int p = 0; p < delta.length; p++) {
+                    sum += y[p] * delta[p];
+                }
+                assertEquals(0, sum);
+            }
+        }
+    }
+
+    private static void assertTransitionInvariants(Invariants invariants) {
+        CompiledNet net = invariants.getNet();
+        for (long[] x : invariants.getTransitionInvariants()) {
+            assertSemiflow(x);
+            long[] sum = new long[net.getPlaceCount()];
+            for (int t = 0; t < x.length; t++) {
+                long[] delta = incidence(net, t);
+                for (int p = 0; p < delta.length; p++) {
+                    sum[p] += x[t] * delta[p];
+                }
+            }
+            assertArrayEquals(new long[net.getPlaceCount()], sum);
+        }
+    }
+
+    private static void assertSemiflow(long[] weights) {
+        boolean isEmpty = true;
+        for (long weight : weights) {
+            assertTrue(weight >= 0);
+            isEmpty &= weight == 0;
+        }
+        assertFalse(isEmpty);
+    }
+
+    private static Set<Set<String>> placeSupports(Invariants invariants) {
+        Set<Set<String>> supports = new HashSet<>();
+        for (long[] y : invariants.getPlaceInvariants()) {
+            Set<String> support = new HashSet<>();
+            for (int p = 0; p < y.length; p++) {
+                if (y[p] > 0) {
+                    support.add(invariants.getNet().getPlace(p).getLabel());
+                }
+            }
+            supports.add(support);
+        }
+        return supports;
+    }
+
+    // Tests for the semiflows
+    // ---------- IV1 ----------
+    @Test
+    public void testMutex() throws Exception {
+        Invariants invariants = new Invariants(SampleNets.mutex());
+        assertPlaceInvariants(invariants);
+        assertTransitionInvariants(invariants);
+        assertEquals(Set.of(Set.of("semaphore", "critical1", "critical2"), Set.of("idle1", "critical1"),
+                Set.of("idle2", "critical2")), placeSupports(invariants));
+        // enter and exit of each process
+        assertEquals(2, invariants.getTransitionInvariants().size());
+        assertTrue(invariants.isComplete());
+        assertTrue(invariants.isCoveredByPlaceInvariants());
+        assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, invariants.getBounds());
+    }
+
+    // ---------- IV2 ----------
+    @Test
+    public void testWeightedArcs() throws Exception {
+        // t takes 2 tokens of p1 and gives 1 to p2, u gives them back
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p1 = SampleNets.place(net, "p1", 5);
+        AbstractPlace p2 = SampleNets.place(net, "p2", 0);
+        AbstractTransition t = SampleNets.transition(net, "t");
+        AbstractTransition u = SampleNets.transition(net, "u");
+        net.setAbstractMultiplicity(net.addRegArc(p1, t), 2);
+        net.addRegArc(t, p2);
+        net.addRegArc(p2, u);
+        net.setAbstractMultiplicity(net.addRegArc(u, p1), 2);
+        Invariants invariants = new Invariants(net);
+        assertPlaceInvariants(invariants);
+        assertTransitionInvariants(invariants);
+        List<long[]> placeInvariants = invariants.getPlaceInvariants();
+        assertEquals(1, placeInvariants.size());
+        assertArrayEquals(new long[] { 1, 2 }, placeInvariants.get(0));
+        assertEquals(1, invariants.getTransitionInvariants().size());
+        assertArrayEquals(new long[] { 1, 1 }, invariants.getTransitionInvariants().get(0));
+        // p1 + 2 p2 = 5
+        assertEquals(5, invariants.getBound(p1));
+        assertEquals(2, invariants.getBound(p2));
+    }
+
+    // ---------- IV3 ----------
+    @Test
+    public void testNoRepetitiveBehaviour() throws Exception {
+        Invariants invariants = new Invariants(SampleNets.forkJoin(3));
+        assertPlaceInvariants(invariants);
+        assertEquals(3, invariants.getPlaceInvariants().size());
+        assertTrue(invariants.isCoveredByPlaceInvariants());
+        assertEquals(List.of(), invariants.getTransitionInvariants());
+    }
+
+    // ---------- IV4 ----------
+    @Test
+    public void testUncoveredPlace() throws Exception {
+        Invariants invariants = new Invariants(SampleNets.source(3));
+        assertEquals(List.of(), invariants.getPlaceInvariants());
+        assertFalse(invariants.isCoveredByPlaceInvariants());
+        assertArrayEquals(new int[] { -1 }, invariants.getBounds());
+
+        // a reset only lowers the weighted sum: the bound still holds
+        invariants = new Invariants(SampleNets.inhibitorReset());
+        assertPlaceInvariants(invariants);
+        CompiledNet net = invariants.getNet();
+        ReachabilityGraph graph = new StateSpaceExplorer(net).explore();
+        int[] bounds = invariants.getBounds();
+        for (int state = 0; state < graph.getStateCount(); state++) {
+            int[] marking = graph.getMarking(state);
+            for (int p = 0; p < marking.length; p++) {
+                assertTrue(bounds[p] < 0 || marking[p] <= bounds[p]);
+            }
+        }
+    }
+
+    // Tests for the budget
+    // ---------- IV5 ----------
+    @Test
+    public void testMaxRows() throws Exception {
+        Invariants invariants = new Invariants(SampleNets.mutex());
+        invariants.setMaxRows(0);
+        assertPlaceInvariants(invariants);
+        assertFalse(invariants.isComplete());
+        assertTrue(invariants.getPlaceInvariants().size() < 3);
+
+        invariants.setMaxRows(Invariants.DEFAULT_MAX_ROWS);
+        assertEquals(3, invariants.getPlaceInvariants().size());
+        assertTrue(invariants.isComplete());
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLivenessAnalysis {
+
+    // Tests for the liveness levels
+    // ---------- LA1 ----------
+    @Test
+    public void testLiveNet() throws Exception {
+        LivenessAnalysis analysis = new LivenessAnalysis(SampleNets.mutex());
+        assertTrue(analysis.isLive());
+        assertFalse(analysis.hasDeadlock());
+        assertEquals(-1, analysis.getDeadlock());
+        assertNull(analysis.getDeadlockWitness());
+        for (int t = 0; t < analysis.getGraph().getNet().getTransitionCount(); t++) {
+            assertEquals(LivenessAnalysis.Level.L4, analysis.getLevel(t));
+        }
+        assertEquals(1, analysis.getComponentCount());
+    }
+
+    // ---------- LA2 ----------
+    @Test
+    public void testEveryLevel() throws Exception {
+        // start chooses between a loop on pa and the dead end pb; q loops on its own
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace start = SampleNets.place(net, "start", 1);
+        AbstractPlace pa = SampleNets.place(net, "pa", 0);
+        AbstractPlace pb = SampleNets.place(net, "pb", 0);
+        AbstractPlace q = SampleNets.place(net, "q", 1);
+        AbstractPlace never = SampleNets.place(net, "never", 0);
+        AbstractTransition a = SampleNets.transition(net, "a");
+        AbstractTransition b = SampleNets.transition(net, "b");
+        AbstractTransition spin = SampleNets.transition(net, "spin");
+        AbstractTransition always = SampleNets.transition(net, "always");
+        AbstractTransition dead = SampleNets.transition(net, "dead");
+        net.addRegArc(start, a);
+        net.addRegArc(a, pa);
+        net.addRegArc(start, b);
+        net.addRegArc(b, pb);
+        net.addRegArc(pa, spin);
+        net.addRegArc(spin, pa);
+        net.addRegArc(q, always);
+        net.addRegArc(always, q);
+        net.addRegArc(never, dead);
+
+        LivenessAnalysis analysis = new LivenessAnalysis(net);
+        assertEquals(LivenessAnalysis.Level.L0, analysis.getLevel(dead));
+        assertEquals(LivenessAnalysis.Level.L1, analysis.getLevel(a));
+        assertEquals(LivenessAnalysis.Level.L1, analysis.getLevel(b));
+        assertEquals(LivenessAnalysis.Level.L3, analysis.getLevel(spin));
+        assertEquals(LivenessAnalysis.Level.L4, analysis.getLevel(always));
+        assertFalse(analysis.isLive());
+        assertFalse(analysis.hasDeadlock());
+        // the initial state, and one terminal component after each choice
+        assertEquals(3, analysis.getComponentCount());
+    }
+
+    // Tests for the deadlocks
+    // ---------- LA3 ----------
+    @Test
+    public void testDeadlockWitness() throws Exception {
+        LivenessAnalysis analysis = new LivenessAnalysis(SampleNets.forkJoin(3));
+        assertTrue(analysis.hasDeadlock());
+        assertFalse(analysis.isLive());
+        ReachabilityGraph graph = analysis.getGraph();
+        CompiledNet net = graph.getNet();
+        int deadlock = analysis.getDeadlock();
+        assertEquals(1, graph.getTokens(deadlock, SampleNets.findPlace(net, "end")));
+        AbstractTransition[] witness = analysis.getDeadlockWitness();
+        assertEquals(5, witness.length);
+        assertEquals("fork", witness[0].getLabel());
+        assertEquals("join", witness[4].getLabel());
+        // firing the witness from the initial marking reaches the deadlock
+        int[] marking = net.getInitialMarking();
+        for (AbstractTransition transition : witness) {
+            assertTrue(net.isEnabled(marking, net.indexOf(transition)));
+            net.fire(marking, net.indexOf(transition));
+        }
+        assertArrayEquals(graph.getMarking(deadlock), marking);
+        assertEquals(5, analysis.getFiringSequence(deadlock).length);
+        assertEquals(0, analysis.getFiringSequence(graph.indexOf(net.getInitialMarking())).length);
+        // nothing fires in the deadlock: no transition is live, every one fires once
+        for (int t = 0; t < net.getTransitionCount(); t++) {
+            assertEquals(LivenessAnalysis.Level.L1, analysis.getLevel(t));
+        }
+        assertEquals(graph.getStateCount(), analysis.getComponentCount());
+    }
+
+    // ---------- LA4 ----------
+    @Test
+    public void testIncompleteGraph() throws Exception {
+        StateSpaceExplorer explorer = new StateSpaceExplorer(SampleNets.forkJoin(3));
+        explorer.setMaxStates(3);
+        ReachabilityGraph graph = explorer.explore();
+        assertFalse(graph.isComplete());
+        assertThrows(IllegalArgumentException.class, () -> new LivenessAnalysis(graph));
+    }
+
+}
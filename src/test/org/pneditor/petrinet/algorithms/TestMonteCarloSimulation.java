@@ -0,0 +1,139 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMonteCarloSimulation {
+
+    // Tests for the reproducibility of the runs
+    // ---------- MC1 ----------
+    @Test
+    public void testSameResultOnAnyPool() throws Exception {
+        MonteCarloSimulation simulation = new MonteCarloSimulation(SampleNets.mutex());
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            String result = simulation.run(1000, 50, 42, one).toString();
+            assertEquals(result, simulation.run(1000, 50, 42, four).toString());
+            assertEquals(result, simulation.run(1000, 50, 42, four).toString());
+            assertNotEquals(result, simulation.run(1000, 50, 43, four).toString());
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    // Tests for the statistics
+    // ---------- MC2 ----------
+    @Test
+    public void testLiveNet() throws Exception {
+        CompiledNet net = new CompiledNet(SampleNets.mutex());
+        MonteCarloResult result = new MonteCarloSimulation(net).run(200, 100, 7);
+        assertEquals(0, result.getDeadlockCount());
+        long firings = 0;
+        for (int t = 0; t < net.getTransitionCount(); t++) {
+            firings += result.getFiringCount(net.getTransition(t));
+        }
+        assertEquals(200 * 100, firings);
+        // the semaphore and the critical sections share one token
+        double semaphore = result.getMeanTokens(SampleNets.findPlace(net, "semaphore"));
+        double critical1 = result.getMeanTokens(SampleNets.findPlace(net, "critical1"));
+        double critical2 = result.getMeanTokens(SampleNets.findPlace(net, "critical2"));
+        assertEquals(1, semaphore + critical1 + critical2, 1e-12);
+        assertEquals(0, result.getMinTokens(SampleNets.findPlace(net, "semaphore")));
+        assertEquals(1, result.getMaxTokens(SampleNets.findPlace(net, "critical1")));
+    }
+
+    // ---------- MC3 ----------
+    @Test
+    public void testEveryRunDeadlocks() throws Exception {
+        CompiledNet net = new CompiledNet(SampleNets.forkJoin(3));
+        MonteCarloResult result = new MonteCarloSimulation(net).run(100, 1000, 1);
+        assertEquals(100, result.getDeadlockCount());
+        assertEquals(1, result.getDeadlockFrequency());
+        assertEquals(100, result.getFiringCount(SampleNets.findTransition(net, "join")));
+        assertEquals(1, result.getMeanFinalTokens(SampleNets.findPlace(net, "end")));
+        assertEquals(0, result.getMeanFinalTokens(SampleNets.findPlace(net, "start")));
+        // 6 markings per run: fork, 3 steps and join
+        assertEquals(1.0 / 6, result.getMeanTokens(SampleNets.findPlace(net, "start")), 1e-12);
+    }
+
+    // ---------- MC4 ----------
+    @Test
+    public void testRunsStopAfterTheSteps() throws Exception {
+        CompiledNet net = new CompiledNet(SampleNets.forkJoin(3));
+        MonteCarloResult result = new MonteCarloSimulation(net).run(50, 2, 1);
+        assertEquals(0, result.getDeadlockCount());
+        assertEquals(50, result.getFiringCount(SampleNets.findTransition(net, "fork")));
+        assertEquals(0, result.getFiringCount(SampleNets.findTransition(net, "join")));
+    }
+
+    // ---------- MC5 ----------
+    @Test
+    public void testInhibitorAndResetArcs() throws Exception {
+        // t1, t1, t2, then t2 lacks the token of p4 that it resets
+        CompiledNet net = new CompiledNet(SampleNets.inhibitorReset());
+        MonteCarloResult result = new MonteCarloSimulation(net).run(20, 10, 3);
+        assertEquals(20, result.getDeadlockCount());
+        assertEquals(40, result.getFiringCount(SampleNets.findTransition(net, "t1")));
+        assertEquals(20, result.getFiringCount(SampleNets.findTransition(net, "t2")));
+        assertEquals(1, result.getMeanFinalTokens(SampleNets.findPlace(net, "p2")));
+        assertEquals(1, result.getMeanFinalTokens(SampleNets.findPlace(net, "p3")));
+        assertEquals(0, result.getMeanFinalTokens(SampleNets.findPlace(net, "p4")));
+        assertEquals(2, result.getMaxTokens(SampleNets.findPlace(net, "p4")));
+    }
+
+    // ---------- MC6 ----------
+    @Test
+    public void testNegativeArguments() throws Exception {
+        MonteCarloSimulation simulation = new MonteCarloSimulation(SampleNets.mutex());
+        assertThrows(IllegalArgumentException.class, () -> simulation.run(-1, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> simulation.run(10, -1, 0));
+        assertEquals(0, simulation.run(0, 10, 0).getDeadlockFrequency());
+    }
+
+    // Tests for the token overflow
+    // ---------- MC7 ----------
+    @Test
+    public void testOverflowedRuns() throws Exception {
+        // t puts 2^30 tokens in p: the second firing would overflow
+        CompiledNet net = new CompiledNet(SampleNets.source(1 << 30));
+        MonteCarloResult result = new MonteCarloSimulation(net).run(10, 5, 0);
+        assertEquals(10, result.getOverflowCount());
+        assertEquals(0, result.getDeadlockCount());
+        assertEquals(10, result.getFiringCount(SampleNets.findTransition(net, "t")));
+        assertEquals(1 << 30, result.getMeanFinalTokens(SampleNets.findPlace(net, "p")));
+        assertTrue(result.toString().contains("10 overflowed"));
+    }
+
+    // ---------- MC8 ----------
+    @Test
+    public void testFireLeavesMarkingOnOverflow() throws Exception {
+        // t takes one token of p and gives one back, takes one of r and gives 2^30 to q
+        PetriNetInterface petriNet = new PetriNetAdapter();
+        AbstractPlace p = SampleNets.place(petriNet, "p", Integer.MAX_VALUE);
+        AbstractPlace q = SampleNets.place(petriNet, "q", 0);
+        AbstractPlace r = SampleNets.place(petriNet, "r", 2);
+        AbstractTransition t = SampleNets.transition(petriNet, "t");
+        petriNet.addRegArc(p, t);
+        petriNet.addRegArc(r, t);
+        petriNet.addRegArc(t, p);
+        petriNet.setAbstractMultiplicity(petriNet.addRegArc(t, q), 1 << 30);
+        CompiledNet net = new CompiledNet(petriNet);
+
+        // p stays full, q reaches 2^31 - 1 and then would overflow
+        int[] marking = { Integer.MAX_VALUE, (1 << 30) - 1, 2 };
+        net.fire(marking, 0);
+        assertArrayEquals(new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE, 1 }, marking);
+        marking[1] = 1 << 30;
+        assertThrows(ArithmeticException.class, () -> net.fire(marking, 0));
+        assertArrayEquals(new int[] { Integer.MAX_VALUE, 1 << 30, 1 }, marking);
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParallelStateSpaceExplorer {
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private void assertSameCounts(PetriNetInterface net) throws ResetArcMultiplicityException {
+        ReachabilityGraph expected = new StateSpaceExplorer(net).explore();
+        StateSpaceSummary summary = new ParallelStateSpaceExplorer(net).explore(pool);
+        assertTrue(summary.isComplete());
+        assertEquals(expected.getStateCount(), summary.getStateCount());
+        assertEquals(expected.getEdgeCount(), summary.getEdgeCount());
+        assertEquals(expected.getDeadlocks().length, summary.getDeadlockCount());
+    }
+
+    // Tests for the counts, compared to the sequential explorer
+    // ---------- PE1 ----------
+    @Test
+    public void testSameCountsAsSequential() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        assertSameCounts(SampleNets.mutex());
+        assertSameCounts(SampleNets.forkJoin(10)); // 1026 states, many tasks
+        assertSameCounts(SampleNets.inhibitorReset());
+        // "full" starts with 1 bit and outgrows it: the exploration restarts with wider fields
+        assertSameCounts(SampleNets.buffer(300));
+    }
+
+    // ---------- PE6 ----------
+    @Test
+    public void testSameCountsWithReduction() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        // without visible transitions the stubborn set of a marking does not depend on the schedule
+        CompiledNet net = new CompiledNet(SampleNets.forkJoin(10));
+        StateSpaceExplorer sequential = new StateSpaceExplorer(net);
+        sequential.setReduction(new StubbornSetReduction(net));
+        ReachabilityGraph expected = sequential.explore();
+        for (int i = 0; i < 20; i++) {
+            ParallelStateSpaceExplorer explorer = new ParallelStateSpaceExplorer(net);
+            explorer.setReduction(new StubbornSetReduction(net));
+            StateSpaceSummary summary = explorer.explore(pool);
+            assertTrue(summary.isComplete());
+            assertEquals(expected.getStateCount(), summary.getStateCount());
+            assertEquals(expected.getEdgeCount(), summary.getEdgeCount());
+            assertEquals(expected.getDeadlocks().length, summary.getDeadlockCount());
+        }
+    }
+
+    // Tests for the state budget
+    // ---------- PE2 ----------
+    @Test
+    public void testMaxStatesNeverExceeded() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        PetriNetInterface net = SampleNets.forkJoin(12);
+        for (int i = 0; i < 20; i++) {
+            ParallelStateSpaceExplorer explorer = new ParallelStateSpaceExplorer(net);
+            explorer.setMaxStates(100);
+            StateSpaceSummary summary = explorer.explore(pool);
+            assertFalse(summary.isComplete());
+            assertEquals(100, summary.getStateCount());
+        }
+    }
+
+    // ---------- PE3 ----------
+    @Test
+    public void testMaxStatesReachedExactly() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        // as many states as the budget: complete
+        ParallelStateSpaceExplorer explorer = new ParallelStateSpaceExplorer(SampleNets.forkJoin(8));
+        explorer.setMaxStates(258);
+        StateSpaceSummary summary = explorer.explore(pool);
+        assertTrue(summary.isComplete());
+        assertEquals(258, summary.getStateCount());
+    }
+
+    // Tests for unbounded nets
+    // ---------- PE4 ----------
+    @Test
+    public void testOverflowTerminates() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        ParallelStateSpaceExplorer explorer = new ParallelStateSpaceExplorer(SampleNets.source(1 << 30));
+        explorer.setMaxStates(10);
+        StateSpaceSummary summary = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> explorer.explore(pool));
+        assertTrue(summary.hasOverflow());
+        assertFalse(summary.isComplete());
+        assertEquals(2, summary.getStateCount());
+        assertEquals(1, summary.getEdgeCount());
+    }
+
+    // ---------- PE5 ----------
+    @Test
+    public void testUnboundedStopsAtMaxStates() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        ParallelStateSpaceExplorer explorer = new ParallelStateSpaceExplorer(SampleNets.source(1));
+        explorer.setMaxStates(10);
+        StateSpaceSummary summary = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> explorer.explore(pool));
+        assertFalse(summary.hasOverflow());
+        assertFalse(summary.isComplete());
+        assertEquals(10, summary.getStateCount());
+    }
+
+}
@@ -0,0 +1,142 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSiphonsAndTraps {
+
+    private static Set<String> labels(SiphonsAndTraps analysis, int[] places) {
+        Set<String> labels = new HashSet<>();
+        for (int p : places) {
+            labels.add(analysis.getNet().getPlace(p).getLabel());
+        }
+        return labels;
+    }
+
+    private static Set<Set<String>> labels(SiphonsAndTraps analysis, List<int[]> siphons) {
+        Set<Set<String>> labels = new HashSet<>();
+        for (int[] siphon : siphons) {
+            labels.add(labels(analysis, siphon));
+        }
+        return labels;
+    }
+
+    /**
+     * p1 -> t1 -> p2 -> t2 -> p1 holding the given tokens, free-choice.
+     */
+    private static PetriNetInterface cycle(int tokens) throws Exception {
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p1 = SampleNets.place(net, "p1", tokens);
+        AbstractPlace p2 = SampleNets.place(net, "p2", 0);
+        AbstractTransition t1 = SampleNets.transition(net, "t1");
+        AbstractTransition t2 = SampleNets.transition(net, "t2");
+        net.addRegArc(p1, t1);
+        net.addRegArc(t1, p2);
+        net.addRegArc(p2, t2);
+        net.addRegArc(t2, p1);
+        return net;
+    }
+
+    // Tests for the minimal siphons and the maximal traps
+    // ---------- ST1 ----------
+    @Test
+    public void testMinimalSiphonsOfMutex() throws Exception {
+        SiphonsAndTraps analysis = new SiphonsAndTraps(SampleNets.mutex());
+        List<int[]> siphons = analysis.getMinimalSiphons();
+        assertEquals(Set.of(Set.of("semaphore", "critical1", "critical2"), Set.of("idle1", "critical1"),
+                Set.of("idle2", "critical2")), labels(analysis, siphons));
+        for (int[] siphon : siphons) {
+            assertTrue(analysis.isSiphon(siphon));
+            // each one is also a trap, marked initially
+            assertArrayEquals(siphon, analysis.getMaximalTrap(siphon));
+            assertTrue(analysis.isMarked(siphon));
+        }
+    }
+
+    // ---------- ST2 ----------
+    @Test
+    public void testMaximalTrap() throws Exception {
+        // every transition puts a token back in the net, but nothing comes back to start
+        SiphonsAndTraps analysis = new SiphonsAndTraps(SampleNets.forkJoin(2));
+        assertEquals(analysis.getNet().getPlaceCount(), analysis.getMaximalTrap().length);
+        List<int[]> siphons = analysis.getMinimalSiphons();
+        assertTrue(labels(analysis, siphons).contains(Set.of("start")));
+        for (int[] siphon : siphons) {
+            assertTrue(analysis.isSiphon(siphon));
+            if (labels(analysis, siphon).equals(Set.of("start"))) {
+                assertEquals(0, analysis.getMaximalTrap(siphon).length);
+            }
+        }
+    }
+
+    // ---------- ST3 ----------
+    @Test
+    public void testStoppedEnumeration() throws Exception {
+        SiphonsAndTraps analysis = new SiphonsAndTraps(SampleNets.mutex());
+        int[] count = new int[1];
+        assertFalse(analysis.enumerateMinimalSiphons(siphon -> ++count[0] < 2));
+        assertEquals(2, count[0]);
+        assertTrue(analysis.enumerateMinimalSiphons(siphon -> true));
+    }
+
+    // Tests for Commoner's theorem
+    // ---------- ST4 ----------
+    @Test
+    public void testCommonerLive() throws Exception {
+        SiphonsAndTraps analysis = new SiphonsAndTraps(SampleNets.buffer(3));
+        assertTrue(analysis.isExtendedFreeChoice());
+        assertEquals(SiphonsAndTraps.Verdict.LIVE, analysis.checkCommoner());
+        assertNull(analysis.getUnmarkedSiphon());
+        assertEquals(SiphonsAndTraps.Verdict.LIVE, new SiphonsAndTraps(cycle(1)).checkCommoner());
+    }
+
+    // ---------- ST5 ----------
+    @Test
+    public void testCommonerNotLive() throws Exception {
+        SiphonsAndTraps analysis = new SiphonsAndTraps(cycle(0));
+        assertEquals(SiphonsAndTraps.Verdict.NOT_LIVE, analysis.checkCommoner());
+        assertEquals(Set.of("p1", "p2"), labels(analysis, analysis.getUnmarkedSiphon()));
+
+        analysis = new SiphonsAndTraps(SampleNets.forkJoin(2));
+        assertEquals(SiphonsAndTraps.Verdict.NOT_LIVE, analysis.checkCommoner());
+        assertFalse(analysis.isMarked(analysis.getMaximalTrap(analysis.getUnmarkedSiphon())));
+    }
+
+    // ---------- ST6 ----------
+    @Test
+    public void testCommonerNotFreeChoice() throws Exception {
+        // the semaphore is shared by transitions with different inputs
+        SiphonsAndTraps analysis = new SiphonsAndTraps(SampleNets.mutex());
+        assertFalse(analysis.isExtendedFreeChoice());
+        assertEquals(SiphonsAndTraps.Verdict.UNKNOWN, analysis.checkCommoner());
+        assertFalse(new SiphonsAndTraps(SampleNets.inhibitorReset()).isExtendedFreeChoice());
+    }
+
+    // ---------- ST7 ----------
+    @Test
+    public void testCommonerOnEnumeratedSiphons() throws Exception {
+        for (PetriNetInterface net : List.of(SampleNets.buffer(3), cycle(0), cycle(1), SampleNets.forkJoin(3))) {
+            SiphonsAndTraps analysis = new SiphonsAndTraps(net);
+            List<int[]> siphons = analysis.getMinimalSiphons();
+            SiphonsAndTraps.Verdict verdict = analysis.checkCommoner();
+            int[] unmarked = analysis.getUnmarkedSiphon();
+            assertEquals(verdict, analysis.checkCommoner(siphons, true));
+            if (unmarked != null) {
+                assertFalse(analysis.isMarked(analysis.getMaximalTrap(analysis.getUnmarkedSiphon())));
+            }
+        }
+        // all the siphons given contain a marked trap, but not all were given
+        SiphonsAndTraps analysis = new SiphonsAndTraps(SampleNets.buffer(3));
+        assertEquals(SiphonsAndTraps.Verdict.UNKNOWN, analysis.checkCommoner(analysis.getMinimalSiphons(), false));
+        assertEquals(SiphonsAndTraps.Verdict.UNKNOWN, analysis.checkCommoner(List.of(), false));
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestStateSpaceExplorer {
+
+    // Tests for the counts of bounded nets
+    // ---------- SE1 ----------
+    @Test
+    public void testBoundedNets() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        ReachabilityGraph mutex = new StateSpaceExplorer(SampleNets.mutex()).explore();
+        assertTrue(mutex.isComplete());
+        assertEquals(3, mutex.getStateCount());
+        assertEquals(4, mutex.getEdgeCount());
+        assertEquals(0, mutex.getDeadlocks().length);
+
+        ReachabilityGraph forkJoin = new StateSpaceExplorer(SampleNets.forkJoin(4)).explore();
+        assertTrue(forkJoin.isComplete());
+        assertEquals(18, forkJoin.getStateCount());
+        assertEquals(34, forkJoin.getEdgeCount());
+        assertEquals(1, forkJoin.getDeadlocks().length);
+
+        ReachabilityGraph arcs = new StateSpaceExplorer(SampleNets.inhibitorReset()).explore();
+        assertTrue(arcs.isComplete());
+        assertEquals(4, arcs.getStateCount());
+        assertEquals(3, arcs.getEdgeCount());
+        assertArrayEquals(new int[] { 0, 1, 1, 0 }, arcs.getMarking(arcs.getDeadlocks()[0]));
+    }
+
+    // ---------- SE6 ----------
+    @Test
+    public void testEmptyResetPlaceDisables() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        // like the model: t resets the empty place p, so it cannot fire
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p = SampleNets.place(net, "p", 0);
+        AbstractPlace q = SampleNets.place(net, "q", 0);
+        AbstractTransition t = SampleNets.transition(net, "t");
+        net.addResArc(p, t);
+        net.addRegArc(t, q);
+        assertFalse(net.isEnabled(t));
+        CompiledNet compiled = new CompiledNet(net);
+        assertFalse(compiled.isEnabled(compiled.getInitialMarking(), 0));
+
+        ReachabilityGraph graph = new StateSpaceExplorer(net).explore();
+        assertTrue(graph.isComplete());
+        assertEquals(1, graph.getStateCount());
+        assertEquals(1, graph.getDeadlocks().length);
+
+        // once p is marked, t fires and empties it
+        net.setAbstractTokens(p, 3);
+        graph = new StateSpaceExplorer(net).explore();
+        assertEquals(2, graph.getStateCount());
+        assertArrayEquals(new int[] { 0, 1 }, graph.getMarking(graph.getDeadlocks()[0]));
+    }
+
+    // ---------- SE2 ----------
+    @Test
+    public void testDepthFirstSameCounts() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        StateSpaceExplorer explorer = new StateSpaceExplorer(SampleNets.buffer(40));
+        explorer.setOrder(StateSpaceExplorer.Order.DEPTH_FIRST);
+        ReachabilityGraph graph = explorer.explore();
+        assertEquals(41, graph.getStateCount());
+        assertEquals(80, graph.getEdgeCount());
+    }
+
+    // Tests for unbounded nets
+    // ---------- SE3 ----------
+    @Test
+    public void testUnboundedStopsAtMaxStates() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        StateSpaceExplorer explorer = new StateSpaceExplorer(SampleNets.source(1));
+        explorer.setMaxStates(10);
+        ReachabilityGraph graph = explorer.explore();
+        assertFalse(graph.isComplete());
+        assertFalse(graph.hasOverflow());
+        assertEquals(10, graph.getStateCount());
+    }
+
+    // ---------- SE4 ----------
+    @Test
+    public void testOverflowIsReported() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        StateSpaceExplorer explorer = new StateSpaceExplorer(SampleNets.source(1 << 30));
+        explorer.setMaxStates(10);
+        ReachabilityGraph graph = explorer.explore();
+        assertFalse(graph.isComplete());
+        assertTrue(graph.hasOverflow());
+        // 0 and 2^30 tokens, the next firing would overflow
+        assertEquals(2, graph.getStateCount());
+        assertEquals(1, graph.getEdgeCount());
+        for (int state = 0; state < graph.getStateCount(); state++) {
+            assertTrue(graph.getMarking(state)[0] >= 0);
+        }
+    }
+
+    // ---------- SE5 ----------
+    @Test
+    public void testFireOverflow() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        CompiledNet net = new CompiledNet(SampleNets.source(1 << 30));
+        int[] marking = net.getInitialMarking();
+        net.fire(marking, 0);
+        assertEquals(1 << 30, marking[0]);
+        assertThrows(ArithmeticException.class, () -> net.fire(marking, 0));
+    }
+
+}
@@ -0,0 +1,216 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSteadyStateSolver {
+
+    private static final double LAMBDA = 2;
+    private static final double MU = 3;
+    private static final int CAPACITY = 5;
+
+    private ForkJoinPool pool;
+    private PetriNetInterface net;
+    private AbstractPlace queue;
+    private AbstractTransition arrive;
+    private AbstractTransition serve;
+    private StochasticAttributes attributes;
+
+    @BeforeEach
+    public void setUp() throws UnimplementedCaseException {
+        pool = new ForkJoinPool(4);
+        // M/M/1/K queue: arrivals of rate LAMBDA while there is room, one server of rate MU
+        net = new PetriNetAdapter();
+        AbstractPlace free = SampleNets.place(net, "free", CAPACITY);
+        queue = SampleNets.place(net, "queue", 0);
+        arrive = SampleNets.transition(net, "arrive");
+        serve = SampleNets.transition(net, "serve");
+        net.addRegArc(free, arrive);
+        net.addRegArc(arrive, queue);
+        net.addRegArc(queue, serve);
+        net.addRegArc(serve, free);
+        attributes = new StochasticAttributes();
+        attributes.setDelay(arrive, Delay.exponential(LAMBDA));
+        attributes.setDelay(serve, Delay.exponential(MU));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return the probability of n customers in the M/M/1/K queue
+     */
+    private static double queueProbability(int n) {
+        double rho = LAMBDA / MU;
+        return Math.pow(rho, n) * (1 - rho) / (1 - Math.pow(rho, CAPACITY + 1));
+    }
+
+    private void assertMM1K(SteadyStateResult result) {
+        assertTrue(result.isConverged());
+        assertEquals(CAPACITY + 1, result.getStateCount());
+        double meanQueue = 0;
+        for (int n = 0; n <= CAPACITY; n++) {
+            meanQueue += n * queueProbability(n);
+            assertEquals(queueProbability(n), result.getProbability(new int[] { CAPACITY - n, n }), 1e-8);
+        }
+        assertEquals(meanQueue, result.getMeanTokens(queue), 1e-8);
+        double throughput = LAMBDA * (1 - queueProbability(CAPACITY));
+        assertEquals(throughput, result.getThroughput(arrive), 1e-8);
+        assertEquals(throughput, result.getThroughput(serve), 1e-8);
+        assertEquals(meanQueue / throughput, result.getResponseTime(queue, serve), 1e-8);
+    }
+
+    // Tests against the closed form of the M/M/1/K queue
+    // ---------- SS1 ----------
+    @Test
+    public void testGaussSeidel() throws Exception {
+        assertMM1K(new SteadyStateSolver(net, attributes).solve(pool));
+    }
+
+    // ---------- SS2 ----------
+    @Test
+    public void testOverRelaxedAndJacobi() throws Exception {
+        SteadyStateSolver solver = new SteadyStateSolver(net, attributes);
+        solver.setMethod(SteadyStateSolver.Method.SOR, 1.2);
+        assertMM1K(solver.solve(pool));
+        solver.setMethod(SteadyStateSolver.Method.JOR, 0.9);
+        assertMM1K(solver.solve(pool));
+    }
+
+    // ---------- SS3 ----------
+    @Test
+    public void testImmediateTransitionsVanish() throws Exception {
+        // an immediate transition between the arrival and the queue: same chain
+        AbstractPlace entering = SampleNets.place(net, "entering", 0);
+        AbstractTransition enter = SampleNets.transition(net, "enter");
+        net.removeAbstractArc(net.getOutputArcs(arrive).get(0));
+        net.addRegArc(arrive, entering);
+        net.addRegArc(entering, enter);
+        net.addRegArc(enter, queue);
+        attributes.setDelay(enter, Delay.IMMEDIATE);
+        SteadyStateResult result = new SteadyStateSolver(net, attributes).solve(pool);
+        assertEquals(CAPACITY + 1, result.getStateCount());
+        assertEquals(result.getThroughput(arrive), result.getThroughput(enter), 1e-8);
+        assertEquals(0, result.getMeanTokens(entering), 1e-12);
+    }
+
+    // Tests for chains whose initial marking is transient
+    // ---------- SS4 ----------
+    @Test
+    public void testTransientInitialMarking() throws Exception {
+        // p0 -> t0 -> p1 <-> p2: the initial marking has no inflow
+        PetriNetInterface chain = new PetriNetAdapter();
+        AbstractPlace p0 = SampleNets.place(chain, "p0", 1);
+        AbstractPlace p1 = SampleNets.place(chain, "p1", 0);
+        AbstractPlace p2 = SampleNets.place(chain, "p2", 0);
+        AbstractTransition t0 = SampleNets.transition(chain, "t0");
+        AbstractTransition t1 = SampleNets.transition(chain, "t1");
+        AbstractTransition t2 = SampleNets.transition(chain, "t2");
+        chain.addRegArc(p0, t0);
+        chain.addRegArc(t0, p1);
+        chain.addRegArc(p1, t1);
+        chain.addRegArc(t1, p2);
+        chain.addRegArc(p2, t2);
+        chain.addRegArc(t2, p1);
+        StochasticAttributes rates = new StochasticAttributes();
+        rates.setDelay(t1, Delay.exponential(1));
+        rates.setDelay(t2, Delay.exponential(3));
+
+        for (SteadyStateSolver.Method method : SteadyStateSolver.Method.values()) {
+            SteadyStateSolver solver = new SteadyStateSolver(chain, rates);
+            solver.setMethod(method, method == SteadyStateSolver.Method.SOR ? 1 : 0.8);
+            SteadyStateResult result = solver.solve(pool);
+            assertTrue(result.isConverged(), method.toString());
+            assertEquals(0, result.getProbability(new int[] { 1, 0, 0 }), 1e-9);
+            assertEquals(0.75, result.getMeanTokens(p1), 1e-8);
+            assertEquals(0.25, result.getMeanTokens(p2), 1e-8);
+            assertEquals(0, result.getThroughput(t0), 1e-9);
+        }
+    }
+
+    // ---------- SS5 ----------
+    @Test
+    public void testAbsorbingMarking() throws Exception {
+        PetriNetInterface chain = new PetriNetAdapter();
+        AbstractPlace p0 = SampleNets.place(chain, "p0", 1);
+        AbstractPlace p1 = SampleNets.place(chain, "p1", 0);
+        AbstractTransition t0 = SampleNets.transition(chain, "t0");
+        chain.addRegArc(p0, t0);
+        chain.addRegArc(t0, p1);
+        SteadyStateSolver solver = new SteadyStateSolver(chain, new StochasticAttributes());
+        assertThrows(IllegalStateException.class, () -> solver.solve(pool));
+    }
+
+    // Tests for the recurrent classes
+    // ---------- SS6 ----------
+    @Test
+    public void testSelfLoopMarking() throws Exception {
+        // a single marking, left and reached again by t
+        PetriNetInterface loop = new PetriNetAdapter();
+        AbstractPlace p = SampleNets.place(loop, "p", 1);
+        AbstractTransition t = SampleNets.transition(loop, "t");
+        loop.addRegArc(p, t);
+        loop.addRegArc(t, p);
+        StochasticAttributes rates = new StochasticAttributes();
+        rates.setDelay(t, Delay.exponential(2));
+        SteadyStateResult result = new SteadyStateSolver(loop, rates).solve(pool);
+        assertTrue(result.isConverged());
+        assertEquals(1, result.getStateCount());
+        assertEquals(1, result.getProbability(new int[] { 1 }), 1e-12);
+        assertEquals(2, result.getThroughput(t), 1e-12);
+
+        // a transient marking first: the chain ends in the self-loop
+        AbstractPlace p0 = SampleNets.place(loop, "p0", 1);
+        AbstractTransition t0 = SampleNets.transition(loop, "t0");
+        loop.addRegArc(p0, t0);
+        loop.addRegArc(t0, p);
+        loop.setAbstractTokens(p, 0);
+        for (SteadyStateSolver.Method method : SteadyStateSolver.Method.values()) {
+            SteadyStateSolver solver = new SteadyStateSolver(loop, rates);
+            solver.setMethod(method, 1);
+            result = solver.solve(pool);
+            assertEquals(2, result.getStateCount());
+            assertEquals(1, result.getMeanTokens(p), 1e-12);
+            assertEquals(0, result.getMeanTokens(p0), 1e-12);
+            assertEquals(0, result.getResidual(), 1e-12);
+        }
+    }
+
+    // ---------- SS7 ----------
+    @Test
+    public void testReducibleChain() throws Exception {
+        // t1 and t2 choose between two cycles that are never left
+        PetriNetInterface chain = new PetriNetAdapter();
+        AbstractPlace p0 = SampleNets.place(chain, "p0", 1);
+        AbstractTransition t1 = SampleNets.transition(chain, "t1");
+        AbstractTransition t2 = SampleNets.transition(chain, "t2");
+        chain.addRegArc(p0, t1);
+        chain.addRegArc(p0, t2);
+        for (AbstractTransition choice : new AbstractTransition[] { t1, t2 }) {
+            AbstractPlace a = chain.addAbstractPlace();
+            AbstractPlace b = chain.addAbstractPlace();
+            AbstractTransition forth = chain.addAbstractTransition();
+            AbstractTransition back = chain.addAbstractTransition();
+            chain.addRegArc(choice, a);
+            chain.addRegArc(a, forth);
+            chain.addRegArc(forth, b);
+            chain.addRegArc(b, back);
+            chain.addRegArc(back, a);
+        }
+        SteadyStateSolver solver = new SteadyStateSolver(chain, new StochasticAttributes());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> solver.solve(pool));
+        assertTrue(e.getMessage().contains("2 recurrent classes"), e.getMessage());
+    }
+
+}
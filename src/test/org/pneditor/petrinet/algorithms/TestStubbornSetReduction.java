@@ -0,0 +1,158 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestStubbornSetReduction {
+
+    /**
+     * Adds n independent choices, each one between two transitions: 3^n
+     * markings and 2^n deadlocks on their own
+     */
+    private static PetriNetInterface withChoices(PetriNetInterface net, int n) throws UnimplementedCaseException {
+        for (int i = 0; i < n; i++) {
+            AbstractPlace p = SampleNets.place(net, "choice" + i, 1);
+            for (String branch : new String[] { "left", "right" }) {
+                AbstractPlace q = SampleNets.place(net, branch + i, 0);
+                AbstractTransition t = SampleNets.transition(net, "take" + branch + i);
+                net.addRegArc(p, t);
+                net.addRegArc(t, q);
+            }
+        }
+        return net;
+    }
+
+    private static Set<List<Integer>> deadlocks(ReachabilityGraph graph) {
+        Set<List<Integer>> deadlocks = new HashSet<>();
+        for (int state : graph.getDeadlocks()) {
+            deadlocks.add(Arrays.stream(graph.getMarking(state)).boxed().toList());
+        }
+        return deadlocks;
+    }
+
+    /**
+     * @return the reduced graph, checked against the full one
+     */
+    private static ReachabilityGraph assertSameDeadlocks(PetriNetInterface petriNet) throws Exception {
+        CompiledNet net = new CompiledNet(petriNet);
+        ReachabilityGraph full = new StateSpaceExplorer(net).explore();
+        StateSpaceExplorer explorer = new StateSpaceExplorer(net);
+        explorer.setReduction(new StubbornSetReduction(net));
+        ReachabilityGraph reduced = explorer.explore();
+        assertTrue(full.isComplete());
+        assertTrue(reduced.isComplete());
+        assertTrue(reduced.getStateCount() <= full.getStateCount());
+        assertEquals(deadlocks(full), deadlocks(reduced));
+        return reduced;
+    }
+
+    // Tests for the deadlocks of the reduced graphs
+    // ---------- SR1 ----------
+    @Test
+    public void testSampleNets() throws Exception {
+        assertSameDeadlocks(SampleNets.mutex());
+        assertSameDeadlocks(SampleNets.buffer(4));
+        assertSameDeadlocks(SampleNets.inhibitorReset());
+        // the steps are independent: one interleaving is enough
+        ReachabilityGraph forkJoin = assertSameDeadlocks(SampleNets.forkJoin(8));
+        assertEquals(11, forkJoin.getStateCount());
+    }
+
+    // ---------- SR2 ----------
+    @Test
+    public void testIndependentChoices() throws Exception {
+        ReachabilityGraph reduced = assertSameDeadlocks(withChoices(new PetriNetAdapter(), 4));
+        assertEquals(16, reduced.getDeadlocks().length);
+        assertTrue(reduced.getStateCount() < 81);
+    }
+
+    // ---------- SR3 ----------
+    @Test
+    public void testInhibitorAndResetArcs() throws Exception {
+        assertSameDeadlocks(withChoices(SampleNets.inhibitorReset(), 2));
+        assertSameDeadlocks(withChoices(SampleNets.mutex(), 2));
+
+        // fill marks p once, reset empties it and needs a token there to fire
+        PetriNetInterface net = withChoices(new PetriNetAdapter(), 2);
+        AbstractPlace p = SampleNets.place(net, "p", 0);
+        AbstractPlace q = SampleNets.place(net, "q", 0);
+        AbstractTransition fill = SampleNets.transition(net, "fill");
+        AbstractTransition reset = SampleNets.transition(net, "reset");
+        net.addInhibArc(q, fill);
+        net.addRegArc(fill, p);
+        net.addRegArc(fill, q);
+        net.addResArc(p, reset);
+        assertSameDeadlocks(net);
+    }
+
+    // ---------- SR4 ----------
+    @Test
+    public void testParallelExplorer() throws Exception {
+        CompiledNet net = new CompiledNet(withChoices(SampleNets.forkJoin(4), 3));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StateSpaceSummary full = new ParallelStateSpaceExplorer(net).explore(pool);
+            ParallelStateSpaceExplorer explorer = new ParallelStateSpaceExplorer(net);
+            explorer.setReduction(new StubbornSetReduction(net));
+            StateSpaceSummary reduced = explorer.explore(pool);
+            assertTrue(reduced.isComplete());
+            assertEquals(8, full.getDeadlockCount());
+            assertEquals(full.getDeadlockCount(), reduced.getDeadlockCount());
+            assertTrue(reduced.getStateCount() < full.getStateCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Tests for the visible transitions
+    // ---------- SR5 ----------
+    @Test
+    public void testVisibleTransitions() throws Exception {
+        CompiledNet net = new CompiledNet(SampleNets.forkJoin(4));
+        StubbornSetReduction reduction = new StubbornSetReduction(net);
+        assertFalse(reduction.hasVisibleTransitions());
+        reduction.setVisibleTransitions(List.of(SampleNets.findTransition(net, "step0"),
+                SampleNets.findTransition(net, "step1")));
+        assertTrue(reduction.hasVisibleTransitions());
+        StateSpaceExplorer explorer = new StateSpaceExplorer(net);
+        explorer.setReduction(reduction);
+        ReachabilityGraph reduced = explorer.explore();
+
+        // both orders of step0 and step1 are kept
+        int state = reduced.indexOf(net.getInitialMarking());
+        assertEquals(1, reduced.getSuccessorCount(state));
+        state = reduced.getSuccessor(state, 0);
+        boolean[] isFirst = new boolean[2];
+        for (int i = 0; i < reduced.getSuccessorCount(state); i++) {
+            String label = net.getTransition(reduced.getSuccessorTransition(state, i)).getLabel();
+            if (label.equals("step0")) {
+                isFirst[0] = true;
+            } else if (label.equals("step1")) {
+                isFirst[1] = true;
+            }
+        }
+        assertTrue(isFirst[0] && isFirst[1]);
+        assertEquals(1, reduced.getDeadlocks().length);
+
+        // every transition visible: nothing is left out
+        List<AbstractTransition> transitions = new ArrayList<>();
+        for (int t = 0; t < net.getTransitionCount(); t++) {
+            transitions.add(net.getTransition(t));
+        }
+        reduction.setVisibleTransitions(transitions);
+        assertEquals(new StateSpaceExplorer(net).explore().getStateCount(), explorer.explore().getStateCount());
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.pneditor.petrinet.algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSymbolicStateSpace {
+
+    /**
+     * Checks the symbolic set against the markings found one by one
+     */
+    private static SymbolicStateSpace assertSameStates(PetriNetInterface petriNet) throws Exception {
+        CompiledNet net = new CompiledNet(petriNet);
+        ReachabilityGraph graph = new StateSpaceExplorer(net).explore();
+        SymbolicStateSpace symbolic = new SymbolicStateSpace(net, null);
+        assertTrue(symbolic.isBounded());
+        assertEquals(graph.getStateCount(), symbolic.getStateCount());
+        for (int state = 0; state < graph.getStateCount(); state++) {
+            assertTrue(symbolic.isReachable(graph.getMarking(state)));
+        }
+        assertEquals(graph.getDeadlocks().length > 0, symbolic.hasDeadlock());
+        if (symbolic.hasDeadlock()) {
+            int deadlock = graph.indexOf(symbolic.getDeadlock());
+            assertTrue(deadlock >= 0);
+            assertEquals(0, graph.getSuccessorCount(deadlock));
+        } else {
+            assertNull(symbolic.getDeadlock());
+        }
+        return symbolic;
+    }
+
+    // Tests against the explicit state space
+    // ---------- SY1 ----------
+    @Test
+    public void testSafeNets() throws Exception {
+        SymbolicStateSpace mutex = assertSameStates(SampleNets.mutex());
+        // both critical sections at once is not reachable
+        assertFalse(mutex.isReachable(new int[] { 0, 0, 1, 0, 1 }));
+        assertFalse(mutex.isReachable(new int[] { 2, 1, 0, 1, 0 }));
+        assertTrue(mutex.getNodeCount() > 2);
+
+        SymbolicStateSpace forkJoin = assertSameStates(SampleNets.forkJoin(10));
+        assertEquals(1026, forkJoin.getStateCount());
+        assertTrue(forkJoin.hasDeadlock());
+    }
+
+    // ---------- SY2 ----------
+    @Test
+    public void testInhibitorAndResetArcs() throws Exception {
+        SymbolicStateSpace arcs = assertSameStates(SampleNets.inhibitorReset());
+        assertArrayEquals(new int[] { 0, 1, 1, 0 }, arcs.getDeadlock());
+
+        // an empty place with a reset arc disables its transition
+        PetriNetInterface net = new PetriNetAdapter();
+        AbstractPlace p = SampleNets.place(net, "p", 0);
+        AbstractPlace q = SampleNets.place(net, "q", 0);
+        AbstractTransition t = SampleNets.transition(net, "t");
+        net.addResArc(p, t);
+        net.addRegArc(t, q);
+        SymbolicStateSpace reset = assertSameStates(net);
+        assertEquals(1, reset.getStateCount());
+    }
+
+    // Tests for the bounds
+    // ---------- SY3 ----------
+    @Test
+    public void testWidenedCounters() throws Exception {
+        // the counters start with one bit and are widened up to the capacity
+        SymbolicStateSpace buffer = assertSameStates(SampleNets.buffer(5));
+        CompiledNet net = buffer.getNet();
+        assertEquals(5, buffer.getBound(SampleNets.findPlace(net, "full")));
+        assertEquals(5, buffer.getBound(SampleNets.findPlace(net, "free")));
+
+        // with the bounds given, the same set
+        SymbolicStateSpace bounded = new SymbolicStateSpace(net, new int[] { 5, 5 });
+        assertEquals(6, bounded.getStateCount());
+        assertEquals(5, bounded.getBound(0));
+    }
+
+    // ---------- SY4 ----------
+    @Test
+    public void testUnboundedNet() throws Exception {
+        SymbolicStateSpace source = new SymbolicStateSpace(SampleNets.source(1));
+        assertFalse(source.isBounded());
+        assertEquals((1 << SymbolicStateSpace.MAX_BITS) - 1, source.getBound(0));
+        assertTrue(source.isReachable(new int[] { 1000 }));
+        assertFalse(source.isReachable(new int[] { -1 }));
+    }
+
+}
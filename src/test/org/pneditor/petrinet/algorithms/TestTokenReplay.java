@@ -0,0 +1,189 @@
+package org.pneditor.petrinet.algorithms;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTokenReplay {
+
+    @TempDir
+    Path directory;
+
+    private PetriNetInterface net;
+    private AbstractPlace p1;
+    private AbstractPlace p2;
+    private AbstractTransition c;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // start -> a -> p1 -> b -> p2 -> c -> end
+        net = new PetriNetAdapter();
+        AbstractPlace start = SampleNets.place(net, "start", 1);
+        p1 = SampleNets.place(net, "p1", 0);
+        p2 = SampleNets.place(net, "p2", 0);
+        AbstractPlace end = SampleNets.place(net, "end", 0);
+        AbstractTransition a = SampleNets.transition(net, "a");
+        AbstractTransition b = SampleNets.transition(net, "b");
+        c = SampleNets.transition(net, "c");
+        net.addRegArc(start, a);
+        net.addRegArc(a, p1);
+        net.addRegArc(p1, b);
+        net.addRegArc(b, p2);
+        net.addRegArc(p2, c);
+        net.addRegArc(c, end);
+    }
+
+    /**
+     * @param events "caseId label" pairs
+     */
+    private Path lineLog(String... events) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < events.length; i++) {
+            String[] event = events[i].split(" ", 2);
+            lines.add(event[0] + " " + i + " user " + event[1]);
+        }
+        return Files.write(directory.resolve("events.log"), lines);
+    }
+
+    private TokenReplay replay(List<String> replayed) throws Exception {
+        TokenReplay replay = new TokenReplay(net);
+        replay.setWorkers(3);
+        replay.setListener((caseId, missing, remaining, consumed, produced) -> replayed
+                .add(caseId + " " + missing + " " + remaining + " " + consumed + " " + produced));
+        return replay;
+    }
+
+    // Tests for the token counts
+    // ---------- TR1 ----------
+    @Test
+    public void testFittingLog() throws Exception {
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        ReplayResult result = replay(replayed).replay(lineLog("x a", "y a", "x b", "z a", "y b", "x c", "z b", "y c",
+                "z c"));
+        assertEquals(3, result.getCaseCount());
+        assertEquals(3, result.getFittingCaseCount());
+        assertEquals(9, result.getEventCount());
+        // 3 firings and the final marking consumed, the initial marking and 3 firings produced
+        assertEquals(12, result.getConsumed());
+        assertEquals(12, result.getProduced());
+        assertEquals(0, result.getMissing());
+        assertEquals(0, result.getRemaining());
+        assertEquals(1, result.getFitness());
+        assertEquals(3, result.getFiringCount(c));
+        Collections.sort(replayed);
+        assertEquals(List.of("x 0 0 4 4", "y 0 0 4 4", "z 0 0 4 4"), replayed);
+    }
+
+    // ---------- TR2 ----------
+    @Test
+    public void testSkippedTask() throws Exception {
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        ReplayResult result = replay(replayed).replay(lineLog("x a", "x c"));
+        // c lacks the token of p2, and the token of p1 is left
+        assertEquals(1, result.getCaseCount());
+        assertEquals(0, result.getFittingCaseCount());
+        assertEquals(1, result.getMissing());
+        assertEquals(1, result.getRemaining());
+        assertEquals(3, result.getConsumed());
+        assertEquals(3, result.getProduced());
+        assertEquals(2.0 / 3, result.getFitness(), 1e-12);
+        assertEquals(1, result.getForcedFiringCount(c));
+        assertEquals(1, result.getMissing(c));
+        assertEquals(1, result.getMissing(p2));
+        assertEquals(1, result.getRemaining(p1));
+        assertEquals(List.of("x 1 1 3 3"), replayed);
+    }
+
+    // ---------- TR3 ----------
+    @Test
+    public void testUnknownAndMalformedEvents() throws Exception {
+        Path log = lineLog("x a", "x archive", "x b", "x c");
+        Files.writeString(log, Files.readString(log) + "broken line" + System.lineSeparator());
+        ReplayResult result = replay(new ArrayList<>()).replay(log);
+        assertEquals(1, result.getCaseCount());
+        assertEquals(1, result.getFittingCaseCount());
+        assertEquals(4, result.getEventCount());
+        assertEquals(1, result.getUnknownEventCount());
+        assertEquals(1, result.getMalformedLineCount());
+    }
+
+    // Tests for the end of the cases
+    // ---------- TR4 ----------
+    @Test
+    public void testCaseTimeout() throws Exception {
+        List<String> events = new ArrayList<>();
+        events.add("x a");
+        for (int i = 0; i < 4; i++) {
+            events.add("y" + i + " a");
+            events.add("y" + i + " b");
+            events.add("y" + i + " c");
+        }
+        events.add("x b");
+        events.add("x c");
+        Path log = lineLog(events.toArray(new String[0]));
+
+        // by default x waits for its events
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        ReplayResult result = replay(replayed).replay(log);
+        assertEquals(5, result.getCaseCount());
+        assertEquals(5, result.getFittingCaseCount());
+        assertTrue(replayed.contains("x 0 0 4 4"));
+
+        // x ends after 5 events without any of it, and goes on as a new case
+        replayed.clear();
+        TokenReplay replay = replay(replayed);
+        replay.setCaseTimeout(5);
+        result = replay.replay(log);
+        assertEquals(6, result.getCaseCount());
+        assertEquals(4, result.getFittingCaseCount());
+        assertEquals(15, result.getEventCount());
+        // the first part leaves p1 and lacks end, the second one lacks p1 and leaves start
+        List<String> cases = new ArrayList<>();
+        for (String line : replayed) {
+            if (line.startsWith("x ")) {
+                cases.add(line);
+            }
+        }
+        assertEquals(List.of("x 1 1 2 2", "x 1 1 3 3"), cases);
+    }
+
+    // ---------- TR5 ----------
+    @Test
+    public void testXes() throws Exception {
+        Path log = Files.writeString(directory.resolve("events.xes"), """
+                <log>
+                  <trace>
+                    <string key="concept:name" value="t1"/>
+                    <event><string key="concept:name" value="a"/></event>
+                    <event><string key="concept:name" value="b"/><string key="lifecycle:transition" value="start"/></event>
+                    <event><string key="concept:name" value="b"/></event>
+                    <event><string key="concept:name" value="c"/></event>
+                  </trace>
+                  <trace>
+                    <string key="concept:name" value="t2"/>
+                    <event><string key="concept:name" value="a"/></event>
+                    <event><string key="concept:name" value="c"/></event>
+                  </trace>
+                </log>
+                """);
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        ReplayResult result = replay(replayed).replay(log);
+        assertEquals(2, result.getCaseCount());
+        assertEquals(1, result.getFittingCaseCount());
+        assertEquals(5, result.getEventCount());
+        Collections.sort(replayed);
+        assertEquals(List.of("t1 0 0 4 4", "t2 1 1 3 3"), replayed);
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.pneditor.petrinet.algorithms.bdd;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBddManager {
+
+    // Tests for the canonical form
+    // ---------- BD1 ----------
+    @Test
+    public void testCanonical() {
+        BddManager m = new BddManager(4, 1024);
+        int x0 = m.ref(m.ithVar(0));
+        int x1 = m.ref(m.ithVar(1));
+        assertEquals(m.and(x0, x1), m.and(x1, x0));
+        assertEquals(BddManager.ONE, m.or(x0, m.ref(m.not(x0))));
+        assertEquals(BddManager.ZERO, m.and(x0, m.nithVar(0)));
+        assertEquals(m.nithVar(0), m.not(x0));
+        // De Morgan gives the same node
+        int notAnd = m.ref(m.not(m.and(x0, x1)));
+        int orNot = m.ref(m.or(m.ref(m.not(x0)), m.ref(m.not(x1))));
+        assertEquals(notAnd, orNot);
+        assertEquals(m.and(x0, m.ref(m.not(x1))), m.diff(x0, x1));
+        assertEquals(0, m.getVar(x0));
+        assertEquals(BddManager.ZERO, m.getLow(x0));
+        assertEquals(BddManager.ONE, m.getHigh(x0));
+        assertEquals(4, m.getVar(BddManager.ONE));
+    }
+
+    // Tests for the queries
+    // ---------- BD2 ----------
+    @Test
+    public void testSatCountAndEvaluate() {
+        BddManager m = new BddManager(4, 1024);
+        int x0 = m.ref(m.ithVar(0));
+        int x3 = m.ref(m.ithVar(3));
+        int or = m.ref(m.or(x0, x3));
+        assertEquals(12, m.satCount(or));
+        assertEquals(16, m.satCount(BddManager.ONE));
+        assertEquals(0, m.satCount(BddManager.ZERO));
+        assertEquals(4, m.satCount(m.cube(new int[] { 2, 0 })));
+        assertTrue(m.evaluate(or, new boolean[] { false, false, false, true }));
+        assertFalse(m.evaluate(or, new boolean[] { false, true, true, false }));
+
+        int minterm = m.ref(m.minterm(new int[] { 0, 1, 3 }, new boolean[] { true, false, true }));
+        assertEquals(2, m.satCount(minterm));
+        assertArrayEquals(new boolean[] { true, false, false, true }, m.anySat(minterm));
+        assertNull(m.anySat(BddManager.ZERO));
+        // three nodes and the two terminals
+        assertEquals(5, m.nodeCount(minterm));
+        assertEquals(1, m.nodeCount(BddManager.ONE));
+    }
+
+    // Tests for the quantification and the renaming
+    // ---------- BD3 ----------
+    @Test
+    public void testExistsAndRelProd() {
+        BddManager m = new BddManager(4, 1024);
+        int x0 = m.ref(m.ithVar(0));
+        int x1 = m.ref(m.ithVar(1));
+        int x2 = m.ref(m.ithVar(2));
+        int cube0 = m.ref(m.cube(new int[] { 0 }));
+        assertEquals(x1, m.exists(m.ref(m.and(x0, x1)), cube0));
+        assertEquals(BddManager.ONE, m.exists(x0, cube0));
+
+        int f = m.ref(m.or(x0, x2));
+        int g = m.ref(m.and(m.ref(m.not(x0)), x1));
+        int cube01 = m.ref(m.cube(new int[] { 0, 1 }));
+        int expected = m.ref(m.exists(m.ref(m.and(f, g)), cube01));
+        assertEquals(expected, m.relProd(f, g, cube01));
+        assertEquals(x2, expected);
+    }
+
+    // ---------- BD4 ----------
+    @Test
+    public void testRename() {
+        BddManager m = new BddManager(4, 1024);
+        int f = m.ref(m.and(m.ref(m.ithVar(0)), m.ref(m.nithVar(2))));
+        int[] renaming = { 1, 1, 3, 3 };
+        int renamed = m.ref(m.rename(f, renaming));
+        assertEquals(m.and(m.ref(m.ithVar(1)), m.ref(m.nithVar(3))), renamed);
+        // another renaming is not answered from the cache of the first one
+        assertEquals(f, m.rename(renamed, new int[] { 0, 0, 2, 2 }));
+    }
+
+    // Tests for the garbage collector
+    // ---------- BD5 ----------
+    @Test
+    public void testGarbageCollection() {
+        int nbVars = 16;
+        BddManager m = new BddManager(nbVars, 1024);
+        int[] vars = new int[nbVars];
+        for (int v = 0; v < nbVars; v++) {
+            vars[v] = v;
+        }
+        Random random = new Random(5);
+        Set<Integer> assignments = new HashSet<>();
+        int set = BddManager.ZERO;
+        for (int i = 0; i < 2000; i++) {
+            int bits = random.nextInt(1 << nbVars);
+            assignments.add(bits);
+            boolean[] values = new boolean[nbVars];
+            for (int v = 0; v < nbVars; v++) {
+                values[v] = (bits >>> v & 1) != 0;
+            }
+            int minterm = m.ref(m.minterm(vars, values));
+            int next = m.ref(m.or(set, minterm));
+            m.deref(minterm);
+            m.deref(set);
+            set = next;
+            // unprotected garbage
+            values[random.nextInt(nbVars)] ^= true;
+            m.minterm(vars, values);
+        }
+        // the table grew past its initial size, and the protected set survived
+        assertTrue(m.nodeCount(set) > 1024);
+        assertEquals(assignments.size(), m.satCount(set));
+        int size = m.getNodeTableSize();
+        m.gc();
+        assertTrue(m.getNodeTableSize() <= size);
+        assertEquals(assignments.size(), m.satCount(set));
+        for (int bits : assignments) {
+            boolean[] values = new boolean[nbVars];
+            for (int v = 0; v < nbVars; v++) {
+                values[v] = (bits >>> v & 1) != 0;
+            }
+            assertTrue(m.evaluate(set, values));
+        }
+
+        // once released, everything but the terminals is collected
+        m.deref(set);
+        m.gc();
+        assertEquals(2, m.getNodeTableSize());
+    }
+
+}
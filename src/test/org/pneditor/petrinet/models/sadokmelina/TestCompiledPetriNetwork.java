@@ -0,0 +1,129 @@
+package org.pneditor.petrinet.models.sadokmelina;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCompiledPetriNetwork {
+
+    private PetriNetwork net;
+    private Place p1;
+    private Place p2;
+    private Transition t1;
+
+    @BeforeEach
+    public void setUp() {
+        net = new PetriNetwork();
+        p1 = new Place(5);
+        p2 = new Place(0);
+        t1 = new Transition();
+        net.addArc(new InputArc(p1, t1, 2));
+        net.addArc(new OutputArc(t1, p2, 3));
+    }
+
+    // Tests for the compilation of a network
+    // ---------- CC ----------
+    @Test
+    public void testCompile() {
+        CompiledPetriNetwork compiled = net.compile();
+
+        assertEquals(2, compiled.getPlaceCount());
+        assertEquals(1, compiled.getTransitionCount());
+        assertEquals(p1, compiled.getPlace(compiled.indexOf(p1)));
+        assertEquals(t1, compiled.getTransition(compiled.indexOf(t1)));
+        assertEquals(5, compiled.getTokens(compiled.indexOf(p1)));
+        assertEquals(0, compiled.getTokens(compiled.indexOf(p2)));
+    }
+
+    // Tests for firing in the compiled network, compared to the object model
+    // ---------- CF ----------
+    @Test
+    public void testFireInputOutputArcs() {
+        CompiledPetriNetwork compiled = net.compile();
+        int t = compiled.indexOf(t1);
+
+        assertTrue(compiled.isEnabled(t));
+        compiled.fire(t);
+        compiled.fire(t);
+        assertFalse(compiled.isEnabled(t)); // only 1 token left in p1
+
+        assertEquals(1, compiled.getTokens(compiled.indexOf(p1)));
+        assertEquals(6, compiled.getTokens(compiled.indexOf(p2)));
+
+        // The object model is not modified until writeBack
+        assertEquals(5, p1.getTokens());
+        compiled.writeBack();
+        assertEquals(1, p1.getTokens());
+        assertEquals(6, p2.getTokens());
+    }
+
+    @Test
+    public void testFireZeroArc() {
+        Place pZero = new Place(1);
+        net.addArc(new ZeroArc(pZero, t1));
+        CompiledPetriNetwork compiled = net.compile();
+        int t = compiled.indexOf(t1);
+
+        assertEquals(t1.canFire(), compiled.isEnabled(t));
+        assertFalse(compiled.isEnabled(t));
+
+        int[] marking = compiled.getMarking();
+        marking[compiled.indexOf(pZero)] = 0;
+        compiled.setMarking(marking);
+        assertTrue(compiled.isEnabled(t));
+        compiled.fire(t);
+        assertEquals(0, compiled.getTokens(compiled.indexOf(pZero)));
+    }
+
+    @Test
+    public void testFireResetArc() {
+        Place pReset = new Place(0);
+        net.addArc(new ResetArc(pReset, t1));
+        CompiledPetriNetwork compiled = net.compile();
+        int t = compiled.indexOf(t1);
+
+        // A reset arc needs at least one token, as in the object model
+        assertEquals(t1.canFire(), compiled.isEnabled(t));
+        assertFalse(compiled.isEnabled(t));
+
+        int[] marking = compiled.getMarking();
+        marking[compiled.indexOf(pReset)] = 4;
+        assertTrue(compiled.isEnabled(marking, t));
+        compiled.fire(marking, t);
+        assertEquals(0, marking[compiled.indexOf(pReset)]);
+        assertEquals(3, marking[compiled.indexOf(p1)]);
+
+        // The marking given as a parameter is not the one of the snapshot
+        assertEquals(0, compiled.getTokens(compiled.indexOf(pReset)));
+    }
+
+    @Test
+    public void testSnapshot() {
+        CompiledPetriNetwork compiled = net.compile();
+        p1.addTokens(10);
+        assertEquals(5, compiled.getTokens(compiled.indexOf(p1)));
+        compiled.reload();
+        assertEquals(15, compiled.getTokens(compiled.indexOf(p1)));
+    }
+
+    @Test
+    public void testSetMarkingInvalid() {
+        CompiledPetriNetwork compiled = net.compile();
+        assertThrows(PlaceExceptions.class, () -> compiled.setMarking(new int[] { 1 }));
+        assertThrows(PlaceExceptions.class, () -> compiled.setMarking(new int[] { -1, 0 }));
+        Place unknown = new Place(0);
+        assertThrows(PlaceExceptions.class, () -> compiled.indexOf(unknown));
+    }
+
+    @Test
+    public void testFireOverflow() {
+        CompiledPetriNetwork compiled = net.compile();
+        int[] marking = compiled.getMarking();
+        marking[compiled.indexOf(p2)] = Integer.MAX_VALUE - 3;
+        int t = compiled.indexOf(t1);
+        compiled.fire(marking, t);
+        assertEquals(Integer.MAX_VALUE, marking[compiled.indexOf(p2)]);
+        marking[compiled.indexOf(p1)] = 2;
+        assertThrows(ArithmeticException.class, () -> compiled.fire(marking, t));
+    }
+}
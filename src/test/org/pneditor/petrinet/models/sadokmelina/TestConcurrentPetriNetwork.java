@@ -0,0 +1,170 @@
+package org.pneditor.petrinet.models.sadokmelina;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestConcurrentPetriNetwork {
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    // Tests for the firing of maximal steps
+    // ---------- MS ----------
+    @Test
+    public void testIndependentTransitions() {
+        PetriNetwork net = new PetriNetwork();
+        Place sink = new Place(0);
+        for (int i = 0; i < 5000; i++) {
+            Place p = new Place(2);
+            Transition t = new Transition();
+            net.addArc(new InputArc(p, t, 1));
+            net.addArc(new OutputArc(t, sink, 1));
+        }
+        ConcurrentPetriNetwork concurrent = new ConcurrentPetriNetwork(net.compile(), pool);
+
+        assertEquals(5000, concurrent.step());
+        assertEquals(5000, concurrent.step());
+        assertEquals(0, concurrent.step());
+        assertEquals(10000, concurrent.getTokens(concurrent.getCompiled().indexOf(sink)));
+        assertEquals(0, concurrent.getConflictCount());
+    }
+
+    @Test
+    public void testConflict() {
+        PetriNetwork net = new PetriNetwork();
+        Place shared = new Place(3000);
+        Place sink = new Place(0);
+        List<Transition> transitions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Place p = new Place(1);
+            Transition t = new Transition();
+            net.addArc(new InputArc(p, t, 1));
+            net.addArc(new InputArc(shared, t, 1));
+            net.addArc(new OutputArc(t, sink, 1));
+            transitions.add(t);
+        }
+        ConcurrentPetriNetwork concurrent = new ConcurrentPetriNetwork(net.compile(), pool);
+        CompiledPetriNetwork compiled = concurrent.getCompiled();
+
+        // Only 3000 transitions can share the tokens, and none is left enabled
+        assertEquals(3000, concurrent.step());
+        assertEquals(0, concurrent.getTokens(compiled.indexOf(shared)));
+        assertEquals(3000, concurrent.getTokens(compiled.indexOf(sink)));
+        int nbFired = 0;
+        for (Transition t : transitions) {
+            if (concurrent.hasFired(compiled.indexOf(t))) {
+                nbFired++;
+                assertFalse(concurrent.isEnabled(compiled.indexOf(t)));
+            }
+        }
+        assertEquals(3000, nbFired);
+        assertEquals(0, concurrent.step());
+    }
+
+    @Test
+    public void testZeroAndResetArcs() {
+        PetriNetwork net = new PetriNetwork();
+        Place p1 = new Place(1);
+        Place p2 = new Place(0);
+        Place p3 = new Place(0);
+        Transition t1 = new Transition();
+        Transition tZero = new Transition();
+        Transition tReset = new Transition();
+        net.addArc(new InputArc(p1, t1, 1));
+        net.addArc(new OutputArc(t1, p2, 2));
+        net.addArc(new ZeroArc(p1, tZero));
+        net.addArc(new OutputArc(tZero, p3, 1));
+        net.addArc(new ResetArc(p2, tReset));
+        ConcurrentPetriNetwork concurrent = new ConcurrentPetriNetwork(net.compile(), pool);
+        CompiledPetriNetwork compiled = concurrent.getCompiled();
+
+        // t1 fires first, then tZero and tReset see its tokens
+        assertEquals(3, concurrent.step());
+        assertEquals(0, concurrent.getTokens(compiled.indexOf(p2)));
+        assertEquals(1, concurrent.getTokens(compiled.indexOf(p3)));
+        assertTrue(concurrent.hasFired(compiled.indexOf(tReset)));
+
+        // Only tZero stays enabled
+        assertEquals(1, concurrent.step());
+        assertEquals(2, concurrent.getTokens(compiled.indexOf(p3)));
+    }
+
+    @Test
+    public void testWriteBack() {
+        PetriNetwork net = new PetriNetwork();
+        Place p1 = new Place(5);
+        Place p2 = new Place(0);
+        Transition t1 = new Transition();
+        net.addArc(new InputArc(p1, t1, 2));
+        net.addArc(new OutputArc(t1, p2, 1));
+        ConcurrentPetriNetwork concurrent = new ConcurrentPetriNetwork(net.compile(), pool);
+
+        assertEquals(2, concurrent.run(10));
+        assertEquals(5, p1.getTokens());
+        concurrent.writeBack();
+        assertEquals(1, p1.getTokens());
+        assertEquals(2, p2.getTokens());
+    }
+
+    @Test
+    public void testProduceOverflow() {
+        PetriNetwork net = new PetriNetwork();
+        Place p1 = new Place(1);
+        Place p2 = new Place(Integer.MAX_VALUE - 1);
+        Transition t1 = new Transition();
+        net.addArc(new InputArc(p1, t1, 1));
+        net.addArc(new OutputArc(t1, p2, 2));
+        ConcurrentPetriNetwork concurrent = new ConcurrentPetriNetwork(net.compile(), pool);
+
+        assertThrows(ArithmeticException.class, () -> concurrent.step());
+        // the count of p2 does not wrap
+        assertEquals(Integer.MAX_VALUE - 1, concurrent.getTokens(concurrent.getCompiled().indexOf(p2)));
+    }
+
+    // Tests for the allocation of IDs from several threads
+    // ---------- ID ----------
+    @Test
+    public void testUniqueIds() throws InterruptedException {
+        Set<Integer> ids = new HashSet<>();
+        List<Thread> threads = new ArrayList<>();
+        List<List<Place>> created = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<Place> places = new ArrayList<>();
+            created.add(places);
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    places.add(new Place(0));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (List<Place> places : created) {
+            for (Place p : places) {
+                ids.add(p.getId());
+            }
+        }
+        assertEquals(40000, ids.size());
+    }
+}
@@ -0,0 +1,197 @@
+package org.pneditor.petrinet.models.sadokmelina;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractArc;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.ResetArcMultiplicityException;
+import org.pneditor.petrinet.UnimplementedCaseException;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import org.pneditor.petrinet.adapters.sadokmelina.TransitionAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestEnabledSet {
+
+    private PetriNetInterface net;
+    private AbstractPlace p1;
+    private AbstractPlace p2;
+    private AbstractPlace p3;
+    private AbstractTransition t1;
+    private AbstractTransition t2;
+    private AbstractTransition t3;
+
+    @BeforeEach
+    public void setUp() throws UnimplementedCaseException {
+        // p1 -> t1 -> p2 -> t2 -> p1, t3 reads p2 and is inhibited by p3
+        net = new PetriNetAdapter();
+        p1 = net.addAbstractPlace();
+        p2 = net.addAbstractPlace();
+        p3 = net.addAbstractPlace();
+        t1 = net.addAbstractTransition();
+        t2 = net.addAbstractTransition();
+        t3 = net.addAbstractTransition();
+        net.addRegArc(p1, t1);
+        net.addRegArc(t1, p2);
+        net.addRegArc(p2, t2);
+        net.addRegArc(t2, p1);
+        net.addRegArc(p2, t3);
+        net.addInhibArc(p3, t3);
+        net.setAbstractTokens(p1, 1);
+    }
+
+    // The incremental set must always be the one a full scan of the net finds
+    private void assertSameAsFullScan() throws ResetArcMultiplicityException {
+        Set<AbstractTransition> expected = new HashSet<>();
+        for (AbstractTransition transition : net.getTransitions()) {
+            if (net.isEnabled(transition)) {
+                expected.add(transition);
+            }
+        }
+        assertEquals(expected, net.getEnabledSet().getEnabledTransitions());
+    }
+
+    // ---------- ES1 ----------
+    @Test
+    public void testFire() throws ResetArcMultiplicityException {
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t1));
+
+        net.fireAbstractTransition(t1);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t1));
+        assertTrue(net.getEnabledSet().isEnabled(t2));
+        assertTrue(net.getEnabledSet().isEnabled(t3));
+
+        net.fireAbstractTransition(t3);
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().getEnabledTransitions().isEmpty());
+    }
+
+    // ---------- ES2 ----------
+    @Test
+    public void testTokens() throws ResetArcMultiplicityException {
+        net.addAbstractToken(p2);
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t3));
+
+        // the inhibitor arc disables t3
+        net.addAbstractToken(p3);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t3));
+
+        net.removeAbstractToken(p3);
+        net.removeAbstractToken(p1);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t1));
+
+        net.setAbstractTokens(p1, 4);
+        assertSameAsFullScan();
+    }
+
+    // ---------- ES3 ----------
+    @Test
+    public void testMultiplicity() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        AbstractArc arc = net.getOutputArcs(p1).get(0);
+        net.setAbstractMultiplicity(arc, 2);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t1));
+
+        net.addAbstractToken(p1);
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t1));
+
+        net.setAbstractMultiplicity(arc, 3);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t1));
+    }
+
+    // ---------- ES4 ----------
+    @Test
+    public void testRemoveArcs() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        net.addAbstractToken(p2);
+        net.addAbstractToken(p3);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t3));
+
+        net.removeAbstractArc(net.getInhibitoryArcs(p3).get(0));
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t3));
+
+        // t1 no longer needs a token once its input arc is gone
+        net.removeAbstractToken(p1);
+        net.removeAbstractArc(net.getOutputArcs(p1).get(0));
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t1));
+
+        // a reset arc added on an empty place disables the transition
+        net.addResArc(p1, t1);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().isEnabled(t1));
+    }
+
+    // ---------- ES5 ----------
+    @Test
+    public void testRemoveNodes() throws ResetArcMultiplicityException {
+        net.fireAbstractTransition(t1);
+        assertSameAsFullScan();
+
+        // t3 is no longer inhibited once p3 is removed, and p3 is no longer indexed
+        net.addAbstractToken(p3);
+        assertSameAsFullScan();
+        net.removeAbstractPlace(p3);
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t3));
+        assertTrue(net.getInhibitoryArcs(t3).isEmpty());
+
+        net.removeAbstractTransition(t2);
+        assertSameAsFullScan();
+        assertFalse(net.getEnabledSet().getEnabledTransitions().contains(t2));
+        assertFalse(net.getDependentTransitions(p2).contains(t2));
+
+        // the places of a removed transition are no longer changed by it
+        net.removeAbstractTransition(t1);
+        assertTrue(net.getChangedPlaces(t1).isEmpty());
+        assertTrue(net.getDependentTransitions(p1).isEmpty());
+        net.fireAbstractTransition(t3);
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().getEnabledTransitions().isEmpty());
+
+        net.removeAbstractPlace(p2);
+        assertSameAsFullScan();
+        assertTrue(net.getChangedPlaces(t3).isEmpty());
+        assertTrue(net.getEnabledSet().isEnabled(t3));
+    }
+
+    // ---------- ES6 ----------
+    @Test
+    public void testRemoveNodeRemovesArcs() throws ResetArcMultiplicityException, UnimplementedCaseException {
+        net.addResArc(p3, t1);
+        Transition modelT1 = ((TransitionAdapter) t1).getTransition();
+        assertEquals(2, modelT1.getInputArcs().size());
+
+        // the arcs of a removed place are removed from the model and from the other end
+        net.removeAbstractPlace(p1);
+        net.removeAbstractPlace(p3);
+        assertTrue(modelT1.getInputArcs().isEmpty());
+        assertTrue(net.getInputArcs(t1).isEmpty());
+        assertTrue(net.getOutputArcs(t2).isEmpty());
+        assertEquals(List.of(p2), net.getChangedPlaces(t2));
+        assertSameAsFullScan();
+        assertTrue(net.getEnabledSet().isEnabled(t1));
+
+        // the arcs of a removed transition are no longer arcs of its places
+        net.removeAbstractTransition(t1);
+        assertTrue(net.getInputArcs(p2).isEmpty());
+        net.removeAbstractTransition(t3);
+        assertEquals(1, net.getOutputArcs(p2).size());
+        assertEquals(List.of(t2), net.getDependentTransitions(p2));
+        assertSameAsFullScan();
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.pneditor.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pneditor.petrinet.AbstractPlace;
+import org.pneditor.petrinet.AbstractTransition;
+import org.pneditor.petrinet.PetriNetInterface;
+import org.pneditor.petrinet.adapters.sadokmelina.PetriNetAdapter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorkflowEngine {
+
+    private AbstractPlace start;
+    private AbstractPlace registered;
+    private AbstractPlace done;
+    private WorkflowEngine engine;
+
+    private AbstractPlace place(PetriNetInterface net, String label, int tokens) {
+        AbstractPlace place = net.addAbstractPlace();
+        place.setLabel(label);
+        net.setAbstractTokens(place, tokens);
+        return place;
+    }
+
+    private AbstractTransition task(PetriNetInterface net, String label) {
+        AbstractTransition transition = net.addAbstractTransition();
+        transition.setLabel(label);
+        return transition;
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // start -> register -> registered -> approve or reject -> done
+        PetriNetInterface net = new PetriNetAdapter();
+        start = place(net, "start", 1);
+        registered = place(net, "registered", 0);
+        done = place(net, "done", 0);
+        AbstractTransition register = task(net, "register");
+        net.addRegArc(start, register);
+        net.addRegArc(register, registered);
+        for (String label : new String[] { "approve", "reject" }) {
+            AbstractTransition decide = task(net, label);
+            net.addRegArc(registered, decide);
+            net.addRegArc(decide, done);
+        }
+        engine = new WorkflowEngine(net, 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        engine.close();
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        return e.getCause();
+    }
+
+    // Tests for the cases
+    // ---------- WE1 ----------
+    @Test
+    public void testCase() {
+        String caseId = engine.startCase().join();
+        WorkflowEngine.CaseState state = engine.getState(caseId).join();
+        assertEquals(caseId, state.getCaseId());
+        assertEquals(1, state.getTokens(start));
+        assertEquals(List.of("register"), state.getEnabledTasks());
+
+        assertFalse(engine.fireTask(caseId, "approve", "u").join());
+        assertTrue(engine.fireTask(caseId, "register", "u").join());
+        assertTrue(engine.fireTask(caseId, "reject", "u").join());
+        state = engine.getState(caseId).join();
+        assertTrue(state.isCompleted());
+        assertEquals(0, state.getTokens(start));
+        assertEquals(0, state.getTokens(registered));
+        assertEquals(1, state.getTokens(done));
+    }
+
+    // ---------- WE2 ----------
+    @Test
+    public void testOperationsOfACaseInOrder() {
+        // asked without waiting, done in the order they were asked
+        CompletableFuture<String> started = engine.startCase("c");
+        CompletableFuture<Boolean> register = engine.fireTask("c", "register", "u");
+        CompletableFuture<Boolean> approve = engine.fireTask("c", "approve", "u");
+        CompletableFuture<Boolean> again = engine.fireTask("c", "approve", "u");
+        CompletableFuture<Boolean> ended = engine.endCase("c");
+        assertEquals("c", started.join());
+        assertTrue(register.join());
+        assertTrue(approve.join());
+        assertFalse(again.join());
+        assertTrue(ended.join());
+        assertFalse(engine.endCase("c").join());
+    }
+
+    // ---------- WE3 ----------
+    @Test
+    public void testUnknownCaseAndTask() {
+        engine.startCase("c").join();
+        assertInstanceOf(IllegalArgumentException.class, failure(engine.startCase("c")));
+        assertInstanceOf(IllegalArgumentException.class, failure(engine.fireTask("other", "register", "u")));
+        assertInstanceOf(IllegalArgumentException.class, failure(engine.fireTask("c", "archive", "u")));
+        assertInstanceOf(IllegalArgumentException.class, failure(engine.getState("other")));
+        assertEquals(1, engine.getCaseCount());
+    }
+
+    // Tests for concurrent cases
+    // ---------- WE4 ----------
+    @Test
+    public void testConcurrentCases() throws Exception {
+        int nbThreads = 8;
+        int nbCases = 500;
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < nbThreads; i++) {
+            String prefix = "t" + i + "-";
+            threads.add(new Thread(() -> {
+                try {
+                    List<CompletableFuture<Boolean>> fired = new ArrayList<>();
+                    for (int k = 0; k < nbCases; k++) {
+                        String caseId = prefix + k;
+                        engine.startCase(caseId);
+                        fired.add(engine.fireTask(caseId, "register", "u"));
+                        fired.add(engine.fireTask(caseId, k % 2 == 0 ? "approve" : "reject", "u"));
+                    }
+                    for (CompletableFuture<Boolean> future : fired) {
+                        assertTrue(future.join());
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), errors);
+        assertEquals(nbThreads * nbCases, engine.getCaseCount());
+        for (int i = 0; i < nbThreads; i++) {
+            for (int k = 0; k < nbCases; k += 97) {
+                WorkflowEngine.CaseState state = engine.getState("t" + i + "-" + k).join();
+                assertTrue(state.isCompleted());
+                assertEquals(1, state.getTokens(done));
+            }
+        }
+    }
+
+    // Tests for the listener
+    // ---------- WE5 ----------
+    @Test
+    public void testListener() throws Exception {
+        ConcurrentHashMap<String, List<String>> fired = new ConcurrentHashMap<>();
+        List<Integer> counts = new ArrayList<>();
+        engine.setListener((caseId, task, userId) -> {
+            fired.computeIfAbsent(caseId, id -> new ArrayList<>()).add(task.getLabel() + " by " + userId);
+            // counting the cases from the loop does not wait for the loops
+            synchronized (counts) {
+                counts.add(engine.getCaseCount());
+            }
+        });
+        for (int k = 0; k < 10; k++) {
+            engine.startCase("c" + k);
+            engine.fireTask("c" + k, "register", "u1");
+        }
+        for (int k = 0; k < 10; k++) {
+            assertTrue(engine.fireTask("c" + k, "approve", "u2").get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(20, counts.size());
+        for (int k = 0; k < 10; k++) {
+            assertEquals(List.of("register by u1", "approve by u2"), fired.get("c" + k));
+        }
+    }
+
+    // ---------- WE6 ----------
+    @Test
+    public void testListenerFailure() throws Exception {
+        engine.setListener((caseId, task, userId) -> {
+            throw new IllegalStateException("listener failed");
+        });
+        engine.startCase("c").join();
+        // the task fired all the same
+        assertTrue(engine.fireTask("c", "register", "u").get(5, TimeUnit.SECONDS));
+        assertEquals(1, engine.getState("c").join().getTokens(registered));
+    }
+
+}
@@ -0,0 +1,250 @@
+package org.pneditor.workflow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorkflowLogger {
+
+    @TempDir
+    Path directory;
+
+    private List<String[]> readLines(Path file) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(line.trim().split("\\s+"));
+        }
+        return lines;
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    // Tests for the order of the lines
+    // ---------- WL1 ----------
+    @Test
+    public void testOrderPerThread() throws Exception {
+        int nbThreads = 4;
+        int nbLines = 5000;
+        WorkflowLogger logger = new WorkflowLogger(directory.toString(), "order", 64);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < nbThreads; i++) {
+            String caseId = "case" + i;
+            threads.add(new Thread(() -> {
+                for (int k = 0; k < nbLines; k++) {
+                    assertTrue(logger.log(caseId, "task" + k, "user"));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logger.close();
+
+        assertEquals(nbThreads * nbLines, logger.getWrittenCount());
+        assertEquals(0, logger.getDroppedCount());
+        assertEquals(0, logger.getErrorCount());
+        assertTrue(logger.getBatchCount() <= logger.getWrittenCount());
+        // the lines of each thread keep their order
+        Map<String, Integer> next = new HashMap<>();
+        List<String[]> lines = readLines(directory.resolve("order.log"));
+        assertEquals(nbThreads * nbLines, lines.size());
+        for (String[] line : lines) {
+            int expected = next.getOrDefault(line[0], 0);
+            assertEquals("task" + expected, line[3]);
+            next.put(line[0], expected + 1);
+        }
+    }
+
+    // Tests for flush and close
+    // ---------- WL2 ----------
+    @Test
+    public void testFlush() throws Exception {
+        try (WorkflowLogger logger = new WorkflowLogger(directory.toString(), "flush", 16)) {
+            logger.log("c1", "a", "u1");
+            logger.log("c1", "b", "u2");
+            logger.flush();
+            List<String[]> lines = readLines(directory.resolve("flush.log"));
+            assertEquals(2, lines.size());
+            assertEquals("u2", lines.get(1)[2]);
+        }
+    }
+
+    // ---------- WL3 ----------
+    @Test
+    public void testClose() throws Exception {
+        WorkflowLogger logger = new WorkflowLogger(directory.toString(), "close", 1024);
+        for (int k = 0; k < 1000; k++) {
+            logger.log("c", "t" + k, "u");
+        }
+        logger.close();
+        // everything logged before close is written
+        assertEquals(1000, readLines(directory.resolve("close.log")).size());
+        assertFalse(logger.log("c", "late", "u"));
+        assertEquals(1, logger.getDroppedCount());
+        assertEquals(1000, readLines(directory.resolve("close.log")).size());
+    }
+
+    // ---------- WL4 ----------
+    @Test
+    public void testAppendsToExistingFile() throws Exception {
+        Files.writeString(directory.resolve("append.log"), "old  0    u  t" + System.lineSeparator());
+        try (WorkflowLogger logger = new WorkflowLogger(directory.toString(), "append", 16)) {
+            logger.log("new", "t", "u");
+        }
+        List<String[]> lines = readLines(directory.resolve("append.log"));
+        assertEquals(2, lines.size());
+        assertEquals("old", lines.get(0)[0]);
+        assertEquals("new", lines.get(1)[0]);
+    }
+
+    // Tests for the rotation
+    // ---------- WL5 ----------
+    @Test
+    public void testRotationBySize() throws Exception {
+        WorkflowLogger logger = new WorkflowLogger(directory.toString(), "rotate", 16);
+        logger.setRotation(100, Long.MAX_VALUE);
+        for (int k = 0; k < 20; k++) {
+            logger.log("case", "task" + k, "user");
+            logger.flush();
+        }
+        logger.close();
+
+        List<Path> files = logFiles();
+        assertTrue(logger.getRotationCount() > 0);
+        assertEquals(logger.getRotationCount() + 1, files.size());
+        assertEquals(0, logger.getErrorCount());
+        // no line is lost, and each file stops growing once past the size
+        int total = 0;
+        for (Path file : files) {
+            List<String> lines = Files.readAllLines(file);
+            total += lines.size();
+            if (!file.getFileName().toString().equals("rotate.log")) {
+                String last = lines.get(lines.size() - 1) + System.lineSeparator();
+                assertTrue(Files.size(file) - last.length() < 100);
+            }
+        }
+        assertEquals(20, total);
+    }
+
+    // ---------- WL6 ----------
+    @Test
+    public void testFailedRotationKeepsLogging() throws Exception {
+        Path file = directory.resolve("failed.log");
+        try (WorkflowLogger logger = new WorkflowLogger(directory.toString(), "failed", 16)) {
+            logger.setRotation(1, Long.MAX_VALUE);
+            logger.log("c", "t1", "u");
+            logger.flush();
+            // the file cannot be renamed any more
+            Files.delete(file);
+            logger.log("c", "t2", "u");
+            logger.flush();
+            assertEquals(1, logger.getErrorCount());
+            assertEquals(0, logger.getRotationCount());
+            // the file was opened again, and later rotations work
+            logger.log("c", "t3", "u");
+            logger.flush();
+            assertEquals(1, logger.getErrorCount());
+            assertEquals(1, logger.getRotationCount());
+            assertEquals(3, logger.getWrittenCount());
+        }
+        assertEquals("t3", readLines(file).get(0)[3]);
+    }
+
+    // Tests for the writer thread
+    // ---------- WL7 ----------
+    @Test
+    public void testIdleWriterParks() throws Exception {
+        try (WorkflowLogger logger = new WorkflowLogger(directory.toString(), "idle", 16)) {
+            logger.log("c", "t", "u");
+            logger.flush();
+            Thread writer = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("Workflow logger idle")).findFirst().orElseThrow();
+            // parked without timeout, not polling
+            long deadline = System.currentTimeMillis() + 5000;
+            while (writer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(Thread.State.WAITING, writer.getState());
+            // and woken by the next line
+            logger.log("c", "t2", "u");
+            logger.flush();
+            assertEquals(2, readLines(directory.resolve("idle.log")).size());
+        }
+    }
+
+    // ---------- WL8 ----------
+    @Test
+    public void testLogRacingClose() throws Exception {
+        // a line accepted while the logger closes is in the file, the others are dropped
+        for (int round = 0; round < 50; round++) {
+            WorkflowLogger logger = new WorkflowLogger(directory.toString(), "race" + round, 64);
+            logger.setCommitInterval(0);
+            long[] accepted = new long[4];
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < accepted.length; i++) {
+                int index = i;
+                threads.add(new Thread(() -> {
+                    while (logger.log("case" + index, "t", "u")) {
+                        accepted[index]++;
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            Thread.sleep(1);
+            logger.close();
+            long total = 0;
+            for (int i = 0; i < threads.size(); i++) {
+                threads.get(i).join();
+                total += accepted[i];
+            }
+            assertEquals(total, readLines(directory.resolve("race" + round + ".log")).size());
+            assertEquals(total, logger.getWrittenCount());
+            assertEquals(threads.size(), logger.getDroppedCount());
+        }
+    }
+
+    // ---------- WL9 ----------
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testBlockWithDeadWriter() throws Exception {
+        WorkflowLogger logger = new WorkflowLogger(directory.toString(), "dead", 4);
+        logger.setOverflowPolicy(WorkflowLogger.OverflowPolicy.BLOCK);
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("Workflow logger dead")).findFirst().orElseThrow();
+        // as if the writer had died of an error
+        writer.stop();
+        writer.join();
+        // a line put in a buffer nobody reads is dropped, and a full buffer does not wait forever
+        boolean[] results = new boolean[10];
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int k = 0; k < results.length; k++) {
+                results[k] = logger.log("c", "t" + k, "u");
+            }
+        });
+        for (boolean result : results) {
+            assertFalse(result);
+        }
+        assertEquals(results.length, logger.getDroppedCount());
+        logger.close();
+    }
+
+}